@@ -0,0 +1,58 @@
+package com.github.xuchen93.grpc.accesslog;
+
+/**
+ * 访问日志二进制格式定义
+ * <pre>
+ * 段文件 access-{序号}.seg：
+ *   头部 16 字节：magic(int) | version(int) | recordSize(int) | reserved(int)
+ *   记录 96 字节，按写入顺序紧密排列，startEpochMillis为0表示段内数据结束
+ *
+ * 记录布局（大端序）：
+ *   0  startEpochMillis  long
+ *   8  requestId         long
+ *   16 durationNanos     long
+ *   24 requestBytes      long
+ *   32 responseBytes     long
+ *   40 methodId          int   （对应methods.dict中的方法名）
+ *   44 statusCode        int
+ *   48 requestMessages   int
+ *   52 responseMessages  int
+ *   56 side              byte  （0=server, 1=client）
+ *   57 traceIdLength     byte
+ *   58 reserved          6字节
+ *   64 traceId           32字节ASCII，超出部分截断
+ * </pre>
+ */
+public final class AccessLogFormat {
+
+	private AccessLogFormat() {
+		// 常量类，禁止实例化
+	}
+
+	public static final int MAGIC = 0x47414C31;
+	public static final int VERSION = 1;
+	public static final int HEADER_SIZE = 16;
+	public static final int RECORD_SIZE = 96;
+	public static final int TRACE_ID_MAX = 32;
+
+	public static final int OFF_START = 0;
+	public static final int OFF_REQUEST_ID = 8;
+	public static final int OFF_DURATION = 16;
+	public static final int OFF_REQUEST_BYTES = 24;
+	public static final int OFF_RESPONSE_BYTES = 32;
+	public static final int OFF_METHOD_ID = 40;
+	public static final int OFF_STATUS = 44;
+	public static final int OFF_REQUEST_MESSAGES = 48;
+	public static final int OFF_RESPONSE_MESSAGES = 52;
+	public static final int OFF_SIDE = 56;
+	public static final int OFF_TRACE_ID_LENGTH = 57;
+	public static final int OFF_TRACE_ID = 64;
+
+	public static final String SEGMENT_PREFIX = "access-";
+	public static final String SEGMENT_SUFFIX = ".seg";
+	public static final String METHOD_DICT = "methods.dict";
+
+	public static String segmentName(long index) {
+		return String.format("%s%08d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+	}
+}
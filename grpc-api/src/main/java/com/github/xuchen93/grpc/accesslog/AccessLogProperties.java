@@ -0,0 +1,46 @@
+package com.github.xuchen93.grpc.accesslog;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 二进制访问日志配置，服务端和客户端的日志拦截器共用
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.access-log")
+public class AccessLogProperties {
+
+	/**
+	 * 是否开启二进制访问日志
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * 段文件目录
+	 */
+	private String dir = "logs/access";
+
+	/**
+	 * 环形缓冲区槽位数，写线程跟不上时超出部分直接丢弃
+	 */
+	private int bufferSize = 8192;
+
+	/**
+	 * 单个段文件大小
+	 */
+	private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+	/**
+	 * 未开启时返回NOOP
+	 */
+	public AccessLogSink toSink() throws IOException {
+		if (!enabled) {
+			return AccessLogSink.NOOP;
+		}
+		return new MappedAccessLogSink(Paths.get(dir), bufferSize, segmentSize.toBytes());
+	}
+}
@@ -0,0 +1,175 @@
+package com.github.xuchen93.grpc.accesslog;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 访问日志读取与转换工具
+ * <pre>
+ * 用法：java -cp grpc-api.jar com.github.xuchen93.grpc.accesslog.AccessLogReader &lt;dir&gt; [选项]
+ *   --method &lt;子串&gt;        只输出方法名包含该子串的记录
+ *   --trace &lt;traceId&gt;      只输出指定TraceId的记录
+ *   --status &lt;code&gt;        只输出指定状态码的记录（0=OK）
+ *   --errors               只输出失败的记录
+ *   --min-duration-ms &lt;n&gt;  只输出耗时不小于n毫秒的记录
+ *   --format text|csv|json 输出格式，默认text
+ * </pre>
+ */
+public class AccessLogReader {
+
+	/**
+	 * 解码后的一条访问记录
+	 */
+	public record Entry(long startEpochMillis, long requestId, String traceId, String methodName, byte side,
+						int statusCode, long durationNanos, long requestBytes, long responseBytes,
+						int requestMessages, int responseMessages) {
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: AccessLogReader <dir> [--method m] [--trace t] [--status n] [--errors] [--min-duration-ms n] [--format text|csv|json]");
+			System.exit(1);
+		}
+		Path directory = Paths.get(args[0]);
+		Predicate<Entry> filter = e -> true;
+		String format = "text";
+		for (int i = 1; i < args.length; i++) {
+			switch (args[i]) {
+				case "--method" -> {
+					String method = args[++i];
+					filter = filter.and(e -> e.methodName().contains(method));
+				}
+				case "--trace" -> {
+					String trace = args[++i];
+					filter = filter.and(e -> e.traceId().equals(trace));
+				}
+				case "--status" -> {
+					int status = Integer.parseInt(args[++i]);
+					filter = filter.and(e -> e.statusCode() == status);
+				}
+				case "--errors" -> filter = filter.and(e -> e.statusCode() != 0);
+				case "--min-duration-ms" -> {
+					long minNanos = Long.parseLong(args[++i]) * 1_000_000L;
+					filter = filter.and(e -> e.durationNanos() >= minNanos);
+				}
+				case "--format" -> format = args[++i];
+				default -> throw new IllegalArgumentException("Unknown option: " + args[i]);
+			}
+		}
+
+		PrintStream out = System.out;
+		String outputFormat = format;
+		if ("csv".equals(outputFormat)) {
+			out.println("start,requestId,traceId,method,side,status,durationNanos,requestBytes,responseBytes,requestMessages,responseMessages");
+		}
+		Predicate<Entry> finalFilter = filter;
+		read(directory, entry -> {
+			if (finalFilter.test(entry)) {
+				out.println(render(entry, outputFormat));
+			}
+		});
+	}
+
+	/**
+	 * 按段序号顺序读取目录下的全部记录
+	 */
+	public static void read(Path directory, Consumer<Entry> consumer) throws IOException {
+		Map<Integer, String> methods = new HashMap<>();
+		loadMethodIds(directory.resolve(AccessLogFormat.METHOD_DICT)).forEach((name, id) -> methods.put(id, name));
+		List<Path> segments;
+		try (Stream<Path> files = Files.list(directory)) {
+			segments = files.filter(p -> {
+						String name = p.getFileName().toString();
+						return name.startsWith(AccessLogFormat.SEGMENT_PREFIX) && name.endsWith(AccessLogFormat.SEGMENT_SUFFIX);
+					})
+					.sorted()
+					.toList();
+		}
+		for (Path segment : segments) {
+			readSegment(segment, methods, consumer);
+		}
+	}
+
+	private static void readSegment(Path path, Map<Integer, String> methods, Consumer<Entry> consumer) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.remaining() < AccessLogFormat.HEADER_SIZE || buffer.getInt(0) != AccessLogFormat.MAGIC) {
+				throw new IOException("Not an access log segment: " + path);
+			}
+			int recordSize = buffer.getInt(8);
+			byte[] traceBytes = new byte[AccessLogFormat.TRACE_ID_MAX];
+			for (int base = AccessLogFormat.HEADER_SIZE; base + recordSize <= buffer.limit(); base += recordSize) {
+				long start = buffer.getLong(base + AccessLogFormat.OFF_START);
+				if (start == 0) {
+					break;
+				}
+				int traceLength = buffer.get(base + AccessLogFormat.OFF_TRACE_ID_LENGTH);
+				buffer.get(base + AccessLogFormat.OFF_TRACE_ID, traceBytes, 0, traceLength);
+				int methodId = buffer.getInt(base + AccessLogFormat.OFF_METHOD_ID);
+				consumer.accept(new Entry(
+						start,
+						buffer.getLong(base + AccessLogFormat.OFF_REQUEST_ID),
+						new String(traceBytes, 0, traceLength, StandardCharsets.US_ASCII),
+						methods.getOrDefault(methodId, "#" + methodId),
+						buffer.get(base + AccessLogFormat.OFF_SIDE),
+						buffer.getInt(base + AccessLogFormat.OFF_STATUS),
+						buffer.getLong(base + AccessLogFormat.OFF_DURATION),
+						buffer.getLong(base + AccessLogFormat.OFF_REQUEST_BYTES),
+						buffer.getLong(base + AccessLogFormat.OFF_RESPONSE_BYTES),
+						buffer.getInt(base + AccessLogFormat.OFF_REQUEST_MESSAGES),
+						buffer.getInt(base + AccessLogFormat.OFF_RESPONSE_MESSAGES)));
+			}
+		}
+	}
+
+	/**
+	 * 读取方法字典，返回 方法名 -> id
+	 */
+	static Map<String, Integer> loadMethodIds(Path dictPath) throws IOException {
+		Map<String, Integer> ids = new HashMap<>();
+		if (!Files.exists(dictPath)) {
+			return ids;
+		}
+		for (String line : Files.readAllLines(dictPath, StandardCharsets.UTF_8)) {
+			int tab = line.indexOf('\t');
+			if (tab > 0) {
+				ids.put(line.substring(tab + 1), Integer.parseInt(line.substring(0, tab)));
+			}
+		}
+		return ids;
+	}
+
+	private static String render(Entry e, String format) {
+		String side = e.side() == AccessLogSink.SIDE_SERVER ? "server" : "client";
+		return switch (format) {
+			case "csv" -> String.join(",", Instant.ofEpochMilli(e.startEpochMillis()).toString(),
+					String.valueOf(e.requestId()), e.traceId(), e.methodName(), side, String.valueOf(e.statusCode()),
+					String.valueOf(e.durationNanos()), String.valueOf(e.requestBytes()), String.valueOf(e.responseBytes()),
+					String.valueOf(e.requestMessages()), String.valueOf(e.responseMessages()));
+			case "json" -> String.format("{\"start\":\"%s\",\"requestId\":%d,\"traceId\":\"%s\",\"method\":\"%s\",\"side\":\"%s\","
+							+ "\"status\":%d,\"durationNanos\":%d,\"requestBytes\":%d,\"responseBytes\":%d,"
+							+ "\"requestMessages\":%d,\"responseMessages\":%d}",
+					Instant.ofEpochMilli(e.startEpochMillis()), e.requestId(), e.traceId(), e.methodName(), side,
+					e.statusCode(), e.durationNanos(), e.requestBytes(), e.responseBytes(),
+					e.requestMessages(), e.responseMessages());
+			default -> String.format("%s [%s][%d][%s][%s] status=%d cost=%.3fms req=%dB/%d resp=%dB/%d",
+					Instant.ofEpochMilli(e.startEpochMillis()), e.traceId(), e.requestId(), e.methodName(), side,
+					e.statusCode(), e.durationNanos() / 1_000_000.0, e.requestBytes(), e.requestMessages(),
+					e.responseBytes(), e.responseMessages());
+		};
+	}
+}
@@ -0,0 +1,32 @@
+package com.github.xuchen93.grpc.accesslog;
+
+/**
+ * 访问日志接收端，由日志拦截器在调用结束时写入一条定长记录
+ * 实现必须是非阻塞的，不能在请求线程上做IO或格式化
+ */
+public interface AccessLogSink {
+
+	/**
+	 * 服务端记录
+	 */
+	byte SIDE_SERVER = 0;
+
+	/**
+	 * 客户端记录
+	 */
+	byte SIDE_CLIENT = 1;
+
+	/**
+	 * 不记录任何内容的实现
+	 */
+	AccessLogSink NOOP = (side, requestId, traceId, methodName, statusCode, startEpochMillis, durationNanos,
+						  requestBytes, responseBytes, requestMessages, responseMessages) -> {
+	};
+
+	/**
+	 * 写入一条访问记录，参数均为基本类型或已存在的字符串引用，不产生额外分配
+	 */
+	void append(byte side, long requestId, String traceId, String methodName, int statusCode,
+				long startEpochMillis, long durationNanos,
+				long requestBytes, long responseBytes, int requestMessages, int responseMessages);
+}
@@ -0,0 +1,286 @@
+package com.github.xuchen93.grpc.accesslog;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+/**
+ * 基于无锁环形缓冲区 + 内存映射分段文件的访问日志
+ * <ul>
+ *     <li>请求线程通过CAS占用一个预分配的槽位并填充基本类型字段，缓冲区满时直接丢弃并计数，从不阻塞</li>
+ *     <li>单个写线程按序批量取出已发布的槽位，编码为定长记录写入当前段的MappedByteBuffer</li>
+ *     <li>段写满后滚动到新文件，方法名通过methods.dict映射为int，记录中不保存字符串</li>
+ * </ul>
+ * 格式见 {@link AccessLogFormat}，读取见 {@link AccessLogReader}
+ */
+@Slf4j
+public class MappedAccessLogSink implements AccessLogSink, AutoCloseable {
+
+	private static final int BATCH_SIZE = 256;
+	private static final long FORCE_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+	private final Path directory;
+	private final long segmentSize;
+
+	private final Slot[] slots;
+	private final int mask;
+	private final AtomicLong producerCursor = new AtomicLong();
+	private volatile long consumerCursor;
+	private final AtomicLong dropped = new AtomicLong();
+
+	private final Thread writerThread;
+	private volatile boolean running = true;
+
+	// 以下字段只由写线程访问
+	private final Map<String, Integer> methodIds = new HashMap<>();
+	private final Writer methodDictWriter;
+	private final byte[] traceIdBuffer = new byte[AccessLogFormat.TRACE_ID_MAX];
+	private long segmentIndex;
+	private FileChannel segmentChannel;
+	private MappedByteBuffer segment;
+	private long lastForceNanos = System.nanoTime();
+
+	/**
+	 * @param directory   日志目录
+	 * @param bufferSize  环形缓冲区槽位数，向上取整为2的幂
+	 * @param segmentSize 单个段文件大小（字节）
+	 */
+	public MappedAccessLogSink(Path directory, int bufferSize, long segmentSize) throws IOException {
+		if (segmentSize < AccessLogFormat.HEADER_SIZE + AccessLogFormat.RECORD_SIZE) {
+			throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+		}
+		this.directory = directory;
+		this.segmentSize = segmentSize;
+		int capacity = Integer.highestOneBit(Math.max(2, bufferSize - 1)) << 1;
+		this.slots = new Slot[capacity];
+		for (int i = 0; i < capacity; i++) {
+			slots[i] = new Slot();
+		}
+		this.mask = capacity - 1;
+
+		Files.createDirectories(directory);
+		Path dictPath = directory.resolve(AccessLogFormat.METHOD_DICT);
+		methodIds.putAll(AccessLogReader.loadMethodIds(dictPath));
+		this.methodDictWriter = Files.newBufferedWriter(dictPath, StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		// 不续写已有段，从下一个序号开始新段
+		this.segmentIndex = lastSegmentIndex(directory);
+		openNextSegment();
+
+		this.writerThread = new Thread(this::runWriter, "grpc-access-log-writer");
+		writerThread.setDaemon(true);
+		writerThread.start();
+	}
+
+	@Override
+	public void append(byte side, long requestId, String traceId, String methodName, int statusCode,
+					   long startEpochMillis, long durationNanos,
+					   long requestBytes, long responseBytes, int requestMessages, int responseMessages) {
+		long seq;
+		do {
+			seq = producerCursor.get();
+			if (seq - consumerCursor >= slots.length) {
+				dropped.incrementAndGet();
+				return;
+			}
+		} while (!producerCursor.compareAndSet(seq, seq + 1));
+
+		Slot slot = slots[(int) (seq & mask)];
+		slot.side = side;
+		slot.requestId = requestId;
+		slot.traceId = traceId;
+		slot.methodName = methodName;
+		slot.statusCode = statusCode;
+		slot.startEpochMillis = startEpochMillis;
+		slot.durationNanos = durationNanos;
+		slot.requestBytes = requestBytes;
+		slot.responseBytes = responseBytes;
+		slot.requestMessages = requestMessages;
+		slot.responseMessages = responseMessages;
+		// volatile写，发布槽位
+		slot.sequence = seq;
+	}
+
+	/**
+	 * 因缓冲区满而丢弃的记录数
+	 */
+	public long droppedCount() {
+		return dropped.get();
+	}
+
+	private void runWriter() {
+		// 被中断时放弃剩余记录立即退出，见close()
+		while ((running || consumerCursor < producerCursor.get()) && !Thread.currentThread().isInterrupted()) {
+			try {
+				if (drain() == 0) {
+					forceIfDue();
+					LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(1));
+				}
+			} catch (Exception e) {
+				log.error("[AccessLog] 写入访问日志失败: {}", e.getMessage(), e);
+				LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(100));
+			}
+		}
+	}
+
+	private int drain() throws IOException {
+		long next = consumerCursor;
+		int count = 0;
+		while (count < BATCH_SIZE) {
+			Slot slot = slots[(int) (next & mask)];
+			if (slot.sequence != next) {
+				break;
+			}
+			write(slot);
+			slot.traceId = null;
+			slot.methodName = null;
+			next++;
+			count++;
+		}
+		if (count > 0) {
+			consumerCursor = next;
+		}
+		return count;
+	}
+
+	private void write(Slot slot) throws IOException {
+		if (segment.remaining() < AccessLogFormat.RECORD_SIZE) {
+			segment.force();
+			openNextSegment();
+		}
+		int base = segment.position();
+		segment.putLong(base + AccessLogFormat.OFF_REQUEST_ID, slot.requestId);
+		segment.putLong(base + AccessLogFormat.OFF_DURATION, slot.durationNanos);
+		segment.putLong(base + AccessLogFormat.OFF_REQUEST_BYTES, slot.requestBytes);
+		segment.putLong(base + AccessLogFormat.OFF_RESPONSE_BYTES, slot.responseBytes);
+		segment.putInt(base + AccessLogFormat.OFF_METHOD_ID, methodId(slot.methodName));
+		segment.putInt(base + AccessLogFormat.OFF_STATUS, slot.statusCode);
+		segment.putInt(base + AccessLogFormat.OFF_REQUEST_MESSAGES, slot.requestMessages);
+		segment.putInt(base + AccessLogFormat.OFF_RESPONSE_MESSAGES, slot.responseMessages);
+		segment.put(base + AccessLogFormat.OFF_SIDE, slot.side);
+		int traceLength = encodeTraceId(slot.traceId);
+		segment.put(base + AccessLogFormat.OFF_TRACE_ID_LENGTH, (byte) traceLength);
+		segment.put(base + AccessLogFormat.OFF_TRACE_ID, traceIdBuffer, 0, traceLength);
+		// 最后写时间戳，读取方以其非0判断记录完整
+		segment.putLong(base + AccessLogFormat.OFF_START, slot.startEpochMillis);
+		segment.position(base + AccessLogFormat.RECORD_SIZE);
+	}
+
+	private int encodeTraceId(String traceId) {
+		if (traceId == null) {
+			return 0;
+		}
+		int length = Math.min(traceId.length(), AccessLogFormat.TRACE_ID_MAX);
+		for (int i = 0; i < length; i++) {
+			char c = traceId.charAt(i);
+			traceIdBuffer[i] = c < 128 ? (byte) c : (byte) '?';
+		}
+		return length;
+	}
+
+	private int methodId(String methodName) throws IOException {
+		Integer id = methodIds.get(methodName);
+		if (id == null) {
+			id = methodIds.size() + 1;
+			methodIds.put(methodName, id);
+			methodDictWriter.write(id + "\t" + methodName + "\n");
+			methodDictWriter.flush();
+		}
+		return id;
+	}
+
+	private void forceIfDue() {
+		long now = System.nanoTime();
+		if (now - lastForceNanos >= FORCE_INTERVAL_NANOS) {
+			segment.force();
+			lastForceNanos = now;
+		}
+	}
+
+	private void openNextSegment() throws IOException {
+		if (segmentChannel != null) {
+			segmentChannel.close();
+		}
+		segmentIndex++;
+		Path path = directory.resolve(AccessLogFormat.segmentName(segmentIndex));
+		segmentChannel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		segment = segmentChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+		segment.putInt(AccessLogFormat.MAGIC);
+		segment.putInt(AccessLogFormat.VERSION);
+		segment.putInt(AccessLogFormat.RECORD_SIZE);
+		segment.putInt(0);
+		log.info("[AccessLog] 打开新的访问日志段: {}", path);
+	}
+
+	private static long lastSegmentIndex(Path directory) throws IOException {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.map(p -> p.getFileName().toString())
+					.filter(name -> name.startsWith(AccessLogFormat.SEGMENT_PREFIX) && name.endsWith(AccessLogFormat.SEGMENT_SUFFIX))
+					.mapToLong(name -> Long.parseLong(name.substring(AccessLogFormat.SEGMENT_PREFIX.length(),
+							name.length() - AccessLogFormat.SEGMENT_SUFFIX.length())))
+					.max()
+					.orElse(0L);
+		}
+	}
+
+	/**
+	 * 停止写线程，写完缓冲区中剩余的记录并刷盘
+	 * 写线程未能在超时内退出时中断它并放弃剩余记录；仍未退出则不刷盘、不关闭映射文件，以免写线程访问已释放的缓冲区
+	 */
+	@Override
+	public void close() throws IOException {
+		running = false;
+		try {
+			writerThread.join(TimeUnit.SECONDS.toMillis(5));
+			if (writerThread.isAlive()) {
+				log.warn("[AccessLog] 写线程未能在超时内写完剩余记录，中断并放弃剩余记录");
+				writerThread.interrupt();
+				writerThread.join(TimeUnit.SECONDS.toMillis(1));
+			}
+		} catch (InterruptedException e) {
+			writerThread.interrupt();
+			Thread.currentThread().interrupt();
+		}
+		if (writerThread.isAlive()) {
+			throw new IOException("Access log writer thread did not terminate");
+		}
+		segment.force();
+		segmentChannel.close();
+		methodDictWriter.close();
+		if (dropped.get() > 0) {
+			log.warn("[AccessLog] 缓冲区满丢弃的记录数: {}", dropped.get());
+		}
+	}
+
+	/**
+	 * 预分配的槽位，sequence为volatile，写入其余字段后再写sequence完成发布
+	 */
+	private static final class Slot {
+		private volatile long sequence = -1;
+		private byte side;
+		private long requestId;
+		private String traceId;
+		private String methodName;
+		private int statusCode;
+		private long startEpochMillis;
+		private long durationNanos;
+		private long requestBytes;
+		private long responseBytes;
+		private int requestMessages;
+		private int responseMessages;
+	}
+}
@@ -0,0 +1,38 @@
+package com.github.xuchen93.grpc.auth;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 服务端已验证Token缓存配置
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.auth.cache")
+public class AuthCacheProperties {
+
+	/**
+	 * 最多缓存的Token数
+	 */
+	private int maxSize = 100_000;
+
+	/**
+	 * 缓存时长上限，Token自身更早过期时以Token为准
+	 */
+	private Duration ttl = Duration.ofMinutes(5);
+
+	/**
+	 * 分段数，向上取整为2的幂
+	 */
+	private int stripes = 16;
+
+	/**
+	 * 吊销表最多保存的记录数，超出时移除最早的吊销记录
+	 */
+	private int maxRevoked = 10_000;
+
+	public TokenCache toCache() {
+		return new TokenCache(maxSize, ttl, stripes, maxRevoked);
+	}
+}
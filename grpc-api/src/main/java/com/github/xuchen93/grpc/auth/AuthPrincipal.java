@@ -0,0 +1,34 @@
+package com.github.xuchen93.grpc.auth;
+
+import java.util.Map;
+
+/**
+ * 验证通过的调用方身份，不可变，可被缓存复用
+ *
+ * @param subject         用户标识
+ * @param token           原始Token（不含"Bearer "前缀）
+ * @param expiresAtMillis Token过期时间，不过期时为NEVER_EXPIRES
+ * @param claims          Token携带的声明，不可修改；非JWT的Token为空Map
+ */
+public record AuthPrincipal(String subject, String token, long expiresAtMillis, Map<String, Object> claims) {
+
+	public static final long NEVER_EXPIRES = Long.MAX_VALUE;
+
+	public AuthPrincipal(String subject, String token, long expiresAtMillis) {
+		this(subject, token, expiresAtMillis, Map.of());
+	}
+
+	public boolean isExpired(long nowMillis) {
+		return nowMillis >= expiresAtMillis;
+	}
+
+	public Object claim(String name) {
+		return claims.get(name);
+	}
+
+	@Override
+	public String toString() {
+		// 不输出Token
+		return "AuthPrincipal[subject=" + subject + ", expiresAtMillis=" + expiresAtMillis + "]";
+	}
+}
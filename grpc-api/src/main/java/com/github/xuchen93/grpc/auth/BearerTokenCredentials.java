@@ -0,0 +1,35 @@
+package com.github.xuchen93.grpc.auth;
+
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import io.grpc.CallCredentials;
+import io.grpc.Metadata;
+
+import java.util.concurrent.Executor;
+
+/**
+ * 固定Token的CallCredentials，用于单次调用覆盖默认凭证：
+ * stub.withCallCredentials(new BearerTokenCredentials(token))
+ */
+public class BearerTokenCredentials extends CallCredentials {
+
+	private final Metadata headers;
+
+	public BearerTokenCredentials(String token) {
+		this.headers = headersFor(token);
+	}
+
+	@Override
+	public void applyRequestMetadata(RequestInfo requestInfo, Executor appExecutor, MetadataApplier applier) {
+		applier.apply(headers);
+	}
+
+	/**
+	 * 构建只含Authorization头的Metadata；构建后只读，可被多个调用共享
+	 */
+	static Metadata headersFor(String token) {
+		Metadata headers = new Metadata();
+		headers.put(InterceptorKeys.AUTHORIZATION_KEY,
+				token.startsWith(TokenCache.BEARER_PREFIX) ? token : TokenCache.BEARER_PREFIX + token);
+		return headers;
+	}
+}
@@ -0,0 +1,74 @@
+package com.github.xuchen93.grpc.auth;
+
+import cn.hutool.json.JSONUtil;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 本地签发HS256 JWT的Token来源，与服务端JWKS中kty为oct的同kid密钥配对使用
+ */
+public class HmacJwtTokenSource implements TokenSource {
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	private final SecretKeySpec key;
+	private final String encodedHeader;
+	private final String subject;
+	private final String issuer;
+	private final String audience;
+	private final Duration ttl;
+
+	/**
+	 * @param kid      密钥ID，写入JWT头部
+	 * @param secret   HMAC密钥
+	 * @param subject  sub
+	 * @param issuer   iss，null表示不写入
+	 * @param audience aud，null表示不写入
+	 * @param ttl      每个Token的有效期
+	 */
+	public HmacJwtTokenSource(String kid, byte[] secret, String subject, String issuer, String audience, Duration ttl) {
+		this.key = new SecretKeySpec(secret, JwtAlgorithm.HS256.jcaName());
+		Map<String, Object> header = new LinkedHashMap<>();
+		header.put("alg", JwtAlgorithm.HS256.name());
+		header.put("typ", "JWT");
+		if (kid != null) {
+			header.put("kid", kid);
+		}
+		this.encodedHeader = encode(JSONUtil.toJsonStr(header));
+		this.subject = subject;
+		this.issuer = issuer;
+		this.audience = audience;
+		this.ttl = ttl;
+	}
+
+	@Override
+	public IssuedToken fetch() throws Exception {
+		long nowSeconds = System.currentTimeMillis() / 1000;
+		long exp = nowSeconds + ttl.toSeconds();
+		Map<String, Object> claims = new LinkedHashMap<>();
+		claims.put("sub", subject);
+		if (issuer != null) {
+			claims.put("iss", issuer);
+		}
+		if (audience != null) {
+			claims.put("aud", audience);
+		}
+		claims.put("iat", nowSeconds);
+		claims.put("exp", exp);
+		String signingInput = encodedHeader + "." + encode(JSONUtil.toJsonStr(claims));
+		Mac mac = Mac.getInstance(key.getAlgorithm());
+		mac.init(key);
+		String signature = ENCODER.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+		return new IssuedToken(signingInput + "." + signature, exp * 1000);
+	}
+
+	private static String encode(String json) {
+		return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+	}
+}
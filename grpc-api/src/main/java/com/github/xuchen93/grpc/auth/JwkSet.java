@@ -0,0 +1,145 @@
+package com.github.xuchen93.grpc.auth;
+
+import cn.hutool.json.JSONArray;
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.security.AlgorithmParameters;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.KeyFactory;
+import java.security.spec.ECGenParameterSpec;
+import java.security.spec.ECParameterSpec;
+import java.security.spec.ECPoint;
+import java.security.spec.ECPublicKeySpec;
+import java.security.spec.RSAPublicKeySpec;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 不可变的JWKS密钥集，kid -> 已初始化的验证器
+ * 只在加载时解析一次密钥材料，重新加载时整体替换
+ * 支持kty为oct（HMAC）、RSA、EC（P-256/P-384/P-521）的密钥，use为enc的密钥被忽略
+ */
+@Slf4j
+public final class JwkSet {
+
+	public static final JwkSet EMPTY = new JwkSet(Map.of());
+
+	private final Map<String, JwkVerifier> verifiers;
+
+	private JwkSet(Map<String, JwkVerifier> verifiers) {
+		this.verifiers = verifiers;
+	}
+
+	/**
+	 * 按kid查找；令牌未携带kid且密钥集只有一个密钥时返回该密钥
+	 */
+	public JwkVerifier get(String kid) {
+		if (kid == null) {
+			return verifiers.size() == 1 ? verifiers.values().iterator().next() : null;
+		}
+		return verifiers.get(kid);
+	}
+
+	public Collection<JwkVerifier> verifiers() {
+		return verifiers.values();
+	}
+
+	public int size() {
+		return verifiers.size();
+	}
+
+	/**
+	 * 解析JWKS文档（{"keys":[...]}），单个密钥无效时跳过并记录警告
+	 */
+	public static JwkSet parse(String json) {
+		JSONObject document = JSONUtil.parseObj(json);
+		JSONArray keys = document.getJSONArray("keys");
+		if (keys == null) {
+			throw new IllegalArgumentException("JWKS document has no 'keys' array");
+		}
+		Map<String, JwkVerifier> verifiers = new HashMap<>();
+		for (int i = 0; i < keys.size(); i++) {
+			JSONObject jwk = keys.getJSONObject(i);
+			String kid = jwk.getStr("kid", "#" + i);
+			if ("enc".equals(jwk.getStr("use"))) {
+				continue;
+			}
+			try {
+				JwtAlgorithm algorithm = algorithmOf(jwk);
+				verifiers.put(kid, new JwkVerifier(kid, algorithm, keyOf(jwk, algorithm)));
+			} catch (GeneralSecurityException | RuntimeException e) {
+				log.warn("[Auth] 跳过无效的JWK: kid={}, reason={}", kid, e.getMessage());
+			}
+		}
+		return new JwkSet(Collections.unmodifiableMap(verifiers));
+	}
+
+	private static JwtAlgorithm algorithmOf(JSONObject jwk) {
+		String alg = jwk.getStr("alg");
+		if (alg != null) {
+			JwtAlgorithm algorithm = JwtAlgorithm.of(alg);
+			if (algorithm == null) {
+				throw new IllegalArgumentException("Unsupported alg: " + alg);
+			}
+			return algorithm;
+		}
+		String kty = jwk.getStr("kty");
+		return switch (kty == null ? "" : kty) {
+			case "oct" -> JwtAlgorithm.HS256;
+			case "RSA" -> JwtAlgorithm.RS256;
+			case "EC" -> switch (jwk.getStr("crv", "")) {
+				case "P-384" -> JwtAlgorithm.ES384;
+				case "P-521" -> JwtAlgorithm.ES512;
+				default -> JwtAlgorithm.ES256;
+			};
+			default -> throw new IllegalArgumentException("Unsupported kty: " + kty);
+		};
+	}
+
+	private static Key keyOf(JSONObject jwk, JwtAlgorithm algorithm) throws GeneralSecurityException {
+		String kty = jwk.getStr("kty");
+		if (algorithm.isHmac()) {
+			requireKty(kty, "oct", algorithm);
+			return new SecretKeySpec(decode(jwk, "k"), algorithm.jcaName());
+		}
+		if (algorithm.name().startsWith("RS")) {
+			requireKty(kty, "RSA", algorithm);
+			return KeyFactory.getInstance("RSA").generatePublic(new RSAPublicKeySpec(
+					new BigInteger(1, decode(jwk, "n")), new BigInteger(1, decode(jwk, "e"))));
+		}
+		requireKty(kty, "EC", algorithm);
+		String curve = switch (jwk.getStr("crv", "")) {
+			case "P-256" -> "secp256r1";
+			case "P-384" -> "secp384r1";
+			case "P-521" -> "secp521r1";
+			default -> throw new IllegalArgumentException("Unsupported crv: " + jwk.getStr("crv"));
+		};
+		AlgorithmParameters parameters = AlgorithmParameters.getInstance("EC");
+		parameters.init(new ECGenParameterSpec(curve));
+		ECPoint point = new ECPoint(new BigInteger(1, decode(jwk, "x")), new BigInteger(1, decode(jwk, "y")));
+		return KeyFactory.getInstance("EC").generatePublic(
+				new ECPublicKeySpec(point, parameters.getParameterSpec(ECParameterSpec.class)));
+	}
+
+	private static void requireKty(String kty, String expected, JwtAlgorithm algorithm) {
+		if (!expected.equals(kty)) {
+			throw new IllegalArgumentException("kty " + kty + " does not match alg " + algorithm);
+		}
+	}
+
+	private static byte[] decode(JSONObject jwk, String member) {
+		String value = jwk.getStr(member);
+		if (value == null) {
+			throw new IllegalArgumentException("Missing JWK member: " + member);
+		}
+		return Base64.getUrlDecoder().decode(value);
+	}
+}
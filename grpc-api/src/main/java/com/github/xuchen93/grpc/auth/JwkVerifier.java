@@ -0,0 +1,96 @@
+package com.github.xuchen93.grpc.auth;
+
+import javax.crypto.Mac;
+import java.security.GeneralSecurityException;
+import java.security.Key;
+import java.security.MessageDigest;
+import java.security.PublicKey;
+import java.security.Signature;
+
+/**
+ * 单个密钥的签名验证器，密钥加载时创建一次，按kid缓存在JwkSet中
+ * Mac/Signature实例不是线程安全的，每个线程各持有一个已初始化的实例：
+ * Mac.doFinal与Signature.verify结束后都会回到初始化后的状态，可直接复用，热路径上不再解析或初始化密钥
+ */
+public final class JwkVerifier {
+
+	private final String kid;
+	private final JwtAlgorithm algorithm;
+	private final ThreadLocal<Mac> macs;
+	private final ThreadLocal<Signature> signatures;
+
+	public JwkVerifier(String kid, JwtAlgorithm algorithm, Key key) throws GeneralSecurityException {
+		this.kid = kid;
+		this.algorithm = algorithm;
+		if (algorithm.isHmac()) {
+			// 提前创建一次，密钥或算法不可用时在加载阶段就失败
+			newMac(algorithm, key);
+			this.macs = ThreadLocal.withInitial(() -> uncheckedMac(algorithm, key));
+			this.signatures = null;
+		} else {
+			if (!(key instanceof PublicKey publicKey)) {
+				throw new GeneralSecurityException("Public key required for " + algorithm);
+			}
+			newSignature(algorithm, publicKey);
+			this.macs = null;
+			this.signatures = ThreadLocal.withInitial(() -> uncheckedSignature(algorithm, publicKey));
+		}
+	}
+
+	public String kid() {
+		return kid;
+	}
+
+	public JwtAlgorithm algorithm() {
+		return algorithm;
+	}
+
+	/**
+	 * @param signingInput JWS签名输入（"header.payload"的ASCII字节）
+	 * @param signature    解码后的签名
+	 */
+	public boolean verify(byte[] signingInput, byte[] signature) {
+		if (macs != null) {
+			byte[] expected = macs.get().doFinal(signingInput);
+			// 常量时间比较
+			return MessageDigest.isEqual(expected, signature);
+		}
+		Signature verifier = signatures.get();
+		try {
+			verifier.update(signingInput);
+			return verifier.verify(signature);
+		} catch (Exception e) {
+			// 签名格式错误等，异常后实例状态不确定，丢弃该线程的实例
+			signatures.remove();
+			return false;
+		}
+	}
+
+	private static Mac newMac(JwtAlgorithm algorithm, Key key) throws GeneralSecurityException {
+		Mac mac = Mac.getInstance(algorithm.jcaName());
+		mac.init(key);
+		return mac;
+	}
+
+	private static Signature newSignature(JwtAlgorithm algorithm, PublicKey key) throws GeneralSecurityException {
+		Signature signature = Signature.getInstance(algorithm.jcaName());
+		signature.initVerify(key);
+		return signature;
+	}
+
+	private static Mac uncheckedMac(JwtAlgorithm algorithm, Key key) {
+		try {
+			return newMac(algorithm, key);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static Signature uncheckedSignature(JwtAlgorithm algorithm, PublicKey key) {
+		try {
+			return newSignature(algorithm, key);
+		} catch (GeneralSecurityException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+}
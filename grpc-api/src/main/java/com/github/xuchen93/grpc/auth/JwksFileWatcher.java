@@ -0,0 +1,88 @@
+package com.github.xuchen93.grpc.auth;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 监视本地JWKS文件，修改时间或大小变化后重新加载并整体替换密钥集，无需重启
+ * 重新加载失败时保留旧的密钥集；读取方只做一次volatile读
+ * 替换后调用onReload，用于清空按旧密钥验证过的Token缓存
+ */
+@Slf4j
+public class JwksFileWatcher implements Supplier<JwkSet>, AutoCloseable {
+
+	private final Path file;
+	private final Runnable onReload;
+	private final ScheduledExecutorService scheduler;
+	private volatile JwkSet current;
+	private long lastModifiedMillis;
+	private long lastSize;
+
+	/**
+	 * 启动时同步加载一次，文件不存在或无法解析时抛出异常
+	 */
+	public JwksFileWatcher(Path file, Duration interval) throws IOException {
+		this(file, interval, () -> {
+		});
+	}
+
+	/**
+	 * @param onReload 每次成功加载并替换密钥集后调用，在监视线程中执行
+	 */
+	public JwksFileWatcher(Path file, Duration interval, Runnable onReload) throws IOException {
+		this.file = file;
+		this.onReload = onReload;
+		reload();
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "grpc-jwks-watcher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long millis = interval.toMillis();
+		scheduler.scheduleWithFixedDelay(this::checkSafely, millis, millis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public JwkSet get() {
+		return current;
+	}
+
+	private void checkSafely() {
+		try {
+			BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+			if (attributes.lastModifiedTime().toMillis() != lastModifiedMillis || attributes.size() != lastSize) {
+				reload();
+			}
+		} catch (Exception e) {
+			log.error("[Auth] 重新加载JWKS失败，继续使用旧密钥: file={}, reason={}", file, e.getMessage());
+		}
+	}
+
+	/**
+	 * 读取并解析文件，只在构造方法和监视线程中调用
+	 */
+	synchronized void reload() throws IOException {
+		BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+		JwkSet jwkSet = JwkSet.parse(Files.readString(file, StandardCharsets.UTF_8));
+		lastModifiedMillis = attributes.lastModifiedTime().toMillis();
+		lastSize = attributes.size();
+		current = jwkSet;
+		log.info("[Auth] 已加载JWKS: file={}, keys={}", file, jwkSet.size());
+		onReload.run();
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+}
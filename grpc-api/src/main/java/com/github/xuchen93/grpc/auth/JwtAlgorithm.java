@@ -0,0 +1,49 @@
+package com.github.xuchen93.grpc.auth;
+
+/**
+ * 支持的JWS签名算法及对应的JCA算法名
+ * ECDSA使用P1363格式（R||S定长拼接），与JWS签名格式一致，无需DER转换
+ */
+public enum JwtAlgorithm {
+
+	HS256("HmacSHA256", true),
+	HS384("HmacSHA384", true),
+	HS512("HmacSHA512", true),
+	RS256("SHA256withRSA", false),
+	RS384("SHA384withRSA", false),
+	RS512("SHA512withRSA", false),
+	ES256("SHA256withECDSAinP1363Format", false),
+	ES384("SHA384withECDSAinP1363Format", false),
+	ES512("SHA512withECDSAinP1363Format", false);
+
+	private final String jcaName;
+	private final boolean hmac;
+
+	JwtAlgorithm(String jcaName, boolean hmac) {
+		this.jcaName = jcaName;
+		this.hmac = hmac;
+	}
+
+	public String jcaName() {
+		return jcaName;
+	}
+
+	public boolean isHmac() {
+		return hmac;
+	}
+
+	/**
+	 * 按JWS头中的alg查找，不支持（包括"none"）时返回null
+	 */
+	public static JwtAlgorithm of(String name) {
+		if (name == null) {
+			return null;
+		}
+		for (JwtAlgorithm algorithm : values()) {
+			if (algorithm.name().equals(name)) {
+				return algorithm;
+			}
+		}
+		return null;
+	}
+}
@@ -0,0 +1,49 @@
+package com.github.xuchen93.grpc.auth;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 服务端JWT验证配置，关闭时使用SimpleTokenValidator
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.auth.jwt")
+public class JwtProperties {
+
+	/**
+	 * 是否按JWT验证签名
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * 本地JWKS文件，修改后自动重新加载
+	 */
+	private String jwksFile = "config/jwks.json";
+
+	/**
+	 * 检查JWKS文件变化的间隔
+	 */
+	private Duration reloadInterval = Duration.ofSeconds(5);
+
+	/**
+	 * 要求的签发方（iss），为空时不校验
+	 */
+	private String issuer;
+
+	/**
+	 * 要求的受众（aud），为空时不校验
+	 */
+	private String audience;
+
+	/**
+	 * 校验exp/nbf时允许的时钟偏差
+	 */
+	private Duration clockSkew = Duration.ofSeconds(30);
+
+	/**
+	 * 是否接受没有exp的令牌；这样的令牌永不过期，只应在签发方确实不设置exp时显式开启
+	 */
+	private boolean allowMissingExp = false;
+}
@@ -0,0 +1,135 @@
+package com.github.xuchen93.grpc.auth;
+
+import cn.hutool.json.JSONObject;
+import cn.hutool.json.JSONUtil;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.function.Supplier;
+
+/**
+ * JWS Compact格式的JWT验证
+ * <ol>
+ *     <li>解析头部的alg和kid，按kid从当前密钥集取出已初始化的验证器</li>
+ *     <li>头部alg必须与密钥的算法一致（拒绝none及算法混淆）</li>
+ *     <li>校验签名，再校验exp、nbf（允许clockSkew的时钟偏差）以及可选的iss、aud</li>
+ * </ol>
+ * exp和nbf必须是JSON数值；默认要求携带exp，没有exp的令牌永不过期，只有显式配置allowMissingExp时才接受
+ * 验证通过返回以sub为用户标识、携带全部claims的AuthPrincipal
+ */
+@Slf4j
+public class JwtTokenValidator implements TokenValidator {
+
+	private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+	private final Supplier<JwkSet> jwkSet;
+	private final String issuer;
+	private final String audience;
+	private final long clockSkewSeconds;
+	private final boolean allowMissingExp;
+
+	/**
+	 * 要求令牌携带exp
+	 */
+	public JwtTokenValidator(Supplier<JwkSet> jwkSet, String issuer, String audience, Duration clockSkew) {
+		this(jwkSet, issuer, audience, clockSkew, false);
+	}
+
+	/**
+	 * @param jwkSet          当前密钥集，通常为JwksFileWatcher
+	 * @param issuer          要求的iss，null表示不校验
+	 * @param audience        要求包含的aud，null表示不校验
+	 * @param clockSkew       允许的时钟偏差
+	 * @param allowMissingExp 是否接受没有exp的令牌（永不过期）
+	 */
+	public JwtTokenValidator(Supplier<JwkSet> jwkSet, String issuer, String audience, Duration clockSkew,
+							 boolean allowMissingExp) {
+		this.jwkSet = jwkSet;
+		this.issuer = issuer;
+		this.audience = audience;
+		this.clockSkewSeconds = clockSkew.toSeconds();
+		this.allowMissingExp = allowMissingExp;
+	}
+
+	@Override
+	public AuthPrincipal validate(String token) {
+		int firstDot = token.indexOf('.');
+		int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+		if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+			return reject("malformed token");
+		}
+		try {
+			JSONObject header = JSONUtil.parseObj(new String(
+					DECODER.decode(token.substring(0, firstDot)), StandardCharsets.UTF_8));
+			JwtAlgorithm algorithm = JwtAlgorithm.of(header.getStr("alg"));
+			if (algorithm == null) {
+				return reject("unsupported alg " + header.getStr("alg"));
+			}
+			JwkVerifier verifier = jwkSet.get().get(header.getStr("kid"));
+			if (verifier == null) {
+				return reject("unknown kid " + header.getStr("kid"));
+			}
+			if (verifier.algorithm() != algorithm) {
+				return reject("alg " + algorithm + " does not match key " + verifier.kid());
+			}
+			byte[] signingInput = token.substring(0, secondDot).getBytes(StandardCharsets.US_ASCII);
+			if (!verifier.verify(signingInput, DECODER.decode(token.substring(secondDot + 1)))) {
+				return reject("bad signature");
+			}
+
+			JSONObject claims = JSONUtil.parseObj(new String(
+					DECODER.decode(token.substring(firstDot + 1, secondDot)), StandardCharsets.UTF_8));
+			long nowSeconds = System.currentTimeMillis() / 1000;
+			// getLong会把"123"这样的字符串也转换成数值，无法转换时返回null，这里只接受JSON数值
+			Object expClaim = claims.get("exp");
+			if (expClaim == null && !allowMissingExp) {
+				return reject("missing exp");
+			}
+			if (expClaim != null && !(expClaim instanceof Number)) {
+				return reject("exp is not a number");
+			}
+			Long exp = expClaim != null ? ((Number) expClaim).longValue() : null;
+			if (exp != null && nowSeconds - clockSkewSeconds >= exp) {
+				return reject("expired");
+			}
+			Object nbf = claims.get("nbf");
+			if (nbf != null && !(nbf instanceof Number)) {
+				return reject("nbf is not a number");
+			}
+			if (nbf != null && nowSeconds + clockSkewSeconds < ((Number) nbf).longValue()) {
+				return reject("not yet valid");
+			}
+			if (issuer != null && !issuer.equals(claims.getStr("iss"))) {
+				return reject("issuer mismatch");
+			}
+			if (audience != null && !hasAudience(claims.get("aud"))) {
+				return reject("audience mismatch");
+			}
+			String subject = claims.getStr("sub");
+			if (subject == null) {
+				return reject("missing sub");
+			}
+			long expiresAt = exp != null ? (exp + clockSkewSeconds) * 1000 : AuthPrincipal.NEVER_EXPIRES;
+			return new AuthPrincipal(subject, token, expiresAt, Collections.unmodifiableMap(claims));
+		} catch (RuntimeException e) {
+			// Base64或JSON格式错误
+			return reject("malformed token: " + e.getMessage());
+		}
+	}
+
+	private boolean hasAudience(Object aud) {
+		if (aud instanceof Collection<?> values) {
+			return values.contains(audience);
+		}
+		return audience.equals(aud);
+	}
+
+	private static AuthPrincipal reject(String reason) {
+		log.debug("[Auth] JWT验证失败: {}", reason);
+		return null;
+	}
+}
@@ -0,0 +1,108 @@
+package com.github.xuchen93.grpc.auth;
+
+import io.grpc.CallCredentials;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 后台刷新Token的CallCredentials
+ * <ul>
+ *     <li>当前Token保存为已构建好的Authorization请求头（只读Metadata），每次调用只做一次volatile读</li>
+ *     <li>在过期前refreshAhead由后台线程向TokenSource获取新Token并整体替换，调用从不等待刷新</li>
+ *     <li>刷新失败时按1s起、最长60s的间隔重试，期间继续使用未过期的旧Token</li>
+ *     <li>没有可用Token（首次获取失败或已过期）时调用以UNAUTHENTICATED失败</li>
+ * </ul>
+ * 凭证随CallOptions传递，与调用所在线程无关，异步Stub回调和线程切换不会丢失
+ */
+@Slf4j
+public class RefreshingTokenCredentials extends CallCredentials implements AutoCloseable {
+
+	private static final long MIN_RETRY_MILLIS = 1000;
+	private static final long MAX_RETRY_MILLIS = 60_000;
+
+	private final TokenSource tokenSource;
+	private final long refreshAheadMillis;
+	private final ScheduledExecutorService scheduler;
+	private volatile CurrentToken current;
+	private long retryMillis = MIN_RETRY_MILLIS;
+
+	/**
+	 * 构造时同步获取一次Token；失败时记录错误并在后台重试
+	 *
+	 * @param tokenSource  Token来源
+	 * @param refreshAhead 在过期前多久刷新，超过Token有效期一半时按一半计算
+	 */
+	public RefreshingTokenCredentials(TokenSource tokenSource, Duration refreshAhead) {
+		this.tokenSource = tokenSource;
+		this.refreshAheadMillis = refreshAhead.toMillis();
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "grpc-token-refresh");
+			thread.setDaemon(true);
+			return thread;
+		});
+		refresh();
+	}
+
+	@Override
+	public void applyRequestMetadata(RequestInfo requestInfo, Executor appExecutor, MetadataApplier applier) {
+		CurrentToken token = current;
+		if (token == null || System.currentTimeMillis() >= token.expiresAtMillis) {
+			applier.fail(Status.UNAUTHENTICATED.withDescription("No valid client token available"));
+			return;
+		}
+		applier.apply(token.headers);
+	}
+
+	/**
+	 * 当前Token是否可用
+	 */
+	public boolean hasValidToken() {
+		CurrentToken token = current;
+		return token != null && System.currentTimeMillis() < token.expiresAtMillis;
+	}
+
+	/**
+	 * 获取新Token并安排下一次刷新，只在构造方法和刷新线程中调用
+	 */
+	private synchronized void refresh() {
+		long delayMillis;
+		try {
+			TokenSource.IssuedToken issued = tokenSource.fetch();
+			long now = System.currentTimeMillis();
+			current = new CurrentToken(BearerTokenCredentials.headersFor(issued.token()), issued.expiresAtMillis());
+			retryMillis = MIN_RETRY_MILLIS;
+			if (issued.expiresAtMillis() == AuthPrincipal.NEVER_EXPIRES) {
+				log.info("[Auth] 已获取客户端Token（不过期）");
+				return;
+			}
+			long lifetime = issued.expiresAtMillis() - now;
+			delayMillis = Math.max(MIN_RETRY_MILLIS, lifetime - Math.min(refreshAheadMillis, lifetime / 2));
+			log.info("[Auth] 已获取客户端Token，{}ms后刷新", delayMillis);
+		} catch (Exception e) {
+			delayMillis = retryMillis;
+			retryMillis = Math.min(retryMillis * 2, MAX_RETRY_MILLIS);
+			log.error("[Auth] 获取客户端Token失败，{}ms后重试: {}", delayMillis, e.getMessage());
+		}
+		try {
+			scheduler.schedule(this::refresh, delayMillis, TimeUnit.MILLISECONDS);
+		} catch (RejectedExecutionException e) {
+			// 已关闭
+		}
+	}
+
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+	}
+
+	private record CurrentToken(Metadata headers, long expiresAtMillis) {
+	}
+}
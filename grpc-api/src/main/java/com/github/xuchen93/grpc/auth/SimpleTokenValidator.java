@@ -0,0 +1,18 @@
+package com.github.xuchen93.grpc.auth;
+
+/**
+ * 演示用的Token验证：长度>10或以valid_开头的token视为有效，永不过期
+ */
+public class SimpleTokenValidator implements TokenValidator {
+
+	@Override
+	public AuthPrincipal validate(String token) {
+		if (token == null || token.isEmpty()) {
+			return null;
+		}
+		if (token.startsWith("valid_") || token.length() > 10) {
+			return new AuthPrincipal("user_" + token.hashCode(), token, AuthPrincipal.NEVER_EXPIRES);
+		}
+		return null;
+	}
+}
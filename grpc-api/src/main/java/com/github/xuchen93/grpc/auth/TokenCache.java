@@ -0,0 +1,260 @@
+package com.github.xuchen93.grpc.auth;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 已验证Token的有界缓存，键为完整的Authorization请求头（"Bearer xxx"），命中时无需截取Token
+ * <ul>
+ *     <li>按键的hash分为多个分段，每段一个ConcurrentHashMap，容量和淘汰各自独立</li>
+ *     <li>命中路径：一次hash定位分段 + 一次Map查找 + 过期比较，不分配对象</li>
+ *     <li>条目的过期时间取Token自身过期时间与缓存TTL中较早者</li>
+ *     <li>分段超出容量时，由一个线程（tryLock）先清理过期条目，仍超出则按写入顺序淘汰最早的条目到90%</li>
+ *     <li>吊销的Token从缓存移除并记入吊销表，在Token过期前不会被重新缓存，与吊销并发的写入在写入后再检查一次；
+ *     吊销表有上限，超出时先清理已过期的记录，仍超出则移除最早的吊销记录</li>
+ *     <li>密钥集更新后清空整个缓存（invalidateAll），验证开始于清空之前的写入按代数丢弃</li>
+ * </ul>
+ */
+@Slf4j
+public class TokenCache {
+
+	public static final String BEARER_PREFIX = "Bearer ";
+
+	private final Segment[] segments;
+	private final int mask;
+	private final int maxPerSegment;
+	private final long ttlMillis;
+	private final int maxRevoked;
+	/**
+	 * 吊销的Token（不含前缀） -> 吊销记录的失效时间，按吊销顺序排列；只在缓存未命中和吊销时访问，加锁即可
+	 */
+	private final LinkedHashMap<String, Long> revoked = new LinkedHashMap<>();
+	/**
+	 * 每次invalidateAll加一
+	 */
+	private final AtomicLong generation = new AtomicLong();
+
+	/**
+	 * 吊销表上限与缓存容量相同
+	 */
+	public TokenCache(int maxSize, Duration ttl, int stripes) {
+		this(maxSize, ttl, stripes, maxSize);
+	}
+
+	/**
+	 * @param maxRevoked 吊销表最多保存的记录数
+	 */
+	public TokenCache(int maxSize, Duration ttl, int stripes, int maxRevoked) {
+		int segmentCount = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+		this.segments = new Segment[segmentCount];
+		for (int i = 0; i < segmentCount; i++) {
+			segments[i] = new Segment();
+		}
+		this.mask = segmentCount - 1;
+		this.maxPerSegment = Math.max(1, maxSize / segmentCount);
+		this.ttlMillis = ttl.toMillis();
+		this.maxRevoked = maxRevoked;
+	}
+
+	/**
+	 * 查找未过期的身份，未命中返回null
+	 */
+	public AuthPrincipal get(String authHeader) {
+		Entry entry = segmentFor(authHeader).map.get(authHeader);
+		if (entry == null) {
+			return null;
+		}
+		if (System.currentTimeMillis() >= entry.expiresAtMillis) {
+			segmentFor(authHeader).map.remove(authHeader, entry);
+			return null;
+		}
+		return entry.principal;
+	}
+
+	/**
+	 * 缓存验证通过的身份，Token已吊销时不缓存
+	 */
+	public void put(String authHeader, AuthPrincipal principal) {
+		put(authHeader, principal, generation());
+	}
+
+	/**
+	 * 缓存验证通过的身份；验证期间缓存被清空（代数变化）或Token被吊销时不缓存
+	 *
+	 * @param generation 开始验证前的{@link #generation()}
+	 */
+	public void put(String authHeader, AuthPrincipal principal, long generation) {
+		long now = System.currentTimeMillis();
+		if (principal.isExpired(now) || isRevoked(principal.token())) {
+			return;
+		}
+		long expiresAt = Math.min(principal.expiresAtMillis(), now + ttlMillis);
+		Segment segment = segmentFor(authHeader);
+		// 先淘汰再写入，避免刚写入的条目被淘汰
+		if (segment.map.size() >= maxPerSegment) {
+			segment.evict(now, maxPerSegment);
+		}
+		Entry entry = new Entry(authHeader, principal, expiresAt);
+		segment.add(entry, maxPerSegment);
+		// revoke先写吊销表再移除条目：吊销发生在上面的检查之后时，要么它的移除在写入之后，要么这里能看到吊销记录
+		if (isRevoked(principal.token()) || this.generation.get() != generation) {
+			segment.map.remove(authHeader, entry);
+		}
+	}
+
+	public boolean isRevoked(String token) {
+		synchronized (revoked) {
+			Long until = revoked.get(token);
+			if (until == null) {
+				return false;
+			}
+			if (System.currentTimeMillis() >= until) {
+				revoked.remove(token);
+				return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * 吊销Token：从缓存中移除，并在expiresAtMillis之前拒绝重新缓存
+	 *
+	 * @param token           不含前缀的Token
+	 * @param expiresAtMillis Token本身的过期时间，未知时传AuthPrincipal.NEVER_EXPIRES
+	 */
+	public void revoke(String token, long expiresAtMillis) {
+		synchronized (revoked) {
+			// 重新吊销时移到末尾
+			revoked.remove(token);
+			revoked.put(token, expiresAtMillis);
+			if (revoked.size() > maxRevoked) {
+				long now = System.currentTimeMillis();
+				revoked.values().removeIf(until -> now >= until);
+				Iterator<String> oldest = revoked.keySet().iterator();
+				while (revoked.size() > maxRevoked && oldest.hasNext()) {
+					String removed = oldest.next();
+					oldest.remove();
+					log.warn("[Auth] 吊销表达到上限{}，移除最早的吊销记录: {}...", maxRevoked,
+							removed.substring(0, Math.min(8, removed.length())));
+				}
+			}
+		}
+		String key = BEARER_PREFIX + token;
+		segmentFor(key).map.remove(key);
+	}
+
+	/**
+	 * 当前代数，验证Token前读取，写入时传给put
+	 */
+	public long generation() {
+		return generation.get();
+	}
+
+	/**
+	 * 清空全部缓存条目（例如JWKS重新加载后），吊销表保留
+	 * 先增加代数再清空：与之并发的写入要么被清空，要么在写入后发现代数已变化而移除自己
+	 */
+	public void invalidateAll() {
+		generation.incrementAndGet();
+		for (Segment segment : segments) {
+			// 写入顺序队列中的旧节点不再对应map中的值，之后出队或清理时跳过
+			segment.map.clear();
+		}
+	}
+
+	/**
+	 * 移除某个用户的全部缓存条目（例如修改密码后），下次调用重新验证
+	 */
+	public void invalidateSubject(String subject) {
+		for (Segment segment : segments) {
+			segment.map.values().removeIf(e -> e.principal.subject().equals(subject));
+		}
+	}
+
+	public int size() {
+		int size = 0;
+		for (Segment segment : segments) {
+			size += segment.map.size();
+		}
+		return size;
+	}
+
+	private Segment segmentFor(String key) {
+		int h = key.hashCode();
+		return segments[(h ^ (h >>> 16)) & mask];
+	}
+
+	/**
+	 * 按引用比较，队列中的旧节点与同一Key重新写入的条目不相等
+	 */
+	private static final class Entry {
+		private final String key;
+		private final AuthPrincipal principal;
+		private final long expiresAtMillis;
+
+		Entry(String key, AuthPrincipal principal, long expiresAtMillis) {
+			this.key = key;
+			this.principal = principal;
+			this.expiresAtMillis = expiresAtMillis;
+		}
+	}
+
+	/**
+	 * 写入顺序队列记录每次写入的条目；条目被覆盖、过期或移除后，队列中的旧节点不再对应map中的值，出队时跳过
+	 */
+	private static final class Segment {
+		private final ConcurrentHashMap<String, Entry> map = new ConcurrentHashMap<>();
+		private final ConcurrentLinkedQueue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+		private final AtomicInteger queued = new AtomicInteger();
+		private final ReentrantLock evictionLock = new ReentrantLock();
+
+		void add(Entry entry, int maxSize) {
+			map.put(entry.key, entry);
+			insertionOrder.offer(entry);
+			// 反复覆盖或在查找时过期移除的条目会在队列中留下旧节点，超过容量两倍时清理
+			if (queued.incrementAndGet() > maxSize * 2 && evictionLock.tryLock()) {
+				try {
+					Iterator<Entry> entries = insertionOrder.iterator();
+					while (entries.hasNext()) {
+						Entry queuedEntry = entries.next();
+						if (map.get(queuedEntry.key) != queuedEntry) {
+							entries.remove();
+							queued.decrementAndGet();
+						}
+					}
+				} finally {
+					evictionLock.unlock();
+				}
+			}
+		}
+
+		void evict(long now, int maxSize) {
+			// 同一分段只需要一个线程淘汰，其他线程直接返回
+			if (!evictionLock.tryLock()) {
+				return;
+			}
+			try {
+				map.values().removeIf(e -> now >= e.expiresAtMillis);
+				int target = maxSize - maxSize / 10;
+				while (map.size() > target) {
+					Entry oldest = insertionOrder.poll();
+					if (oldest == null) {
+						break;
+					}
+					queued.decrementAndGet();
+					map.remove(oldest.key, oldest);
+				}
+			} finally {
+				evictionLock.unlock();
+			}
+		}
+	}
+}
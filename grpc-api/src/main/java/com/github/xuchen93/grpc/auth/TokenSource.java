@@ -0,0 +1,28 @@
+package com.github.xuchen93.grpc.auth;
+
+/**
+ * 客户端Token来源，由RefreshingTokenCredentials在后台线程调用，不会在请求线程上调用
+ */
+@FunctionalInterface
+public interface TokenSource {
+
+	/**
+	 * 获取一个新Token
+	 */
+	IssuedToken fetch() throws Exception;
+
+	/**
+	 * @param token           不含"Bearer "前缀的Token
+	 * @param expiresAtMillis 过期时间，不过期时为AuthPrincipal.NEVER_EXPIRES
+	 */
+	record IssuedToken(String token, long expiresAtMillis) {
+	}
+
+	/**
+	 * 固定Token，永不过期
+	 */
+	static TokenSource of(String token) {
+		IssuedToken issued = new IssuedToken(token, AuthPrincipal.NEVER_EXPIRES);
+		return () -> issued;
+	}
+}
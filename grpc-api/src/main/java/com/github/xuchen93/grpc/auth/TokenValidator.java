@@ -0,0 +1,14 @@
+package com.github.xuchen93.grpc.auth;
+
+/**
+ * Token验证器，验证开销可能很大（签名校验、远程调用），结果由TokenCache缓存
+ */
+@FunctionalInterface
+public interface TokenValidator {
+
+	/**
+	 * @param token 不含"Bearer "前缀的Token
+	 * @return 验证通过时返回身份，否则返回null
+	 */
+	AuthPrincipal validate(String token);
+}
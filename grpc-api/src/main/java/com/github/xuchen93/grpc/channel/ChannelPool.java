@@ -0,0 +1,372 @@
+package com.github.xuchen93.grpc.channel;
+
+import io.grpc.Attributes;
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 多连接Channel池
+ * 同一个target维护N个ManagedChannel（即N条HTTP/2连接），每次调用选择当前活跃流最少的连接，
+ * 避免单连接触达MAX_CONCURRENT_STREAMS上限以及单个Netty EventLoop的队头阻塞。
+ * 连接数在[minSize, maxSize]之间随活跃流数量自动扩缩容。
+ * 调用在start时才选择连接并占用一个流计数，创建后未start的调用不占用任何连接；
+ * 缩容只回收计数为0的连接，并在同一次CAS中把计数置为已回收，已选中但尚未start的调用不会落到被关闭的连接上。
+ */
+@Slf4j
+public class ChannelPool extends ManagedChannel {
+
+	private final Supplier<ManagedChannel> channelFactory;
+	private final int minSize;
+	private final int maxSize;
+	private final int maxStreamsPerConnection;
+	private final long idleTimeoutNanos;
+
+	private final List<PooledConnection> connections = new CopyOnWriteArrayList<>();
+	private final ScheduledExecutorService shrinkExecutor;
+	private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+	/**
+	 * @param channelFactory          创建单条连接的工厂，每次调用都必须返回新的ManagedChannel
+	 * @param minSize                 最少保持的连接数
+	 * @param maxSize                 最多允许的连接数
+	 * @param maxStreamsPerConnection 单连接活跃流达到该值时尝试扩容
+	 * @param idleTimeout             多余连接空闲超过该时长后被回收
+	 */
+	public ChannelPool(Supplier<ManagedChannel> channelFactory, int minSize, int maxSize,
+					   int maxStreamsPerConnection, Duration idleTimeout) {
+		if (minSize < 1 || maxSize < minSize) {
+			throw new IllegalArgumentException("Invalid pool size: min=" + minSize + ", max=" + maxSize);
+		}
+		if (maxStreamsPerConnection < 1) {
+			throw new IllegalArgumentException("maxStreamsPerConnection must be positive");
+		}
+		this.channelFactory = channelFactory;
+		this.minSize = minSize;
+		this.maxSize = maxSize;
+		this.maxStreamsPerConnection = maxStreamsPerConnection;
+		this.idleTimeoutNanos = idleTimeout.toNanos();
+		for (int i = 0; i < minSize; i++) {
+			connections.add(new PooledConnection(channelFactory.get()));
+		}
+		this.shrinkExecutor = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "grpc-channel-pool-shrink");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long period = Math.max(1000L, idleTimeout.toMillis() / 2);
+		shrinkExecutor.scheduleWithFixedDelay(this::shrink, period, period, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public <ReqT, RespT> ClientCall<ReqT, RespT> newCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+		return new PooledClientCall<>(method, callOptions);
+	}
+
+	@Override
+	public String authority() {
+		return connections.get(0).channel.authority();
+	}
+
+	/**
+	 * 当前连接数
+	 */
+	public int size() {
+		return connections.size();
+	}
+
+	/**
+	 * 所有连接上的活跃流总数
+	 */
+	public int activeStreams() {
+		int total = 0;
+		for (PooledConnection connection : connections) {
+			total += Math.max(0, connection.active.get());
+		}
+		return total;
+	}
+
+	/**
+	 * 选择活跃流最少的连接并占用一个流计数，全部连接都已饱和且未达上限时扩容
+	 * 选中的连接恰好被缩容回收时重新选择
+	 */
+	private PooledConnection select() {
+		while (true) {
+			PooledConnection least = leastLoaded();
+			if ((least == null || least.active.get() >= maxStreamsPerConnection)
+					&& connections.size() < maxSize && !shutdown.get()) {
+				synchronized (this) {
+					least = leastLoaded();
+					if ((least == null || least.active.get() >= maxStreamsPerConnection) && connections.size() < maxSize) {
+						// 新连接加入列表前已占用计数，缩容看不到空闲的新连接
+						PooledConnection created = new PooledConnection(channelFactory.get());
+						created.active.set(1);
+						connections.add(created);
+						log.info("[ChannelPool] 扩容: size={}, activeStreams={}", connections.size(), activeStreams());
+						return created;
+					}
+				}
+			}
+			if (least != null && least.tryAcquire()) {
+				return least;
+			}
+		}
+	}
+
+	private PooledConnection leastLoaded() {
+		PooledConnection least = null;
+		int leastActive = Integer.MAX_VALUE;
+		for (PooledConnection connection : connections) {
+			int active = connection.active.get();
+			if (active >= 0 && active < leastActive) {
+				least = connection;
+				leastActive = active;
+			}
+		}
+		return least;
+	}
+
+	/**
+	 * 回收空闲超时的多余连接，被移除的连接优雅关闭，已有的流可以正常结束
+	 * 包内可见，便于测试
+	 */
+	void shrink() {
+		if (shutdown.get() || connections.size() <= minSize) {
+			return;
+		}
+		// 剩余容量仍能承载当前流量时才缩容
+		if (activeStreams() > (connections.size() - 1) * maxStreamsPerConnection / 2) {
+			return;
+		}
+		long now = System.nanoTime();
+		synchronized (this) {
+			for (PooledConnection connection : connections) {
+				if (connections.size() <= minSize) {
+					break;
+				}
+				if (now - connection.lastUsedNanos > idleTimeoutNanos && connection.tryRetire()) {
+					connections.remove(connection);
+					connection.channel.shutdown();
+					log.info("[ChannelPool] 缩容: size={}", connections.size());
+				}
+			}
+		}
+	}
+
+	@Override
+	public ManagedChannel shutdown() {
+		if (shutdown.compareAndSet(false, true)) {
+			shrinkExecutor.shutdownNow();
+		}
+		for (PooledConnection connection : connections) {
+			connection.channel.shutdown();
+		}
+		return this;
+	}
+
+	@Override
+	public ManagedChannel shutdownNow() {
+		if (shutdown.compareAndSet(false, true)) {
+			shrinkExecutor.shutdownNow();
+		}
+		for (PooledConnection connection : connections) {
+			connection.channel.shutdownNow();
+		}
+		return this;
+	}
+
+	@Override
+	public boolean isShutdown() {
+		return shutdown.get();
+	}
+
+	@Override
+	public boolean isTerminated() {
+		if (!shutdown.get()) {
+			return false;
+		}
+		for (PooledConnection connection : connections) {
+			if (!connection.channel.isTerminated()) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		long deadline = System.nanoTime() + unit.toNanos(timeout);
+		for (PooledConnection connection : connections) {
+			long remaining = deadline - System.nanoTime();
+			if (!connection.channel.awaitTermination(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static class PooledConnection {
+		/**
+		 * 已被缩容回收的连接的计数值，不能再被选中
+		 */
+		private static final int RETIRED = Integer.MIN_VALUE;
+
+		private final ManagedChannel channel;
+		private final AtomicInteger active = new AtomicInteger();
+		private volatile long lastUsedNanos = System.nanoTime();
+
+		PooledConnection(ManagedChannel channel) {
+			this.channel = channel;
+		}
+
+		/**
+		 * 占用一个流计数，连接已被回收时返回false
+		 */
+		boolean tryAcquire() {
+			while (true) {
+				int current = active.get();
+				if (current < 0) {
+					return false;
+				}
+				if (active.compareAndSet(current, current + 1)) {
+					lastUsedNanos = System.nanoTime();
+					return true;
+				}
+			}
+		}
+
+		void release() {
+			active.decrementAndGet();
+			lastUsedNanos = System.nanoTime();
+		}
+
+		/**
+		 * 没有占用的流时标记为已回收
+		 */
+		boolean tryRetire() {
+			return active.compareAndSet(0, RETIRED);
+		}
+	}
+
+	/**
+	 * start时选择连接、占用一个流计数并在该连接上创建真正的调用，在onClose时释放；start失败时直接释放
+	 * 创建后从未start的调用没有占用计数，被丢弃时无需清理
+	 * 与ClientCallImpl一致，start前cancel的调用不能再start；cancel与start并发时两者至少有一方看到对方，真正的调用总会被取消
+	 */
+	private final class PooledClientCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+		private final MethodDescriptor<ReqT, RespT> method;
+		private final CallOptions callOptions;
+		private final AtomicBoolean released = new AtomicBoolean();
+		private volatile PooledConnection connection;
+		private volatile ClientCall<ReqT, RespT> delegate;
+		private volatile boolean cancelled;
+		private volatile String cancelMessage;
+		private volatile Throwable cancelCause;
+
+		PooledClientCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions) {
+			this.method = method;
+			this.callOptions = callOptions;
+		}
+
+		@Override
+		public void start(Listener<RespT> responseListener, Metadata headers) {
+			if (delegate != null || connection != null) {
+				throw new IllegalStateException("Already started");
+			}
+			if (cancelled) {
+				throw new IllegalStateException("Call was cancelled");
+			}
+			connection = select();
+			try {
+				ClientCall<ReqT, RespT> call = connection.channel.newCall(method, callOptions);
+				delegate = call;
+				if (cancelled) {
+					// 并发的cancel没有看到delegate，由这里转发，随后的start会抛出IllegalStateException
+					call.cancel(cancelMessage, cancelCause);
+				}
+				call.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+					@Override
+					public void onClose(Status status, Metadata trailers) {
+						release();
+						super.onClose(status, trailers);
+					}
+				}, headers);
+			} catch (RuntimeException e) {
+				release();
+				throw e;
+			}
+		}
+
+		@Override
+		public void request(int numMessages) {
+			started().request(numMessages);
+		}
+
+		@Override
+		public void cancel(String message, Throwable cause) {
+			cancelMessage = message;
+			cancelCause = cause;
+			cancelled = true;
+			ClientCall<ReqT, RespT> call = delegate;
+			if (call != null) {
+				call.cancel(message, cause);
+			}
+		}
+
+		@Override
+		public void halfClose() {
+			started().halfClose();
+		}
+
+		@Override
+		public void sendMessage(ReqT message) {
+			started().sendMessage(message);
+		}
+
+		@Override
+		public boolean isReady() {
+			ClientCall<ReqT, RespT> call = delegate;
+			return call != null && call.isReady();
+		}
+
+		@Override
+		public void setMessageCompression(boolean enabled) {
+			started().setMessageCompression(enabled);
+		}
+
+		@Override
+		public Attributes getAttributes() {
+			ClientCall<ReqT, RespT> call = delegate;
+			return call == null ? Attributes.EMPTY : call.getAttributes();
+		}
+
+		private ClientCall<ReqT, RespT> started() {
+			ClientCall<ReqT, RespT> call = delegate;
+			if (call == null) {
+				throw new IllegalStateException("Not started");
+			}
+			return call;
+		}
+
+		private void release() {
+			if (released.compareAndSet(false, true)) {
+				connection.release();
+			}
+		}
+	}
+}
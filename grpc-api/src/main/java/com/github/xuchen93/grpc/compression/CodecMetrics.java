@@ -0,0 +1,68 @@
+package com.github.xuchen93.grpc.compression;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个编码的压缩与解压统计：消息数、压缩前后字节数和耗时
+ * 耗时只包含编解码器自身的write/read/close，不包含序列化和传输
+ */
+public final class CodecMetrics {
+
+	private final String encoding;
+	private final Direction compress = new Direction();
+	private final Direction decompress = new Direction();
+
+	CodecMetrics(String encoding) {
+		this.encoding = encoding;
+	}
+
+	public String encoding() {
+		return encoding;
+	}
+
+	public Direction compress() {
+		return compress;
+	}
+
+	public Direction decompress() {
+		return decompress;
+	}
+
+	public static final class Direction {
+		private final LongAdder messages = new LongAdder();
+		private final LongAdder uncompressedBytes = new LongAdder();
+		private final LongAdder compressedBytes = new LongAdder();
+		private final LongAdder nanos = new LongAdder();
+
+		void record(long uncompressed, long compressed, long elapsedNanos) {
+			messages.increment();
+			uncompressedBytes.add(uncompressed);
+			compressedBytes.add(compressed);
+			nanos.add(elapsedNanos);
+		}
+
+		public long messages() {
+			return messages.sum();
+		}
+
+		public long uncompressedBytes() {
+			return uncompressedBytes.sum();
+		}
+
+		public long compressedBytes() {
+			return compressedBytes.sum();
+		}
+
+		public long nanos() {
+			return nanos.sum();
+		}
+
+		/**
+		 * 压缩后与压缩前的字节数之比，没有数据时为1
+		 */
+		public double ratio() {
+			long uncompressed = uncompressedBytes();
+			return uncompressed > 0 ? (double) compressedBytes() / uncompressed : 1.0;
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package com.github.xuchen93.grpc.compression;
+
+import io.grpc.Codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * grpc-encoding为deflate的编解码器（zlib格式），默认使用最快的压缩级别
+ * 与grpc自带的gzip相比没有gzip头尾和CRC32，且每个线程复用一个Deflater，
+ * 不必为每条消息分配和释放zlib的本地内存
+ * <p>
+ * 压缩流在sendMessage中创建、写完并关闭，不会跨线程或嵌套使用，因此可以按线程复用
+ */
+public final class DeflateCodec implements Codec {
+
+	public static final String ENCODING = "deflate";
+
+	private final ThreadLocal<Deflater> deflaters;
+
+	public DeflateCodec() {
+		this(Deflater.BEST_SPEED);
+	}
+
+	/**
+	 * @param level zlib压缩级别[1, 9]
+	 */
+	public DeflateCodec(int level) {
+		if (level < Deflater.BEST_SPEED || level > Deflater.BEST_COMPRESSION) {
+			throw new IllegalArgumentException("Invalid deflate level: " + level);
+		}
+		this.deflaters = ThreadLocal.withInitial(() -> new Deflater(level));
+	}
+
+	@Override
+	public String getMessageEncoding() {
+		return ENCODING;
+	}
+
+	@Override
+	public OutputStream compress(OutputStream os) throws IOException {
+		Deflater deflater = deflaters.get();
+		// 上一条消息异常中断时可能残留状态
+		deflater.reset();
+		return new DeflaterOutputStream(os, deflater);
+	}
+
+	@Override
+	public InputStream decompress(InputStream is) throws IOException {
+		// 解压流可能在其他线程读取，Inflater不复用；关闭时立即释放本地内存
+		return new InflaterInputStream(is, new Inflater()) {
+			@Override
+			public void close() throws IOException {
+				try {
+					super.close();
+				} finally {
+					inf.end();
+				}
+			}
+		};
+	}
+}
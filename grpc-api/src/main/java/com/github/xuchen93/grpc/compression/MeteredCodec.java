@@ -0,0 +1,216 @@
+package com.github.xuchen93.grpc.compression;
+
+import io.grpc.Codec;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * 包装编解码器，记录每条消息压缩前后的字节数和编解码耗时
+ * 计时只在流的write/read/close上进行，protobuf按块写入，每条消息只有少量几次nanoTime
+ */
+final class MeteredCodec implements Codec {
+
+	private final Codec codec;
+	private final CodecMetrics metrics;
+
+	MeteredCodec(Codec codec, CodecMetrics metrics) {
+		this.codec = codec;
+		this.metrics = metrics;
+	}
+
+	@Override
+	public String getMessageEncoding() {
+		return codec.getMessageEncoding();
+	}
+
+	@Override
+	public OutputStream compress(OutputStream os) throws IOException {
+		CountingOutputStream wire = new CountingOutputStream(os);
+		long start = System.nanoTime();
+		OutputStream compressing = codec.compress(wire);
+		return new TimedOutputStream(compressing, wire, metrics.compress(), System.nanoTime() - start);
+	}
+
+	@Override
+	public InputStream decompress(InputStream is) throws IOException {
+		CountingInputStream wire = new CountingInputStream(is);
+		long start = System.nanoTime();
+		InputStream decompressing = codec.decompress(wire);
+		return new TimedInputStream(decompressing, wire, metrics.decompress(), System.nanoTime() - start);
+	}
+
+	private static final class CountingOutputStream extends FilterOutputStream {
+		long count;
+
+		CountingOutputStream(OutputStream out) {
+			super(out);
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			out.write(b);
+			count++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			out.write(b, off, len);
+			count += len;
+		}
+	}
+
+	private static final class CountingInputStream extends FilterInputStream {
+		long count;
+
+		CountingInputStream(InputStream in) {
+			super(in);
+		}
+
+		@Override
+		public int read() throws IOException {
+			int b = in.read();
+			if (b >= 0) {
+				count++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int n = in.read(b, off, len);
+			if (n > 0) {
+				count += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long skipped = in.skip(n);
+			count += skipped;
+			return skipped;
+		}
+	}
+
+	/**
+	 * 计时并统计写入的原始字节数，关闭时（压缩器在close中输出剩余数据）记录一次
+	 */
+	private static final class TimedOutputStream extends FilterOutputStream {
+		private final CountingOutputStream wire;
+		private final CodecMetrics.Direction direction;
+		private long uncompressed;
+		private long nanos;
+		private boolean closed;
+
+		TimedOutputStream(OutputStream out, CountingOutputStream wire, CodecMetrics.Direction direction, long nanos) {
+			super(out);
+			this.wire = wire;
+			this.direction = direction;
+			this.nanos = nanos;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			long start = System.nanoTime();
+			out.write(b);
+			nanos += System.nanoTime() - start;
+			uncompressed++;
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			long start = System.nanoTime();
+			out.write(b, off, len);
+			nanos += System.nanoTime() - start;
+			uncompressed += len;
+		}
+
+		@Override
+		public void flush() throws IOException {
+			long start = System.nanoTime();
+			out.flush();
+			nanos += System.nanoTime() - start;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			long start = System.nanoTime();
+			try {
+				out.close();
+			} finally {
+				nanos += System.nanoTime() - start;
+				direction.record(uncompressed, wire.count, nanos);
+			}
+		}
+	}
+
+	/**
+	 * 计时并统计读出的解压后字节数，关闭时记录一次
+	 */
+	private static final class TimedInputStream extends FilterInputStream {
+		private final CountingInputStream wire;
+		private final CodecMetrics.Direction direction;
+		private long uncompressed;
+		private long nanos;
+		private boolean closed;
+
+		TimedInputStream(InputStream in, CountingInputStream wire, CodecMetrics.Direction direction, long nanos) {
+			super(in);
+			this.wire = wire;
+			this.direction = direction;
+			this.nanos = nanos;
+		}
+
+		@Override
+		public int read() throws IOException {
+			long start = System.nanoTime();
+			int b = in.read();
+			nanos += System.nanoTime() - start;
+			if (b >= 0) {
+				uncompressed++;
+			}
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			long start = System.nanoTime();
+			int n = in.read(b, off, len);
+			nanos += System.nanoTime() - start;
+			if (n > 0) {
+				uncompressed += n;
+			}
+			return n;
+		}
+
+		@Override
+		public long skip(long n) throws IOException {
+			long start = System.nanoTime();
+			long skipped = in.skip(n);
+			nanos += System.nanoTime() - start;
+			uncompressed += skipped;
+			return skipped;
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			try {
+				in.close();
+			} finally {
+				direction.record(uncompressed, wire.count, nanos);
+			}
+		}
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.xuchen93.grpc.context;
+
+import com.github.xuchen93.grpc.auth.AuthPrincipal;
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.trace.TraceContext;
+import io.grpc.Context;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个服务端调用唯一的不可变请求上下文，保存在 {@link InterceptorKeys#REQUEST_CONTEXT_KEY} 这一个Context Key下
+ * 由TraceServerInterceptor创建，AuthServerInterceptor认证通过后以withPrincipal替换；
+ * 读取方只需一次Context查找即可取到追踪、身份、优先级和剩余时限
+ *
+ * @param trace     追踪上下文
+ * @param principal 认证身份，白名单方法或未认证时为null
+ * @param priority  请求优先级，来自x-priority请求头，越大越优先，默认0
+ * @param deadline  调用时限，客户端未设置时为null
+ */
+public record RequestContext(TraceContext trace, AuthPrincipal principal, int priority, Deadline deadline) {
+
+	public static final String ANONYMOUS = "anonymous";
+	public static final int DEFAULT_PRIORITY = 0;
+
+	/**
+	 * 按请求头和当前gRPC Context（携带grpc-timeout解析出的时限）创建，尚未认证
+	 */
+	public static RequestContext of(TraceContext trace, Metadata headers) {
+		return new RequestContext(trace, null, parsePriority(headers.get(InterceptorKeys.PRIORITY_KEY)),
+				Context.current().getDeadline());
+	}
+
+	/**
+	 * 当前gRPC Context中的请求上下文，没有时返回null
+	 */
+	public static RequestContext current() {
+		return InterceptorKeys.REQUEST_CONTEXT_KEY.get();
+	}
+
+	public RequestContext withPrincipal(AuthPrincipal principal) {
+		return new RequestContext(trace, principal, priority, deadline);
+	}
+
+	public String traceId() {
+		return trace.traceId();
+	}
+
+	public String spanId() {
+		return trace.spanId();
+	}
+
+	public boolean isAuthenticated() {
+		return principal != null;
+	}
+
+	/**
+	 * 用户标识，未认证时为"anonymous"
+	 */
+	public String subject() {
+		return principal != null ? principal.subject() : ANONYMOUS;
+	}
+
+	/**
+	 * 认证Token，未认证时为null
+	 */
+	public String token() {
+		return principal != null ? principal.token() : null;
+	}
+
+	/**
+	 * 剩余时限，没有时限时返回Long.MAX_VALUE
+	 */
+	public long remaining(TimeUnit unit) {
+		return deadline != null ? deadline.timeRemaining(unit) : Long.MAX_VALUE;
+	}
+
+	public boolean isDeadlineExpired() {
+		return deadline != null && deadline.isExpired();
+	}
+
+	static int parsePriority(String value) {
+		if (value == null || value.isEmpty()) {
+			return DEFAULT_PRIORITY;
+		}
+		try {
+			return Integer.parseInt(value);
+		} catch (NumberFormatException e) {
+			return DEFAULT_PRIORITY;
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package com.github.xuchen93.grpc.context;
+
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import io.grpc.Context;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 跨线程传递请求上下文与SLF4J MDC
+ * <ul>
+ *     <li>提交任务时只捕获当前gRPC Context的引用（其中包含不可变的RequestContext、时限和取消信号），不复制任何值</li>
+ *     <li>执行任务时attach该Context，并从RequestContext已有的字符串字段设置固定的MDC键，
+ *     不使用MDC.getCopyOfContextMap()，每次切换线程除任务包装对象外不复制任何上下文</li>
+ *     <li>任务结束后恢复执行线程原来的Context和MDC值，线程池线程不会残留上一个请求的信息</li>
+ * </ul>
+ * 上下文总是按任务捕获，不按线程捕获：线程的生命周期可能跨越多个请求，在创建线程时捕获会把一个请求的上下文带给之后的所有任务
+ * 虚拟线程：项目基于Java 17编译，没有直接引用Thread.ofVirtual()；
+ * 在Java 21+上把Executors.newVirtualThreadPerTaskExecutor()传给 {@link #wrap(ExecutorService)} 即可
+ */
+public final class RequestContextPropagation {
+
+	public static final String MDC_TRACE_ID = "traceId";
+	public static final String MDC_SPAN_ID = "spanId";
+	public static final String MDC_USER = "user";
+
+	private RequestContextPropagation() {
+	}
+
+	/**
+	 * 包装Executor，提交的每个任务都在提交时的请求上下文中执行
+	 */
+	public static Executor wrap(Executor executor) {
+		if (executor instanceof PropagatingExecutor) {
+			return executor;
+		}
+		return new PropagatingExecutor(executor);
+	}
+
+	/**
+	 * 包装ExecutorService（平台线程池或每任务一个虚拟线程），execute/submit/invokeAll/invokeAny提交的每个任务
+	 * 都在提交时的请求上下文中执行；关闭和等待终止直接委托给原ExecutorService
+	 */
+	public static ExecutorService wrap(ExecutorService executorService) {
+		if (executorService instanceof PropagatingExecutorService) {
+			return executorService;
+		}
+		return new PropagatingExecutorService(executorService);
+	}
+
+	public static Runnable wrap(Runnable task) {
+		Context context = Context.current();
+		RequestContext requestContext = InterceptorKeys.REQUEST_CONTEXT_KEY.get(context);
+		return () -> {
+			Context previous = context.attach();
+			String traceId = MDC.get(MDC_TRACE_ID);
+			String spanId = MDC.get(MDC_SPAN_ID);
+			String user = MDC.get(MDC_USER);
+			putMdc(requestContext);
+			try {
+				task.run();
+			} finally {
+				restoreMdc(requestContext, traceId, spanId, user);
+				context.detach(previous);
+			}
+		};
+	}
+
+	public static <T> Callable<T> wrap(Callable<T> task) {
+		Context context = Context.current();
+		RequestContext requestContext = InterceptorKeys.REQUEST_CONTEXT_KEY.get(context);
+		return () -> {
+			Context previous = context.attach();
+			String traceId = MDC.get(MDC_TRACE_ID);
+			String spanId = MDC.get(MDC_SPAN_ID);
+			String user = MDC.get(MDC_USER);
+			putMdc(requestContext);
+			try {
+				return task.call();
+			} finally {
+				restoreMdc(requestContext, traceId, spanId, user);
+				context.detach(previous);
+			}
+		};
+	}
+
+	public static <T> Supplier<T> wrap(Supplier<T> supplier) {
+		Context context = Context.current();
+		RequestContext requestContext = InterceptorKeys.REQUEST_CONTEXT_KEY.get(context);
+		return () -> {
+			Context previous = context.attach();
+			String traceId = MDC.get(MDC_TRACE_ID);
+			String spanId = MDC.get(MDC_SPAN_ID);
+			String user = MDC.get(MDC_USER);
+			putMdc(requestContext);
+			try {
+				return supplier.get();
+			} finally {
+				restoreMdc(requestContext, traceId, spanId, user);
+				context.detach(previous);
+			}
+		};
+	}
+
+	/**
+	 * 在executor中异步执行，并携带当前请求上下文；后续的thenXxxAsync需传入 {@link #wrap(Executor)} 包装过的Executor
+	 */
+	public static <T> CompletableFuture<T> supplyAsync(Supplier<T> supplier, Executor executor) {
+		return CompletableFuture.supplyAsync(wrap(supplier), executor);
+	}
+
+	public static CompletableFuture<Void> runAsync(Runnable task, Executor executor) {
+		return CompletableFuture.runAsync(wrap(task), executor);
+	}
+
+	/**
+	 * 按RequestContext设置MDC，没有请求上下文时不设置
+	 */
+	private static void putMdc(RequestContext requestContext) {
+		if (requestContext != null) {
+			MDC.put(MDC_TRACE_ID, requestContext.traceId());
+			MDC.put(MDC_SPAN_ID, requestContext.spanId());
+			MDC.put(MDC_USER, requestContext.subject());
+		}
+	}
+
+	/**
+	 * 恢复执行线程原有的MDC值（同线程执行的Executor不会丢失调用方的MDC）
+	 */
+	private static void restoreMdc(RequestContext requestContext, String traceId, String spanId, String user) {
+		if (requestContext != null) {
+			restore(MDC_TRACE_ID, traceId);
+			restore(MDC_SPAN_ID, spanId);
+			restore(MDC_USER, user);
+		}
+	}
+
+	private static void restore(String key, String value) {
+		if (value != null) {
+			MDC.put(key, value);
+		} else {
+			MDC.remove(key);
+		}
+	}
+
+	private record PropagatingExecutor(Executor delegate) implements Executor {
+		@Override
+		public void execute(Runnable command) {
+			delegate.execute(wrap(command));
+		}
+	}
+
+	/**
+	 * submit/invokeAll/invokeAny均由AbstractExecutorService在提交线程上转为execute，只需在execute中包装
+	 */
+	private static final class PropagatingExecutorService extends AbstractExecutorService {
+
+		private final ExecutorService delegate;
+
+		private PropagatingExecutorService(ExecutorService delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public void execute(Runnable command) {
+			delegate.execute(wrap(command));
+		}
+
+		@Override
+		public void shutdown() {
+			delegate.shutdown();
+		}
+
+		@Override
+		public List<Runnable> shutdownNow() {
+			return delegate.shutdownNow();
+		}
+
+		@Override
+		public boolean isShutdown() {
+			return delegate.isShutdown();
+		}
+
+		@Override
+		public boolean isTerminated() {
+			return delegate.isTerminated();
+		}
+
+		@Override
+		public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+			return delegate.awaitTermination(timeout, unit);
+		}
+	}
+}
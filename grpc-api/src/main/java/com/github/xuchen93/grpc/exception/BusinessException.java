@@ -0,0 +1,19 @@
+package com.github.xuchen93.grpc.exception;
+
+/**
+ * 预期内的业务错误，不填充栈、不记录被抑制的异常，因此可以作为常量共享和重复抛出
+ * 由ExceptionStatusMapper直接转换为对应GrpcError的Status和trailers
+ */
+public final class BusinessException extends RuntimeException {
+
+	private final transient GrpcError error;
+
+	BusinessException(GrpcError error) {
+		super(error.status().getDescription(), null, false, false);
+		this.error = error;
+	}
+
+	public GrpcError getError() {
+		return error;
+	}
+}
@@ -0,0 +1,28 @@
+package com.github.xuchen93.grpc.exception;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 服务端异常映射配置
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.server.exceptions")
+public class ExceptionMappingProperties {
+
+	/**
+	 * 未预期异常（INTERNAL/UNKNOWN）每个异常类型每个窗口最多输出的错误日志数，0表示不限
+	 */
+	private int maxErrorLogsPerWindow = 10;
+
+	/**
+	 * 错误日志限流窗口
+	 */
+	private Duration window = Duration.ofSeconds(1);
+
+	public ExceptionStatusMapper toMapper() {
+		return new ExceptionStatusMapper(maxErrorLogsPerWindow, window);
+	}
+}
@@ -0,0 +1,209 @@
+package com.github.xuchen93.grpc.exception;
+
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * 异常到gRPC状态的集中映射
+ * <ul>
+ *     <li>处理器按异常类型注册（代码注册或 {@link GrpcExceptionHandler} 方法），子类匹配最近的父类处理器</li>
+ *     <li>每个异常类型解析出的处理器由ClassValue缓存，错误路径上不遍历继承链</li>
+ *     <li>BusinessException直接使用其GrpcError；StatusException/StatusRuntimeException保留原状态；其他异常为INTERNAL</li>
+ *     <li>预期内的错误只在debug级别记录一行；INTERNAL/UNKNOWN带栈记录，每个异常类型每个窗口最多maxErrorLogsPerWindow条</li>
+ * </ul>
+ * 处理器应在处理第一个调用之前注册完毕，已解析过的异常类型不会再看到之后注册的处理器
+ */
+@Slf4j
+public class ExceptionStatusMapper {
+
+	public static final GrpcError INTERNAL_ERROR = GrpcError.of(Status.INTERNAL.withDescription("Internal server error"));
+
+	/**
+	 * 没有注册处理器的异常类型，按默认规则处理
+	 */
+	private static final Function<Throwable, GrpcError> DEFAULT_HANDLER = t -> null;
+
+	private final Map<Class<?>, Function<Throwable, GrpcError>> handlers = new ConcurrentHashMap<>();
+	private final ClassValue<Function<Throwable, GrpcError>> resolved = new ClassValue<>() {
+		@Override
+		protected Function<Throwable, GrpcError> computeValue(Class<?> type) {
+			for (Class<?> current = type; current != null; current = current.getSuperclass()) {
+				Function<Throwable, GrpcError> handler = handlers.get(current);
+				if (handler != null) {
+					return handler;
+				}
+			}
+			return DEFAULT_HANDLER;
+		}
+	};
+	private final int maxErrorLogsPerWindow;
+	private final long windowNanos;
+	private final ConcurrentHashMap<Class<?>, LogWindow> logWindows = new ConcurrentHashMap<>();
+
+	public ExceptionStatusMapper() {
+		this(10, Duration.ofSeconds(1));
+	}
+
+	/**
+	 * @param maxErrorLogsPerWindow 每个异常类型每个窗口最多输出的错误日志数，0表示不限
+	 */
+	public ExceptionStatusMapper(int maxErrorLogsPerWindow, Duration window) {
+		this.maxErrorLogsPerWindow = maxErrorLogsPerWindow;
+		this.windowNanos = window.toNanos();
+	}
+
+	/**
+	 * 固定映射：该类型（及子类）的异常都返回同一个预先构造的错误
+	 */
+	public ExceptionStatusMapper register(Class<? extends Throwable> type, GrpcError error) {
+		handlers.put(type, t -> error);
+		return this;
+	}
+
+	/**
+	 * 按异常内容映射，handler返回GrpcError、Status、StatusException或StatusRuntimeException
+	 */
+	@SuppressWarnings("unchecked")
+	public <T extends Throwable> ExceptionStatusMapper register(Class<T> type, Function<? super T, ?> handler) {
+		handlers.put(type, t -> toError(((Function<Object, Object>) handler).apply(t)));
+		return this;
+	}
+
+	/**
+	 * 注册bean上全部 {@link GrpcExceptionHandler} 方法
+	 */
+	public ExceptionStatusMapper registerAdvice(Object bean) {
+		Class<?> targetClass = AopUtils.getTargetClass(bean);
+		ReflectionUtils.doWithMethods(targetClass, method -> registerMethod(bean, method),
+				method -> AnnotatedElementUtils.hasAnnotation(method, GrpcExceptionHandler.class));
+		return this;
+	}
+
+	/**
+	 * 将异常映射为错误，同时按规则记录日志
+	 *
+	 * @param methodName 出错的gRPC方法，只用于日志
+	 */
+	public GrpcError map(Throwable t, String methodName) {
+		GrpcError error = resolved.get(t.getClass()).apply(t);
+		if (error == null) {
+			error = defaultError(t);
+		}
+		Status.Code code = error.status().getCode();
+		if (code == Status.Code.INTERNAL || code == Status.Code.UNKNOWN) {
+			long suppressed = tryLog(t.getClass());
+			if (suppressed >= 0) {
+				log.error("[Exception] 未预期的异常: method={}, code={}, suppressed={}", methodName, code, suppressed, t);
+			}
+		} else if (log.isDebugEnabled()) {
+			log.debug("[Exception] method={}, error={}", methodName, error);
+		}
+		return error;
+	}
+
+	/**
+	 * 映射为不带栈的StatusRuntimeException，用于只能以异常传递状态的地方（如响应式流的onErrorMap）
+	 */
+	public StatusRuntimeException toStatusException(Throwable t, String methodName) {
+		if (t instanceof StatusRuntimeException statusException && resolved.get(t.getClass()) == DEFAULT_HANDLER) {
+			return statusException;
+		}
+		GrpcError error = map(t, methodName);
+		return new StacklessStatusException(error.status(), error.trailers());
+	}
+
+	private static GrpcError defaultError(Throwable t) {
+		if (t instanceof BusinessException business) {
+			return business.getError();
+		}
+		if (t instanceof StatusRuntimeException || t instanceof StatusException) {
+			return toError(t);
+		}
+		return INTERNAL_ERROR;
+	}
+
+	private static GrpcError toError(Object result) {
+		if (result == null || result instanceof GrpcError) {
+			return (GrpcError) result;
+		}
+		if (result instanceof Status status) {
+			return GrpcError.of(status);
+		}
+		if (result instanceof StatusRuntimeException e) {
+			return e.getTrailers() != null ? GrpcError.of(e.getStatus(), e.getTrailers()) : GrpcError.of(e.getStatus());
+		}
+		if (result instanceof StatusException e) {
+			return e.getTrailers() != null ? GrpcError.of(e.getStatus(), e.getTrailers()) : GrpcError.of(e.getStatus());
+		}
+		throw new IllegalArgumentException("Unsupported exception handler result: " + result.getClass().getName());
+	}
+
+	@SuppressWarnings("unchecked")
+	private void registerMethod(Object bean, Method method) {
+		if (method.getParameterCount() != 1 || !Throwable.class.isAssignableFrom(method.getParameterTypes()[0])) {
+			throw new IllegalStateException("@GrpcExceptionHandler method must take a single exception parameter: " + method);
+		}
+		GrpcExceptionHandler annotation = AnnotatedElementUtils.findMergedAnnotation(method, GrpcExceptionHandler.class);
+		Class<? extends Throwable>[] types = annotation != null && annotation.value().length > 0
+				? annotation.value() : new Class[]{method.getParameterTypes()[0]};
+		ReflectionUtils.makeAccessible(method);
+		Function<Throwable, GrpcError> handler = t -> {
+			try {
+				return toError(method.invoke(bean, t));
+			} catch (InvocationTargetException e) {
+				log.error("[Exception] 异常处理方法执行失败: {}", method, e.getTargetException());
+				return INTERNAL_ERROR;
+			} catch (IllegalAccessException e) {
+				throw new IllegalStateException(e);
+			}
+		};
+		for (Class<? extends Throwable> type : types) {
+			if (handlers.putIfAbsent(type, handler) != null) {
+				throw new IllegalStateException("Duplicate @GrpcExceptionHandler for " + type.getName() + ": " + method);
+			}
+			log.info("[Exception] 注册异常处理方法: {} -> {}", type.getSimpleName(), method.toGenericString());
+		}
+	}
+
+	/**
+	 * @return 允许输出时返回上次输出以来被抑制的条数，不允许时返回-1
+	 */
+	private long tryLog(Class<?> type) {
+		if (maxErrorLogsPerWindow <= 0) {
+			return 0;
+		}
+		return logWindows.computeIfAbsent(type, k -> new LogWindow()).tryAcquire(maxErrorLogsPerWindow, windowNanos);
+	}
+
+	private static class LogWindow {
+		private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+		private final AtomicLong count = new AtomicLong();
+		private final AtomicLong suppressed = new AtomicLong();
+
+		long tryAcquire(int max, long windowNanos) {
+			long now = System.nanoTime();
+			long start = windowStart.get();
+			if (now - start >= windowNanos && windowStart.compareAndSet(start, now)) {
+				count.set(0);
+			}
+			if (count.incrementAndGet() <= max) {
+				return suppressed.getAndSet(0);
+			}
+			suppressed.incrementAndGet();
+			return -1;
+		}
+	}
+}
@@ -0,0 +1,19 @@
+package com.github.xuchen93.grpc.exception;
+
+import org.springframework.stereotype.Component;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注集中处理gRPC异常的bean，其中的 {@link GrpcExceptionHandler} 方法在启动时注册到ExceptionStatusMapper
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@Component
+public @interface GrpcAdvice {
+}
@@ -0,0 +1,97 @@
+package com.github.xuchen93.grpc.exception;
+
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import io.grpc.Metadata;
+import io.grpc.Status;
+
+/**
+ * 预先构造的错误：Status、业务错误码以及对应的trailers只创建一次，通常声明为常量
+ * <pre>
+ * public static final GrpcError NUMBER_TOO_LARGE =
+ *         GrpcError.of(Status.Code.INVALID_ARGUMENT, "NUMBER_TOO_LARGE", "Number too large");
+ * ...
+ * throw NUMBER_TOO_LARGE.exception();
+ * </pre>
+ */
+public final class GrpcError {
+
+	private final Status status;
+	private final String errorCode;
+	private final Metadata trailers;
+	// 第一次抛出时创建，并发创建出两个实例也没有影响
+	private volatile BusinessException exception;
+
+	private GrpcError(Status status, String errorCode, Metadata trailers) {
+		this.status = status;
+		this.errorCode = errorCode;
+		this.trailers = trailers;
+	}
+
+	/**
+	 * @param errorCode 业务错误码，写入trailers的x-error-code，为null时不写
+	 */
+	public static GrpcError of(Status.Code code, String errorCode, String description) {
+		Metadata trailers = new Metadata();
+		if (errorCode != null) {
+			trailers.put(InterceptorKeys.ERROR_CODE_KEY, errorCode);
+		}
+		return new GrpcError(code.toStatus().withDescription(description), errorCode, trailers);
+	}
+
+	/**
+	 * 没有业务错误码的错误
+	 */
+	public static GrpcError of(Status status) {
+		return new GrpcError(status, null, new Metadata());
+	}
+
+	/**
+	 * 带已有trailers的错误，trailers复制一份保存
+	 */
+	public static GrpcError of(Status status, Metadata trailers) {
+		Metadata copy = new Metadata();
+		copy.merge(trailers);
+		return new GrpcError(status, copy.get(InterceptorKeys.ERROR_CODE_KEY), copy);
+	}
+
+	public Status status() {
+		return status;
+	}
+
+	public String errorCode() {
+		return errorCode;
+	}
+
+	/**
+	 * 关闭调用用的trailers；Metadata可变且会被传输层和拦截器修改，每次返回一份副本，只复制已编码的键值引用
+	 */
+	public Metadata trailers() {
+		Metadata copy = new Metadata();
+		copy.merge(trailers);
+		return copy;
+	}
+
+	/**
+	 * 共享的无栈异常，抛出时不分配对象
+	 */
+	public BusinessException exception() {
+		BusinessException current = exception;
+		if (current == null) {
+			current = new BusinessException(this);
+			exception = current;
+		}
+		return current;
+	}
+
+	/**
+	 * 描述中带有动态内容的同类错误，状态码和错误码不变；只分配异常对象，不填充栈
+	 */
+	public BusinessException exception(String description) {
+		return new BusinessException(new GrpcError(status.withDescription(description), errorCode, trailers));
+	}
+
+	@Override
+	public String toString() {
+		return errorCode != null ? errorCode + " " + status : status.toString();
+	}
+}
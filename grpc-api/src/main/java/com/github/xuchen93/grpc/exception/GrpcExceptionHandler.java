@@ -0,0 +1,28 @@
+package com.github.xuchen93.grpc.exception;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在 {@link GrpcAdvice} bean的方法上，将异常类型映射为gRPC状态
+ * 方法只有一个异常参数，返回GrpcError、Status、StatusException或StatusRuntimeException，返回null时按默认规则处理
+ * <pre>
+ * &#64;GrpcExceptionHandler
+ * public Status handle(IllegalArgumentException e) {
+ *     return Status.INVALID_ARGUMENT.withDescription(e.getMessage());
+ * }
+ * </pre>
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface GrpcExceptionHandler {
+
+	/**
+	 * 处理的异常类型，子类同样处理；为空时取方法参数的类型
+	 */
+	Class<? extends Throwable>[] value() default {};
+}
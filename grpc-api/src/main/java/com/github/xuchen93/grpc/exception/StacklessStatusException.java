@@ -0,0 +1,20 @@
+package com.github.xuchen93.grpc.exception;
+
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+
+/**
+ * 不填充栈的StatusRuntimeException，用于只能以异常形式传递状态的地方（如响应式流的onError）
+ */
+public final class StacklessStatusException extends StatusRuntimeException {
+
+	public StacklessStatusException(Status status, Metadata trailers) {
+		super(status, trailers);
+	}
+
+	@Override
+	public synchronized Throwable fillInStackTrace() {
+		return this;
+	}
+}
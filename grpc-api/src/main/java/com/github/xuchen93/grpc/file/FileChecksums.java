@@ -0,0 +1,28 @@
+package com.github.xuchen93.grpc.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32C;
+
+/**
+ * 续传时重新计算已传输部分的CRC32C：按区域内存映射后直接计算，不经过堆上的缓冲区
+ */
+final class FileChecksums {
+
+	private FileChecksums() {
+	}
+
+	/**
+	 * 将文件[0, length)的内容累加到crc，channel需以READ打开
+	 */
+	static void update(CRC32C crc, FileChannel channel, long length, long regionSize) {
+		try {
+			for (long start = 0; start < length; start += regionSize) {
+				crc.update(channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(regionSize, length - start)));
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
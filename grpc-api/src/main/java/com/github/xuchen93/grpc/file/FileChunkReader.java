@@ -0,0 +1,132 @@
+package com.github.xuchen93.grpc.file;
+
+import com.github.xuchen93.grpc.api.file.FileChunk;
+import com.google.protobuf.UnsafeByteOperations;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32C;
+
+import static com.github.xuchen93.grpc.file.FileTransferErrors.UNEXPECTED_OFFSET;
+
+/**
+ * 按块读取文件：文件按区域做内存映射，每块是映射区域的一个切片，
+ * 通过UnsafeByteOperations.unsafeWrap直接包装为ByteString，不经过堆上的byte[]
+ * <ul>
+ *     <li>序列化时protobuf从映射内存直接写入gRPC的发送缓冲区，这是整个下载路径上唯一的一次复制</li>
+ *     <li>同时计算每块和整个文件的CRC32C（JDK使用CPU指令计算，直接读映射内存）</li>
+ *     <li>映射区域在不再被引用后由GC释放；传输过程中文件被截断会导致访问映射内存时出错，存储目录中的文件不应被原地修改</li>
+ * </ul>
+ * 非线程安全，由同一调用的串行回调使用
+ */
+public final class FileChunkReader implements Closeable {
+
+	/**
+	 * 单个映射区域的最大字节数，限制地址空间占用
+	 */
+	private static final long MAX_REGION_SIZE = 64L * 1024 * 1024;
+
+	private final FileChannel channel;
+	private final long size;
+	private final int chunkSize;
+	private final long regionSize;
+	private final CRC32C chunkCrc = new CRC32C();
+	private final CRC32C fileCrc = new CRC32C();
+	private MappedByteBuffer region;
+	private long regionStart;
+	private long position;
+
+	private FileChunkReader(FileChannel channel, int chunkSize) throws IOException {
+		this.channel = channel;
+		this.size = channel.size();
+		this.chunkSize = chunkSize;
+		// 区域大小取块大小的整数倍，块不会跨区域
+		this.regionSize = Math.max(1, MAX_REGION_SIZE / chunkSize) * chunkSize;
+	}
+
+	public static FileChunkReader open(Path file, int chunkSize) throws IOException {
+		return open(file, chunkSize, 0);
+	}
+
+	/**
+	 * 从offset开始读取（续传），整个文件的CRC32C仍覆盖offset之前的内容
+	 *
+	 * @throws com.github.xuchen93.grpc.exception.BusinessException offset超出文件大小
+	 */
+	public static FileChunkReader open(Path file, int chunkSize, long offset) throws IOException {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+		}
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			FileChunkReader reader = new FileChunkReader(channel, chunkSize);
+			reader.skip(offset);
+			return reader;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	public long size() {
+		return size;
+	}
+
+	public long position() {
+		return position;
+	}
+
+	public boolean hasNext() {
+		return position < size;
+	}
+
+	public FileChunk next() throws IOException {
+		if (region == null || position >= regionStart + region.capacity()) {
+			regionStart = position;
+			region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(regionSize, size - regionStart));
+		}
+		int length = (int) Math.min(chunkSize, size - position);
+		ByteBuffer slice = region.slice((int) (position - regionStart), length);
+		chunkCrc.reset();
+		chunkCrc.update(slice);
+		slice.rewind();
+		fileCrc.update(slice);
+		slice.rewind();
+		FileChunk chunk = FileChunk.newBuilder()
+				.setOffset(position)
+				.setData(UnsafeByteOperations.unsafeWrap(slice))
+				.setCrc32C((int) chunkCrc.getValue())
+				.build();
+		position += length;
+		return chunk;
+	}
+
+	/**
+	 * 跳过已传输的部分：只按区域映射计算CRC32C，不产生块
+	 */
+	private void skip(long offset) {
+		if (offset < 0 || offset > size) {
+			throw UNEXPECTED_OFFSET.exception("Offset " + offset + " is out of file size " + size);
+		}
+		FileChecksums.update(fileCrc, channel, offset, regionSize);
+		position = offset;
+	}
+
+	/**
+	 * 已读取部分的CRC32C，读完后即整个文件的校验和
+	 */
+	public int fileCrc32c() {
+		return (int) fileCrc.getValue();
+	}
+
+	@Override
+	public void close() throws IOException {
+		region = null;
+		channel.close();
+	}
+}
@@ -0,0 +1,237 @@
+package com.github.xuchen93.grpc.file;
+
+import com.github.xuchen93.grpc.api.file.FileChunk;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.zip.CRC32C;
+
+import static com.github.xuchen93.grpc.file.FileTransferErrors.CHUNK_CHECKSUM_MISMATCH;
+import static com.github.xuchen93.grpc.file.FileTransferErrors.FILE_CHECKSUM_MISMATCH;
+import static com.github.xuchen93.grpc.file.FileTransferErrors.SIZE_MISMATCH;
+import static com.github.xuchen93.grpc.file.FileTransferErrors.UNEXPECTED_OFFSET;
+
+/**
+ * 按块写入文件：先写到同目录下的.part文件，校验通过后原子替换为目标文件
+ * 不续传的写入每次使用唯一的.part文件，同名文件的并发传输互不覆盖，最后完成的替换目标文件；
+ * 续传的写入使用调用方指定的.part文件（如按续传令牌命名），由调用方保证同一时间只有一个写入方
+ * <ul>
+ *     <li>每块写入前校验CRC32C，数据从ByteString的只读视图直接写入FileChannel，不再复制</li>
+ *     <li>块必须按顺序到达，offset与已写入的字节数不一致时拒绝</li>
+ *     <li>结束时核对总大小和整个文件的CRC32C，失败或中止时删除.part文件</li>
+ *     <li>续传时保留.part文件：suspend落盘后关闭，resume从已确认的位置继续写入</li>
+ * </ul>
+ * 非线程安全，由同一调用的串行回调使用
+ */
+public final class FileChunkWriter implements Closeable {
+
+	static final String PART_SUFFIX = ".part";
+
+	/**
+	 * 重新计算已写入部分的校验和时每次映射的字节数
+	 */
+	private static final long CHECKSUM_REGION_SIZE = 64L * 1024 * 1024;
+
+	private final Path target;
+	private final Path part;
+	private final long expectedSize;
+	private final FileChannel channel;
+	private final CRC32C chunkCrc = new CRC32C();
+	private final CRC32C fileCrc = new CRC32C();
+	private long position;
+	private boolean closed;
+	// suspend成功后保留的位置，重复调用suspend时返回
+	private long suspended = -1;
+
+	private FileChunkWriter(Path target, Path part, long expectedSize, FileChannel channel) {
+		this.target = target;
+		this.part = part;
+		this.expectedSize = expectedSize;
+		this.channel = channel;
+	}
+
+	/**
+	 * 写入新建的唯一.part文件，不能续传
+	 *
+	 * @param expectedSize 发送方声明的文件大小，结束时核对
+	 */
+	public static FileChunkWriter create(Path target, long expectedSize) throws IOException {
+		Files.createDirectories(target.getParent());
+		Path part = partFile(target, UUID.randomUUID().toString());
+		return new FileChunkWriter(target, part, expectedSize,
+				FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE));
+	}
+
+	/**
+	 * 在目标文件固定的.part文件（{@link #partFile(Path)}）上续写
+	 */
+	public static FileChunkWriter resume(Path target, long expectedSize, long offset) throws IOException {
+		return resume(target, partFile(target), expectedSize, offset);
+	}
+
+	/**
+	 * 在已有的.part文件上续写：截断到offset（丢弃未确认的部分），并重新计算offset之前内容的CRC32C；
+	 * offset为0时新建或清空.part文件
+	 *
+	 * @param part 与target同目录的.part文件
+	 * @throws com.github.xuchen93.grpc.exception.BusinessException .part文件不足offset字节，或offset超出文件大小
+	 */
+	public static FileChunkWriter resume(Path target, Path part, long expectedSize, long offset) throws IOException {
+		if (offset == 0) {
+			Files.createDirectories(target.getParent());
+			return new FileChunkWriter(target, part, expectedSize, FileChannel.open(part, StandardOpenOption.CREATE,
+					StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING));
+		}
+		if (offset < 0 || offset > expectedSize) {
+			throw UNEXPECTED_OFFSET.exception("Resume offset " + offset + " is out of file size " + expectedSize);
+		}
+		if (!Files.isRegularFile(part) || Files.size(part) < offset) {
+			throw UNEXPECTED_OFFSET.exception("Partial file is shorter than resume offset " + offset);
+		}
+		FileChannel channel = FileChannel.open(part, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		try {
+			channel.truncate(offset);
+			FileChunkWriter writer = new FileChunkWriter(target, part, expectedSize, channel);
+			FileChecksums.update(writer.fileCrc, channel, offset, CHECKSUM_REGION_SIZE);
+			channel.position(offset);
+			writer.position = offset;
+			return writer;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * 目标文件固定的.part文件，供按目标文件续传的一方使用（如客户端下载）
+	 */
+	public static Path partFile(Path target) {
+		return target.resolveSibling(target.getFileName() + PART_SUFFIX);
+	}
+
+	/**
+	 * 属于某次传输的.part文件，如按续传令牌命名，不同的owner互不影响
+	 */
+	public static Path partFile(Path target, String owner) {
+		return target.resolveSibling(target.getFileName() + "." + owner + PART_SUFFIX);
+	}
+
+	public Path target() {
+		return target;
+	}
+
+	public long position() {
+		return position;
+	}
+
+	/**
+	 * @return 本块的字节数
+	 */
+	public int write(FileChunk chunk) throws IOException {
+		if (chunk.getOffset() != position) {
+			throw UNEXPECTED_OFFSET.exception("Chunk offset " + chunk.getOffset() + " does not match written size " + position);
+		}
+		int length = chunk.getData().size();
+		if (position + length > expectedSize) {
+			throw SIZE_MISMATCH.exception("File exceeds declared size " + expectedSize);
+		}
+		ByteBuffer data = chunk.getData().asReadOnlyByteBuffer();
+		chunkCrc.reset();
+		chunkCrc.update(data);
+		if ((int) chunkCrc.getValue() != chunk.getCrc32C()) {
+			throw CHUNK_CHECKSUM_MISMATCH.exception("Chunk checksum mismatch at offset " + position);
+		}
+		data.rewind();
+		fileCrc.update(data);
+		data.rewind();
+		while (data.hasRemaining()) {
+			channel.write(data);
+		}
+		position += length;
+		return length;
+	}
+
+	/**
+	 * 核对大小与校验和，落盘后替换目标文件
+	 *
+	 * @return 写入内容的CRC32C
+	 */
+	public int finish(int expectedCrc32c) throws IOException {
+		if (position != expectedSize) {
+			throw SIZE_MISMATCH.exception("Received " + position + " bytes, expected " + expectedSize);
+		}
+		int crc = (int) fileCrc.getValue();
+		if (crc != expectedCrc32c) {
+			throw FILE_CHECKSUM_MISMATCH.exception(String.format("File checksum mismatch: expected %08x, actual %08x", expectedCrc32c, crc));
+		}
+		channel.force(false);
+		channel.close();
+		closed = true;
+		Files.move(part, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		return crc;
+	}
+
+	/**
+	 * 已写入的内容落盘
+	 *
+	 * @return 已落盘的位置，可以作为续传的检查点
+	 */
+	public long sync() throws IOException {
+		channel.force(false);
+		return position;
+	}
+
+	/**
+	 * 暂停传输：落盘后关闭，保留.part文件供之后续传；可以重复调用，finish或abort之后调用无效果
+	 *
+	 * @return 已落盘的位置，无法续传（已结束或落盘失败）时返回-1
+	 */
+	public long suspend() {
+		if (closed) {
+			return suspended;
+		}
+		closed = true;
+		try {
+			channel.force(false);
+			channel.close();
+			suspended = position;
+			return position;
+		} catch (IOException e) {
+			// 落盘失败时无法确认已写入的内容，下次从头开始
+			abortQuietly();
+			return -1;
+		}
+	}
+
+	/**
+	 * 中止传输并删除.part文件；finish之后调用无效果
+	 */
+	public void abort() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		abortQuietly();
+	}
+
+	private void abortQuietly() {
+		try {
+			channel.close();
+			Files.deleteIfExists(part);
+		} catch (IOException ignored) {
+			// 删除失败的.part文件不会被之后的传输复用
+		}
+	}
+
+	@Override
+	public void close() {
+		abort();
+	}
+}
@@ -0,0 +1,185 @@
+package com.github.xuchen93.grpc.file;
+
+import com.github.xuchen93.grpc.api.file.FileChecksum;
+import com.github.xuchen93.grpc.api.file.FileChunk;
+import com.github.xuchen93.grpc.api.file.FileInfo;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.function.Function;
+
+import static com.github.xuchen93.grpc.file.FileTransferErrors.UNEXPECTED_MESSAGE;
+
+/**
+ * 接收文件：按info、chunk、checksum的顺序处理消息并写入磁盘
+ * 服务端上传和客户端下载共用；调用方每处理完一条消息再请求下一条，写盘速度即接收速度
+ * 任何一步失败（顺序错误、校验失败、IO异常）都会删除未完成的文件后抛出；
+ * 可续传的接收方只在整个文件校验失败时删除，其他失败落盘后保留.part文件，由调用方记录续传位置
+ */
+@Slf4j
+public final class FileReceiver {
+
+	private final Function<FileInfo, Path> targetResolver;
+	private final String label;
+	private final boolean resumable;
+	private FileChunkWriter writer;
+	private TransferStats stats;
+	private boolean finished;
+
+	/**
+	 * @param targetResolver 根据info决定写入的位置，可抛出业务异常拒绝
+	 */
+	public FileReceiver(Function<FileInfo, Path> targetResolver, String label) {
+		this(targetResolver, label, false);
+	}
+
+	/**
+	 * @param resumable 失败时是否保留已写入的部分供续传
+	 */
+	public FileReceiver(Function<FileInfo, Path> targetResolver, String label, boolean resumable) {
+		this.targetResolver = targetResolver;
+		this.label = label;
+		this.resumable = resumable;
+	}
+
+	/**
+	 * 从头接收，写入本次接收独有的.part文件
+	 */
+	public void onInfo(FileInfo info) {
+		onInfo(info, null, -1);
+	}
+
+	/**
+	 * 写入目标文件固定的.part文件，供之后续传
+	 *
+	 * @param offset 续传的起始位置，之前的内容已在.part文件中，0表示从头开始
+	 */
+	public void onInfo(FileInfo info, long offset) {
+		onInfo(info, null, offset);
+	}
+
+	/**
+	 * 写入指定的.part文件，供之后续传
+	 *
+	 * @param part   续传使用的.part文件，null表示目标文件固定的.part文件
+	 * @param offset 续传的起始位置，之前的内容已在.part文件中，0表示从头开始
+	 */
+	public void onInfo(FileInfo info, Path part, long offset) {
+		if (writer != null || finished) {
+			throw fail(UNEXPECTED_MESSAGE.exception("File info must be the first message"));
+		}
+		stats = new TransferStats(label + " " + info.getFileName());
+		long mark = stats.allocationMark();
+		try {
+			Path target = targetResolver.apply(info);
+			writer = offset < 0 ? FileChunkWriter.create(target, info.getSize())
+					: FileChunkWriter.resume(target, part != null ? part : FileChunkWriter.partFile(target), info.getSize(), offset);
+			if (offset > 0) {
+				log.info("[FileTransfer] 从 {} 字节处续传 {}", offset, info.getFileName());
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		} finally {
+			stats.allocated(mark);
+		}
+	}
+
+	public void onChunk(FileChunk chunk) {
+		requireWriter();
+		long mark = stats.allocationMark();
+		try {
+			stats.transferred(writer.write(chunk));
+		} catch (IOException e) {
+			throw fail(new UncheckedIOException(e));
+		} catch (RuntimeException e) {
+			throw fail(e);
+		} finally {
+			stats.allocated(mark);
+		}
+	}
+
+	/**
+	 * @return 写入内容的CRC32C
+	 */
+	public int onChecksum(FileChecksum checksum) {
+		requireWriter();
+		try {
+			int crc = writer.finish(checksum.getCrc32C());
+			finished = true;
+			log.info("[FileTransfer] 接收完成 {}, crc32c={}", stats, Integer.toHexString(crc));
+			return crc;
+		} catch (IOException e) {
+			abort();
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException e) {
+			// 整个文件校验失败，已写入的部分不可信，即使可续传也删除
+			abort();
+			throw e;
+		}
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	public Path target() {
+		return writer != null ? writer.target() : null;
+	}
+
+	public long size() {
+		return writer != null ? writer.position() : 0;
+	}
+
+	/**
+	 * 已写入的内容落盘，用于定期保存续传检查点
+	 *
+	 * @return 已落盘的位置
+	 */
+	public long sync() {
+		requireWriter();
+		try {
+			return writer.sync();
+		} catch (IOException e) {
+			throw fail(new UncheckedIOException(e));
+		}
+	}
+
+	/**
+	 * 流异常结束或被取消时调用，删除未完成的文件
+	 */
+	public void abort() {
+		if (writer != null && !finished) {
+			log.info("[FileTransfer] 接收中止 {}", stats);
+			writer.abort();
+		}
+	}
+
+	/**
+	 * 流异常结束或被取消时调用，落盘并保留未完成的文件；可以重复调用
+	 *
+	 * @return 已落盘的位置，可以续传；没有可续传的内容（未开始、已完成或已删除）时返回-1
+	 */
+	public long suspend() {
+		if (writer == null || finished) {
+			return -1;
+		}
+		return writer.suspend();
+	}
+
+	private void requireWriter() {
+		if (writer == null || finished) {
+			throw fail(UNEXPECTED_MESSAGE.exception(finished ? "File checksum must be the last message" : "File info must be the first message"));
+		}
+	}
+
+	private RuntimeException fail(RuntimeException e) {
+		if (resumable) {
+			suspend();
+		} else {
+			abort();
+		}
+		return e;
+	}
+}
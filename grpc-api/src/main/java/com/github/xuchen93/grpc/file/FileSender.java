@@ -0,0 +1,104 @@
+package com.github.xuchen93.grpc.file;
+
+import com.github.xuchen93.grpc.api.file.FileChecksum;
+import com.github.xuchen93.grpc.api.file.FileChunk;
+import com.github.xuchen93.grpc.api.file.FileInfo;
+import io.grpc.stub.CallStreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Function;
+
+/**
+ * 按流控发送文件：只在isReady时发送下一块，对方接收慢时停下，等onReady回调再继续，
+ * 内存中最多只有传输窗口内的数据，与文件大小无关
+ * 服务端下载和客户端上传共用，消息类型由Messages适配
+ * <p>
+ * 发送顺序：info、各个chunk、checksum，然后onCompleted；
+ * reader从中间位置打开时（续传）只发送之后的chunk，checksum仍覆盖整个文件
+ */
+@Slf4j
+public final class FileSender<T> {
+
+	/**
+	 * 将文件传输的三种内容包装为具体的流消息
+	 */
+	public record Messages<T>(Function<FileInfo, T> info, Function<FileChunk, T> chunk, Function<FileChecksum, T> checksum) {
+	}
+
+	private final FileChunkReader reader;
+	private final CallStreamObserver<T> observer;
+	private final Messages<T> messages;
+	private final FileInfo info;
+	private final TransferStats stats;
+	private boolean infoSent;
+	private boolean done;
+
+	/**
+	 * @param info 第一条消息的内容，size应与reader.size()一致
+	 */
+	public FileSender(FileChunkReader reader, CallStreamObserver<T> observer, Messages<T> messages, FileInfo info, TransferStats stats) {
+		this.reader = reader;
+		this.observer = observer;
+		this.messages = messages;
+		this.info = info;
+		this.stats = stats;
+	}
+
+	/**
+	 * 注册为onReadyHandler；读取失败时关闭文件并抛出UncheckedIOException
+	 */
+	public void onReady() {
+		if (done) {
+			return;
+		}
+		long mark = stats.allocationMark();
+		try {
+			if (!infoSent) {
+				observer.onNext(messages.info().apply(info));
+				infoSent = true;
+			}
+			while (reader.hasNext() && observer.isReady()) {
+				FileChunk chunk = reader.next();
+				observer.onNext(messages.chunk().apply(chunk));
+				stats.transferred(chunk.getData().size());
+			}
+			if (!reader.hasNext()) {
+				observer.onNext(messages.checksum().apply(FileChecksum.newBuilder()
+						.setCrc32C(reader.fileCrc32c())
+						.build()));
+				close();
+				observer.onCompleted();
+				log.info("[FileTransfer] 发送完成 {}, crc32c={}", stats, Integer.toHexString(reader.fileCrc32c()));
+			}
+		} catch (IOException e) {
+			close();
+			throw new UncheckedIOException(e);
+		} catch (RuntimeException e) {
+			close();
+			throw e;
+		} finally {
+			stats.allocated(mark);
+		}
+	}
+
+	/**
+	 * 对方取消时调用，停止发送并关闭文件
+	 */
+	public void cancel() {
+		if (!done) {
+			log.info("[FileTransfer] 发送被取消 {}", stats);
+			close();
+		}
+	}
+
+	private void close() {
+		done = true;
+		try {
+			reader.close();
+		} catch (IOException e) {
+			log.warn("[FileTransfer] 关闭文件失败: {}", info.getFileName(), e);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.github.xuchen93.grpc.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+
+import static com.github.xuchen93.grpc.file.FileTransferErrors.FILE_NOT_FOUND;
+import static com.github.xuchen93.grpc.file.FileTransferErrors.INVALID_FILE_NAME;
+
+/**
+ * 文件传输的存储目录，客户端给出的文件名只能解析到该目录之内
+ */
+public class FileStore {
+
+	private final Path root;
+
+	public FileStore(Path root) throws IOException {
+		this.root = Files.createDirectories(root).toAbsolutePath().normalize();
+	}
+
+	public Path root() {
+		return root;
+	}
+
+	/**
+	 * 解析文件名，文件不必存在
+	 *
+	 * @throws com.github.xuchen93.grpc.exception.BusinessException 文件名为空或解析到存储目录之外
+	 */
+	public Path resolve(String fileName) {
+		Path path;
+		try {
+			path = root.resolve(fileName).normalize();
+		} catch (InvalidPathException e) {
+			throw INVALID_FILE_NAME.exception("Invalid file name: " + fileName);
+		}
+		if (fileName.isBlank() || !path.startsWith(root) || path.equals(root)) {
+			throw INVALID_FILE_NAME.exception("Invalid file name: " + fileName);
+		}
+		return path;
+	}
+
+	/**
+	 * 解析已存在的普通文件
+	 */
+	public Path resolveExisting(String fileName) {
+		Path path = resolve(fileName);
+		if (!Files.isRegularFile(path)) {
+			throw FILE_NOT_FOUND.exception("File not found: " + fileName);
+		}
+		return path;
+	}
+}
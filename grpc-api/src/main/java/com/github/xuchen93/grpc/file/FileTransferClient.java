@@ -0,0 +1,216 @@
+package com.github.xuchen93.grpc.file;
+
+import com.github.xuchen93.grpc.api.file.DownloadRequest;
+import com.github.xuchen93.grpc.api.file.DownloadResponse;
+import com.github.xuchen93.grpc.api.file.FileInfo;
+import com.github.xuchen93.grpc.api.file.FileTransferServiceGrpc;
+import com.github.xuchen93.grpc.api.file.UploadRequest;
+import com.github.xuchen93.grpc.api.file.UploadResponse;
+import com.github.xuchen93.grpc.api.resume.ResumeOffset;
+import com.github.xuchen93.grpc.api.resume.ResumeQuery;
+import com.github.xuchen93.grpc.api.resume.ResumeServiceGrpc;
+import io.grpc.Status;
+import io.grpc.stub.ClientCallStreamObserver;
+import io.grpc.stub.ClientResponseObserver;
+import io.grpc.stub.StreamObserver;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CompletableFuture;
+
+import static com.github.xuchen93.grpc.file.FileTransferErrors.TRANSFER_INCOMPLETE;
+import static com.github.xuchen93.grpc.file.FileTransferErrors.UNEXPECTED_MESSAGE;
+import static com.github.xuchen93.grpc.resume.ResumeErrors.RESUME_TOKEN_IN_USE;
+
+/**
+ * FileTransferService的客户端，两个方向都按流控传输并校验CRC32C
+ * <ul>
+ *     <li>上传：本地文件按块内存映射，在onReady中发送，服务端接收慢时停下；
+ *     携带续传令牌时先向ResumeService查询服务端已落盘的位置，从该位置继续发送</li>
+ *     <li>下载：每写完一块再请求下一块，写入.part文件，校验通过后替换目标文件；
+ *     中断后保留.part文件，再次下载同一目标时从.part文件的末尾继续</li>
+ * </ul>
+ * 每次调用只尝试一次，中断后由调用方决定何时重试；传输完成时在日志中输出吞吐（MB/s）和每GB的堆分配字节数
+ * 放在grpc-api中，客户端应用和服务端测试共用
+ */
+public class FileTransferClient {
+
+	private static final FileSender.Messages<UploadRequest> UPLOAD_MESSAGES = new FileSender.Messages<>(
+			info -> UploadRequest.newBuilder().setInfo(info).build(),
+			chunk -> UploadRequest.newBuilder().setChunk(chunk).build(),
+			checksum -> UploadRequest.newBuilder().setChecksum(checksum).build());
+
+	private final FileTransferServiceGrpc.FileTransferServiceStub stub;
+	private final ResumeServiceGrpc.ResumeServiceStub resumeStub;
+	private final int chunkSize;
+
+	public FileTransferClient(FileTransferServiceGrpc.FileTransferServiceStub stub,
+							  ResumeServiceGrpc.ResumeServiceStub resumeStub, int chunkSize) {
+		this.stub = stub;
+		this.resumeStub = resumeStub;
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * 上传本地文件，保存为服务端存储目录下的fileName；中断后只能从头开始
+	 */
+	public CompletableFuture<UploadResponse> upload(Path source, String fileName) {
+		return upload(source, fileName, "", 0);
+	}
+
+	/**
+	 * 可续传的上传：同一文件的每次尝试使用同一个令牌，从服务端已确认的位置继续
+	 * 上一次尝试还未在服务端结束时以RESUME_TOKEN_IN_USE失败，稍后重试即可
+	 *
+	 * @param resumeToken 客户端生成的令牌，如UUID
+	 */
+	public CompletableFuture<UploadResponse> upload(Path source, String fileName, String resumeToken) {
+		return queryOffset(resumeToken).thenCompose(offset -> {
+			if (offset.getInUse()) {
+				return CompletableFuture.failedFuture(RESUME_TOKEN_IN_USE.exception());
+			}
+			return upload(source, fileName, resumeToken, offset.getFound() ? offset.getOffset() : 0);
+		});
+	}
+
+	private CompletableFuture<UploadResponse> upload(Path source, String fileName, String resumeToken, long offset) {
+		CompletableFuture<UploadResponse> result = new CompletableFuture<>();
+		FileChunkReader reader;
+		try {
+			reader = FileChunkReader.open(source, chunkSize, offset);
+		} catch (IOException | RuntimeException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+		FileInfo info = FileInfo.newBuilder()
+				.setFileName(fileName)
+				.setSize(reader.size())
+				.setResumeToken(resumeToken)
+				.build();
+		stub.upload(new ClientResponseObserver<UploadRequest, UploadResponse>() {
+			private FileSender<UploadRequest> sender;
+			private UploadResponse response;
+
+			@Override
+			public void beforeStart(ClientCallStreamObserver<UploadRequest> requestStream) {
+				sender = new FileSender<>(reader, requestStream, UPLOAD_MESSAGES, info, new TransferStats("upload " + fileName));
+				requestStream.setOnReadyHandler(sender::onReady);
+			}
+
+			@Override
+			public void onNext(UploadResponse value) {
+				response = value;
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				sender.cancel();
+				result.completeExceptionally(t);
+			}
+
+			@Override
+			public void onCompleted() {
+				result.complete(response);
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * 下载服务端存储目录下的fileName到target；target的.part文件存在时从其末尾继续
+	 */
+	public CompletableFuture<Path> download(String fileName, Path target) {
+		CompletableFuture<Path> result = new CompletableFuture<>();
+		Path part = FileChunkWriter.partFile(target);
+		long offset;
+		try {
+			offset = Files.isRegularFile(part) ? Files.size(part) : 0;
+		} catch (IOException e) {
+			result.completeExceptionally(e);
+			return result;
+		}
+		FileReceiver receiver = new FileReceiver(info -> target, "download", true);
+		DownloadRequest request = DownloadRequest.newBuilder()
+				.setFileName(fileName)
+				.setChunkSize(chunkSize)
+				.setOffset(offset)
+				.build();
+		stub.download(request, new ClientResponseObserver<DownloadRequest, DownloadResponse>() {
+			private ClientCallStreamObserver<DownloadRequest> requestStream;
+
+			@Override
+			public void beforeStart(ClientCallStreamObserver<DownloadRequest> requestStream) {
+				this.requestStream = requestStream;
+				// 手动流控：写完一块再请求下一块
+				requestStream.disableAutoRequestWithInitial(1);
+			}
+
+			@Override
+			public void onNext(DownloadResponse value) {
+				try {
+					switch (value.getPayloadCase()) {
+						case INFO -> receiver.onInfo(value.getInfo(), offset);
+						case CHUNK -> receiver.onChunk(value.getChunk());
+						case CHECKSUM -> receiver.onChecksum(value.getChecksum());
+						default -> throw UNEXPECTED_MESSAGE.exception("Empty download message");
+					}
+				} catch (RuntimeException e) {
+					receiver.suspend();
+					result.completeExceptionally(e);
+					requestStream.cancel("Download failed", e);
+					return;
+				}
+				requestStream.request(1);
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				receiver.suspend();
+				if (Status.fromThrowable(t).getCode() == Status.Code.OUT_OF_RANGE) {
+					// 服务端文件比已下载的部分还短（文件已被替换），下次从头开始
+					deleteQuietly(part);
+				}
+				result.completeExceptionally(t);
+			}
+
+			@Override
+			public void onCompleted() {
+				if (receiver.isFinished()) {
+					result.complete(target);
+				} else {
+					receiver.suspend();
+					result.completeExceptionally(TRANSFER_INCOMPLETE.exception());
+				}
+			}
+		});
+		return result;
+	}
+
+	private CompletableFuture<ResumeOffset> queryOffset(String resumeToken) {
+		CompletableFuture<ResumeOffset> result = new CompletableFuture<>();
+		resumeStub.queryOffset(ResumeQuery.newBuilder().setResumeToken(resumeToken).build(), new StreamObserver<>() {
+			@Override
+			public void onNext(ResumeOffset value) {
+				result.complete(value);
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				result.completeExceptionally(t);
+			}
+
+			@Override
+			public void onCompleted() {
+			}
+		});
+		return result;
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException ignored) {
+		}
+	}
+}
@@ -0,0 +1,37 @@
+package com.github.xuchen93.grpc.file;
+
+import com.github.xuchen93.grpc.exception.GrpcError;
+import io.grpc.Status;
+
+/**
+ * 文件传输的业务错误，服务端抛出后由ExceptionStatusMapper转换为状态，客户端校验失败时同样抛出
+ */
+public final class FileTransferErrors {
+
+	public static final GrpcError INVALID_FILE_NAME =
+			GrpcError.of(Status.Code.INVALID_ARGUMENT, "INVALID_FILE_NAME", "Invalid file name");
+
+	public static final GrpcError FILE_NOT_FOUND =
+			GrpcError.of(Status.Code.NOT_FOUND, "FILE_NOT_FOUND", "File not found");
+
+	public static final GrpcError UNEXPECTED_MESSAGE =
+			GrpcError.of(Status.Code.INVALID_ARGUMENT, "UNEXPECTED_MESSAGE", "Unexpected message in file transfer stream");
+
+	public static final GrpcError UNEXPECTED_OFFSET =
+			GrpcError.of(Status.Code.OUT_OF_RANGE, "UNEXPECTED_OFFSET", "Chunk offset does not match written size");
+
+	public static final GrpcError CHUNK_CHECKSUM_MISMATCH =
+			GrpcError.of(Status.Code.DATA_LOSS, "CHUNK_CHECKSUM_MISMATCH", "Chunk checksum mismatch");
+
+	public static final GrpcError FILE_CHECKSUM_MISMATCH =
+			GrpcError.of(Status.Code.DATA_LOSS, "FILE_CHECKSUM_MISMATCH", "File checksum mismatch");
+
+	public static final GrpcError SIZE_MISMATCH =
+			GrpcError.of(Status.Code.DATA_LOSS, "SIZE_MISMATCH", "File size mismatch");
+
+	public static final GrpcError TRANSFER_INCOMPLETE =
+			GrpcError.of(Status.Code.INVALID_ARGUMENT, "TRANSFER_INCOMPLETE", "Stream ended before file checksum");
+
+	private FileTransferErrors() {
+	}
+}
@@ -0,0 +1,43 @@
+package com.github.xuchen93.grpc.file;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * 服务端文件传输配置
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.server.file-transfer")
+public class FileTransferProperties {
+
+	/**
+	 * 存储目录，下载和上传的文件名都相对于该目录
+	 */
+	private String dir = "data/files";
+
+	/**
+	 * 客户端未指定时每块的大小
+	 */
+	private DataSize chunkSize = DataSize.ofKilobytes(256);
+
+	/**
+	 * 每块大小的上限，需小于gRPC的最大消息大小（默认4MB）
+	 */
+	private DataSize maxChunkSize = DataSize.ofMegabytes(2);
+
+	public FileStore toStore() throws IOException {
+		return new FileStore(Paths.get(dir));
+	}
+
+	/**
+	 * 客户端请求的块大小，0表示使用默认值，超过上限时取上限
+	 */
+	public int chunkSize(int requested) {
+		long size = requested > 0 ? requested : chunkSize.toBytes();
+		return (int) Math.min(size, maxChunkSize.toBytes());
+	}
+}
@@ -0,0 +1,73 @@
+package com.github.xuchen93.grpc.file;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * 单次文件传输的吞吐与堆分配统计
+ * 传输在多个回调中完成（可能在不同线程上），每个回调前后取当前线程已分配字节数之差累加；
+ * 同一调用的回调由gRPC串行执行，字段无需同步
+ */
+public final class TransferStats {
+
+	private static final com.sun.management.ThreadMXBean THREADS = threadMXBean();
+	private static final double GB = 1024.0 * 1024 * 1024;
+
+	private final String label;
+	private final long startNanos = System.nanoTime();
+	private long bytes;
+	private long allocatedBytes;
+
+	public TransferStats(String label) {
+		this.label = label;
+	}
+
+	/**
+	 * 回调开始时调用，返回值传给 {@link #allocated(long)}
+	 */
+	public long allocationMark() {
+		return THREADS != null ? THREADS.getCurrentThreadAllocatedBytes() : 0;
+	}
+
+	public void allocated(long mark) {
+		if (THREADS != null) {
+			allocatedBytes += THREADS.getCurrentThreadAllocatedBytes() - mark;
+		}
+	}
+
+	public void transferred(long n) {
+		bytes += n;
+	}
+
+	public long bytes() {
+		return bytes;
+	}
+
+	public double megabytesPerSecond() {
+		long elapsed = System.nanoTime() - startNanos;
+		return elapsed > 0 ? bytes / 1048576.0 / (elapsed / 1e9) : 0;
+	}
+
+	/**
+	 * 每传输1GB的堆分配字节数，JVM不支持线程分配统计时为-1
+	 */
+	public long allocatedBytesPerGigabyte() {
+		if (THREADS == null) {
+			return -1;
+		}
+		return bytes > 0 ? (long) (allocatedBytes * GB / bytes) : 0;
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%s: bytes=%d, elapsed=%dms, throughput=%.1fMB/s, heapAllocPerGB=%d",
+				label, bytes, (System.nanoTime() - startNanos) / 1_000_000, megabytesPerSecond(), allocatedBytesPerGigabyte());
+	}
+
+	private static com.sun.management.ThreadMXBean threadMXBean() {
+		if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+				&& bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+			return bean;
+		}
+		return null;
+	}
+}
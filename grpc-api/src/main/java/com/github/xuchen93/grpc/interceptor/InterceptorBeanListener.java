@@ -1,29 +1,117 @@
 package com.github.xuchen93.grpc.interceptor;
 
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainServerInterceptor;
+import com.github.xuchen93.grpc.interceptor.chain.NamedInterceptor;
+import com.github.xuchen93.grpc.interceptor.pipeline.ServerStage;
 import io.grpc.ClientInterceptor;
 import io.grpc.ServerInterceptor;
 import lombok.extern.slf4j.Slf4j;
 import org.jspecify.annotations.Nullable;
 import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.beans.factory.BeanFactoryAware;
+import org.springframework.beans.factory.ListableBeanFactory;
 import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
 /**
+ * 收集容器中的拦截器bean和融合流水线的阶段bean，按@Order（@Bean方法或类上）排序后
+ * 分别交给方法链拦截器和FusedServerPipeline
+ * MethodChain*Interceptor本身不会被收集
+ *
  * @author xuchen.wang
  * @date 2026/2/13
  */
 @Slf4j
 @Component
-public class InterceptorBeanListener implements BeanPostProcessor {
+public class InterceptorBeanListener implements BeanPostProcessor, BeanFactoryAware {
+
+	private final List<Registered<ServerInterceptor>> serverInterceptors = new ArrayList<>();
+	private final List<Registered<ClientInterceptor>> clientInterceptors = new ArrayList<>();
+	private final List<Registered<ServerStage>> serverStages = new ArrayList<>();
+	private ListableBeanFactory beanFactory;
+
+	@Override
+	public void setBeanFactory(BeanFactory beanFactory) throws BeansException {
+		this.beanFactory = (ListableBeanFactory) beanFactory;
+	}
 
 	@Override
 	public @Nullable Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-		if (bean instanceof ServerInterceptor) {
-			log.info("[注入ServerInterceptor]beanName={},class={}", beanName, bean.getClass().getSimpleName());
+		if (bean instanceof ServerInterceptor interceptor && !(bean instanceof MethodChainServerInterceptor)) {
+			int order = orderOf(bean, beanName);
+			log.info("[注入ServerInterceptor]beanName={},class={},order={}", beanName, bean.getClass().getSimpleName(), order);
+			synchronized (serverInterceptors) {
+				serverInterceptors.add(new Registered<>(order, new NamedInterceptor<>(beanName, interceptor)));
+			}
+		}
+		if (bean instanceof ClientInterceptor interceptor && !(bean instanceof MethodChainClientInterceptor)) {
+			int order = orderOf(bean, beanName);
+			log.info("[注入ClientInterceptor]beanName={},class={},order={}", beanName, bean.getClass().getSimpleName(), order);
+			synchronized (clientInterceptors) {
+				clientInterceptors.add(new Registered<>(order, new NamedInterceptor<>(beanName, interceptor)));
+			}
 		}
-		if (bean instanceof ClientInterceptor) {
-			log.info("[注入ClientInterceptor]beanName={},class={}", beanName, bean.getClass().getSimpleName());
+		if (bean instanceof ServerStage stage) {
+			int order = orderOf(bean, beanName);
+			log.info("[注入ServerStage]beanName={},class={},order={}", beanName, bean.getClass().getSimpleName(), order);
+			synchronized (serverStages) {
+				serverStages.add(new Registered<>(order, new NamedInterceptor<>(beanName, stage)));
+			}
 		}
 		return bean;
 	}
+
+	/**
+	 * 已创建的服务端拦截器，order小的在前（先执行）
+	 */
+	public List<NamedInterceptor<ServerInterceptor>> orderedServerInterceptors() {
+		synchronized (serverInterceptors) {
+			return sorted(serverInterceptors);
+		}
+	}
+
+	/**
+	 * 已创建的客户端拦截器，order小的在前（先执行）
+	 */
+	public List<NamedInterceptor<ClientInterceptor>> orderedClientInterceptors() {
+		synchronized (clientInterceptors) {
+			return sorted(clientInterceptors);
+		}
+	}
+
+	/**
+	 * 已创建的服务端流水线阶段，order小的在前（先执行）
+	 */
+	public List<NamedInterceptor<ServerStage>> orderedServerStages() {
+		synchronized (serverStages) {
+			return sorted(serverStages);
+		}
+	}
+
+	private int orderOf(Object bean, String beanName) {
+		Order order = beanFactory != null && beanFactory.containsBean(beanName)
+				? beanFactory.findAnnotationOnBean(beanName, Order.class) : null;
+		if (order != null) {
+			return order.value();
+		}
+		return bean instanceof Ordered ordered ? ordered.getOrder() : Ordered.LOWEST_PRECEDENCE;
+	}
+
+	private static <T> List<NamedInterceptor<T>> sorted(List<Registered<T>> registered) {
+		// List.sort是稳定排序，order相同时保持创建顺序
+		List<Registered<T>> copy = new ArrayList<>(registered);
+		copy.sort(Comparator.comparingInt(Registered::order));
+		return copy.stream().map(Registered::interceptor).toList();
+	}
+
+	private record Registered<T>(int order, NamedInterceptor<T> interceptor) {
+	}
 }
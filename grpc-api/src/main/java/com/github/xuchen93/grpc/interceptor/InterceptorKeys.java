@@ -1,5 +1,9 @@
 package com.github.xuchen93.grpc.interceptor;
 
+import com.github.xuchen93.grpc.context.RequestContext;
+import com.github.xuchen93.grpc.metrics.CallPhases;
+import com.github.xuchen93.grpc.trace.TraceContext;
+import io.grpc.CallOptions;
 import io.grpc.Context;
 import io.grpc.Metadata;
 
@@ -29,23 +33,58 @@ public final class InterceptorKeys {
     public static final Metadata.Key<String> TRACE_ID_KEY =
             Metadata.Key.of("x-trace-id", Metadata.ASCII_STRING_MARSHALLER);
 
-    // ==================== Context Keys (用于在服务方法中获取信息) ====================
+    /**
+     * W3C Trace Context的Metadata Key
+     * 请求头名称: traceparent，格式: 00-{trace-id}-{parent-id}-{flags}
+     */
+    public static final Metadata.Key<String> TRACEPARENT_KEY =
+            Metadata.Key.of("traceparent", Metadata.ASCII_STRING_MARSHALLER);
+
+    /**
+     * 请求优先级的Metadata Key
+     * 请求头名称: x-priority，整数，越大越优先
+     */
+    public static final Metadata.Key<String> PRIORITY_KEY =
+            Metadata.Key.of("x-priority", Metadata.ASCII_STRING_MARSHALLER);
+
+    /**
+     * 业务错误码的Metadata Key，随trailers返回
+     * 响应头名称: x-error-code
+     */
+    public static final Metadata.Key<String> ERROR_CODE_KEY =
+            Metadata.Key.of("x-error-code", Metadata.ASCII_STRING_MARSHALLER);
+
+    // ==================== CallOptions Keys (用于按调用传递信息，不依赖ThreadLocal) ====================
 
     /**
-     * 认证Token的Context Key
-     * 用于在服务实现中获取当前请求的Token
+     * 追踪ID的CallOptions Key
+     * 客户端拦截器优先读取该值，未设置时才回退到ThreadLocal
      */
-    public static final Context.Key<String> AUTH_CONTEXT_KEY = Context.key("auth_token");
+    public static final CallOptions.Key<String> TRACE_ID_CALL_OPTION = CallOptions.Key.create("trace_id");
+
+    /**
+     * 认证Token的CallOptions Key
+     * 客户端拦截器优先读取该值，未设置时才回退到ThreadLocal
+     */
+    public static final CallOptions.Key<String> AUTH_TOKEN_CALL_OPTION = CallOptions.Key.create("auth_token");
+
+    /**
+     * 客户端Span的CallOptions Key
+     * 由TraceClientInterceptor写入，内层拦截器读取，保证同一调用只解析一次
+     */
+    public static final CallOptions.Key<TraceContext> TRACE_CONTEXT_CALL_OPTION = CallOptions.Key.create("trace_context");
+
+    // ==================== Context Keys (用于在服务方法中获取信息) ====================
 
     /**
-     * 追踪ID的Context Key
-     * 用于在服务实现中获取当前请求的TraceId
+     * 请求上下文的Context Key
+     * 追踪、认证身份、优先级、时限保存在同一个不可变对象中，每个调用只需一次查找
      */
-    public static final Context.Key<String> TRACE_ID_CONTEXT_KEY = Context.key("trace_id");
+    public static final Context.Key<RequestContext> REQUEST_CONTEXT_KEY = Context.key("request_context");
 
     /**
-     * 用户信息的Context Key
-     * 用于在服务实现中获取当前请求的用户信息
+     * 阶段计时的Context Key
+     * 由CallPhaseTracer写入，CallPhaseServerInterceptor读取
      */
-    public static final Context.Key<String> USER_CONTEXT_KEY = Context.key("user_info");
+    public static final Context.Key<CallPhases> CALL_PHASES_CONTEXT_KEY = Context.key("call_phases");
 }
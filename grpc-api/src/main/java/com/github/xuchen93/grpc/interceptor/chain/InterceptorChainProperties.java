@@ -0,0 +1,22 @@
+package com.github.xuchen93.grpc.interceptor.chain;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 按方法编译拦截器链的配置，服务端和客户端共用
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.interceptor-chain")
+public class InterceptorChainProperties {
+
+	/**
+	 * 方法匹配规则 -> 要跳过的拦截器bean名
+	 * 规则为完整方法名（service/method）、服务名加"/*"或"*"
+	 */
+	private Map<String, List<String>> skip = new LinkedHashMap<>();
+}
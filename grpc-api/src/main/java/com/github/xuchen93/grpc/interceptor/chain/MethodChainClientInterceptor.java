@@ -0,0 +1,134 @@
+package com.github.xuchen93.grpc.interceptor.chain;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ClientInterceptors;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServiceDescriptor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 按方法预编译的客户端拦截器链，作为唯一的全局拦截器注册
+ * 与 {@link MethodChainServerInterceptor} 相同：每次调用一次身份查找，不需要的拦截器不在链中，
+ * 组合好的Channel按方法和next缓存（连接池中每条连接各缓存一份）
+ */
+@Slf4j
+public class MethodChainClientInterceptor implements ClientInterceptor {
+
+	private final Supplier<List<NamedInterceptor<ClientInterceptor>>> stageSupplier;
+	private final MethodChainRules rules;
+	private volatile List<NamedInterceptor<ClientInterceptor>> stages;
+	private volatile Map<MethodDescriptor<?, ?>, MethodChain> chains = new IdentityHashMap<>();
+
+	/**
+	 * @param stageSupplier 按执行顺序排列的拦截器，第一个最先执行；在第一次编译时才读取，
+	 *                      通常为InterceptorBeanListener::orderedClientInterceptors
+	 */
+	public MethodChainClientInterceptor(Supplier<List<NamedInterceptor<ClientInterceptor>>> stageSupplier, MethodChainRules rules) {
+		this.stageSupplier = stageSupplier;
+		this.rules = rules;
+	}
+
+	/**
+	 * 启动时为已知服务的全部方法编译拦截器链
+	 */
+	public synchronized void precompile(Iterable<ServiceDescriptor> services) {
+		// 重新读取拦截器并重新编译已有的方法链，覆盖容器启动完成前按需编译的结果
+		stages = List.copyOf(stageSupplier.get());
+		Map<MethodDescriptor<?, ?>, MethodChain> compiled = new IdentityHashMap<>();
+		for (MethodDescriptor<?, ?> descriptor : chains.keySet()) {
+			compiled.put(descriptor, compile(descriptor));
+		}
+		for (ServiceDescriptor service : services) {
+			for (MethodDescriptor<?, ?> method : service.getMethods()) {
+				compiled.computeIfAbsent(method, this::compile);
+			}
+		}
+		chains = compiled;
+	}
+
+	@Override
+	public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+			MethodDescriptor<ReqT, RespT> method,
+			CallOptions callOptions,
+			Channel next) {
+		MethodChain chain = chains.get(method);
+		if (chain == null) {
+			chain = compileLate(method);
+		}
+		return chain.channel(next).newCall(method, callOptions);
+	}
+
+	private synchronized MethodChain compileLate(MethodDescriptor<?, ?> descriptor) {
+		MethodChain chain = chains.get(descriptor);
+		if (chain == null) {
+			chain = compile(descriptor);
+			Map<MethodDescriptor<?, ?>, MethodChain> compiled = new IdentityHashMap<>(chains);
+			compiled.put(descriptor, chain);
+			chains = compiled;
+		}
+		return chain;
+	}
+
+	private MethodChain compile(MethodDescriptor<?, ?> descriptor) {
+		if (stages == null) {
+			stages = List.copyOf(stageSupplier.get());
+		}
+		List<ClientInterceptor> selected = new ArrayList<>();
+		List<String> names = new ArrayList<>();
+		for (NamedInterceptor<ClientInterceptor> stage : stages) {
+			if (rules.include(stage, descriptor)) {
+				selected.add(stage.interceptor());
+				names.add(stage.name());
+			}
+		}
+		log.info("[InterceptorChain] {} -> {}", descriptor.getFullMethodName(), names);
+		return new MethodChain(List.copyOf(selected));
+	}
+
+	private static final class MethodChain {
+		/**
+		 * 每个方法最多缓存的next数，连接池的每条连接各是一个next
+		 */
+		private static final int MAX_BOUND = 8;
+
+		private final List<ClientInterceptor> interceptors;
+		private volatile Bound[] bound = new Bound[0];
+
+		MethodChain(List<ClientInterceptor> interceptors) {
+			this.interceptors = interceptors;
+		}
+
+		Channel channel(Channel next) {
+			if (interceptors.isEmpty()) {
+				return next;
+			}
+			Bound[] current = bound;
+			for (Bound b : current) {
+				if (b.next == next) {
+					return b.head;
+				}
+			}
+			// interceptForward：列表中第一个拦截器最先执行
+			Channel head = ClientInterceptors.interceptForward(next, interceptors);
+			if (current.length < MAX_BOUND) {
+				Bound[] updated = Arrays.copyOf(current, current.length + 1);
+				updated[current.length] = new Bound(next, head);
+				bound = updated;
+			}
+			return head;
+		}
+	}
+
+	private record Bound(Channel next, Channel head) {
+	}
+}
@@ -0,0 +1,65 @@
+package com.github.xuchen93.grpc.interceptor.chain;
+
+import io.grpc.MethodDescriptor;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 决定某个拦截器是否进入某个方法的链，只在编译方法链时调用
+ * 依次检查：配置的跳过规则、服务实现类上的 {@link SkipInterceptors}、拦截器自身的 {@link MethodScoped}
+ */
+public class MethodChainRules {
+
+	public static final MethodChainRules NONE = new MethodChainRules(Map.of());
+
+	private final Map<String, List<String>> skipByPattern;
+	/**
+	 * 服务名 -> 服务实现类上 @SkipInterceptors 声明的类型
+	 */
+	private final Map<String, Class<?>[]> skipByService = new ConcurrentHashMap<>();
+
+	public MethodChainRules(Map<String, List<String>> skipByPattern) {
+		this.skipByPattern = Map.copyOf(skipByPattern);
+	}
+
+	/**
+	 * 登记服务实现类上的 @SkipInterceptors
+	 */
+	public void registerService(String serviceName, Class<?> implementationClass) {
+		SkipInterceptors skip = implementationClass.getAnnotation(SkipInterceptors.class);
+		if (skip != null) {
+			skipByService.put(serviceName, skip.value());
+		}
+	}
+
+	public boolean include(NamedInterceptor<?> stage, MethodDescriptor<?, ?> method) {
+		String fullMethodName = method.getFullMethodName();
+		String serviceName = method.getServiceName();
+		for (Map.Entry<String, List<String>> rule : skipByPattern.entrySet()) {
+			if (matches(rule.getKey(), fullMethodName, serviceName) && rule.getValue().contains(stage.name())) {
+				return false;
+			}
+		}
+		Class<?>[] skipped = serviceName != null ? skipByService.get(serviceName) : null;
+		if (skipped != null) {
+			for (Class<?> type : skipped) {
+				if (type.isInstance(stage.interceptor())) {
+					return false;
+				}
+			}
+		}
+		return !(stage.interceptor() instanceof MethodScoped scoped) || scoped.appliesTo(method);
+	}
+
+	private static boolean matches(String pattern, String fullMethodName, String serviceName) {
+		if ("*".equals(pattern)) {
+			return true;
+		}
+		if (pattern.endsWith("/*")) {
+			return serviceName != null && serviceName.length() == pattern.length() - 2 && pattern.startsWith(serviceName);
+		}
+		return pattern.equals(fullMethodName);
+	}
+}
@@ -0,0 +1,154 @@
+package com.github.xuchen93.grpc.interceptor.chain;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerMethodDefinition;
+import io.grpc.ServerServiceDefinition;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 按方法预编译的服务端拦截器链，作为唯一的全局拦截器注册
+ * <ul>
+ *     <li>启动时为每个MethodDescriptor按MethodChainRules选出需要的拦截器，不需要的拦截器不在链中</li>
+ *     <li>每次调用只按MethodDescriptor做一次身份查找（IdentityHashMap），不做字符串哈希</li>
+ *     <li>组合好的ServerCallHandler按方法缓存，next不变时每次调用不再创建包装对象</li>
+ *     <li>启动后才出现的方法在第一次调用时编译，并以写时复制的方式加入映射</li>
+ * </ul>
+ */
+@Slf4j
+public class MethodChainServerInterceptor implements ServerInterceptor {
+
+	private final Supplier<List<NamedInterceptor<ServerInterceptor>>> stageSupplier;
+	private final MethodChainRules rules;
+	private volatile List<NamedInterceptor<ServerInterceptor>> stages;
+	private volatile Map<MethodDescriptor<?, ?>, MethodChain> chains = new IdentityHashMap<>();
+
+	/**
+	 * @param stageSupplier 按执行顺序排列的拦截器，第一个最先执行；在第一次编译时才读取，
+	 *                      通常为InterceptorBeanListener::orderedServerInterceptors
+	 */
+	public MethodChainServerInterceptor(Supplier<List<NamedInterceptor<ServerInterceptor>>> stageSupplier, MethodChainRules rules) {
+		this.stageSupplier = stageSupplier;
+		this.rules = rules;
+	}
+
+	/**
+	 * 启动时为服务的全部方法编译拦截器链
+	 */
+	public synchronized void precompile(Iterable<ServerServiceDefinition> services) {
+		// 重新读取拦截器并重新编译已有的方法链，覆盖容器启动完成前按需编译的结果
+		stages = List.copyOf(stageSupplier.get());
+		Map<MethodDescriptor<?, ?>, MethodChain> compiled = new IdentityHashMap<>();
+		for (MethodDescriptor<?, ?> descriptor : chains.keySet()) {
+			compiled.put(descriptor, compile(descriptor));
+		}
+		for (ServerServiceDefinition service : services) {
+			for (ServerMethodDefinition<?, ?> method : service.getMethods()) {
+				MethodDescriptor<?, ?> descriptor = method.getMethodDescriptor();
+				compiled.computeIfAbsent(descriptor, this::compile);
+			}
+		}
+		chains = compiled;
+	}
+
+	@Override
+	public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+			ServerCall<ReqT, RespT> call,
+			Metadata headers,
+			ServerCallHandler<ReqT, RespT> next) {
+		MethodChain chain = chains.get(call.getMethodDescriptor());
+		if (chain == null) {
+			chain = compileLate(call.getMethodDescriptor());
+		}
+		return chain.handler(next).startCall(call, headers);
+	}
+
+	/**
+	 * 方法链中的拦截器名称，用于启动日志和管理接口
+	 */
+	public List<String> stageNames(MethodDescriptor<?, ?> method) {
+		MethodChain chain = chains.get(method);
+		List<String> names = new ArrayList<>();
+		if (chain != null) {
+			for (NamedInterceptor<ServerInterceptor> stage : chain.stages) {
+				names.add(stage.name());
+			}
+		}
+		return names;
+	}
+
+	private synchronized MethodChain compileLate(MethodDescriptor<?, ?> descriptor) {
+		MethodChain chain = chains.get(descriptor);
+		if (chain == null) {
+			chain = compile(descriptor);
+			Map<MethodDescriptor<?, ?>, MethodChain> compiled = new IdentityHashMap<>(chains);
+			compiled.put(descriptor, chain);
+			chains = compiled;
+		}
+		return chain;
+	}
+
+	private MethodChain compile(MethodDescriptor<?, ?> descriptor) {
+		if (stages == null) {
+			stages = List.copyOf(stageSupplier.get());
+		}
+		List<NamedInterceptor<ServerInterceptor>> selected = new ArrayList<>();
+		for (NamedInterceptor<ServerInterceptor> stage : stages) {
+			if (rules.include(stage, descriptor)) {
+				selected.add(stage);
+			}
+		}
+		log.info("[InterceptorChain] {} -> {}", descriptor.getFullMethodName(),
+				selected.stream().map(NamedInterceptor::name).toList());
+		@SuppressWarnings("unchecked")
+		NamedInterceptor<ServerInterceptor>[] array = selected.toArray(new NamedInterceptor[0]);
+		return new MethodChain(array);
+	}
+
+	private static final class MethodChain {
+		private final NamedInterceptor<ServerInterceptor>[] stages;
+		/**
+		 * 最近一次组合的结果；next通常对每个方法都是同一个对象
+		 */
+		private volatile Bound bound;
+
+		MethodChain(NamedInterceptor<ServerInterceptor>[] stages) {
+			this.stages = stages;
+		}
+
+		@SuppressWarnings("unchecked")
+		<ReqT, RespT> ServerCallHandler<ReqT, RespT> handler(ServerCallHandler<ReqT, RespT> next) {
+			if (stages.length == 0) {
+				return next;
+			}
+			Bound current = bound;
+			if (current == null || current.next != next) {
+				current = new Bound(next, compose(next));
+				bound = current;
+			}
+			return (ServerCallHandler<ReqT, RespT>) current.head;
+		}
+
+		private <ReqT, RespT> ServerCallHandler<ReqT, RespT> compose(ServerCallHandler<ReqT, RespT> next) {
+			ServerCallHandler<ReqT, RespT> handler = next;
+			for (int i = stages.length - 1; i >= 0; i--) {
+				ServerInterceptor interceptor = stages[i].interceptor();
+				ServerCallHandler<ReqT, RespT> inner = handler;
+				handler = (call, headers) -> interceptor.interceptCall(call, headers, inner);
+			}
+			return handler;
+		}
+	}
+
+	private record Bound(ServerCallHandler<?, ?> next, ServerCallHandler<?, ?> head) {
+	}
+}
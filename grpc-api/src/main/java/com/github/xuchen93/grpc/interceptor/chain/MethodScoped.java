@@ -0,0 +1,14 @@
+package com.github.xuchen93.grpc.interceptor.chain;
+
+import io.grpc.MethodDescriptor;
+
+/**
+ * 由拦截器自己声明适用的方法，编译方法链时不适用的方法直接不包含该拦截器
+ */
+public interface MethodScoped {
+
+	/**
+	 * 启动时（或第一次见到该方法时）调用一次，不在请求路径上调用
+	 */
+	boolean appliesTo(MethodDescriptor<?, ?> method);
+}
@@ -0,0 +1,7 @@
+package com.github.xuchen93.grpc.interceptor.chain;
+
+/**
+ * 带名称（通常为bean名）的拦截器或流水线阶段，名称用于按配置跳过
+ */
+public record NamedInterceptor<T>(String name, T interceptor) {
+}
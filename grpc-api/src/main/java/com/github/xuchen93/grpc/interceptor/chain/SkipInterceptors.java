@@ -0,0 +1,25 @@
+package com.github.xuchen93.grpc.interceptor.chain;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 标注在gRPC服务实现类上，该服务的全部方法的拦截器链和融合流水线中不包含指定类型的拦截器或阶段
+ * <pre>
+ * &#64;SkipInterceptors({LoggingStage.class, CompressionStage.class})
+ * public class GrpcAdminServiceImpl extends GrpcAdminServiceGrpc.GrpcAdminServiceImplBase
+ * </pre>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface SkipInterceptors {
+
+	/**
+	 * 要跳过的拦截器或阶段类型，子类同样跳过
+	 */
+	Class<?>[] value();
+}
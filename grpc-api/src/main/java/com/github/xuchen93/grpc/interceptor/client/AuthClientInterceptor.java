@@ -1,19 +1,25 @@
 package com.github.xuchen93.grpc.interceptor.client;
 
+import com.github.xuchen93.grpc.auth.BearerTokenCredentials;
 import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import io.grpc.CallCredentials;
 import io.grpc.CallOptions;
 import io.grpc.Channel;
 import io.grpc.ClientCall;
 import io.grpc.ClientInterceptor;
-import io.grpc.ForwardingClientCall;
-import io.grpc.Metadata;
 import io.grpc.MethodDescriptor;
 import lombok.extern.slf4j.Slf4j;
 
 /**
  * 客户端认证拦截器
- * 负责将认证Token添加到请求Header中
- * 使用 InterceptorKeys 中定义的常量
+ * 通过CallCredentials为调用附加Authorization请求头，凭证随CallOptions传递，不依赖调用线程
+ * Token的优先级：
+ * <ol>
+ *     <li>CallOptions中的AUTH_TOKEN_CALL_OPTION</li>
+ *     <li>调用方通过stub.withCallCredentials(...)设置的凭证</li>
+ *     <li>当前线程通过setToken设置的Token（兼容旧用法）</li>
+ *     <li>构造时传入的默认凭证，通常为RefreshingTokenCredentials</li>
+ * </ol>
  */
 @Slf4j
 public class AuthClientInterceptor implements ClientInterceptor {
@@ -46,30 +52,40 @@ public class AuthClientInterceptor implements ClientInterceptor {
 		return TOKEN_HOLDER.get();
 	}
 
+	private final CallCredentials defaultCredentials;
+
+	public AuthClientInterceptor() {
+		this(null);
+	}
+
+	/**
+	 * @param defaultCredentials 未指定Token的调用使用的凭证，null表示没有默认凭证
+	 */
+	public AuthClientInterceptor(CallCredentials defaultCredentials) {
+		this.defaultCredentials = defaultCredentials;
+	}
+
 	@Override
 	public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
 			MethodDescriptor<ReqT, RespT> method,
 			CallOptions callOptions,
 			Channel next) {
 
-		// 创建包装过的ClientCall
-		return new ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT>(
-				next.newCall(method, callOptions)) {
-
-			@Override
-			public void start(Listener<RespT> responseListener, Metadata headers) {
-				// 从ThreadLocal获取Token并添加到Header
-				String token = getToken();
-				if (token != null && !token.isEmpty()) {
-					String authHeader = token.startsWith("Bearer ") ? token : "Bearer " + token;
-					// 使用 InterceptorKeys 中定义的常量
-					headers.put(InterceptorKeys.AUTHORIZATION_KEY, authHeader);
-					log.info("[AuthClientInterceptor] 已添加Authorization Header: {}", authHeader.substring(0, Math.min(20, authHeader.length())) + "...");
-				} else {
-					log.warn("[AuthClientInterceptor] 当前线程未设置Token，请求将不包含认证信息");
-				}
-				super.start(responseListener, headers);
-			}
-		};
+		String callToken = callOptions.getOption(InterceptorKeys.AUTH_TOKEN_CALL_OPTION);
+		if (callToken != null && !callToken.isEmpty()) {
+			return next.newCall(method, callOptions.withCallCredentials(new BearerTokenCredentials(callToken)));
+		}
+		if (callOptions.getCredentials() != null) {
+			return next.newCall(method, callOptions);
+		}
+		String threadToken = TOKEN_HOLDER.get();
+		if (threadToken != null && !threadToken.isEmpty()) {
+			return next.newCall(method, callOptions.withCallCredentials(new BearerTokenCredentials(threadToken)));
+		}
+		if (defaultCredentials != null) {
+			return next.newCall(method, callOptions.withCallCredentials(defaultCredentials));
+		}
+		log.debug("[AuthClientInterceptor] 未设置Token，请求将不包含认证信息: {}", method.getFullMethodName());
+		return next.newCall(method, callOptions);
 	}
 }
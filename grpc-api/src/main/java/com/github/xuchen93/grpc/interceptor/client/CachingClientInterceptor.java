@@ -0,0 +1,428 @@
+package com.github.xuchen93.grpc.interceptor.client;
+
+import com.github.xuchen93.grpc.auth.BearerTokenCredentials;
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.MessageLite;
+import io.grpc.CallCredentials;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Deadline;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 客户端响应缓存拦截器
+ * <ul>
+ *     <li>只缓存配置了TTL的一元方法，Key为 方法名 + 请求序列化字节 + 调用者的认证信息</li>
+ *     <li>缓存条目数有上限，按最近最少使用淘汰</li>
+ *     <li>staleWhileRevalidate大于0时，过期但仍在该窗口内的条目会立即返回，同时在后台刷新</li>
+ *     <li>同一Key的并发未命中合并为一次真实调用，所有等待方共享结果</li>
+ * </ul>
+ * 合并的调用和后台刷新不属于任何一个调用方：在根Context中发起，使用独立的fetchTimeout，
+ * 只携带Key中的认证信息，不带调用方的其他请求头；每个等待方按自己的deadline和取消单独结束，不影响其他等待方
+ * 认证信息按AuthClientInterceptor的优先级取：AUTH_TOKEN_CALL_OPTION、调用方设置的CallCredentials、当前线程的Token，
+ * 以及请求头中的Authorization；都没有时使用默认凭证，所有这类调用共享缓存
+ * 命中缓存时不会经过后续拦截器，响应头和trailers为空；没有发送请求消息就半关闭的调用不缓存，直接交给真实调用
+ * 结果、deadline、Context取消和cancel可能来自不同线程，监听器回调经每个调用的队列串行执行，onClose之后不会再有其他回调
+ */
+@Slf4j
+public class CachingClientInterceptor implements ClientInterceptor {
+
+	private static final Duration DEFAULT_FETCH_TIMEOUT = Duration.ofSeconds(30);
+
+	/**
+	 * 等待共享结果的调用方的deadline定时器，调用结束时取消并从队列中移除
+	 */
+	private static final ScheduledThreadPoolExecutor DEADLINE_TIMER = new ScheduledThreadPoolExecutor(1, r -> {
+		Thread thread = new Thread(r, "grpc-cache-deadline");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	static {
+		DEADLINE_TIMER.setRemoveOnCancelPolicy(true);
+	}
+
+	private final Map<String, Long> ttlNanosByMethod = new ConcurrentHashMap<>();
+	private final long staleWhileRevalidateNanos;
+	private final long fetchTimeoutNanos;
+
+	/**
+	 * 按访问顺序排列，超出上限时淘汰最久未访问的条目；访问也会修改顺序，所有操作都在该对象上加锁
+	 */
+	private final LinkedHashMap<CacheKey, CacheEntry> cache;
+	private final ConcurrentHashMap<CacheKey, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+
+	/**
+	 * 真实调用的超时为30秒
+	 */
+	public CachingClientInterceptor(Map<String, Duration> ttlByMethod, Duration staleWhileRevalidate, int maxSize) {
+		this(ttlByMethod, staleWhileRevalidate, maxSize, DEFAULT_FETCH_TIMEOUT);
+	}
+
+	/**
+	 * @param ttlByMethod          方法全名 -> 缓存时长，未配置的方法不缓存
+	 * @param staleWhileRevalidate 过期后仍可直接返回旧值并后台刷新的时长，为0时关闭
+	 * @param maxSize              最大缓存条目数
+	 * @param fetchTimeout         合并调用和后台刷新的超时，与调用方的deadline无关
+	 */
+	public CachingClientInterceptor(Map<String, Duration> ttlByMethod, Duration staleWhileRevalidate, int maxSize,
+									Duration fetchTimeout) {
+		ttlByMethod.forEach((method, ttl) -> ttlNanosByMethod.put(method, ttl.toNanos()));
+		this.staleWhileRevalidateNanos = staleWhileRevalidate.toNanos();
+		this.fetchTimeoutNanos = fetchTimeout.toNanos();
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<CacheKey, CacheEntry> eldest) {
+				return size() > maxSize;
+			}
+		};
+	}
+
+	@Override
+	public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+			MethodDescriptor<ReqT, RespT> method,
+			CallOptions callOptions,
+			Channel next) {
+
+		Long ttlNanos = ttlNanosByMethod.get(method.getFullMethodName());
+		if (ttlNanos == null || method.getType() != MethodDescriptor.MethodType.UNARY) {
+			return next.newCall(method, callOptions);
+		}
+		// 在调用线程上取认证信息，当前线程的Token之后不再可见
+		return new CachingClientCall<>(method, callOptions, next, ttlNanos, credentialsOf(callOptions));
+	}
+
+	/**
+	 * 当前缓存条目数
+	 */
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	/**
+	 * 清空缓存
+	 */
+	public void invalidateAll() {
+		synchronized (cache) {
+			cache.clear();
+		}
+	}
+
+	/**
+	 * 尚未到期也未取消的deadline定时器数
+	 */
+	static int pendingDeadlineTimers() {
+		return DEADLINE_TIMER.getQueue().size();
+	}
+
+	/**
+	 * 调用者指定的凭证：Token字符串或CallCredentials实例，没有时为null（使用默认凭证）
+	 */
+	private static Object credentialsOf(CallOptions callOptions) {
+		String callToken = callOptions.getOption(InterceptorKeys.AUTH_TOKEN_CALL_OPTION);
+		if (callToken != null && !callToken.isEmpty()) {
+			return callToken;
+		}
+		if (callOptions.getCredentials() != null) {
+			return callOptions.getCredentials();
+		}
+		String threadToken = AuthClientInterceptor.getToken();
+		return threadToken != null && !threadToken.isEmpty() ? threadToken : null;
+	}
+
+	/**
+	 * @param credentials   调用者指定的凭证，见credentialsOf
+	 * @param authorization 请求头中直接设置的Authorization
+	 */
+	private record CacheKey(String method, ByteString request, Object credentials, String authorization) {
+	}
+
+	private record CacheEntry(Object response, long expireAt, long staleUntil) {
+	}
+
+	private CacheEntry get(CacheKey key, long now) {
+		synchronized (cache) {
+			CacheEntry entry = cache.get(key);
+			if (entry != null && now >= entry.staleUntil()) {
+				cache.remove(key);
+				return null;
+			}
+			return entry;
+		}
+	}
+
+	private void put(CacheKey key, CacheEntry entry) {
+		synchronized (cache) {
+			cache.put(key, entry);
+		}
+	}
+
+	private class CachingClientCall<ReqT, RespT> extends ClientCall<ReqT, RespT> {
+		private final MethodDescriptor<ReqT, RespT> method;
+		private final CallOptions callOptions;
+		private final Channel next;
+		private final long ttlNanos;
+		private final Object credentials;
+		private final Context context = Context.current();
+		// 监听器回调队列，同一时刻只有一个线程在执行；closed只在回调中写入，halfClose中读取以取消定时器
+		private final Queue<Runnable> callbacks = new ConcurrentLinkedQueue<>();
+		private final AtomicBoolean draining = new AtomicBoolean(false);
+		private volatile boolean closed;
+		private final Context.CancellationListener cancellationListener =
+				cancelled -> execute(() -> close(Contexts.statusFromCancelled(cancelled)));
+
+		private Listener<RespT> listener;
+		private Metadata headers;
+		private ReqT request;
+		private int requested;
+		// 没有请求消息时改为真实调用，之后的cancel转给它
+		private volatile ClientCall<ReqT, RespT> passThrough;
+		private volatile ScheduledFuture<?> deadlineTimer;
+
+		CachingClientCall(MethodDescriptor<ReqT, RespT> method, CallOptions callOptions, Channel next, long ttlNanos,
+						  Object credentials) {
+			this.method = method;
+			this.callOptions = callOptions;
+			this.next = next;
+			this.ttlNanos = ttlNanos;
+			this.credentials = credentials;
+		}
+
+		@Override
+		public void start(Listener<RespT> responseListener, Metadata headers) {
+			this.listener = responseListener;
+			this.headers = headers;
+		}
+
+		@Override
+		public void request(int numMessages) {
+			// 一元调用只有一条响应，在halfClose时统一投递；记录下来供真实调用使用
+			requested += numMessages;
+		}
+
+		@Override
+		public void sendMessage(ReqT message) {
+			this.request = message;
+		}
+
+		@Override
+		public void halfClose() {
+			if (request == null) {
+				startPassThrough();
+				return;
+			}
+			CacheKey key = new CacheKey(method.getFullMethodName(), toBytes(request), credentials,
+					headers != null ? headers.get(InterceptorKeys.AUTHORIZATION_KEY) : null);
+			long now = System.nanoTime();
+			CacheEntry entry = get(key, now);
+			if (entry != null && now < entry.expireAt()) {
+				deliver(entry.response(), null);
+				return;
+			}
+			if (entry != null) {
+				// stale-while-revalidate：先返回旧值，再后台刷新
+				deliver(entry.response(), null);
+				fetch(key);
+				return;
+			}
+			// 等待共享结果期间，只有当前调用方的deadline和取消结束当前调用方
+			Deadline deadline = callOptions.getDeadline();
+			if (deadline != null) {
+				deadlineTimer = deadline.runOnExpiration(
+						() -> execute(() -> close(Status.DEADLINE_EXCEEDED.withDescription("Deadline exceeded waiting for cached call"))),
+						DEADLINE_TIMER);
+				// 先写定时器再读closed，与close中的顺序相反：调用已在另一个线程上结束时，至少一方会取消定时器
+				if (closed) {
+					deadlineTimer.cancel(false);
+				}
+			}
+			context.addListener(cancellationListener, Runnable::run);
+			fetch(key).whenComplete(this::deliver);
+		}
+
+		@Override
+		public void cancel(String message, Throwable cause) {
+			ClientCall<ReqT, RespT> call = passThrough;
+			if (call != null) {
+				call.cancel(message, cause);
+				return;
+			}
+			// 只结束当前调用方，合并的真实调用继续为其他等待方服务
+			execute(() -> close(Status.CANCELLED.withDescription(message).withCause(cause)));
+		}
+
+		/**
+		 * 没有请求消息时无法计算Key，在调用方的Context中按原样发起真实调用，由服务端给出结果
+		 */
+		private void startPassThrough() {
+			Context previous = context.attach();
+			try {
+				ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+				passThrough = call;
+				call.start(listener, headers);
+				if (requested > 0) {
+					call.request(requested);
+				}
+				call.halfClose();
+			} finally {
+				context.detach(previous);
+			}
+		}
+
+		/**
+		 * 同一Key同时只有一次真实调用
+		 */
+		private CompletableFuture<Object> fetch(CacheKey key) {
+			CompletableFuture<Object> created = new CompletableFuture<>();
+			CompletableFuture<Object> existing = inFlight.putIfAbsent(key, created);
+			if (existing != null) {
+				return existing;
+			}
+			// 真实调用可能被多个调用方共享或在后台执行：不使用调用方的Executor（如阻塞Stub的ThreadlessExecutor）、deadline和Context，
+			// 凭证固定为Key中的认证信息
+			CallOptions fetchOptions = callOptions.withExecutor(null)
+					.withDeadlineAfter(fetchTimeoutNanos, TimeUnit.NANOSECONDS);
+			if (key.credentials() instanceof CallCredentials callCredentials) {
+				fetchOptions = fetchOptions.withCallCredentials(callCredentials);
+			} else if (key.credentials() instanceof String token) {
+				fetchOptions = fetchOptions.withCallCredentials(new BearerTokenCredentials(token));
+			}
+			Metadata fetchHeaders = new Metadata();
+			if (key.authorization() != null) {
+				fetchHeaders.put(InterceptorKeys.AUTHORIZATION_KEY, key.authorization());
+			}
+			Context previous = Context.ROOT.attach();
+			try {
+				ClientCall<ReqT, RespT> call = next.newCall(method, fetchOptions);
+				call.start(new Listener<>() {
+					private RespT response;
+
+					@Override
+					public void onMessage(RespT message) {
+						response = message;
+					}
+
+					@Override
+					public void onClose(Status status, Metadata trailers) {
+						// 先写入缓存再移除进行中的调用，中间到达的调用方不会再发起一次真实调用
+						if (status.isOk() && response != null) {
+							long now = System.nanoTime();
+							put(key, new CacheEntry(response, now + ttlNanos, now + ttlNanos + staleWhileRevalidateNanos));
+							inFlight.remove(key, created);
+							created.complete(response);
+						} else {
+							inFlight.remove(key, created);
+							created.completeExceptionally(status.asRuntimeException(trailers));
+						}
+					}
+				}, fetchHeaders);
+				call.request(2);
+				call.sendMessage(request);
+				call.halfClose();
+			} finally {
+				Context.ROOT.detach(previous);
+			}
+			return created;
+		}
+
+		private void deliver(Object response, Throwable error) {
+			Runnable task = () -> {
+				if (error != null) {
+					close(Status.fromThrowable(error));
+					return;
+				}
+				if (closed) {
+					return;
+				}
+				listener.onHeaders(new Metadata());
+				@SuppressWarnings("unchecked")
+				RespT typed = (RespT) response;
+				listener.onMessage(typed);
+				close(Status.OK);
+			};
+			execute(task);
+		}
+
+		/**
+		 * 监听器回调在调用方的Executor中执行，阻塞Stub只在自己的线程上处理回调；没有Executor时在提交的线程上执行
+		 * 无论在哪个线程执行，回调都按提交顺序串行，检查closed与随后的回调之间不会插入其他回调
+		 */
+		private void execute(Runnable task) {
+			callbacks.add(task);
+			Executor executor = callOptions.getExecutor();
+			if (executor != null) {
+				executor.execute(this::drain);
+			} else {
+				drain();
+			}
+		}
+
+		private void drain() {
+			// 释放draining后再检查一次队列，避免另一个线程在释放前入队后直接返回而无人执行
+			while (!callbacks.isEmpty() && draining.compareAndSet(false, true)) {
+				try {
+					Runnable task;
+					while ((task = callbacks.poll()) != null) {
+						try {
+							task.run();
+						} catch (RuntimeException e) {
+							log.error("[Cache] 监听器回调异常: {}", method.getFullMethodName(), e);
+						}
+					}
+				} finally {
+					draining.set(false);
+				}
+			}
+		}
+
+		private void close(Status status) {
+			if (!closed) {
+				closed = true;
+				context.removeListener(cancellationListener);
+				ScheduledFuture<?> timer = deadlineTimer;
+				if (timer != null) {
+					timer.cancel(false);
+				}
+				if (listener != null) {
+					listener.onClose(status, new Metadata());
+				}
+			}
+		}
+
+		private ByteString toBytes(ReqT message) {
+			if (message instanceof MessageLite messageLite) {
+				return messageLite.toByteString();
+			}
+			try (InputStream stream = method.streamRequest(message)) {
+				return ByteString.readFrom(stream);
+			} catch (IOException e) {
+				throw Status.INTERNAL.withDescription("Failed to serialize request for cache key").withCause(e).asRuntimeException();
+			}
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.github.xuchen93.grpc.interceptor.client;
+
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.interceptor.jfr.GrpcCallRecorder;
+import com.github.xuchen93.grpc.interceptor.jfr.GrpcJfr;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * 客户端JFR拦截器
+ * 发出调用事件（GrpcCallEvent）和消息事件（GrpcStreamMessageEvent），TraceId取自请求头
+ * 未在录制中开启调用事件时直接透传
+ */
+public class JfrClientInterceptor implements ClientInterceptor {
+
+	@Override
+	public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+			MethodDescriptor<ReqT, RespT> method,
+			CallOptions callOptions,
+			Channel next) {
+
+		if (!GrpcJfr.isCallEnabled()) {
+			return next.newCall(method, callOptions);
+		}
+		return new ForwardingClientCall.SimpleForwardingClientCall<>(next.newCall(method, callOptions)) {
+			private GrpcCallRecorder recorder;
+
+			@Override
+			public void start(Listener<RespT> responseListener, Metadata headers) {
+				// 放在日志拦截器内层，请求头中已有TraceId
+				recorder = new GrpcCallRecorder(GrpcJfr.SIDE_CLIENT, method.getFullMethodName(),
+						headers.get(InterceptorKeys.TRACE_ID_KEY));
+				super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+					@Override
+					public void onMessage(RespT message) {
+						recorder.inbound(message);
+						super.onMessage(message);
+					}
+
+					@Override
+					public void onClose(Status status, Metadata trailers) {
+						recorder.end(status.getCode());
+						super.onClose(status, trailers);
+					}
+				}, headers);
+			}
+
+			@Override
+			public void sendMessage(ReqT message) {
+				recorder.outbound(message);
+				super.sendMessage(message);
+			}
+		};
+	}
+}
@@ -1,8 +1,12 @@
 package com.github.xuchen93.grpc.interceptor.client;
 
+import com.github.xuchen93.grpc.accesslog.AccessLogSink;
 import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.interceptor.logging.CallLog;
+import com.github.xuchen93.grpc.interceptor.logging.LoggingPolicy;
 import com.github.xuchen93.grpc.interceptor.util.GrpcCommonUtil;
 import com.github.xuchen93.grpc.interceptor.util.GrpcInterceptorUtil;
+import com.github.xuchen93.grpc.trace.TraceContext;
 import io.grpc.CallOptions;
 import io.grpc.Channel;
 import io.grpc.ClientCall;
@@ -18,11 +22,18 @@ import lombok.extern.slf4j.Slf4j;
 /**
  * 客户端日志拦截器
  * 记录请求/响应内容、耗时、TraceId等信息
+ * 是否记录以及何时记录由LoggingPolicy决定（采样、限流、尾部采样）
+ * 每个调用结束时向AccessLogSink写入一条定长访问记录
  * 使用 InterceptorKeys 中定义的常量
  */
 @Slf4j
 public class LoggingClientInterceptor implements ClientInterceptor {
 
+	/**
+	 * 日志中消息内容的最大字符数
+	 */
+	private static final int MAX_BODY_LENGTH = 500;
+
 	// ThreadLocal存储TraceId
 	private static final ThreadLocal<String> TRACE_ID_HOLDER = new ThreadLocal<>();
 
@@ -45,6 +56,22 @@ public class LoggingClientInterceptor implements ClientInterceptor {
 		}
 	}
 
+	private final LoggingPolicy loggingPolicy;
+	private final AccessLogSink accessLogSink;
+
+	public LoggingClientInterceptor() {
+		this(LoggingPolicy.logAll());
+	}
+
+	public LoggingClientInterceptor(LoggingPolicy loggingPolicy) {
+		this(loggingPolicy, AccessLogSink.NOOP);
+	}
+
+	public LoggingClientInterceptor(LoggingPolicy loggingPolicy, AccessLogSink accessLogSink) {
+		this.loggingPolicy = loggingPolicy;
+		this.accessLogSink = accessLogSink;
+	}
+
 	@Override
 	public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
 			MethodDescriptor<ReqT, RespT> method,
@@ -52,8 +79,14 @@ public class LoggingClientInterceptor implements ClientInterceptor {
 			Channel next) {
 
 		long requestId = GrpcInterceptorUtil.generateRequestId();
-		String traceId = getOrCreateTraceId();
-		RequestInfo requestInfo = new RequestInfo(requestId, traceId, method.getFullMethodName());
+		// 优先使用TraceClientInterceptor已解析的Span，未安装时在此解析并负责写请求头
+		TraceContext trace = callOptions.getOption(InterceptorKeys.TRACE_CONTEXT_CALL_OPTION);
+		boolean injectHeaders = trace == null;
+		if (trace == null) {
+			trace = TraceClientInterceptor.resolve(callOptions);
+		}
+		RequestInfo requestInfo = new RequestInfo(requestId, trace, method.getFullMethodName(),
+				loggingPolicy.newCallLog(log, method.getFullMethodName()), injectHeaders);
 
 		return new LoggingClientCall<>(next.newCall(method, callOptions), requestInfo);
 	}
@@ -68,11 +101,13 @@ public class LoggingClientInterceptor implements ClientInterceptor {
 
 		@Override
 		public void start(ClientCall.Listener<RespT> responseListener, Metadata headers) {
-			// 使用 InterceptorKeys 中定义的常量
-			headers.put(InterceptorKeys.TRACE_ID_KEY, requestInfo.getTraceId());
+			if (requestInfo.isInjectHeaders()) {
+				requestInfo.getTrace().inject(headers);
+			}
 			requestInfo.setStartTime(System.currentTimeMillis());
+			requestInfo.setStartNanos(System.nanoTime());
 
-			log.info("[{}][{}][{}] 请求开始",
+			requestInfo.getCallLog().info("[{}][{}][{}] 请求开始",
 					requestInfo.getTraceId(), requestInfo.getRequestId(), requestInfo.getMethodName());
 
 			super.start(new LoggingClientCallListener<>(responseListener, requestInfo), headers);
@@ -80,11 +115,15 @@ public class LoggingClientInterceptor implements ClientInterceptor {
 
 		@Override
 		public void sendMessage(ReqT message) {
-			requestInfo.setRequestBody(GrpcCommonUtil.trimChangeLine(message));
-			// 使用 info 级别记录请求内容
-			log.info("[{}][{}] 请求内容: {}",
-					requestInfo.getTraceId(), requestInfo.getRequestId(),
-					truncateString(requestInfo.getRequestBody(), 500));
+			requestInfo.requestMessages++;
+			requestInfo.requestBytes += GrpcCommonUtil.serializedSize(message);
+			// 使用 info 级别记录请求内容，只在日志开启时渲染，且最多渲染MAX_BODY_LENGTH个字符
+			CallLog callLog = requestInfo.getCallLog();
+			if (callLog.isEnabled()) {
+				callLog.info("[{}][{}] 请求内容: {}",
+						requestInfo.getTraceId(), requestInfo.getRequestId(),
+						GrpcCommonUtil.lazyMessage(message, MAX_BODY_LENGTH));
+			}
 			super.sendMessage(message);
 		}
 	}
@@ -105,30 +144,39 @@ public class LoggingClientInterceptor implements ClientInterceptor {
 
 		@Override
 		public void onMessage(RespT message) {
-			requestInfo.setResponseBody(GrpcCommonUtil.trimChangeLine(message));
+			requestInfo.responseMessages++;
+			requestInfo.responseBytes += GrpcCommonUtil.serializedSize(message);
 			// 使用 info 级别记录响应内容
-			log.info("[{}][{}] 响应内容: {}",
-					requestInfo.getTraceId(), requestInfo.getRequestId(),
-					truncateString(requestInfo.getResponseBody(), 500));
+			CallLog callLog = requestInfo.getCallLog();
+			if (callLog.isEnabled()) {
+				callLog.info("[{}][{}] 响应内容: {}",
+						requestInfo.getTraceId(), requestInfo.getRequestId(),
+						GrpcCommonUtil.lazyMessage(message, MAX_BODY_LENGTH));
+			}
 			super.onMessage(message);
 		}
 
 		@Override
 		public void onClose(Status status, Metadata trailers) {
-			long costTime = System.currentTimeMillis() - requestInfo.getStartTime();
+			long costNanos = System.nanoTime() - requestInfo.getStartNanos();
+			long costTime = costNanos / 1_000_000L;
 			requestInfo.setCostTime(costTime);
 			requestInfo.setSuccess(status.isOk());
 
 			if (status.isOk()) {
-				log.info("[{}][{}][{}] [耗时={}ms] 请求成功完成",
+				requestInfo.getCallLog().complete(false, costNanos, "[{}][{}][{}] [耗时={}ms] 请求成功完成",
 						requestInfo.getTraceId(), requestInfo.getRequestId(),
 						requestInfo.getMethodName(), costTime);
 			} else {
-				log.error("[{}][{}][{}] [耗时={}ms] 请求处理失败: [Code={}] [Description={}]",
+				requestInfo.getCallLog().complete(true, costNanos, "[{}][{}][{}] [耗时={}ms] 请求处理失败: [Code={}] [Description={}]",
 						requestInfo.getTraceId(), requestInfo.getRequestId(),
 						requestInfo.getMethodName(), costTime,
 						status.getCode(), status.getDescription());
 			}
+			accessLogSink.append(AccessLogSink.SIDE_CLIENT, requestInfo.getRequestId(), requestInfo.getTraceId(),
+					requestInfo.getMethodName(), status.getCode().value(), requestInfo.getStartTime(),
+					costNanos, requestInfo.requestBytes, requestInfo.responseBytes,
+					requestInfo.requestMessages, requestInfo.responseMessages);
 			super.onClose(status, trailers);
 		}
 	}
@@ -136,28 +184,28 @@ public class LoggingClientInterceptor implements ClientInterceptor {
 	@Data
 	private static class RequestInfo {
 		private final long requestId;
+		private final TraceContext trace;
 		private final String traceId;
 		private final String methodName;
+		private final CallLog callLog;
+		private final boolean injectHeaders;
 		private long startTime;
+		private long startNanos;
 		private long costTime;
 		private boolean success;
-		private String requestBody;
-		private String responseBody;
+		// 消息计数与字节数，仅用于访问日志
+		private int requestMessages;
+		private int responseMessages;
+		private long requestBytes;
+		private long responseBytes;
 
-		public RequestInfo(long requestId, String traceId, String methodName) {
+		public RequestInfo(long requestId, TraceContext trace, String methodName, CallLog callLog, boolean injectHeaders) {
 			this.requestId = requestId;
-			this.traceId = traceId;
+			this.trace = trace;
+			this.traceId = trace.traceId();
 			this.methodName = methodName;
+			this.callLog = callLog;
+			this.injectHeaders = injectHeaders;
 		}
 	}
-
-	private String truncateString(String str, int maxLength) {
-		if (str == null) {
-			return "null";
-		}
-		if (str.length() <= maxLength) {
-			return str;
-		}
-		return str.substring(0, maxLength) + "... (truncated, total " + str.length() + " chars)";
-	}
 }
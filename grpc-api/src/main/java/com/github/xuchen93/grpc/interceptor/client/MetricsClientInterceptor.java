@@ -0,0 +1,72 @@
+package com.github.xuchen93.grpc.interceptor.client;
+
+import com.github.xuchen93.grpc.interceptor.util.GrpcCommonUtil;
+import com.github.xuchen93.grpc.metrics.GrpcMetricsRegistry;
+import com.github.xuchen93.grpc.metrics.MethodMetrics;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * 客户端指标拦截器
+ * 按方法记录调用数、状态码、进行中的调用、收发消息数及字节数，耗时以纳秒计入直方图
+ * 放在最外层，统计的是业务代码看到的耗时（包括缓存命中）
+ */
+public class MetricsClientInterceptor implements ClientInterceptor {
+
+	private final GrpcMetricsRegistry registry;
+
+	public MetricsClientInterceptor(GrpcMetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+			MethodDescriptor<ReqT, RespT> method,
+			CallOptions callOptions,
+			Channel next) {
+		MethodMetrics metrics = registry.client(method.getFullMethodName());
+		return new MetricsClientCall<>(next.newCall(method, callOptions), metrics);
+	}
+
+	private static class MetricsClientCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+		private final MethodMetrics metrics;
+
+		MetricsClientCall(ClientCall<ReqT, RespT> delegate, MethodMetrics metrics) {
+			super(delegate);
+			this.metrics = metrics;
+		}
+
+		@Override
+		public void start(Listener<RespT> responseListener, Metadata headers) {
+			metrics.callStarted();
+			long startNanos = System.nanoTime();
+			super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+				@Override
+				public void onMessage(RespT message) {
+					metrics.messageReceived(GrpcCommonUtil.serializedSize(message));
+					super.onMessage(message);
+				}
+
+				@Override
+				public void onClose(Status status, Metadata trailers) {
+					// 客户端onClose保证只回调一次
+					metrics.callCompleted(status.getCode(), System.nanoTime() - startNanos);
+					super.onClose(status, trailers);
+				}
+			}, headers);
+		}
+
+		@Override
+		public void sendMessage(ReqT message) {
+			metrics.messageSent(GrpcCommonUtil.serializedSize(message));
+			super.sendMessage(message);
+		}
+	}
+}
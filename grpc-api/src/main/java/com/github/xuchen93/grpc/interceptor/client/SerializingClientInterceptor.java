@@ -0,0 +1,99 @@
+package com.github.xuchen93.grpc.interceptor.client;
+
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.KnownLength;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 强制序列化拦截器，用于进程内通道
+ * 进程内传输直接把marshaller给出的流交给对端，protobuf的marshaller识别出自己的流时直接返回原消息对象，不序列化；
+ * 本拦截器把请求和响应的marshaller换成先写成字节数组、再从字节数组解析的版本，使进程内调用与网络传输一样完整地序列化
+ * 替换后的方法描述按方法缓存，每次调用不再分配
+ * 字节数组按消息的确切大小分配；进程内对端直接收到发送方生成的字节流，解析时不再复制
+ */
+public class SerializingClientInterceptor implements ClientInterceptor {
+
+	private final ConcurrentHashMap<String, MethodDescriptor<?, ?>> methods = new ConcurrentHashMap<>();
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+			MethodDescriptor<ReqT, RespT> method,
+			CallOptions callOptions,
+			Channel next) {
+
+		MethodDescriptor<ReqT, RespT> serializing = (MethodDescriptor<ReqT, RespT>) methods.computeIfAbsent(
+				method.getFullMethodName(), name -> method.toBuilder(
+						new SerializingMarshaller<>(method.getRequestMarshaller()),
+						new SerializingMarshaller<>(method.getResponseMarshaller())).build());
+		return next.newCall(serializing, callOptions);
+	}
+
+	/**
+	 * 发送时序列化为字节数组，接收时先读出全部字节再交给原marshaller解析
+	 * 保留原marshaller的消息原型，依赖原型查找消息类型的逻辑（如请求校验）不受影响
+	 */
+	private static final class SerializingMarshaller<T> implements MethodDescriptor.PrototypeMarshaller<T> {
+		private final MethodDescriptor.Marshaller<T> delegate;
+
+		SerializingMarshaller(MethodDescriptor.Marshaller<T> delegate) {
+			this.delegate = delegate;
+		}
+
+		@Override
+		public InputStream stream(T value) {
+			return new KnownLengthInputStream(readAll(delegate.stream(value)));
+		}
+
+		@Override
+		public T parse(InputStream stream) {
+			// 进程内传输把stream()返回的流原样交给对端，字节已经完整序列化
+			if (stream instanceof KnownLengthInputStream) {
+				return delegate.parse(stream);
+			}
+			return delegate.parse(new KnownLengthInputStream(readAll(stream)));
+		}
+
+		@Override
+		public T getMessagePrototype() {
+			return delegate instanceof MethodDescriptor.PrototypeMarshaller<T> prototype ? prototype.getMessagePrototype() : null;
+		}
+
+		@Override
+		public Class<T> getMessageClass() {
+			return delegate instanceof MethodDescriptor.ReflectableMarshaller<T> reflectable ? reflectable.getMessageClass() : null;
+		}
+
+		private static byte[] readAll(InputStream stream) {
+			try (stream) {
+				// protobuf的流实现了KnownLength，available()即剩余字节数；readAllBytes至少分配8KB缓冲区并在扩容时复制
+				if (stream instanceof KnownLength) {
+					byte[] bytes = new byte[stream.available()];
+					stream.readNBytes(bytes, 0, bytes.length);
+					return bytes;
+				}
+				return stream.readAllBytes();
+			} catch (IOException e) {
+				throw Status.INTERNAL.withDescription("Failed to serialize message").withCause(e).asRuntimeException();
+			}
+		}
+	}
+
+	/**
+	 * 实现KnownLength，protobuf的marshaller据此按确切大小解析，而不是按未知长度的流逐块读取
+	 */
+	private static final class KnownLengthInputStream extends ByteArrayInputStream implements KnownLength {
+		KnownLengthInputStream(byte[] bytes) {
+			super(bytes);
+		}
+	}
+}
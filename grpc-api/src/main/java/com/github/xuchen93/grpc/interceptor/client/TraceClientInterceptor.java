@@ -0,0 +1,78 @@
+package com.github.xuchen93.grpc.interceptor.client;
+
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.trace.Span;
+import com.github.xuchen93.grpc.trace.SpanBuffer;
+import com.github.xuchen93.grpc.trace.TraceContext;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * 客户端追踪拦截器，需放在拦截器链最外层
+ * 为每个调用生成客户端Span，写入traceparent和x-trace-id请求头，并通过CallOptions传给内层拦截器
+ */
+public class TraceClientInterceptor implements ClientInterceptor {
+
+	private final SpanBuffer spanBuffer;
+
+	public TraceClientInterceptor() {
+		this(SpanBuffer.NOOP);
+	}
+
+	public TraceClientInterceptor(SpanBuffer spanBuffer) {
+		this.spanBuffer = spanBuffer;
+	}
+
+	/**
+	 * 解析本次调用的客户端Span：
+	 * 已解析的CallOptions上下文 > CallOptions中的TraceId > 当前gRPC Context（在服务端处理中发起的下游调用）> 线程绑定的TraceId
+	 */
+	public static TraceContext resolve(CallOptions callOptions) {
+		TraceContext resolved = callOptions.getOption(InterceptorKeys.TRACE_CONTEXT_CALL_OPTION);
+		if (resolved != null) {
+			return resolved;
+		}
+		String traceId = callOptions.getOption(InterceptorKeys.TRACE_ID_CALL_OPTION);
+		if (traceId != null) {
+			return TraceContext.fromTraceId(traceId);
+		}
+		TraceContext current = TraceContext.current();
+		if (current != null) {
+			return current.newChild();
+		}
+		return TraceContext.fromTraceId(LoggingClientInterceptor.getOrCreateTraceId());
+	}
+
+	@Override
+	public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(
+			MethodDescriptor<ReqT, RespT> method,
+			CallOptions callOptions,
+			Channel next) {
+
+		TraceContext trace = resolve(callOptions);
+		ClientCall<ReqT, RespT> call = next.newCall(method, callOptions.withOption(InterceptorKeys.TRACE_CONTEXT_CALL_OPTION, trace));
+		return new ForwardingClientCall.SimpleForwardingClientCall<>(call) {
+			@Override
+			public void start(Listener<RespT> responseListener, Metadata headers) {
+				trace.inject(headers);
+				long startEpochMillis = System.currentTimeMillis();
+				long startNanos = System.nanoTime();
+				super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+					@Override
+					public void onClose(Status status, Metadata trailers) {
+						spanBuffer.record(new Span(trace, method.getFullMethodName(), Span.KIND_CLIENT,
+								startEpochMillis, System.nanoTime() - startNanos, status.getCode().value()));
+						super.onClose(status, trailers);
+					}
+				}, headers);
+			}
+		};
+	}
+}
@@ -0,0 +1,29 @@
+package com.github.xuchen93.grpc.interceptor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 服务端认证检查，事件时长为检查耗时
+ */
+@Name("com.github.xuchen93.grpc.AuthCheck")
+@Label("gRPC Auth Check")
+@Category({"gRPC", "Auth"})
+@Description("服务端认证拦截器的一次检查")
+@StackTrace(false)
+public class GrpcAuthCheckEvent extends Event {
+
+	@Label("Method")
+	public String method;
+
+	@Label("Trace Id")
+	public String traceId;
+
+	@Label("Outcome")
+	@Description("whitelisted / accepted / rejected")
+	public String outcome;
+}
@@ -0,0 +1,28 @@
+package com.github.xuchen93.grpc.interceptor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 认证失败被拒绝的调用
+ */
+@Name("com.github.xuchen93.grpc.AuthRejected")
+@Label("gRPC Auth Rejected")
+@Category({"gRPC", "Auth"})
+@Description("认证失败被拒绝的调用")
+@StackTrace(false)
+public class GrpcAuthRejectedEvent extends Event {
+
+	@Label("Method")
+	public String method;
+
+	@Label("Trace Id")
+	public String traceId;
+
+	@Label("Reason")
+	public String reason;
+}
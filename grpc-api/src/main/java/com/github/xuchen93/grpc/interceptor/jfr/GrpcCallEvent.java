@@ -0,0 +1,47 @@
+package com.github.xuchen93.grpc.interceptor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 一次gRPC调用，事件时长为调用开始到结束
+ */
+@Name("com.github.xuchen93.grpc.Call")
+@Label("gRPC Call")
+@Category({"gRPC"})
+@Description("一次gRPC调用，从拦截器收到调用到close/onClose")
+@StackTrace(false)
+public class GrpcCallEvent extends Event {
+
+	@Label("Side")
+	@Description("server 或 client")
+	public String side;
+
+	@Label("Method")
+	public String method;
+
+	@Label("Trace Id")
+	public String traceId;
+
+	@Label("Status")
+	public String status;
+
+	@Label("Request Bytes")
+	@DataAmount
+	public long requestBytes;
+
+	@Label("Response Bytes")
+	@DataAmount
+	public long responseBytes;
+
+	@Label("Request Messages")
+	public int requestMessages;
+
+	@Label("Response Messages")
+	public int responseMessages;
+}
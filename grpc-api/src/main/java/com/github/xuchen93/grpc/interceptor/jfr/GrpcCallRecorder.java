@@ -0,0 +1,69 @@
+package com.github.xuchen93.grpc.interceptor.jfr;
+
+import com.github.xuchen93.grpc.interceptor.util.GrpcCommonUtil;
+import io.grpc.Status;
+
+/**
+ * 单个调用的JFR记录状态，服务端和客户端拦截器共用
+ * 入站和出站各自只在一个方向的回调中修改，由gRPC保证同方向回调串行
+ */
+public final class GrpcCallRecorder {
+
+	private final GrpcCallEvent event = new GrpcCallEvent();
+	private final String side;
+	private final String method;
+	private final String traceId;
+	private final boolean messageEvents;
+	private long inboundBytes;
+	private long outboundBytes;
+	private int inboundMessages;
+	private int outboundMessages;
+	private boolean ended;
+
+	public GrpcCallRecorder(String side, String method, String traceId) {
+		this.side = side;
+		this.method = method;
+		this.traceId = traceId;
+		this.messageEvents = GrpcJfr.isMessageEnabled();
+		event.begin();
+	}
+
+	public void inbound(Object message) {
+		int size = GrpcCommonUtil.serializedSize(message);
+		inboundMessages++;
+		inboundBytes += size;
+		if (messageEvents) {
+			GrpcJfr.emitMessage(side, method, traceId, GrpcJfr.INBOUND, inboundMessages, size);
+		}
+	}
+
+	public void outbound(Object message) {
+		int size = GrpcCommonUtil.serializedSize(message);
+		outboundMessages++;
+		outboundBytes += size;
+		if (messageEvents) {
+			GrpcJfr.emitMessage(side, method, traceId, GrpcJfr.OUTBOUND, outboundMessages, size);
+		}
+	}
+
+	public synchronized void end(Status.Code code) {
+		if (ended) {
+			return;
+		}
+		ended = true;
+		event.end();
+		if (event.shouldCommit()) {
+			boolean server = GrpcJfr.SIDE_SERVER.equals(side);
+			event.side = side;
+			event.method = method;
+			event.traceId = traceId;
+			event.status = code.name();
+			// 服务端入站为请求，客户端入站为响应
+			event.requestBytes = server ? inboundBytes : outboundBytes;
+			event.responseBytes = server ? outboundBytes : inboundBytes;
+			event.requestMessages = server ? inboundMessages : outboundMessages;
+			event.responseMessages = server ? outboundMessages : inboundMessages;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,49 @@
+package com.github.xuchen93.grpc.interceptor.jfr;
+
+import jdk.jfr.EventType;
+
+/**
+ * 拦截器发出JFR事件的辅助方法
+ * 调用事件跨线程存活，无法依赖JIT消除对象分配，因此在拦截入口先检查事件类型是否开启，
+ * 未开启时拦截器直接透传，不创建事件也不包装调用
+ */
+public final class GrpcJfr {
+
+	public static final String SIDE_SERVER = "server";
+	public static final String SIDE_CLIENT = "client";
+	public static final String INBOUND = "inbound";
+	public static final String OUTBOUND = "outbound";
+
+	/**
+	 * 内置的JFR配置，只包含gRPC事件，可与JDK的default/profile一起使用：
+	 * -XX:StartFlightRecording:settings=default,settings=/path/to/grpc.jfc
+	 */
+	public static final String PROFILE_RESOURCE = "/jfr/grpc.jfc";
+
+	private static final EventType CALL_EVENT_TYPE = EventType.getEventType(GrpcCallEvent.class);
+	private static final EventType MESSAGE_EVENT_TYPE = EventType.getEventType(GrpcStreamMessageEvent.class);
+
+	private GrpcJfr() {
+	}
+
+	public static boolean isCallEnabled() {
+		return CALL_EVENT_TYPE.isEnabled();
+	}
+
+	public static boolean isMessageEnabled() {
+		return MESSAGE_EVENT_TYPE.isEnabled();
+	}
+
+	public static void emitMessage(String side, String method, String traceId, String direction, int sequence, int size) {
+		GrpcStreamMessageEvent event = new GrpcStreamMessageEvent();
+		if (event.shouldCommit()) {
+			event.side = side;
+			event.method = method;
+			event.traceId = traceId;
+			event.direction = direction;
+			event.sequence = sequence;
+			event.size = size;
+			event.commit();
+		}
+	}
+}
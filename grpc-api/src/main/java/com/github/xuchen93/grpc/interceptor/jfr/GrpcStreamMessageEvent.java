@@ -0,0 +1,41 @@
+package com.github.xuchen93.grpc.interceptor.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * 调用中收发的单条消息，数量大，默认配置中关闭
+ */
+@Name("com.github.xuchen93.grpc.StreamMessage")
+@Label("gRPC Stream Message")
+@Category({"gRPC"})
+@Description("gRPC调用中收发的一条消息")
+@StackTrace(false)
+public class GrpcStreamMessageEvent extends Event {
+
+	@Label("Side")
+	public String side;
+
+	@Label("Method")
+	public String method;
+
+	@Label("Trace Id")
+	public String traceId;
+
+	@Label("Direction")
+	@Description("inbound 或 outbound")
+	public String direction;
+
+	@Label("Sequence")
+	@Description("本方向上的消息序号，从1开始")
+	public int sequence;
+
+	@Label("Size")
+	@DataAmount
+	public int size;
+}
@@ -0,0 +1,114 @@
+package com.github.xuchen93.grpc.interceptor.logging;
+
+import org.slf4j.Logger;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单次调用的日志记录器，由LoggingPolicy按调用创建
+ * LOG模式直接输出；TAIL模式只保存格式串和参数引用，结束时满足条件才格式化输出；OFF模式丢弃
+ */
+public final class CallLog {
+
+	private final LoggingPolicy policy;
+	private final Logger logger;
+	private final String methodName;
+	private final LoggingPolicy.Mode mode;
+
+	private List<Event> events;
+	private int dropped;
+
+	CallLog(LoggingPolicy policy, Logger logger, String methodName, LoggingPolicy.Mode mode) {
+		this.policy = policy;
+		this.logger = logger;
+		this.methodName = methodName;
+		this.mode = mode;
+	}
+
+	/**
+	 * 是否可能输出过程事件，为false时调用方无需准备日志参数
+	 */
+	public boolean isEnabled() {
+		return mode == LoggingPolicy.Mode.LOG ? logger.isInfoEnabled() : mode == LoggingPolicy.Mode.TAIL;
+	}
+
+	public void info(String format, Object... args) {
+		if (mode == LoggingPolicy.Mode.LOG) {
+			logger.info(format, args);
+		} else if (mode == LoggingPolicy.Mode.TAIL) {
+			buffer(false, format, args);
+		}
+	}
+
+	public void warn(String format, Object... args) {
+		if (mode == LoggingPolicy.Mode.LOG) {
+			logger.warn(format, args);
+		} else if (mode == LoggingPolicy.Mode.TAIL) {
+			buffer(true, format, args);
+		}
+	}
+
+	/**
+	 * 调用结束，输出结束日志；TAIL模式下失败或超过耗时阈值时先补齐缓冲的事件
+	 *
+	 * @param failed    是否失败
+	 * @param costNanos 调用耗时
+	 */
+	public void complete(boolean failed, long costNanos, String format, Object... args) {
+		switch (mode) {
+			case LOG -> write(failed, format, args);
+			case TAIL -> {
+				if (policy.shouldFlushTail(failed, costNanos) && policy.tryAcquire(methodName)) {
+					flush();
+					write(failed, format, args);
+				}
+			}
+			case OFF -> {
+				// 未采样的失败调用在限流允许时仍记录结束行
+				if (failed && policy.tryAcquire(methodName)) {
+					write(true, format, args);
+				}
+			}
+		}
+	}
+
+	private void write(boolean error, String format, Object[] args) {
+		if (error) {
+			logger.error(format, args);
+		} else {
+			logger.info(format, args);
+		}
+	}
+
+	private synchronized void buffer(boolean warn, String format, Object[] args) {
+		if (events == null) {
+			events = new ArrayList<>(8);
+		}
+		if (events.size() >= policy.tailMaxEvents()) {
+			dropped++;
+			return;
+		}
+		events.add(new Event(warn, format, args));
+	}
+
+	private synchronized void flush() {
+		if (events == null) {
+			return;
+		}
+		for (Event event : events) {
+			if (event.warn()) {
+				logger.warn("[tail] " + event.format(), event.args());
+			} else {
+				logger.info("[tail] " + event.format(), event.args());
+			}
+		}
+		if (dropped > 0) {
+			logger.info("[tail] [{}] 另有{}条事件超出缓冲上限被丢弃", methodName, dropped);
+		}
+		events = null;
+	}
+
+	private record Event(boolean warn, String format, Object[] args) {
+	}
+}
@@ -0,0 +1,138 @@
+package com.github.xuchen93.grpc.interceptor.logging;
+
+import org.slf4j.Logger;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 调用日志策略
+ * <ul>
+ *     <li>头部采样：按方法配置采样率，调用开始时决定是否实时输出该调用的日志</li>
+ *     <li>限流：每个方法在每个时间窗口内最多输出maxCallsPerWindow个调用的日志</li>
+ *     <li>尾部采样：未被头部采样的调用先缓冲事件，仅在失败或耗时超过阈值时输出</li>
+ * </ul>
+ */
+public class LoggingPolicy {
+
+	/**
+	 * 单次调用的日志模式
+	 */
+	public enum Mode {
+		/**
+		 * 实时输出
+		 */
+		LOG,
+		/**
+		 * 缓冲事件，结束时按结果决定是否输出
+		 */
+		TAIL,
+		/**
+		 * 不输出（失败仍会在限流允许时记录一行）
+		 */
+		OFF
+	}
+
+	private final double defaultSampleRate;
+	private final Map<String, Double> sampleRates;
+	private final int maxCallsPerWindow;
+	private final long windowNanos;
+	private final boolean tailEnabled;
+	private final long tailLatencyThresholdNanos;
+	private final int tailMaxEvents;
+
+	private final ConcurrentHashMap<String, RateWindow> windows = new ConcurrentHashMap<>();
+
+	/**
+	 * @param defaultSampleRate     未单独配置方法的采样率，取值[0, 1]
+	 * @param sampleRates           方法全名 -> 采样率
+	 * @param maxCallsPerWindow     每个方法每个窗口内最多输出的调用数，0表示不限
+	 * @param window                限流窗口
+	 * @param tailEnabled           是否开启尾部采样
+	 * @param tailLatencyThreshold  尾部采样的耗时阈值
+	 * @param tailMaxEvents         尾部采样每个调用最多缓冲的事件数
+	 */
+	public LoggingPolicy(double defaultSampleRate, Map<String, Double> sampleRates, int maxCallsPerWindow, Duration window,
+						 boolean tailEnabled, Duration tailLatencyThreshold, int tailMaxEvents) {
+		this.defaultSampleRate = defaultSampleRate;
+		this.sampleRates = Map.copyOf(sampleRates);
+		this.maxCallsPerWindow = maxCallsPerWindow;
+		this.windowNanos = window.toNanos();
+		this.tailEnabled = tailEnabled;
+		this.tailLatencyThresholdNanos = tailLatencyThreshold.toNanos();
+		this.tailMaxEvents = tailMaxEvents;
+	}
+
+	/**
+	 * 记录全部调用，与引入策略之前的行为一致
+	 */
+	public static LoggingPolicy logAll() {
+		return new LoggingPolicy(1.0, Map.of(), 0, Duration.ofSeconds(1), false, Duration.ZERO, 0);
+	}
+
+	/**
+	 * 为一次调用创建日志记录器
+	 */
+	public CallLog newCallLog(Logger logger, String methodName) {
+		return new CallLog(this, logger, methodName, decide(methodName));
+	}
+
+	Mode decide(String methodName) {
+		double rate = sampleRates.getOrDefault(methodName, defaultSampleRate);
+		if (rate >= 1.0 || (rate > 0 && ThreadLocalRandom.current().nextDouble() < rate)) {
+			if (tryAcquire(methodName)) {
+				return Mode.LOG;
+			}
+		}
+		return tailEnabled ? Mode.TAIL : Mode.OFF;
+	}
+
+	boolean shouldFlushTail(boolean failed, long costNanos) {
+		return failed || costNanos >= tailLatencyThresholdNanos;
+	}
+
+	int tailMaxEvents() {
+		return tailMaxEvents;
+	}
+
+	/**
+	 * 占用当前窗口的一个名额
+	 */
+	boolean tryAcquire(String methodName) {
+		if (maxCallsPerWindow <= 0) {
+			return true;
+		}
+		return windows.computeIfAbsent(methodName, k -> new RateWindow()).tryAcquire(maxCallsPerWindow, windowNanos);
+	}
+
+	/**
+	 * 固定窗口计数，窗口序号（高32位）和窗口内计数（低32位）打包在一个AtomicLong中，
+	 * 切换窗口和清零计数由同一次CAS完成，不会出现新窗口沿用旧计数或清零覆盖新窗口计数的情况
+	 */
+	private static class RateWindow {
+		private final long origin = System.nanoTime();
+		private final AtomicLong state = new AtomicLong();
+
+		boolean tryAcquire(int max, long windowNanos) {
+			int window = (int) ((System.nanoTime() - origin) / windowNanos);
+			while (true) {
+				long current = state.get();
+				long next;
+				// 按差值比较，序号回绕后仍然有效；读到比自己更新的窗口时按新窗口计数
+				if (window - (int) (current >>> 32) > 0) {
+					next = ((long) window << 32) | 1;
+				} else if ((int) current >= max) {
+					return false;
+				} else {
+					next = current + 1;
+				}
+				if (state.compareAndSet(current, next)) {
+					return true;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,64 @@
+package com.github.xuchen93.grpc.interceptor.logging;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 调用日志策略配置，服务端和客户端的日志拦截器共用
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.logging")
+public class LoggingPolicyProperties {
+
+	/**
+	 * 默认采样率，取值[0, 1]
+	 */
+	private double sampleRate = 1.0;
+
+	/**
+	 * 方法全名 -> 采样率
+	 */
+	private Map<String, Double> methodSampleRates = new LinkedHashMap<>();
+
+	/**
+	 * 每个方法每个窗口内最多输出的调用数，0表示不限
+	 */
+	private int maxCallsPerWindow = 0;
+
+	/**
+	 * 限流窗口
+	 */
+	private Duration window = Duration.ofSeconds(1);
+
+	/**
+	 * 尾部采样配置
+	 */
+	private Tail tail = new Tail();
+
+	@Data
+	public static class Tail {
+		/**
+		 * 是否开启尾部采样
+		 */
+		private boolean enabled = false;
+
+		/**
+		 * 耗时超过该阈值的调用输出缓冲的事件
+		 */
+		private Duration latencyThreshold = Duration.ofMillis(500);
+
+		/**
+		 * 每个调用最多缓冲的事件数
+		 */
+		private int maxEvents = 64;
+	}
+
+	public LoggingPolicy toPolicy() {
+		return new LoggingPolicy(sampleRate, methodSampleRates, maxCallsPerWindow, window,
+				tail.isEnabled(), tail.getLatencyThreshold(), tail.getMaxEvents());
+	}
+}
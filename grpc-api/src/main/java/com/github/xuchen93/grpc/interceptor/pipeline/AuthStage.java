@@ -0,0 +1,44 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.context.RequestContext;
+import com.github.xuchen93.grpc.interceptor.chain.MethodScoped;
+import com.github.xuchen93.grpc.interceptor.server.AuthServerInterceptor;
+import com.github.xuchen93.grpc.trace.TraceContext;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+
+/**
+ * 认证阶段，复用AuthServerInterceptor的白名单、Token缓存、验证器和JFR事件
+ * 白名单方法的流水线中不包含本阶段；认证通过后替换调用的RequestContext，由流水线统一写入Context
+ */
+public class AuthStage implements ServerStage, MethodScoped {
+
+	private final AuthServerInterceptor authenticator;
+
+	public AuthStage(AuthServerInterceptor authenticator) {
+		this.authenticator = authenticator;
+	}
+
+	public AuthServerInterceptor getAuthenticator() {
+		return authenticator;
+	}
+
+	@Override
+	public boolean appliesTo(MethodDescriptor<?, ?> method) {
+		return authenticator.appliesTo(method);
+	}
+
+	@Override
+	public boolean onStart(PipelineCall<?, ?> call, int slot, Metadata headers) {
+		RequestContext requestContext = call.requestContext();
+		if (requestContext == null) {
+			requestContext = RequestContext.of(TraceContext.fromHeaders(headers), headers);
+		}
+		RequestContext authenticated = authenticator.authenticateCall(call, headers, requestContext);
+		if (authenticated == null) {
+			return false;
+		}
+		call.requestContext(authenticated);
+		return true;
+	}
+}
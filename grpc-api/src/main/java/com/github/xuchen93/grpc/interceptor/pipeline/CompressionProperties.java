@@ -0,0 +1,58 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.compression.CompressionCodecs;
+import io.grpc.CompressorRegistry;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 服务端响应压缩配置
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.server.compression")
+public class CompressionProperties {
+
+	/**
+	 * 默认压缩编码：identity（不压缩）、gzip或deflate
+	 */
+	private String encoding = CompressionCodecs.IDENTITY;
+
+	/**
+	 * 序列化后达到该字节数的响应才压缩
+	 */
+	private int minMessageBytes = 1024;
+
+	/**
+	 * 按完整方法名覆盖，未配置的字段沿用默认值
+	 */
+	private Map<String, MethodCompression> methods = new LinkedHashMap<>();
+
+	@Data
+	public static class MethodCompression {
+		private String encoding;
+		private Integer minMessageBytes;
+	}
+
+	/**
+	 * @param registry 服务端实际使用的压缩注册表
+	 * @throws IllegalArgumentException 配置了registry中不存在的编码
+	 */
+	public CompressionStage toStage(CompressorRegistry registry) {
+		CompressionStage.Policy defaultPolicy = policy(registry, "default", encoding, minMessageBytes);
+		Map<String, CompressionStage.Policy> policies = new LinkedHashMap<>();
+		methods.forEach((method, override) -> policies.put(method, policy(registry, method,
+				override.getEncoding() != null ? override.getEncoding() : encoding,
+				override.getMinMessageBytes() != null ? override.getMinMessageBytes() : minMessageBytes)));
+		return new CompressionStage(defaultPolicy, policies);
+	}
+
+	private static CompressionStage.Policy policy(CompressorRegistry registry, String name, String encoding, int minMessageBytes) {
+		if (registry.lookupCompressor(encoding) == null) {
+			throw new IllegalArgumentException("Unknown compression encoding for " + name + ": " + encoding);
+		}
+		return new CompressionStage.Policy(encoding, minMessageBytes);
+	}
+}
@@ -0,0 +1,94 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.compression.CompressionCodecs;
+import com.github.xuchen93.grpc.interceptor.chain.MethodScoped;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+/**
+ * 按方法选择响应的压缩编码，并按每条响应的序列化大小决定是否压缩
+ * <ul>
+ *     <li>调用开始时设置编码；客户端未通告支持该编码时grpc自动退回identity</li>
+ *     <li>小于minMessageBytes的响应不压缩：小消息压缩后往往更大，且白白消耗CPU</li>
+ *     <li>编码为identity的方法流水线中不包含本阶段</li>
+ *     <li>服务端实际使用的注册表中没有该编码时（注册表被其他ServerBuilderCustomizer替换），该方法退回不压缩，而不是让调用失败</li>
+ * </ul>
+ */
+@Slf4j
+public class CompressionStage implements ServerStage, MethodScoped {
+
+	private final Policy defaultPolicy;
+	private final Map<String, Policy> methodPolicies;
+
+	/**
+	 * @param methodPolicies 完整方法名 -> 策略，覆盖默认策略
+	 */
+	public CompressionStage(Policy defaultPolicy, Map<String, Policy> methodPolicies) {
+		this.defaultPolicy = defaultPolicy;
+		this.methodPolicies = Map.copyOf(methodPolicies);
+	}
+
+	@Override
+	public boolean appliesTo(MethodDescriptor<?, ?> method) {
+		return !CompressionCodecs.IDENTITY.equals(policyOf(method).encoding);
+	}
+
+	@Override
+	public Object methodState(MethodDescriptor<?, ?> method) {
+		return policyOf(method);
+	}
+
+	@Override
+	public boolean onStart(PipelineCall<?, ?> call, int slot, Metadata headers) {
+		Policy policy = (Policy) call.methodState(slot);
+		if (policy.unavailable) {
+			return true;
+		}
+		try {
+			call.setCompression(policy.encoding);
+		} catch (IllegalArgumentException e) {
+			policy.unavailable = true;
+			log.warn("[Compression] 服务端注册表中没有编码{}，{}不再压缩响应", policy.encoding, call.methodName());
+		}
+		return true;
+	}
+
+	@Override
+	public void onResponse(PipelineCall<?, ?> call, int slot, Object message, int serializedSize) {
+		call.setMessageCompression(serializedSize >= ((Policy) call.methodState(slot)).minMessageBytes);
+	}
+
+	private Policy policyOf(MethodDescriptor<?, ?> method) {
+		return methodPolicies.getOrDefault(method.getFullMethodName(), defaultPolicy);
+	}
+
+	/**
+	 * 方法的压缩策略
+	 */
+	public static final class Policy {
+		private final String encoding;
+		private final int minMessageBytes;
+		// 服务端注册表中找不到该编码，之后的调用不再尝试
+		private volatile boolean unavailable;
+
+		/**
+		 * @param encoding        压缩编码，identity表示不压缩
+		 * @param minMessageBytes 序列化后达到该字节数的响应才压缩
+		 */
+		public Policy(String encoding, int minMessageBytes) {
+			this.encoding = encoding;
+			this.minMessageBytes = minMessageBytes;
+		}
+
+		public String encoding() {
+			return encoding;
+		}
+
+		public int minMessageBytes() {
+			return minMessageBytes;
+		}
+	}
+}
@@ -0,0 +1,29 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 服务端并发限制配置
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.server.limits")
+public class ConcurrencyLimitProperties {
+
+	/**
+	 * 每个方法同时进行的调用数上限，小于等于0表示不限制
+	 */
+	private int maxConcurrentCalls = 0;
+
+	/**
+	 * 按完整方法名覆盖的上限
+	 */
+	private Map<String, Integer> methods = new LinkedHashMap<>();
+
+	public ConcurrencyLimitStage toStage() {
+		return new ConcurrencyLimitStage(maxConcurrentCalls, methods);
+	}
+}
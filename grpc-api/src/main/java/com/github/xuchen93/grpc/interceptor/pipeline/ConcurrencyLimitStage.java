@@ -0,0 +1,74 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.interceptor.chain.MethodScoped;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按方法限制同时进行的调用数，超出时以RESOURCE_EXHAUSTED拒绝
+ * 计数器在编译流水线时按方法创建；不限流的方法流水线中不包含本阶段
+ */
+@Slf4j
+public class ConcurrencyLimitStage implements ServerStage, MethodScoped {
+
+	private final int defaultLimit;
+	private final Map<String, Integer> methodLimits;
+
+	/**
+	 * @param defaultLimit 每个方法的默认上限，小于等于0表示不限制
+	 * @param methodLimits 完整方法名 -> 上限，覆盖默认值
+	 */
+	public ConcurrencyLimitStage(int defaultLimit, Map<String, Integer> methodLimits) {
+		this.defaultLimit = defaultLimit;
+		this.methodLimits = Map.copyOf(methodLimits);
+	}
+
+	@Override
+	public boolean appliesTo(MethodDescriptor<?, ?> method) {
+		return limitOf(method) > 0;
+	}
+
+	@Override
+	public Object methodState(MethodDescriptor<?, ?> method) {
+		return new MethodLimit(limitOf(method));
+	}
+
+	@Override
+	public boolean onStart(PipelineCall<?, ?> call, int slot, Metadata headers) {
+		MethodLimit limit = (MethodLimit) call.methodState(slot);
+		if (limit.inFlight.incrementAndGet() > limit.max) {
+			limit.inFlight.decrementAndGet();
+			log.warn("[Limit] 并发调用数超过上限: method={}, limit={}, traceId={}", call.methodName(), limit.max, call.traceId());
+			call.close(Status.RESOURCE_EXHAUSTED.withDescription("Too many concurrent calls, limit " + limit.max), new Metadata());
+			return false;
+		}
+		// 标记已占用名额，只有占用了名额的调用在结束时归还
+		call.state(slot, Boolean.TRUE);
+		return true;
+	}
+
+	@Override
+	public void onEnd(PipelineCall<?, ?> call, int slot, Status status) {
+		if (call.state(slot) == Boolean.TRUE) {
+			((MethodLimit) call.methodState(slot)).inFlight.decrementAndGet();
+		}
+	}
+
+	private int limitOf(MethodDescriptor<?, ?> method) {
+		return methodLimits.getOrDefault(method.getFullMethodName(), defaultLimit);
+	}
+
+	private static final class MethodLimit {
+		private final int max;
+		private final AtomicInteger inFlight = new AtomicInteger();
+
+		MethodLimit(int max) {
+			this.max = max;
+		}
+	}
+}
@@ -0,0 +1,305 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.context.RequestContext;
+import com.github.xuchen93.grpc.exception.ExceptionStatusMapper;
+import com.github.xuchen93.grpc.exception.GrpcError;
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainRules;
+import com.github.xuchen93.grpc.interceptor.chain.MethodScoped;
+import com.github.xuchen93.grpc.interceptor.chain.NamedInterceptor;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * 融合的服务端拦截器流水线：认证、日志、指标、限流等作为ServerStage执行，
+ * 每个调用只创建一个ServerCall包装和一个监听器，而不是每个拦截器各一对
+ * <ul>
+ *     <li>每个方法的阶段数组与方法级状态在第一次使用时编译，按MethodDescriptor身份查找</li>
+ *     <li>阶段选择与方法链相同：配置的跳过规则、@SkipInterceptors、MethodScoped</li>
+ *     <li>阶段修改RequestContext时只做一次Context.withValue，监听器回调时附加该Context</li>
+ *     <li>配置了ExceptionStatusMapper时，服务方法抛出的异常在这里统一映射为状态并关闭调用，服务方法无需各自捕获</li>
+ * </ul>
+ * 本身作为一个普通拦截器进入MethodChainServerInterceptor的方法链；没有阶段且未配置ExceptionStatusMapper时，方法不经过本拦截器
+ * 配置了ExceptionStatusMapper时，没有阶段的方法同样经过本拦截器，只做异常映射
+ * 阶段的onStart或服务方法的startCall抛出异常时，已开始的阶段同样会收到onEnd
+ */
+@Slf4j
+public class FusedServerPipeline implements ServerInterceptor, MethodScoped {
+
+	@SuppressWarnings("rawtypes")
+	private static final ServerCall.Listener NOOP_LISTENER = new ServerCall.Listener() {
+	};
+
+	private final Supplier<List<NamedInterceptor<ServerStage>>> stageSupplier;
+	private final MethodChainRules rules;
+	private final ExceptionStatusMapper exceptionMapper;
+	private volatile List<NamedInterceptor<ServerStage>> stages;
+	private volatile Map<MethodDescriptor<?, ?>, MethodPipeline> pipelines = new IdentityHashMap<>();
+
+	/**
+	 * @param stageSupplier 按执行顺序排列的阶段，在第一次编译时才读取，通常为InterceptorBeanListener::orderedServerStages
+	 */
+	public FusedServerPipeline(Supplier<List<NamedInterceptor<ServerStage>>> stageSupplier, MethodChainRules rules) {
+		this(stageSupplier, rules, null);
+	}
+
+	/**
+	 * @param exceptionMapper 服务方法异常的映射，为null时异常照常抛给gRPC（以UNKNOWN关闭）
+	 */
+	public FusedServerPipeline(Supplier<List<NamedInterceptor<ServerStage>>> stageSupplier, MethodChainRules rules,
+							   ExceptionStatusMapper exceptionMapper) {
+		this.stageSupplier = stageSupplier;
+		this.rules = rules;
+		this.exceptionMapper = exceptionMapper;
+	}
+
+	@Override
+	public boolean appliesTo(MethodDescriptor<?, ?> method) {
+		return exceptionMapper != null || pipeline(method).stages.length > 0;
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+			ServerCall<ReqT, RespT> call,
+			Metadata headers,
+			ServerCallHandler<ReqT, RespT> next) {
+
+		MethodPipeline pipeline = pipeline(call.getMethodDescriptor());
+		ServerStage[] stages = pipeline.stages;
+		if (stages.length == 0 && exceptionMapper == null) {
+			return next.startCall(call, headers);
+		}
+		RequestContext original = RequestContext.current();
+		PipelineCall<ReqT, RespT> pipelineCall = new PipelineCall<>(call, pipeline, original);
+		int i = 0;
+		try {
+			for (; i < stages.length; i++) {
+				pipelineCall.started = i + 1;
+				if (!stages[i].onStart(pipelineCall, i, headers)) {
+					return (ServerCall.Listener<ReqT>) NOOP_LISTENER;
+				}
+			}
+		} catch (RuntimeException e) {
+			// 抛出异常的阶段没有完成开始，只结束它之前的阶段（如归还限流名额）
+			pipelineCall.started = i;
+			return failStart(pipelineCall, e);
+		}
+
+		RequestContext requestContext = pipelineCall.requestContext();
+		Context context = requestContext != original
+				? Context.current().withValue(InterceptorKeys.REQUEST_CONTEXT_KEY, requestContext) : null;
+		Context previous = context != null ? context.attach() : null;
+		try {
+			// 流式方法在startCall中就会调用服务实现
+			return new PipelineListener<>(next.startCall(pipelineCall, headers), pipelineCall, context, exceptionMapper);
+		} catch (RuntimeException e) {
+			return failStart(pipelineCall, e);
+		} finally {
+			if (context != null) {
+				context.detach(previous);
+			}
+		}
+	}
+
+	/**
+	 * 阶段或服务方法在调用开始时抛出异常：有ExceptionStatusMapper时映射为状态并关闭调用；
+	 * 否则异常抛给gRPC，由gRPC直接关闭底层调用而不经过PipelineCall.close，因此先结束已开始的阶段
+	 */
+	@SuppressWarnings("unchecked")
+	private <ReqT> ServerCall.Listener<ReqT> failStart(PipelineCall<ReqT, ?> pipelineCall, RuntimeException e) {
+		if (exceptionMapper == null) {
+			pipelineCall.end(Status.fromThrowable(e));
+			throw e;
+		}
+		closeWithError(pipelineCall, exceptionMapper, e);
+		return (ServerCall.Listener<ReqT>) NOOP_LISTENER;
+	}
+
+	/**
+	 * 方法流水线中的阶段名称，用于启动日志和管理接口
+	 */
+	public List<String> stageNames(MethodDescriptor<?, ?> method) {
+		return List.of(pipeline(method).names);
+	}
+
+	private MethodPipeline pipeline(MethodDescriptor<?, ?> method) {
+		MethodPipeline pipeline = pipelines.get(method);
+		return pipeline != null ? pipeline : compileLate(method);
+	}
+
+	private synchronized MethodPipeline compileLate(MethodDescriptor<?, ?> method) {
+		MethodPipeline pipeline = pipelines.get(method);
+		if (pipeline == null) {
+			pipeline = compile(method);
+			Map<MethodDescriptor<?, ?>, MethodPipeline> compiled = new IdentityHashMap<>(pipelines);
+			compiled.put(method, pipeline);
+			pipelines = compiled;
+		}
+		return pipeline;
+	}
+
+	private MethodPipeline compile(MethodDescriptor<?, ?> method) {
+		if (stages == null) {
+			stages = List.copyOf(stageSupplier.get());
+		}
+		List<NamedInterceptor<ServerStage>> selected = new ArrayList<>();
+		for (NamedInterceptor<ServerStage> stage : stages) {
+			if (rules.include(stage, method)) {
+				selected.add(stage);
+			}
+		}
+		int size = selected.size();
+		ServerStage[] array = new ServerStage[size];
+		Object[] methodStates = new Object[size];
+		String[] names = new String[size];
+		for (int i = 0; i < size; i++) {
+			array[i] = selected.get(i).interceptor();
+			methodStates[i] = array[i].methodState(method);
+			names[i] = selected.get(i).name();
+		}
+		log.info("[ServerPipeline] {} -> {}", method.getFullMethodName(), List.of(names));
+		return new MethodPipeline(method, array, methodStates, names);
+	}
+
+	private static void closeWithError(PipelineCall<?, ?> call, ExceptionStatusMapper exceptionMapper, RuntimeException e) {
+		// 服务实现已经关闭了调用（如先onError再抛出）时只记录日志
+		GrpcError error = exceptionMapper.map(e, call.methodName());
+		if (!call.isEnded()) {
+			call.close(error.status(), error.trailers());
+		}
+	}
+
+	static final class MethodPipeline {
+		final MethodDescriptor<?, ?> method;
+		final ServerStage[] stages;
+		final Object[] methodStates;
+		final String[] names;
+
+		MethodPipeline(MethodDescriptor<?, ?> method, ServerStage[] stages, Object[] methodStates, String[] names) {
+			this.method = method;
+			this.stages = stages;
+			this.methodStates = methodStates;
+			this.names = names;
+		}
+	}
+
+	/**
+	 * 每个调用唯一的监听器：请求消息先交给各阶段，客户端取消时结束流水线；
+	 * 阶段修改过RequestContext时，回调服务方法前附加对应的Context；
+	 * 某个阶段拒绝请求消息或服务方法抛出异常后，服务方法不再收到消息、半关闭和就绪回调
+	 */
+	private static final class PipelineListener<ReqT> extends ServerCall.Listener<ReqT> {
+		private final ServerCall.Listener<ReqT> delegate;
+		private final PipelineCall<ReqT, ?> call;
+		private final Context context;
+		private final ExceptionStatusMapper exceptionMapper;
+		// 监听器回调是串行的，无需volatile
+		private boolean rejected;
+
+		PipelineListener(ServerCall.Listener<ReqT> delegate, PipelineCall<ReqT, ?> call, Context context,
+						 ExceptionStatusMapper exceptionMapper) {
+			this.delegate = delegate;
+			this.call = call;
+			this.context = context;
+			this.exceptionMapper = exceptionMapper;
+		}
+
+		@Override
+		public void onMessage(ReqT message) {
+			if (rejected || !call.received(message)) {
+				rejected = true;
+				return;
+			}
+			Context previous = attach();
+			try {
+				delegate.onMessage(message);
+			} catch (RuntimeException e) {
+				fail(e);
+			} finally {
+				detach(previous);
+			}
+		}
+
+		@Override
+		public void onHalfClose() {
+			if (rejected) {
+				return;
+			}
+			Context previous = attach();
+			try {
+				delegate.onHalfClose();
+			} catch (RuntimeException e) {
+				fail(e);
+			} finally {
+				detach(previous);
+			}
+		}
+
+		@Override
+		public void onCancel() {
+			call.cancelled();
+			Context previous = attach();
+			try {
+				delegate.onCancel();
+			} finally {
+				detach(previous);
+			}
+		}
+
+		@Override
+		public void onComplete() {
+			Context previous = attach();
+			try {
+				delegate.onComplete();
+			} finally {
+				detach(previous);
+			}
+		}
+
+		@Override
+		public void onReady() {
+			if (rejected) {
+				return;
+			}
+			Context previous = attach();
+			try {
+				delegate.onReady();
+			} catch (RuntimeException e) {
+				fail(e);
+			} finally {
+				detach(previous);
+			}
+		}
+
+		private Context attach() {
+			return context != null ? context.attach() : null;
+		}
+
+		private void detach(Context previous) {
+			if (context != null) {
+				context.detach(previous);
+			}
+		}
+
+		private void fail(RuntimeException e) {
+			if (exceptionMapper == null) {
+				throw e;
+			}
+			rejected = true;
+			closeWithError(call, exceptionMapper, e);
+		}
+	}
+}
@@ -0,0 +1,79 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.accesslog.AccessLogSink;
+import com.github.xuchen93.grpc.interceptor.logging.CallLog;
+import com.github.xuchen93.grpc.interceptor.logging.LoggingPolicy;
+import com.github.xuchen93.grpc.interceptor.util.GrpcCommonUtil;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 日志阶段，记录请求/响应内容、耗时、TraceId、是否成功等信息，每个调用结束时向AccessLogSink写入一条定长访问记录
+ * 是否记录以及何时记录由LoggingPolicy决定（采样、限流、尾部采样）
+ * 请求ID、开始时间、消息计数与字节数都来自PipelineCall，调用级状态只有LoggingPolicy创建的CallLog
+ */
+@Slf4j
+public class LoggingStage implements ServerStage {
+
+	/**
+	 * 日志中消息内容的最大字符数
+	 */
+	private static final int MAX_BODY_LENGTH = 500;
+
+	private final LoggingPolicy loggingPolicy;
+	private final AccessLogSink accessLogSink;
+
+	public LoggingStage(LoggingPolicy loggingPolicy, AccessLogSink accessLogSink) {
+		this.loggingPolicy = loggingPolicy;
+		this.accessLogSink = accessLogSink;
+	}
+
+	@Override
+	public boolean onStart(PipelineCall<?, ?> call, int slot, Metadata headers) {
+		call.state(slot, loggingPolicy.newCallLog(log, call.methodName()));
+		return true;
+	}
+
+	@Override
+	public boolean onRequest(PipelineCall<?, ?> call, int slot, Object message, int serializedSize) {
+		CallLog callLog = (CallLog) call.state(slot);
+		if (callLog.isEnabled()) {
+			callLog.info("[{}][{}][{}] 参数：{}", call.traceId(), call.requestId(),
+					call.methodName(), GrpcCommonUtil.lazyMessage(message, MAX_BODY_LENGTH));
+		}
+		return true;
+	}
+
+	@Override
+	public void onResponse(PipelineCall<?, ?> call, int slot, Object message, int serializedSize) {
+		// 只在日志开启时渲染，且最多渲染MAX_BODY_LENGTH个字符
+		CallLog callLog = (CallLog) call.state(slot);
+		if (callLog.isEnabled()) {
+			callLog.info("[{}][{}] 响应内容: {}", call.traceId(), call.requestId(),
+					GrpcCommonUtil.lazyMessage(message, MAX_BODY_LENGTH));
+		}
+	}
+
+	@Override
+	public void onEnd(PipelineCall<?, ?> call, int slot, Status status) {
+		CallLog callLog = (CallLog) call.state(slot);
+		long costNanos = System.nanoTime() - call.startNanos();
+		long costTime = costNanos / 1_000_000L;
+		if (call.isCancelledByClient()) {
+			callLog.warn("[{}][{}] 请求取消", call.traceId(), call.requestId());
+		}
+		if (status.isOk()) {
+			callLog.complete(false, costNanos, "[{}][{}][{}] [耗时={}ms] 请求处理成功",
+					call.traceId(), call.requestId(), call.methodName(), costTime);
+		} else {
+			callLog.complete(true, costNanos, "[{}][{}][{}] [耗时={}ms] 请求处理失败: [Code={}] [Description={}]",
+					call.traceId(), call.requestId(), call.methodName(), costTime,
+					status.getCode(), status.getDescription());
+		}
+		accessLogSink.append(AccessLogSink.SIDE_SERVER, call.requestId(), call.traceId(),
+				call.methodName(), status.getCode().value(), call.startEpochMillis(),
+				costNanos, call.requestBytes(), call.responseBytes(),
+				call.requestMessages(), call.responseMessages());
+	}
+}
@@ -0,0 +1,48 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.metrics.GrpcMetricsRegistry;
+import com.github.xuchen93.grpc.metrics.MethodMetrics;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * 指标阶段，与MetricsServerInterceptor记录相同的指标
+ * MethodMetrics在编译流水线时按方法名查找一次，调用路径上没有字符串查找
+ * 应排在认证、限流之前，被拒绝的调用也会计入
+ */
+public class MetricsStage implements ServerStage {
+
+	private final GrpcMetricsRegistry registry;
+
+	public MetricsStage(GrpcMetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public Object methodState(MethodDescriptor<?, ?> method) {
+		return registry.server(method.getFullMethodName());
+	}
+
+	@Override
+	public boolean onStart(PipelineCall<?, ?> call, int slot, Metadata headers) {
+		((MethodMetrics) call.methodState(slot)).callStarted();
+		return true;
+	}
+
+	@Override
+	public boolean onRequest(PipelineCall<?, ?> call, int slot, Object message, int serializedSize) {
+		((MethodMetrics) call.methodState(slot)).messageReceived(serializedSize);
+		return true;
+	}
+
+	@Override
+	public void onResponse(PipelineCall<?, ?> call, int slot, Object message, int serializedSize) {
+		((MethodMetrics) call.methodState(slot)).messageSent(serializedSize);
+	}
+
+	@Override
+	public void onEnd(PipelineCall<?, ?> call, int slot, Status status) {
+		((MethodMetrics) call.methodState(slot)).callCompleted(status.getCode(), System.nanoTime() - call.startNanos());
+	}
+}
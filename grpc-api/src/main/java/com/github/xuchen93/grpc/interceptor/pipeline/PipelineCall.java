@@ -0,0 +1,185 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.context.RequestContext;
+import com.github.xuchen93.grpc.interceptor.util.GrpcCommonUtil;
+import com.github.xuchen93.grpc.interceptor.util.GrpcInterceptorUtil;
+import io.grpc.ForwardingServerCall;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+/**
+ * 融合流水线中每个调用唯一的ServerCall包装，保存所有阶段共用的调用状态：
+ * 开始时间、请求ID、RequestContext、收发消息数与字节数，以及每个阶段各自的调用级状态
+ * 调用级状态数组在第一个阶段写入时才创建，不需要状态的流水线不产生该分配
+ */
+public final class PipelineCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+
+	@SuppressWarnings("rawtypes")
+	private static final AtomicIntegerFieldUpdater<PipelineCall> ENDED =
+			AtomicIntegerFieldUpdater.newUpdater(PipelineCall.class, "ended");
+
+	private final FusedServerPipeline.MethodPipeline pipeline;
+	private final long startEpochMillis = System.currentTimeMillis();
+	private final long startNanos = System.nanoTime();
+	private RequestContext requestContext;
+	private Object[] states;
+	private long requestId;
+	/**
+	 * 已执行onStart的阶段数，onEnd只通知这些阶段
+	 */
+	int started;
+	// close和onCancel可能都会发生，onEnd只执行一次
+	private volatile int ended;
+	private volatile boolean cancelledByClient;
+	// 消息计数与字节数：请求方向只在监听器线程写，响应方向只在发送线程写
+	private int requestMessages;
+	private int responseMessages;
+	private long requestBytes;
+	private long responseBytes;
+
+	PipelineCall(ServerCall<ReqT, RespT> delegate, FusedServerPipeline.MethodPipeline pipeline, RequestContext requestContext) {
+		super(delegate);
+		this.pipeline = pipeline;
+		this.requestContext = requestContext;
+	}
+
+	/**
+	 * 阶段的方法级状态，由 {@link ServerStage#methodState} 在编译时创建
+	 */
+	public Object methodState(int slot) {
+		return pipeline.methodStates[slot];
+	}
+
+	/**
+	 * 阶段的调用级状态，未设置时为null
+	 */
+	public Object state(int slot) {
+		Object[] current = states;
+		return current != null ? current[slot] : null;
+	}
+
+	public void state(int slot, Object value) {
+		if (states == null) {
+			states = new Object[pipeline.stages.length];
+		}
+		states[slot] = value;
+	}
+
+	/**
+	 * 当前的请求上下文，外层没有TraceServerInterceptor时可能为null
+	 */
+	public RequestContext requestContext() {
+		return requestContext;
+	}
+
+	/**
+	 * 替换请求上下文（如认证后带上身份）；全部阶段执行完后流水线只做一次Context.withValue
+	 */
+	public void requestContext(RequestContext requestContext) {
+		this.requestContext = requestContext;
+	}
+
+	public String traceId() {
+		return requestContext != null ? requestContext.traceId() : null;
+	}
+
+	/**
+	 * 请求ID，第一次读取时生成
+	 */
+	public long requestId() {
+		if (requestId == 0) {
+			requestId = GrpcInterceptorUtil.generateRequestId();
+		}
+		return requestId;
+	}
+
+	public String methodName() {
+		return pipeline.method.getFullMethodName();
+	}
+
+	public long startEpochMillis() {
+		return startEpochMillis;
+	}
+
+	public long startNanos() {
+		return startNanos;
+	}
+
+	public int requestMessages() {
+		return requestMessages;
+	}
+
+	public int responseMessages() {
+		return responseMessages;
+	}
+
+	public long requestBytes() {
+		return requestBytes;
+	}
+
+	public long responseBytes() {
+		return responseBytes;
+	}
+
+	/**
+	 * 调用是否已经结束（已关闭或客户端已取消）
+	 */
+	public boolean isEnded() {
+		return ended != 0;
+	}
+
+	public boolean isCancelledByClient() {
+		return cancelledByClient;
+	}
+
+	@Override
+	public void sendMessage(RespT message) {
+		int size = GrpcCommonUtil.serializedSize(message);
+		responseMessages++;
+		responseBytes += size;
+		ServerStage[] stages = pipeline.stages;
+		for (int i = 0; i < stages.length; i++) {
+			stages[i].onResponse(this, i, message, size);
+		}
+		super.sendMessage(message);
+	}
+
+	@Override
+	public void close(Status status, Metadata trailers) {
+		end(status);
+		super.close(status, trailers);
+	}
+
+	/**
+	 * @return false表示某个阶段拒绝了该消息并已关闭调用
+	 */
+	boolean received(Object message) {
+		int size = GrpcCommonUtil.serializedSize(message);
+		requestMessages++;
+		requestBytes += size;
+		ServerStage[] stages = pipeline.stages;
+		for (int i = 0; i < stages.length; i++) {
+			if (!stages[i].onRequest(this, i, message, size)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	void cancelled() {
+		cancelledByClient = true;
+		end(Status.CANCELLED);
+	}
+
+	void end(Status status) {
+		if (ENDED.compareAndSet(this, 0, 1)) {
+			ServerStage[] stages = pipeline.stages;
+			for (int i = started - 1; i >= 0; i--) {
+				stages[i].onEnd(this, i, status);
+			}
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.interceptor.chain.MethodScoped;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+
+/**
+ * 融合流水线中的一个阶段，所有阶段共用同一个调用包装（PipelineCall）和同一个监听器
+ * <ul>
+ *     <li>slot是本阶段在该方法流水线中的下标，用于读取方法级状态和调用级状态；
+ *     服务实现可能在其他线程发送响应，因此每个回调都显式传入slot，而不是共享游标</li>
+ *     <li>消息的序列化大小由流水线每条消息只计算一次后传入</li>
+ *     <li>只对部分方法生效的阶段实现 {@link MethodScoped}，流水线编译时即排除，不在调用路径上判断</li>
+ * </ul>
+ * 由InterceptorBeanListener收集，按@Order排序，order小的先执行
+ */
+public interface ServerStage {
+
+	/**
+	 * 编译方法流水线时调用一次，返回值通过 {@link PipelineCall#methodState(int)} 读取，
+	 * 用于把按方法名的查找（如指标、限流计数器）从调用路径上移到启动时
+	 */
+	default Object methodState(MethodDescriptor<?, ?> method) {
+		return null;
+	}
+
+	/**
+	 * 调用开始时按顺序执行
+	 *
+	 * @return false表示本阶段已通过 {@link PipelineCall#close(Status, Metadata)} 拒绝调用，后续阶段和服务方法不再执行
+	 */
+	boolean onStart(PipelineCall<?, ?> call, int slot, Metadata headers);
+
+	/**
+	 * 收到请求消息，按顺序执行
+	 *
+	 * @return false表示本阶段已拒绝该消息并关闭调用，后续阶段和服务方法都不会收到这条消息及之后的回调
+	 */
+	default boolean onRequest(PipelineCall<?, ?> call, int slot, Object message, int serializedSize) {
+		return true;
+	}
+
+	/**
+	 * 发送响应消息，按顺序执行
+	 */
+	default void onResponse(PipelineCall<?, ?> call, int slot, Object message, int serializedSize) {
+	}
+
+	/**
+	 * 调用结束（close或客户端取消，以先发生者为准），每个调用只执行一次，按相反顺序执行
+	 * 只有执行过onStart的阶段才会收到；客户端取消时status为CANCELLED且 {@link PipelineCall#isCancelledByClient()} 为true
+	 */
+	default void onEnd(PipelineCall<?, ?> call, int slot, Status status) {
+	}
+}
@@ -0,0 +1,52 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.interceptor.chain.MethodScoped;
+import com.github.xuchen93.grpc.validation.MessageValidator;
+import com.github.xuchen93.grpc.validation.MessageValidators;
+import com.google.protobuf.Message;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 请求校验阶段：在服务方法之前按预编译的MessageValidator校验每条请求消息
+ * 失败时直接以校验器给出的Status关闭调用，不创建异常；没有校验器的方法流水线中不包含本阶段
+ */
+@Slf4j
+public class ValidationStage implements ServerStage, MethodScoped {
+
+	private final MessageValidators validators;
+
+	public ValidationStage(MessageValidators validators) {
+		this.validators = validators;
+	}
+
+	@Override
+	public boolean appliesTo(MethodDescriptor<?, ?> method) {
+		return validators.find(method) != null;
+	}
+
+	@Override
+	public Object methodState(MethodDescriptor<?, ?> method) {
+		return validators.find(method);
+	}
+
+	@Override
+	public boolean onStart(PipelineCall<?, ?> call, int slot, Metadata headers) {
+		return true;
+	}
+
+	@Override
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	public boolean onRequest(PipelineCall<?, ?> call, int slot, Object message, int serializedSize) {
+		Status failure = ((MessageValidator) call.methodState(slot)).validate((Message) message);
+		if (failure == null) {
+			return true;
+		}
+		log.debug("[Validation] 参数校验失败: method={}, traceId={}, code={}, description={}",
+				call.methodName(), call.traceId(), failure.getCode(), failure.getDescription());
+		call.close(failure, new Metadata());
+		return false;
+	}
+}
@@ -1,34 +1,67 @@
 package com.github.xuchen93.grpc.interceptor.server;
 
+import com.github.xuchen93.grpc.auth.AuthPrincipal;
+import com.github.xuchen93.grpc.auth.SimpleTokenValidator;
+import com.github.xuchen93.grpc.auth.TokenCache;
+import com.github.xuchen93.grpc.auth.TokenValidator;
+import com.github.xuchen93.grpc.context.RequestContext;
 import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
-import com.github.xuchen93.grpc.interceptor.util.GrpcInterceptorUtil;
+import com.github.xuchen93.grpc.interceptor.chain.MethodScoped;
+import com.github.xuchen93.grpc.interceptor.jfr.GrpcAuthCheckEvent;
+import com.github.xuchen93.grpc.interceptor.jfr.GrpcAuthRejectedEvent;
+import com.github.xuchen93.grpc.trace.TraceContext;
 import io.grpc.Context;
 import io.grpc.Contexts;
 import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
 import io.grpc.ServerCall;
 import io.grpc.ServerCallHandler;
 import io.grpc.ServerInterceptor;
 import io.grpc.Status;
 import lombok.extern.slf4j.Slf4j;
 
+import java.time.Duration;
 import java.util.Set;
 
 /**
  * 服务端认证拦截器
- * 负责验证请求中的JWT Token，保护受保护的服务端点
+ * 负责验证请求中的Token（由TokenValidator实现，如JwtTokenValidator），保护受保护的服务端点
+ * 每次检查发出JFR事件GrpcAuthCheckEvent，拒绝时另发GrpcAuthRejectedEvent
+ * 验证结果按完整的Authorization头缓存在TokenCache中，热Token只需一次Map查找
+ * 在按方法编译的拦截器链中，白名单方法的链里不包含本拦截器
  */
 @Slf4j
-public class AuthServerInterceptor implements ServerInterceptor {
+public class AuthServerInterceptor implements ServerInterceptor, MethodScoped {
+
+	public static final Set<String> DEFAULT_WHITELIST = Set.of("grpc.health.v1.Health/Check", "grpc.health.v1.Health/Watch",
+			"grpc.reflection.v1alpha.ServerReflection/ServerReflectionInfo");
 
 	// 白名单路径（不需要认证的方法）
 	private final Set<String> whitelistPaths;
+	private final TokenValidator tokenValidator;
+	private final TokenCache tokenCache;
 
 	public AuthServerInterceptor() {
-		this(Set.of("grpc.health.v1.Health/Check", "grpc.health.v1.Health/Watch", "grpc.reflection.v1alpha.ServerReflection/ServerReflectionInfo"));
+		this(DEFAULT_WHITELIST);
 	}
 
 	public AuthServerInterceptor(Set<String> whitelistPaths) {
+		this(whitelistPaths, new SimpleTokenValidator(), new TokenCache(10_000, Duration.ofMinutes(5), 16));
+	}
+
+	public AuthServerInterceptor(Set<String> whitelistPaths, TokenValidator tokenValidator, TokenCache tokenCache) {
 		this.whitelistPaths = whitelistPaths;
+		this.tokenValidator = tokenValidator;
+		this.tokenCache = tokenCache;
+	}
+
+	public TokenCache getTokenCache() {
+		return tokenCache;
+	}
+
+	@Override
+	public boolean appliesTo(MethodDescriptor<?, ?> method) {
+		return !isWhitelisted(method.getFullMethodName());
 	}
 
 	@Override
@@ -39,80 +72,126 @@ public class AuthServerInterceptor implements ServerInterceptor {
 
 		String fullMethodName = call.getMethodDescriptor().getFullMethodName();
 
-		// 从Metadata中提取TraceId
-		String traceId = headers.get(InterceptorKeys.TRACE_ID_KEY);
-		if (traceId == null || traceId.isEmpty()) {
-			traceId = GrpcInterceptorUtil.generateTraceId();
-			log.info("[Auth] 请求未包含TraceId，生成新的: method={}, traceId={}", fullMethodName, traceId);
+		// 由TraceServerInterceptor创建；未安装时在此解析一次，认证后与身份一起存入Context
+		RequestContext requestContext = RequestContext.current();
+		boolean created = requestContext == null;
+		if (created) {
+			requestContext = RequestContext.of(TraceContext.fromHeaders(headers), headers);
 		}
 
-		final String finalTraceId = traceId;
-
-		// 检查是否在白名单中
+		// 检查是否在白名单中：不设置身份，RequestContext已存在时无需改动Context
 		if (isWhitelisted(fullMethodName)) {
-			log.info("[Auth] 白名单路径，跳过认证: method={}, traceId={}", fullMethodName, finalTraceId);
-			Context context = Context.current()
-					.withValue(InterceptorKeys.TRACE_ID_CONTEXT_KEY, finalTraceId)
-					.withValue(InterceptorKeys.AUTH_CONTEXT_KEY, "anonymous")
-					.withValue(InterceptorKeys.USER_CONTEXT_KEY, "anonymous");
-			return Contexts.interceptCall(context, call, headers, next);
+			GrpcAuthCheckEvent checkEvent = new GrpcAuthCheckEvent();
+			checkEvent.begin();
+			log.info("[Auth] 白名单路径，跳过认证: method={}, traceId={}", fullMethodName, requestContext.traceId());
+			recordAuthCheck(checkEvent, fullMethodName, requestContext.traceId(), "whitelisted");
+			if (!created) {
+				return next.startCall(call, headers);
+			}
+			return Contexts.interceptCall(Context.current().withValue(InterceptorKeys.REQUEST_CONTEXT_KEY, requestContext),
+					call, headers, next);
 		}
 
+		RequestContext authenticated = authenticateCall(call, headers, requestContext);
+		if (authenticated == null) {
+			return new ServerCall.Listener<>() {
+			};
+		}
+
+		// 将认证信息存入Context：替换为带身份的RequestContext，只有一次withValue
+		Context context = Context.current().withValue(InterceptorKeys.REQUEST_CONTEXT_KEY, authenticated);
+		return Contexts.interceptCall(context, call, headers, next);
+	}
+
+	/**
+	 * 认证一次调用（不检查白名单），拦截器和流水线中的AuthStage共用
+	 *
+	 * @return 通过时返回带身份的RequestContext；拒绝时已用UNAUTHENTICATED关闭调用并返回null
+	 */
+	public RequestContext authenticateCall(ServerCall<?, ?> call, Metadata headers, RequestContext requestContext) {
+		GrpcAuthCheckEvent checkEvent = new GrpcAuthCheckEvent();
+		checkEvent.begin();
+		String fullMethodName = call.getMethodDescriptor().getFullMethodName();
+		final String finalTraceId = requestContext.traceId();
+
 		// 从Header中提取Authorization
 		String authHeader = headers.get(InterceptorKeys.AUTHORIZATION_KEY);
 
 		if (authHeader == null || authHeader.isEmpty()) {
 			log.warn("[Auth] 认证失败: 缺少Authorization Header, method={}, traceId={}", fullMethodName, finalTraceId);
+			recordRejected(checkEvent, fullMethodName, finalTraceId, "Missing Authorization header");
 			call.close(Status.UNAUTHENTICATED.withDescription("Missing Authorization header"), new Metadata());
-			return new ServerCall.Listener<>() {
-			};
+			return null;
 		}
 
 		// 验证Token格式
-		if (!authHeader.startsWith("Bearer ")) {
+		if (!authHeader.startsWith(TokenCache.BEARER_PREFIX)) {
 			log.warn("[Auth] 认证失败: Authorization格式错误, method={}, traceId={}", fullMethodName, finalTraceId);
+			recordRejected(checkEvent, fullMethodName, finalTraceId, "Invalid Authorization format, expected 'Bearer <token>'");
 			call.close(Status.UNAUTHENTICATED.withDescription("Invalid Authorization format, expected 'Bearer <token>'"), new Metadata());
-			return new ServerCall.Listener<>() {
-			};
+			return null;
 		}
 
-		// 提取Token
-		String token = authHeader.substring(7);
-
 		// 验证Token
-		String userInfo = validateToken(token);
+		AuthPrincipal principal = authenticate(authHeader);
 
-		if (userInfo == null) {
+		if (principal == null) {
 			log.warn("[Auth] 认证失败: Token无效或已过期, method={}, traceId={}", fullMethodName, finalTraceId);
+			recordRejected(checkEvent, fullMethodName, finalTraceId, "Invalid or expired token");
 			call.close(Status.UNAUTHENTICATED.withDescription("Invalid or expired token"), new Metadata());
-			return new ServerCall.Listener<>() {
-			};
+			return null;
 		}
 
 		log.info("[Auth] 认证成功: method={}, traceId={}, user={}",
-				fullMethodName, finalTraceId, userInfo);
+				fullMethodName, finalTraceId, principal.subject());
+		recordAuthCheck(checkEvent, fullMethodName, finalTraceId, "accepted");
+		return requestContext.withPrincipal(principal);
+	}
 
-		// 将认证信息存入Context
-		Context context = Context.current()
-				.withValue(InterceptorKeys.TRACE_ID_CONTEXT_KEY, finalTraceId)
-				.withValue(InterceptorKeys.AUTH_CONTEXT_KEY, token)
-				.withValue(InterceptorKeys.USER_CONTEXT_KEY, userInfo);
+	private static void recordAuthCheck(GrpcAuthCheckEvent event, String method, String traceId, String outcome) {
+		event.end();
+		if (event.shouldCommit()) {
+			event.method = method;
+			event.traceId = traceId;
+			event.outcome = outcome;
+			event.commit();
+		}
+	}
 
-		return Contexts.interceptCall(context, call, headers, next);
+	private static void recordRejected(GrpcAuthCheckEvent checkEvent, String method, String traceId, String reason) {
+		recordAuthCheck(checkEvent, method, traceId, "rejected");
+		GrpcAuthRejectedEvent event = new GrpcAuthRejectedEvent();
+		if (event.shouldCommit()) {
+			event.method = method;
+			event.traceId = traceId;
+			event.reason = reason;
+			event.commit();
+		}
 	}
 
 	private boolean isWhitelisted(String fullMethodName) {
 		return whitelistPaths.contains(fullMethodName);
 	}
 
-	private String validateToken(String token) {
-		if (token == null || token.isEmpty()) {
+	/**
+	 * 先查缓存，未命中时截取Token、检查吊销并调用验证器，验证通过后写入缓存
+	 */
+	private AuthPrincipal authenticate(String authHeader) {
+		AuthPrincipal principal = tokenCache.get(authHeader);
+		if (principal != null) {
+			return principal;
+		}
+		String token = authHeader.substring(TokenCache.BEARER_PREFIX.length());
+		if (token.isEmpty() || tokenCache.isRevoked(token)) {
 			return null;
 		}
-		// 简单验证：长度>10或以valid_开头的token视为有效
-		if (token.startsWith("valid_") || token.length() > 10) {
-			return "user_" + token.hashCode();
+		// 验证期间密钥集重新加载时，旧密钥的验证结果不写入缓存
+		long generation = tokenCache.generation();
+		principal = tokenValidator.validate(token);
+		if (principal == null || principal.isExpired(System.currentTimeMillis())) {
+			return null;
 		}
-		return null;
+		tokenCache.put(authHeader, principal, generation);
+		return principal;
 	}
 }
@@ -0,0 +1,92 @@
+package com.github.xuchen93.grpc.interceptor.server;
+
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.metrics.CallPhases;
+import com.github.xuchen93.grpc.metrics.GrpcMetricsRegistry;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * 服务端阶段计时拦截器，需放在拦截器链最内层
+ * 记录服务方法开始、第一个响应、响应序列化耗时和close，排队与flush由CallPhaseTracer记录
+ * 未安装CallPhaseTracer时只统计拦截器可见的阶段，在close时上报
+ */
+@Slf4j
+public class CallPhaseServerInterceptor implements ServerInterceptor {
+
+	private final GrpcMetricsRegistry registry;
+
+	public CallPhaseServerInterceptor(GrpcMetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+			ServerCall<ReqT, RespT> call,
+			Metadata headers,
+			ServerCallHandler<ReqT, RespT> next) {
+
+		CallPhases traced = InterceptorKeys.CALL_PHASES_CONTEXT_KEY.get();
+		CallPhases phases = traced != null ? traced : new CallPhases();
+		boolean unaryRequest = call.getMethodDescriptor().getType().clientSendsOneMessage();
+		if (!unaryRequest) {
+			// 流式请求的服务方法在startCall中执行
+			phases.mark(CallPhases.HANDLER_START);
+		}
+		PhaseServerCall<ReqT, RespT> phaseCall = new PhaseServerCall<>(call, phases, traced == null);
+		ServerCall.Listener<ReqT> listener = next.startCall(phaseCall, headers);
+		if (!unaryRequest) {
+			return listener;
+		}
+		return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+			@Override
+			public void onHalfClose() {
+				// 单消息请求的服务方法在onHalfClose中执行
+				phases.mark(CallPhases.HANDLER_START);
+				super.onHalfClose();
+			}
+		};
+	}
+
+	private class PhaseServerCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+		private final CallPhases phases;
+		private final boolean reportOnClose;
+
+		PhaseServerCall(ServerCall<ReqT, RespT> delegate, CallPhases phases, boolean reportOnClose) {
+			super(delegate);
+			this.phases = phases;
+			this.reportOnClose = reportOnClose;
+		}
+
+		@Override
+		public void sendMessage(RespT message) {
+			phases.mark(CallPhases.HANDLER_END);
+			// ServerCallImpl.sendMessage中同步完成序列化，之后写入传输层缓冲区
+			long start = System.nanoTime();
+			super.sendMessage(message);
+			phases.addMarshalNanos(System.nanoTime() - start);
+		}
+
+		@Override
+		public void close(Status status, Metadata trailers) {
+			phases.mark(CallPhases.HANDLER_END);
+			phases.mark(CallPhases.CLOSE);
+			if (log.isDebugEnabled()) {
+				log.debug("[Phase][{}] queue={}ns dispatch={}ns handler={}ns marshal={}ns",
+						getMethodDescriptor().getFullMethodName(),
+						phases.phaseNanos(CallPhases.Phase.QUEUE), phases.phaseNanos(CallPhases.Phase.DISPATCH),
+						phases.phaseNanos(CallPhases.Phase.HANDLER), phases.phaseNanos(CallPhases.Phase.MARSHAL));
+			}
+			super.close(status, trailers);
+			if (reportOnClose) {
+				phases.report(registry.server(getMethodDescriptor().getFullMethodName()));
+			}
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.github.xuchen93.grpc.interceptor.server;
+
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.interceptor.jfr.GrpcCallRecorder;
+import com.github.xuchen93.grpc.interceptor.jfr.GrpcJfr;
+import com.github.xuchen93.grpc.trace.TraceContext;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+/**
+ * 服务端JFR拦截器
+ * 发出调用事件（GrpcCallEvent）和消息事件（GrpcStreamMessageEvent）
+ * 未在录制中开启调用事件时直接透传
+ */
+public class JfrServerInterceptor implements ServerInterceptor {
+
+	@Override
+	public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+			ServerCall<ReqT, RespT> call,
+			Metadata headers,
+			ServerCallHandler<ReqT, RespT> next) {
+
+		if (!GrpcJfr.isCallEnabled()) {
+			return next.startCall(call, headers);
+		}
+		TraceContext trace = TraceContext.current();
+		GrpcCallRecorder recorder = new GrpcCallRecorder(GrpcJfr.SIDE_SERVER, call.getMethodDescriptor().getFullMethodName(),
+				trace != null ? trace.traceId() : headers.get(InterceptorKeys.TRACE_ID_KEY));
+
+		ServerCall<ReqT, RespT> recordingCall = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+			@Override
+			public void sendMessage(RespT message) {
+				recorder.outbound(message);
+				super.sendMessage(message);
+			}
+
+			@Override
+			public void close(Status status, Metadata trailers) {
+				recorder.end(status.getCode());
+				super.close(status, trailers);
+			}
+		};
+		return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(recordingCall, headers)) {
+			@Override
+			public void onMessage(ReqT message) {
+				recorder.inbound(message);
+				super.onMessage(message);
+			}
+
+			@Override
+			public void onCancel() {
+				recorder.end(Status.Code.CANCELLED);
+				super.onCancel();
+			}
+		};
+	}
+}
@@ -0,0 +1,93 @@
+package com.github.xuchen93.grpc.interceptor.server;
+
+import com.github.xuchen93.grpc.interceptor.util.GrpcCommonUtil;
+import com.github.xuchen93.grpc.metrics.GrpcMetricsRegistry;
+import com.github.xuchen93.grpc.metrics.MethodMetrics;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 服务端指标拦截器
+ * 按方法记录调用数、状态码、进行中的调用、收发消息数及字节数，耗时以纳秒计入直方图
+ * 放在最外层，认证失败等被其他拦截器直接关闭的调用也会计入
+ */
+public class MetricsServerInterceptor implements ServerInterceptor {
+
+	private final GrpcMetricsRegistry registry;
+
+	public MetricsServerInterceptor(GrpcMetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	@Override
+	public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+			ServerCall<ReqT, RespT> call,
+			Metadata headers,
+			ServerCallHandler<ReqT, RespT> next) {
+
+		MethodMetrics metrics = registry.server(call.getMethodDescriptor().getFullMethodName());
+		metrics.callStarted();
+		MetricsServerCall<ReqT, RespT> metricsCall = new MetricsServerCall<>(call, metrics, System.nanoTime());
+		ServerCall.Listener<ReqT> listener = next.startCall(metricsCall, headers);
+		return new MetricsServerCallListener<>(listener, metricsCall);
+	}
+
+	private static class MetricsServerCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+		private final MethodMetrics metrics;
+		private final long startNanos;
+		// close和onCancel可能都会发生，只记录一次
+		private final AtomicBoolean completed = new AtomicBoolean();
+
+		MetricsServerCall(ServerCall<ReqT, RespT> delegate, MethodMetrics metrics, long startNanos) {
+			super(delegate);
+			this.metrics = metrics;
+			this.startNanos = startNanos;
+		}
+
+		@Override
+		public void sendMessage(RespT message) {
+			metrics.messageSent(GrpcCommonUtil.serializedSize(message));
+			super.sendMessage(message);
+		}
+
+		@Override
+		public void close(Status status, Metadata trailers) {
+			complete(status.getCode());
+			super.close(status, trailers);
+		}
+
+		void complete(Status.Code code) {
+			if (completed.compareAndSet(false, true)) {
+				metrics.callCompleted(code, System.nanoTime() - startNanos);
+			}
+		}
+	}
+
+	private static class MetricsServerCallListener<ReqT> extends ForwardingServerCallListener.SimpleForwardingServerCallListener<ReqT> {
+		private final MetricsServerCall<ReqT, ?> call;
+
+		MetricsServerCallListener(ServerCall.Listener<ReqT> delegate, MetricsServerCall<ReqT, ?> call) {
+			super(delegate);
+			this.call = call;
+		}
+
+		@Override
+		public void onMessage(ReqT message) {
+			call.metrics.messageReceived(GrpcCommonUtil.serializedSize(message));
+			super.onMessage(message);
+		}
+
+		@Override
+		public void onCancel() {
+			call.complete(Status.Code.CANCELLED);
+			super.onCancel();
+		}
+	}
+}
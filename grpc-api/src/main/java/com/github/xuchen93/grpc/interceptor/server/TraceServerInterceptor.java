@@ -0,0 +1,80 @@
+package com.github.xuchen93.grpc.interceptor.server;
+
+import com.github.xuchen93.grpc.context.RequestContext;
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.trace.Span;
+import com.github.xuchen93.grpc.trace.SpanBuffer;
+import com.github.xuchen93.grpc.trace.TraceContext;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 服务端追踪拦截器，需放在拦截器链最外层
+ * 每个调用只解析一次traceparent/x-trace-id，生成本端Span，连同优先级、时限一起作为RequestContext存入Context，
+ * 后续拦截器和服务实现通过 {@link TraceContext#current()} 读取；调用结束时记录Span
+ */
+public class TraceServerInterceptor implements ServerInterceptor {
+
+	private final SpanBuffer spanBuffer;
+
+	public TraceServerInterceptor() {
+		this(SpanBuffer.NOOP);
+	}
+
+	public TraceServerInterceptor(SpanBuffer spanBuffer) {
+		this.spanBuffer = spanBuffer;
+	}
+
+	@Override
+	public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(
+			ServerCall<ReqT, RespT> call,
+			Metadata headers,
+			ServerCallHandler<ReqT, RespT> next) {
+
+		TraceContext trace = TraceContext.fromHeaders(headers);
+		SpanServerCall<ReqT, RespT> spanCall = new SpanServerCall<>(call, trace);
+		Context context = Context.current().withValue(InterceptorKeys.REQUEST_CONTEXT_KEY, RequestContext.of(trace, headers));
+		ServerCall.Listener<ReqT> listener = Contexts.interceptCall(context, spanCall, headers, next);
+		return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+			@Override
+			public void onCancel() {
+				spanCall.end(Status.Code.CANCELLED);
+				super.onCancel();
+			}
+		};
+	}
+
+	private class SpanServerCall<ReqT, RespT> extends ForwardingServerCall.SimpleForwardingServerCall<ReqT, RespT> {
+		private final TraceContext trace;
+		private final long startEpochMillis = System.currentTimeMillis();
+		private final long startNanos = System.nanoTime();
+		private final AtomicBoolean ended = new AtomicBoolean();
+
+		SpanServerCall(ServerCall<ReqT, RespT> delegate, TraceContext trace) {
+			super(delegate);
+			this.trace = trace;
+		}
+
+		@Override
+		public void close(Status status, Metadata trailers) {
+			end(status.getCode());
+			super.close(status, trailers);
+		}
+
+		void end(Status.Code code) {
+			if (ended.compareAndSet(false, true)) {
+				spanBuffer.record(new Span(trace, getMethodDescriptor().getFullMethodName(), Span.KIND_SERVER,
+						startEpochMillis, System.nanoTime() - startNanos, code.value()));
+			}
+		}
+	}
+}
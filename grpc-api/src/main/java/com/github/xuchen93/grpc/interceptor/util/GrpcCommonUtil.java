@@ -1,7 +1,26 @@
 package com.github.xuchen93.grpc.interceptor.util;
 
+import com.google.protobuf.ByteString;
+import com.google.protobuf.Descriptors.FieldDescriptor;
+import com.google.protobuf.Message;
+import com.google.protobuf.MessageLite;
+import com.google.protobuf.MessageOrBuilder;
+import com.google.protobuf.TextFormat;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
 public class GrpcCommonUtil {
 
+	/**
+	 * 单行输出的TextFormat打印器，线程安全可复用
+	 */
+	private static final TextFormat.Printer SINGLE_LINE_PRINTER = TextFormat.printer().emittingSingleLine(true);
+
+	private static final String TRUNCATED_SUFFIX = "... (truncated)";
+
 	public static String trimChangeLine(Object messageObj) {
 		if (messageObj == null) {
 			return "null";
@@ -12,4 +31,170 @@ public class GrpcCommonUtil {
 		}
 		return message;
 	}
+
+	/**
+	 * 消息序列化后的字节数，protobuf消息的该值在序列化后有缓存，非protobuf消息返回0
+	 */
+	public static int serializedSize(Object messageObj) {
+		return messageObj instanceof MessageLite message ? message.getSerializedSize() : 0;
+	}
+
+	/**
+	 * 延迟渲染的日志参数：只有日志真正输出时SLF4J才会调用toString()，
+	 * 且渲染最多maxLength个字符后立即停止，不会生成完整的消息字符串
+	 */
+	public static Object lazyMessage(Object messageObj, int maxLength) {
+		return new LazyMessage(messageObj, maxLength);
+	}
+
+	/**
+	 * 渲染消息，最多输出maxLength个字符，超出部分以"... (truncated)"结尾
+	 * 超过maxLength的字符串、字节字段和重复字段先截短再交给TextFormat，单个数MB的字段不会被完整转义
+	 */
+	public static String renderBounded(Object messageObj, int maxLength) {
+		if (messageObj == null) {
+			return "null";
+		}
+		if (!(messageObj instanceof MessageOrBuilder message)) {
+			String text = trimChangeLine(messageObj);
+			return text.length() <= maxLength ? text : text.substring(0, maxLength) + TRUNCATED_SUFFIX;
+		}
+		BoundedAppendable out = new BoundedAppendable(maxLength);
+		try {
+			SINGLE_LINE_PRINTER.print(truncateLargeFields(message, maxLength), out);
+		} catch (LimitReachedException e) {
+			return out.builder.append(TRUNCATED_SUFFIX).toString();
+		} catch (IOException e) {
+			// StringBuilder不会抛出其他IOException
+			throw new IllegalStateException(e);
+		}
+		return out.builder.toString();
+	}
+
+	/**
+	 * 返回字符串、字节字段截短到maxLength、重复字段只保留前maxLength个元素的副本，没有需要截短的字段时返回原消息
+	 * 每个字节或元素转义后至少输出一个字符，截短不改变前maxLength个输出字符；未知字段保持不变
+	 * 序列化字节数不超过maxLength的消息不可能有需要截短的字段，直接返回而不遍历
+	 */
+	private static MessageOrBuilder truncateLargeFields(MessageOrBuilder message, int maxLength) {
+		if (message instanceof MessageLite lite && lite.getSerializedSize() <= maxLength) {
+			return message;
+		}
+		Message.Builder builder = null;
+		for (Map.Entry<FieldDescriptor, Object> field : message.getAllFields().entrySet()) {
+			FieldDescriptor descriptor = field.getKey();
+			Object value = field.getValue();
+			Object truncated = descriptor.isRepeated()
+					? truncateList((List<?>) value, maxLength)
+					: truncateValue(value, maxLength);
+			if (truncated != value) {
+				if (builder == null) {
+					builder = message instanceof Message.Builder original ? original.clone() : ((Message) message).toBuilder();
+				}
+				builder.setField(descriptor, truncated);
+			}
+		}
+		// buildPartial：截短不应因proto2的必填字段缺失而失败
+		return builder != null ? builder.buildPartial() : message;
+	}
+
+	private static List<?> truncateList(List<?> values, int maxLength) {
+		int size = Math.min(values.size(), maxLength);
+		List<Object> truncated = null;
+		for (int i = 0; i < size; i++) {
+			Object value = values.get(i);
+			Object element = truncateValue(value, maxLength);
+			if (element != value && truncated == null) {
+				truncated = new ArrayList<>(values.subList(0, i));
+			}
+			if (truncated != null) {
+				truncated.add(element);
+			}
+		}
+		if (truncated == null && size < values.size()) {
+			return values.subList(0, size);
+		}
+		return truncated != null ? truncated : values;
+	}
+
+	private static Object truncateValue(Object value, int maxLength) {
+		if (value instanceof String text && text.length() > maxLength) {
+			// 不拆开代理对，截断处的半个字符会被转义为其他内容
+			int end = maxLength > 0 && Character.isHighSurrogate(text.charAt(maxLength - 1)) ? maxLength + 1 : maxLength;
+			return text.substring(0, end);
+		}
+		if (value instanceof ByteString bytes && bytes.size() > maxLength) {
+			return bytes.substring(0, maxLength);
+		}
+		if (value instanceof MessageOrBuilder nested) {
+			return truncateLargeFields(nested, maxLength);
+		}
+		return value;
+	}
+
+	private record LazyMessage(Object message, int maxLength) {
+		@Override
+		public String toString() {
+			return renderBounded(message, maxLength);
+		}
+	}
+
+	/**
+	 * 达到长度上限后抛出预分配的异常，中断TextFormat的遍历
+	 * 与Appendable约定一致，csq为null时按"null"追加
+	 */
+	private static final class BoundedAppendable implements Appendable {
+		private final StringBuilder builder;
+		private final int maxLength;
+
+		BoundedAppendable(int maxLength) {
+			this.builder = new StringBuilder(Math.min(maxLength, 128));
+			this.maxLength = maxLength;
+		}
+
+		@Override
+		public Appendable append(CharSequence csq) throws IOException {
+			CharSequence text = csq != null ? csq : "null";
+			return append(text, 0, text.length());
+		}
+
+		@Override
+		public Appendable append(CharSequence csq, int start, int end) throws IOException {
+			if (csq == null) {
+				csq = "null";
+			}
+			int remaining = maxLength - builder.length();
+			if (end - start > remaining) {
+				builder.append(csq, start, start + remaining);
+				throw LimitReachedException.INSTANCE;
+			}
+			builder.append(csq, start, end);
+			return this;
+		}
+
+		@Override
+		public Appendable append(char c) throws IOException {
+			if (builder.length() >= maxLength) {
+				throw LimitReachedException.INSTANCE;
+			}
+			builder.append(c);
+			return this;
+		}
+	}
+
+	/**
+	 * 无堆栈的单例异常，仅用于控制流
+	 */
+	private static final class LimitReachedException extends IOException {
+		private static final LimitReachedException INSTANCE = new LimitReachedException();
+
+		private LimitReachedException() {
+			super("render limit reached", null);
+		}
+
+		@Override
+		public synchronized Throwable fillInStackTrace() {
+			return this;
+		}
+	}
 }
@@ -1,7 +1,10 @@
 package com.github.xuchen93.grpc.interceptor.util;
 
+import com.github.xuchen93.grpc.auth.AuthPrincipal;
+import com.github.xuchen93.grpc.context.RequestContext;
 import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
-import io.grpc.Context;
+
+import java.util.Map;
 
 /**
  * gRPC上下文工具类
@@ -9,31 +12,74 @@ import io.grpc.Context;
  */
 public class GrpcContextUtil {
 
+	/**
+	 * 获取当前请求的请求上下文，其余getter都由它派生，多次读取时可直接持有该对象
+	 *
+	 * @return 请求上下文，不在服务端调用中时返回null
+	 */
+	public static RequestContext getRequestContext() {
+		return InterceptorKeys.REQUEST_CONTEXT_KEY.get();
+	}
+
 	/**
 	 * 获取当前请求的TraceId
 	 *
 	 * @return TraceId，如果未设置则返回null
 	 */
 	public static String getTraceId() {
-		return InterceptorKeys.TRACE_ID_CONTEXT_KEY.get(Context.current());
+		RequestContext context = getRequestContext();
+		return context != null ? context.traceId() : null;
 	}
 
 	/**
 	 * 获取当前请求的认证Token
 	 *
-	 * @return Token，如果未设置则返回null
+	 * @return Token，未认证时返回null
 	 */
 	public static String getAuthToken() {
-		return InterceptorKeys.AUTH_CONTEXT_KEY.get(Context.current());
+		RequestContext context = getRequestContext();
+		return context != null ? context.token() : null;
 	}
 
 	/**
 	 * 获取当前请求的用户信息
 	 *
-	 * @return 用户信息，如果未设置则返回null
+	 * @return 用户标识，白名单方法中为"anonymous"，不在服务端调用中时返回null
 	 */
 	public static String getUserInfo() {
-		return InterceptorKeys.USER_CONTEXT_KEY.get(Context.current());
+		RequestContext context = getRequestContext();
+		return context != null ? context.subject() : null;
+	}
+
+	/**
+	 * 获取当前请求的认证身份
+	 *
+	 * @return 认证身份，白名单方法或未认证时返回null
+	 */
+	public static AuthPrincipal getPrincipal() {
+		RequestContext context = getRequestContext();
+		return context != null ? context.principal() : null;
+	}
+
+	/**
+	 * 获取当前请求Token中的全部claims
+	 *
+	 * @return 不可修改的claims，未认证时返回空Map
+	 */
+	public static Map<String, Object> getClaims() {
+		AuthPrincipal principal = getPrincipal();
+		return principal != null ? principal.claims() : Map.of();
+	}
+
+	/**
+	 * 获取当前请求Token中的单个claim
+	 *
+	 * @param name claim名称，如"sub"、"scope"
+	 * @return claim值，不存在时返回null
+	 */
+	public static Object getClaim(String name) {
+		AuthPrincipal principal = getPrincipal();
+		return principal != null ? principal.claim(name) : null;
 	}
 
 	/**
@@ -42,7 +88,8 @@ public class GrpcContextUtil {
 	 * @return true if authenticated
 	 */
 	public static boolean isAuthenticated() {
-		return getAuthToken() != null && !getAuthToken().isEmpty();
+		RequestContext context = getRequestContext();
+		return context != null && context.isAuthenticated();
 	}
 
 	/**
@@ -51,9 +98,13 @@ public class GrpcContextUtil {
 	 * @return 上下文信息字符串
 	 */
 	public static String getContextInfo() {
+		RequestContext context = getRequestContext();
+		if (context == null) {
+			return "[TraceId=null, User=null, Auth=NO]";
+		}
 		return String.format("[TraceId=%s, User=%s, Auth=%s]",
-				getTraceId(),
-				getUserInfo(),
-				isAuthenticated() ? "YES" : "NO");
+				context.traceId(),
+				context.subject(),
+				context.isAuthenticated() ? "YES" : "NO");
 	}
 }
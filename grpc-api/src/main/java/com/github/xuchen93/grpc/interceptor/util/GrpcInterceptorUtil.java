@@ -1,32 +1,45 @@
 package com.github.xuchen93.grpc.interceptor.util;
 
-import cn.hutool.core.util.RandomUtil;
-import cn.hutool.core.util.StrUtil;
+import com.github.xuchen93.grpc.trace.TraceContext;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.atomic.AtomicLong;
-
+@Slf4j
 @Component
 public class GrpcInterceptorUtil {
 
+	/**
+	 * 静态的请求ID生成器，类加载时使用派生的节点号
+	 */
+	private static volatile IdGenerator idGenerator = new IdGenerator(IdGenerator.deriveNodeId());
 
-	private static final AtomicLong TRACE_SEQ = new AtomicLong(RandomUtil.randomLong(1000000000L, 10000000000L));
-	private static final AtomicLong REQUEST_SEQ = new AtomicLong(RandomUtil.randomLong(1000000000L, 10000000000L));
+	/**
+	 * Spring创建本Bean时把静态生成器替换为grpc.id.node-id配置的节点号：
+	 * 替换之前（容器启动前，或未创建本Bean的进程中）生成的ID来自派生的节点号，之后来自配置的节点号
+	 * 两个生成器的号段游标各自独立，只靠节点号不同保证不重复，因此配置值与派生值相同时保留原生成器
+	 */
+	public GrpcInterceptorUtil(@Value("${grpc.id.node-id:-1}") int nodeId) {
+		if (nodeId >= 0 && nodeId != idGenerator.nodeId()) {
+			idGenerator = new IdGenerator(nodeId);
+		}
+		log.info("[IdGenerator] 请求ID节点号: {}", idGenerator.nodeId());
+	}
 
 	/**
 	 * 生成TraceId
-	 * 格式: [appName]timestamp-random
+	 * 格式: W3C trace-id，32位小写十六进制
 	 */
 	public static String generateTraceId() {
-		return StrUtil.format("{}-{}", TRACE_SEQ.incrementAndGet(), RandomUtil.randomInt(100, 1000));
+		return TraceContext.newRoot().traceId();
 	}
 
 	/**
 	 * 生成RequestId
-	 * 格式: timestamp-自增序号
+	 * 格式: Snowflake布局（时间戳 + 节点号 + 序号），跨重启和实例唯一，见 {@link IdGenerator}
 	 */
 	public static long generateRequestId() {
-		return REQUEST_SEQ.incrementAndGet();
+		return idGenerator.nextId();
 	}
 
 }
@@ -0,0 +1,123 @@
+package com.github.xuchen93.grpc.interceptor.util;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 无竞争的64位ID生成器，Snowflake布局 + 线程本地号段
+ * <pre>
+ * | 0 | 41位 毫秒时间戳（自2024-01-01） | 10位 节点号 | 12位 序号 |
+ * </pre>
+ * <ul>
+ *     <li>每毫秒的4096个序号切成64个号段（每段64个），线程一次从共享游标CAS领取一个号段，
+ *     之后的63次生成只操作线程本地状态，共享缓存行的写入降为原来的1/64</li>
+ *     <li>共享游标单调递增且不超前于时钟：当前毫秒的号段用完时自旋等待下一毫秒，
+ *     因此重启后（时钟未回拨）不会与之前的ID重复</li>
+ *     <li>不同实例通过节点号区分，未配置时由主机名和进程号派生，生产环境应显式配置</li>
+ * </ul>
+ * 号段领取后即使线程长时间空闲也不会被复用，ID仍唯一，只是时间戳部分偏早
+ */
+public class IdGenerator {
+
+	public static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+
+	private static final int SEQUENCE_BITS = 12;
+	private static final int NODE_BITS = 10;
+	private static final int BLOCK_BITS = 6;
+	private static final int BLOCKS_PER_MILLI_BITS = SEQUENCE_BITS - BLOCK_BITS;
+	private static final long BLOCKS_PER_MILLI = 1L << BLOCKS_PER_MILLI_BITS;
+	private static final long BLOCK_SIZE = 1L << BLOCK_BITS;
+	public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+	private final int nodeId;
+	private final long nodeBits;
+	/**
+	 * 最近领取的号段：毫秒时间戳 * BLOCKS_PER_MILLI + 毫秒内的号段序号
+	 */
+	private final PaddedAtomicLong lastBlock = new PaddedAtomicLong();
+	private final ThreadLocal<Block> currentBlock = ThreadLocal.withInitial(Block::new);
+
+	public IdGenerator(int nodeId) {
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("nodeId must be in [0, " + MAX_NODE_ID + "]: " + nodeId);
+		}
+		this.nodeId = nodeId;
+		this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+	}
+
+	public int nodeId() {
+		return nodeId;
+	}
+
+	public long nextId() {
+		Block block = currentBlock.get();
+		if (block.next == block.limit) {
+			long blockStamp = acquireBlock();
+			long millis = blockStamp >>> BLOCKS_PER_MILLI_BITS;
+			long blockIndex = blockStamp & (BLOCKS_PER_MILLI - 1);
+			block.next = (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (blockIndex << BLOCK_BITS);
+			block.limit = block.next + BLOCK_SIZE;
+		}
+		return block.next++;
+	}
+
+	private long acquireBlock() {
+		while (true) {
+			long current = lastBlock.get();
+			long nowBase = (System.currentTimeMillis() - EPOCH_MILLIS) << BLOCKS_PER_MILLI_BITS;
+			long next = Math.max(current + 1, nowBase);
+			if (next >= nowBase + BLOCKS_PER_MILLI) {
+				// 当前毫秒的号段已用完，等待时钟前进，不提前占用未来的时间戳
+				Thread.onSpinWait();
+				continue;
+			}
+			if (lastBlock.compareAndSet(current, next)) {
+				return next;
+			}
+		}
+	}
+
+	/**
+	 * 从ID中取出时间戳（毫秒）
+	 */
+	public static long timestampMillis(long id) {
+		return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+	}
+
+	/**
+	 * 从ID中取出节点号
+	 */
+	public static int nodeId(long id) {
+		return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+	}
+
+	/**
+	 * 由主机名和进程号派生节点号，同一主机上的多个进程一般不同，但不保证
+	 */
+	public static int deriveNodeId() {
+		String host;
+		try {
+			host = InetAddress.getLocalHost().getHostName();
+		} catch (Exception e) {
+			host = "unknown";
+		}
+		long pid = ProcessHandle.current().pid();
+		int hash = (host + "/" + pid + "/" + ManagementFactory.getRuntimeMXBean().getStartTime()).hashCode();
+		return (hash ^ (hash >>> 16)) & MAX_NODE_ID;
+	}
+
+	private static final class Block {
+		private long next;
+		private long limit;
+	}
+
+	/**
+	 * 在值之后填充56字节，避免共享游标与其他热点字段落在同一缓存行
+	 */
+	@SuppressWarnings("unused")
+	private static final class PaddedAtomicLong extends AtomicLong {
+		private long p1, p2, p3, p4, p5, p6, p7;
+	}
+}
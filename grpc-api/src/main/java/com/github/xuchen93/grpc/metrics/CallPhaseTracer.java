@@ -0,0 +1,76 @@
+package com.github.xuchen93.grpc.metrics;
+
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import io.grpc.Context;
+import io.grpc.Metadata;
+import io.grpc.ServerStreamTracer;
+import io.grpc.Status;
+
+/**
+ * 传输层的阶段计时，补充拦截器看不到的两端：
+ * 请求头到达（排队开始）和trailers写出（流关闭）
+ * 同时记录每条响应压缩后实际写出的字节数，拦截器只能看到压缩前的大小
+ * 创建的CallPhases通过Context传给CallPhaseServerInterceptor
+ * <p>
+ * 只有serverCallStarted之后才记录指标：传输层为每个流创建tracer，方法名来自客户端的请求头，
+ * 未注册的方法（包括未认证的客户端随意构造的方法名）在分发前就以UNIMPLEMENTED关闭，不会回调serverCallStarted，
+ * 因此不会为它们创建MethodMetrics，指标数量以服务端注册的方法为上限
+ */
+public class CallPhaseTracer extends ServerStreamTracer {
+
+	private final GrpcMetricsRegistry registry;
+	private final String fullMethodName;
+	private final CallPhases phases = new CallPhases();
+	private volatile boolean started;
+	private MethodMetrics metrics;
+
+	private CallPhaseTracer(GrpcMetricsRegistry registry, String fullMethodName) {
+		this.registry = registry;
+		this.fullMethodName = fullMethodName;
+		phases.mark(CallPhases.RECEIVED);
+	}
+
+	public static ServerStreamTracer.Factory factory(GrpcMetricsRegistry registry) {
+		return new ServerStreamTracer.Factory() {
+			@Override
+			public ServerStreamTracer newServerStreamTracer(String fullMethodName, Metadata headers) {
+				return new CallPhaseTracer(registry, fullMethodName);
+			}
+		};
+	}
+
+	@Override
+	public Context filterContext(Context context) {
+		return context.withValue(InterceptorKeys.CALL_PHASES_CONTEXT_KEY, phases);
+	}
+
+	@Override
+	public void serverCallStarted(ServerCallInfo<?, ?> callInfo) {
+		phases.mark(CallPhases.CALL_STARTED);
+		started = true;
+	}
+
+	@Override
+	public void outboundWireSize(long bytes) {
+		if (started) {
+			metrics().messageSentOnWire(bytes);
+		}
+	}
+
+	@Override
+	public void streamClosed(Status status) {
+		if (!started) {
+			return;
+		}
+		phases.mark(CallPhases.FLUSHED);
+		phases.report(metrics());
+	}
+
+	// 发送线程和传输线程都可能初始化，registry对同一方法总是返回同一个对象，无需同步
+	private MethodMetrics metrics() {
+		if (metrics == null) {
+			metrics = registry.server(fullMethodName);
+		}
+		return metrics;
+	}
+}
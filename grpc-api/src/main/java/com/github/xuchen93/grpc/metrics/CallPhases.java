@@ -0,0 +1,101 @@
+package com.github.xuchen93.grpc.metrics;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 单个服务端调用的阶段时间戳，System.nanoTime()写入预分配的槽位
+ * <pre>
+ * RECEIVED      传输层收到请求头（CallPhaseTracer创建，传输线程）
+ * CALL_STARTED  调用开始分发，拦截器链之前（业务线程池）
+ * HANDLER_START 服务方法开始执行：请求为单消息的方法在onHalfClose，流式请求在startCall
+ * HANDLER_END   服务方法产出第一个响应，或无响应时调用close
+ * CLOSE         调用close
+ * FLUSHED       传输层完成关闭，trailers已写出
+ * </pre>
+ */
+public final class CallPhases {
+
+	public static final int RECEIVED = 0;
+	public static final int CALL_STARTED = 1;
+	public static final int HANDLER_START = 2;
+	public static final int HANDLER_END = 3;
+	public static final int CLOSE = 4;
+	public static final int FLUSHED = 5;
+	private static final int SLOT_COUNT = 6;
+
+	/**
+	 * 上报的阶段，耗时为两个时间戳之差；MARSHAL为响应序列化耗时的累加
+	 */
+	public enum Phase {
+		/** 传输线程 -> 业务线程池的排队时间 */
+		QUEUE(RECEIVED, CALL_STARTED),
+		/** 拦截器链及等待请求消息 */
+		DISPATCH(CALL_STARTED, HANDLER_START),
+		/** 业务逻辑，到第一个响应为止 */
+		HANDLER(HANDLER_START, HANDLER_END),
+		/** 响应序列化 */
+		MARSHAL(-1, -1),
+		/** close到trailers写出 */
+		FLUSH(CLOSE, FLUSHED);
+
+		private final int from;
+		private final int to;
+
+		Phase(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		public String tagValue() {
+			return name().toLowerCase();
+		}
+	}
+
+	private final long[] stamps = new long[SLOT_COUNT];
+	private long marshalNanos;
+	private final AtomicBoolean reported = new AtomicBoolean();
+
+	/**
+	 * 记录时间戳，同一槽位只记录第一次
+	 */
+	public void mark(int slot) {
+		if (stamps[slot] == 0) {
+			stamps[slot] = System.nanoTime();
+		}
+	}
+
+	public void addMarshalNanos(long nanos) {
+		marshalNanos += nanos;
+	}
+
+	public boolean isMarked(int slot) {
+		return stamps[slot] != 0;
+	}
+
+	/**
+	 * 阶段耗时，缺少任一端的时间戳时返回-1
+	 */
+	public long phaseNanos(Phase phase) {
+		if (phase == Phase.MARSHAL) {
+			return marshalNanos;
+		}
+		long from = stamps[phase.from];
+		long to = stamps[phase.to];
+		return from == 0 || to == 0 ? -1 : to - from;
+	}
+
+	/**
+	 * 将各阶段耗时计入方法指标，每个调用只上报一次
+	 */
+	public void report(MethodMetrics metrics) {
+		if (!reported.compareAndSet(false, true)) {
+			return;
+		}
+		for (Phase phase : Phase.values()) {
+			long nanos = phaseNanos(phase);
+			if (nanos >= 0) {
+				metrics.phaseLatency(phase).record(nanos);
+			}
+		}
+	}
+}
@@ -0,0 +1,109 @@
+package com.github.xuchen93.grpc.metrics;
+
+import io.grpc.Status;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 将GrpcMetricsRegistry中的指标以函数式Meter的形式绑定到Micrometer
+ * Meter只在采集时读取原子计数器，请求线程不经过Micrometer
+ * <pre>
+ * grpc.{side}.calls.started / calls.active / calls{status}
+ * grpc.{side}.messages.sent / messages.received / bytes.sent / bytes.received
+ * grpc.server.bytes.sent.wire（压缩后）/ bytes.sent.ratio
+ * grpc.{side}.latency（FunctionTimer）/ latency.quantile{quantile} / latency.max
+ * grpc.server.phase{phase}（FunctionTimer）/ phase.quantile{phase, quantile}
+ * </pre>
+ */
+public class GrpcMetricsMeterBinder implements MeterBinder, GrpcMetricsRegistry.Listener {
+
+	private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+	private static final double[] PHASE_QUANTILES = {0.5, 0.99};
+
+	private final GrpcMetricsRegistry metricsRegistry;
+	private volatile MeterRegistry meterRegistry;
+
+	public GrpcMetricsMeterBinder(GrpcMetricsRegistry metricsRegistry) {
+		this.metricsRegistry = metricsRegistry;
+	}
+
+	@Override
+	public void bindTo(MeterRegistry registry) {
+		this.meterRegistry = registry;
+		metricsRegistry.addListener(this);
+	}
+
+	@Override
+	public void onMethodAdded(MethodMetrics metrics) {
+		MeterRegistry registry = meterRegistry;
+		String prefix = "grpc." + metrics.getSide().tagValue();
+		Tags tags = tags(metrics);
+
+		FunctionCounter.builder(prefix + ".calls.started", metrics, m -> m.getStarted().sum())
+				.tags(tags).description("已开始的调用数").register(registry);
+		Gauge.builder(prefix + ".calls.active", metrics, m -> m.getInFlight().get())
+				.tags(tags).description("进行中的调用数").register(registry);
+		FunctionCounter.builder(prefix + ".messages.sent", metrics, m -> m.getMessagesSent().sum())
+				.tags(tags).register(registry);
+		FunctionCounter.builder(prefix + ".messages.received", metrics, m -> m.getMessagesReceived().sum())
+				.tags(tags).register(registry);
+		FunctionCounter.builder(prefix + ".bytes.sent", metrics, m -> m.getBytesSent().sum())
+				.tags(tags).baseUnit("bytes").register(registry);
+		FunctionCounter.builder(prefix + ".bytes.received", metrics, m -> m.getBytesReceived().sum())
+				.tags(tags).baseUnit("bytes").register(registry);
+
+		LatencyHistogram latency = metrics.getLatency();
+		FunctionTimer.builder(prefix + ".latency", latency, LatencyHistogram::count,
+						LatencyHistogram::totalNanos, TimeUnit.NANOSECONDS)
+				.tags(tags).description("调用耗时").register(registry);
+		Gauge.builder(prefix + ".latency.max", latency, h -> h.maxNanos() / 1e9)
+				.tags(tags).baseUnit("seconds").register(registry);
+		for (double quantile : QUANTILES) {
+			Gauge.builder(prefix + ".latency.quantile", latency, h -> h.valueAtQuantile(quantile) / 1e9)
+					.tags(tags.and("quantile", String.valueOf(quantile)))
+					.baseUnit("seconds").register(registry);
+		}
+
+		if (metrics.getSide() == GrpcMetricsRegistry.Side.SERVER) {
+			FunctionCounter.builder(prefix + ".bytes.sent.wire", metrics, m -> m.getWireBytesSent().sum())
+					.tags(tags).baseUnit("bytes").description("压缩后实际写出的响应字节数").register(registry);
+			Gauge.builder(prefix + ".bytes.sent.ratio", metrics, MethodMetrics::compressionRatio)
+					.tags(tags).description("响应压缩后与压缩前的字节数之比").register(registry);
+		}
+
+		if (metrics.hasPhases()) {
+			for (CallPhases.Phase phase : CallPhases.Phase.values()) {
+				LatencyHistogram histogram = metrics.phaseLatency(phase);
+				Tags phaseTags = tags.and("phase", phase.tagValue());
+				FunctionTimer.builder(prefix + ".phase", histogram, LatencyHistogram::count,
+								LatencyHistogram::totalNanos, TimeUnit.NANOSECONDS)
+						.tags(phaseTags).description("调用阶段耗时").register(registry);
+				for (double quantile : PHASE_QUANTILES) {
+					Gauge.builder(prefix + ".phase.quantile", histogram, h -> h.valueAtQuantile(quantile) / 1e9)
+							.tags(phaseTags.and("quantile", String.valueOf(quantile)))
+							.baseUnit("seconds").register(registry);
+				}
+			}
+		}
+	}
+
+	@Override
+	public void onStatusSeen(MethodMetrics metrics, Status.Code code) {
+		FunctionCounter.builder("grpc." + metrics.getSide().tagValue() + ".calls", metrics, m -> m.statusCount(code))
+				.tags(tags(metrics).and("status", code.name()))
+				.description("已完成的调用数").register(meterRegistry);
+	}
+
+	private static Tags tags(MethodMetrics metrics) {
+		String fullMethodName = metrics.getMethodName();
+		int slash = fullMethodName.lastIndexOf('/');
+		return Tags.of("service", slash < 0 ? "" : fullMethodName.substring(0, slash),
+				"method", fullMethodName.substring(slash + 1));
+	}
+}
@@ -0,0 +1,90 @@
+package com.github.xuchen93.grpc.metrics;
+
+import io.grpc.Status;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * 按方法保存服务端和客户端的调用指标
+ * 指标对象在方法第一次被调用时创建，之后的调用只做一次无锁的Map查找
+ */
+public class GrpcMetricsRegistry {
+
+	public enum Side {
+		SERVER, CLIENT;
+
+		public String tagValue() {
+			return name().toLowerCase();
+		}
+	}
+
+	/**
+	 * 新方法或新状态码出现时的回调，用于动态注册外部指标
+	 */
+	public interface Listener {
+		void onMethodAdded(MethodMetrics metrics);
+
+		void onStatusSeen(MethodMetrics metrics, Status.Code code);
+	}
+
+	private final Map<String, MethodMetrics> serverMethods = new ConcurrentHashMap<>();
+	private final Map<String, MethodMetrics> clientMethods = new ConcurrentHashMap<>();
+	private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+	public MethodMetrics server(String methodName) {
+		return lookup(serverMethods, Side.SERVER, methodName);
+	}
+
+	public MethodMetrics client(String methodName) {
+		return lookup(clientMethods, Side.CLIENT, methodName);
+	}
+
+	public Collection<MethodMetrics> all() {
+		List<MethodMetrics> all = new ArrayList<>(serverMethods.size() + clientMethods.size());
+		all.addAll(serverMethods.values());
+		all.addAll(clientMethods.values());
+		return all;
+	}
+
+	/**
+	 * 注册监听器，已存在的方法和状态码会立即回放给该监听器
+	 */
+	public void addListener(Listener listener) {
+		listeners.add(listener);
+		for (MethodMetrics metrics : all()) {
+			listener.onMethodAdded(metrics);
+			for (Status.Code code : Status.Code.values()) {
+				if (metrics.statusCount(code) > 0) {
+					listener.onStatusSeen(metrics, code);
+				}
+			}
+		}
+	}
+
+	void fireStatusSeen(MethodMetrics metrics, Status.Code code) {
+		for (Listener listener : listeners) {
+			listener.onStatusSeen(metrics, code);
+		}
+	}
+
+	private MethodMetrics lookup(Map<String, MethodMetrics> methods, Side side, String methodName) {
+		MethodMetrics metrics = methods.get(methodName);
+		if (metrics != null) {
+			return metrics;
+		}
+		MethodMetrics created = new MethodMetrics(this, side, methodName);
+		metrics = methods.putIfAbsent(methodName, created);
+		if (metrics != null) {
+			return metrics;
+		}
+		for (Listener listener : listeners) {
+			listener.onMethodAdded(created);
+		}
+		return created;
+	}
+}
@@ -0,0 +1,120 @@
+package com.github.xuchen93.grpc.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 无锁的纳秒延迟直方图（HDR风格的对数-线性分桶）
+ * <ul>
+ *     <li>小于128ns的值每纳秒一个桶；之后每个2的幂区间再线性切分为128个子桶，相对误差小于1%</li>
+ *     <li>记录只是对AtomicLongArray中一个桶的原子自增，没有锁也不分配对象</li>
+ *     <li>上限约2^40ns（约18分钟），超出的值计入最后一个桶，max仍记录真实值</li>
+ * </ul>
+ * 统计的是自创建以来的全部调用
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 7;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int MAX_EXPONENT = 40;
+	private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+	private final LongAdder totalCount = new LongAdder();
+	private final LongAdder totalNanos = new LongAdder();
+	private final AtomicLong maxNanos = new AtomicLong();
+
+	public void record(long nanos) {
+		if (nanos < 0) {
+			nanos = 0;
+		}
+		counts.incrementAndGet(bucketIndex(nanos));
+		totalCount.increment();
+		totalNanos.add(nanos);
+		long max = maxNanos.get();
+		while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+			max = maxNanos.get();
+		}
+	}
+
+	public long count() {
+		return totalCount.sum();
+	}
+
+	public long totalNanos() {
+		return totalNanos.sum();
+	}
+
+	public long maxNanos() {
+		return maxNanos.get();
+	}
+
+	/**
+	 * 百分位数对应的延迟（桶上界），quantile取值[0, 1]
+	 */
+	public long valueAtQuantile(double quantile) {
+		return snapshot().valueAtQuantile(quantile);
+	}
+
+	/**
+	 * 复制一份桶计数，在其上计算多个百分位数
+	 */
+	public Snapshot snapshot() {
+		long[] copy = new long[BUCKET_COUNT];
+		long count = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			copy[i] = counts.get(i);
+			count += copy[i];
+		}
+		return new Snapshot(copy, count, totalNanos.sum(), maxNanos.get());
+	}
+
+	static int bucketIndex(long value) {
+		if (value < SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value);
+		if (exponent > MAX_EXPONENT) {
+			return BUCKET_COUNT - 1;
+		}
+		int shift = exponent - SUB_BUCKET_BITS;
+		int mantissa = (int) (value >>> shift) - SUB_BUCKET_COUNT;
+		return (shift + 1) * SUB_BUCKET_COUNT + mantissa;
+	}
+
+	/**
+	 * 桶内的最大值
+	 */
+	static long highestValueInBucket(int index) {
+		if (index < SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long mantissa = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+		return ((mantissa + 1) << shift) - 1;
+	}
+
+	public record Snapshot(long[] counts, long count, long totalNanos, long maxNanos) {
+
+		public long valueAtQuantile(double quantile) {
+			if (count == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(quantile * count));
+			long seen = 0;
+			for (int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if (seen >= rank) {
+					// 最后一个桶包含所有溢出值，以max为准
+					return i == counts.length - 1 ? maxNanos : Math.min(highestValueInBucket(i), maxNanos);
+				}
+			}
+			return maxNanos;
+		}
+
+		public long meanNanos() {
+			return count == 0 ? 0 : totalNanos / count;
+		}
+	}
+}
@@ -0,0 +1,98 @@
+package com.github.xuchen93.grpc.metrics;
+
+import io.grpc.Status;
+import lombok.Getter;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个方法在单侧（服务端或客户端）的调用指标
+ * 计数均为LongAdder/原子数组，热路径上没有锁
+ */
+@Getter
+public class MethodMetrics {
+
+	private static final int STATUS_CODE_COUNT = Status.Code.values().length;
+
+	private final GrpcMetricsRegistry.Side side;
+	private final String methodName;
+	private final LongAdder started = new LongAdder();
+	private final AtomicLong inFlight = new AtomicLong();
+	private final AtomicLongArray statusCounts = new AtomicLongArray(STATUS_CODE_COUNT);
+	private final LongAdder messagesSent = new LongAdder();
+	private final LongAdder messagesReceived = new LongAdder();
+	private final LongAdder bytesSent = new LongAdder();
+	private final LongAdder bytesReceived = new LongAdder();
+	/**
+	 * 服务端响应实际写出的消息字节数（压缩后），与bytesSent之比即压缩率；客户端不记录
+	 */
+	private final LongAdder wireBytesSent = new LongAdder();
+	private final LatencyHistogram latency = new LatencyHistogram();
+	/**
+	 * 服务端各阶段耗时，按CallPhases.Phase的序号存放；客户端为空数组
+	 */
+	private final LatencyHistogram[] phaseLatencies;
+
+	private final GrpcMetricsRegistry registry;
+
+	MethodMetrics(GrpcMetricsRegistry registry, GrpcMetricsRegistry.Side side, String methodName) {
+		this.registry = registry;
+		this.side = side;
+		this.methodName = methodName;
+		int phaseCount = side == GrpcMetricsRegistry.Side.SERVER ? CallPhases.Phase.values().length : 0;
+		this.phaseLatencies = new LatencyHistogram[phaseCount];
+		for (int i = 0; i < phaseCount; i++) {
+			phaseLatencies[i] = new LatencyHistogram();
+		}
+	}
+
+	public void callStarted() {
+		started.increment();
+		inFlight.incrementAndGet();
+	}
+
+	public void callCompleted(Status.Code code, long durationNanos) {
+		inFlight.decrementAndGet();
+		latency.record(durationNanos);
+		// 某个状态码第一次出现时通知监听器（例如注册对应的Micrometer计数器）
+		if (statusCounts.getAndIncrement(code.value()) == 0) {
+			registry.fireStatusSeen(this, code);
+		}
+	}
+
+	public void messageSent(int bytes) {
+		messagesSent.increment();
+		bytesSent.add(bytes);
+	}
+
+	public void messageReceived(int bytes) {
+		messagesReceived.increment();
+		bytesReceived.add(bytes);
+	}
+
+	public void messageSentOnWire(long bytes) {
+		wireBytesSent.add(bytes);
+	}
+
+	/**
+	 * 响应压缩后与压缩前的字节数之比，没有数据时为1
+	 */
+	public double compressionRatio() {
+		long sent = bytesSent.sum();
+		return sent > 0 ? (double) wireBytesSent.sum() / sent : 1.0;
+	}
+
+	public LatencyHistogram phaseLatency(CallPhases.Phase phase) {
+		return phaseLatencies[phase.ordinal()];
+	}
+
+	public boolean hasPhases() {
+		return phaseLatencies.length > 0;
+	}
+
+	public long statusCount(Status.Code code) {
+		return statusCounts.get(code.value());
+	}
+}
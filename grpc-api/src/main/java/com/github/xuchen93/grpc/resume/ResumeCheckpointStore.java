@@ -0,0 +1,200 @@
+package com.github.xuchen93.grpc.resume;
+
+import com.github.xuchen93.grpc.api.resume.ResumeCheckpoint;
+import com.github.xuchen93.grpc.context.RequestContext;
+import io.grpc.MethodDescriptor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+import static com.github.xuchen93.grpc.resume.ResumeErrors.INVALID_RESUME_TOKEN;
+import static com.github.xuchen93.grpc.resume.ResumeErrors.RESUME_TOKEN_FORBIDDEN;
+import static com.github.xuchen93.grpc.resume.ResumeErrors.RESUME_TOKEN_IN_USE;
+import static com.github.xuchen93.grpc.resume.ResumeErrors.RESUME_TOKEN_MISMATCH;
+
+/**
+ * 续传检查点的本地磁盘存储，每个续传令牌一个文件（序列化的ResumeCheckpoint）
+ * <ul>
+ *     <li>写入先落盘到临时文件再原子替换，进程或机器崩溃后读到的总是某个完整的检查点</li>
+ *     <li>同一令牌同时只能被一个调用使用：客户端断线重连时，上一个调用可能还没在服务端结束，
+ *     此时open抛出RESUME_TOKEN_IN_USE，查询接口返回in_use，客户端稍后重试</li>
+ *     <li>超过ttl的检查点在启动时和读取时删除</li>
+ * </ul>
+ * 令牌由客户端生成（如UUID），只允许字母、数字、下划线和减号，直接用作文件名；
+ * 检查点记录创建它的调用方身份，其他身份既不能续传也查询不到，泄露的令牌不能被他人用来续写或探测传输进度
+ */
+@Slf4j
+public class ResumeCheckpointStore {
+
+	private static final Pattern TOKEN_PATTERN = Pattern.compile("[A-Za-z0-9_-]{1,64}");
+	private static final String SUFFIX = ".ckpt";
+	private static final String TEMP_SUFFIX = ".tmp";
+
+	private final Path dir;
+	private final long ttlMillis;
+	private final Set<String> active = ConcurrentHashMap.newKeySet();
+
+	public ResumeCheckpointStore(Path dir, Duration ttl) throws IOException {
+		this.dir = Files.createDirectories(dir).toAbsolutePath().normalize();
+		this.ttlMillis = ttl.toMillis();
+		int purged = purgeExpired();
+		if (purged > 0) {
+			log.info("[Resume] 删除过期检查点 {} 个: {}", purged, this.dir);
+		}
+	}
+
+	/**
+	 * 独占打开令牌并读取检查点
+	 *
+	 * @param subject 调用方身份，为null时按anonymous处理
+	 * @throws com.github.xuchen93.grpc.exception.BusinessException 令牌格式错误、正被其他调用使用，或检查点属于其他身份或其他方法
+	 */
+	public ResumeSession open(String token, MethodDescriptor<?, ?> method, String subject) {
+		Path file = file(token);
+		String owner = owner(subject);
+		if (!active.add(token)) {
+			throw RESUME_TOKEN_IN_USE.exception("Resume token is in use: " + token);
+		}
+		try {
+			ResumeCheckpoint checkpoint = read(file);
+			if (checkpoint != null && !checkpoint.getSubject().equals(owner)) {
+				log.warn("[Resume] 拒绝其他身份使用续传令牌: token={}, subject={}", token, owner);
+				throw RESUME_TOKEN_FORBIDDEN.exception();
+			}
+			if (checkpoint != null && !checkpoint.getMethod().equals(method.getFullMethodName())) {
+				throw RESUME_TOKEN_MISMATCH.exception("Resume token belongs to " + checkpoint.getMethod());
+			}
+			return new ResumeSession(this, token, method.getFullMethodName(), owner, checkpoint);
+		} catch (RuntimeException e) {
+			active.remove(token);
+			throw e;
+		}
+	}
+
+	/**
+	 * 读取检查点，不占用令牌，不存在、已过期或属于其他身份时返回null
+	 *
+	 * @param subject 调用方身份，为null时按anonymous处理
+	 */
+	public ResumeCheckpoint find(String token, String subject) {
+		ResumeCheckpoint checkpoint = read(file(token));
+		return checkpoint != null && checkpoint.getSubject().equals(owner(subject)) ? checkpoint : null;
+	}
+
+	/**
+	 * 令牌是否正被一个未结束的调用使用
+	 */
+	public boolean isInUse(String token) {
+		return active.contains(token);
+	}
+
+	/**
+	 * 删除过期的检查点和写入中断留下的临时文件
+	 *
+	 * @return 删除的检查点数
+	 */
+	public int purgeExpired() throws IOException {
+		int purged = 0;
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+			for (Path file : files) {
+				String name = file.getFileName().toString();
+				if (name.endsWith(TEMP_SUFFIX)) {
+					Files.deleteIfExists(file);
+				} else if (name.endsWith(SUFFIX) && read(file) == null) {
+					purged++;
+				}
+			}
+		}
+		return purged;
+	}
+
+	void save(String token, ResumeCheckpoint checkpoint) {
+		Path file = file(token);
+		Path temp = file.resolveSibling(file.getFileName() + TEMP_SUFFIX);
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				ByteBuffer buffer = ByteBuffer.wrap(checkpoint.toByteArray());
+				while (buffer.hasRemaining()) {
+					channel.write(buffer);
+				}
+				channel.force(false);
+			}
+			Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			syncDirectory();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to save resume checkpoint: " + token, e);
+		}
+	}
+
+	void delete(String token) {
+		try {
+			Files.deleteIfExists(file(token));
+		} catch (IOException e) {
+			// 残留的检查点在过期后删除
+			log.warn("[Resume] 删除检查点失败: {}", token, e);
+		}
+	}
+
+	void release(String token) {
+		active.remove(token);
+	}
+
+	private static String owner(String subject) {
+		return subject != null ? subject : RequestContext.ANONYMOUS;
+	}
+
+	private Path file(String token) {
+		if (token == null || !TOKEN_PATTERN.matcher(token).matches()) {
+			throw INVALID_RESUME_TOKEN.exception();
+		}
+		return dir.resolve(token + SUFFIX);
+	}
+
+	private ResumeCheckpoint read(Path file) {
+		ResumeCheckpoint checkpoint;
+		try {
+			checkpoint = ResumeCheckpoint.parseFrom(Files.readAllBytes(file));
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			// 包括无法解析的内容：原子替换保证不会读到写了一半的文件，解析失败只可能是外部修改
+			log.warn("[Resume] 检查点不可读，按不存在处理: {}", file, e);
+			deleteQuietly(file);
+			return null;
+		}
+		if (System.currentTimeMillis() - checkpoint.getUpdatedAtMillis() > ttlMillis) {
+			deleteQuietly(file);
+			return null;
+		}
+		return checkpoint;
+	}
+
+	private void syncDirectory() {
+		// 让原子替换本身也落盘；部分平台不支持打开目录，忽略即可
+		try (FileChannel channel = FileChannel.open(dir, StandardOpenOption.READ)) {
+			channel.force(true);
+		} catch (IOException ignored) {
+		}
+	}
+
+	private static void deleteQuietly(Path file) {
+		try {
+			Files.deleteIfExists(file);
+		} catch (IOException ignored) {
+		}
+	}
+}
@@ -0,0 +1,40 @@
+package com.github.xuchen93.grpc.resume;
+
+import com.github.xuchen93.grpc.exception.GrpcError;
+import io.grpc.Status;
+
+/**
+ * 续传相关的业务错误
+ */
+public final class ResumeErrors {
+
+	public static final GrpcError INVALID_RESUME_TOKEN =
+			GrpcError.of(Status.Code.INVALID_ARGUMENT, "INVALID_RESUME_TOKEN", "Resume token must match [A-Za-z0-9_-]{1,64}");
+
+	/**
+	 * 上一次使用该令牌的调用还未在服务端结束，客户端稍后重试
+	 */
+	public static final GrpcError RESUME_TOKEN_IN_USE =
+			GrpcError.of(Status.Code.ABORTED, "RESUME_TOKEN_IN_USE", "Resume token is in use by another call");
+
+	public static final GrpcError RESUME_TOKEN_MISMATCH =
+			GrpcError.of(Status.Code.FAILED_PRECONDITION, "RESUME_TOKEN_MISMATCH", "Resume token belongs to another transfer");
+
+	/**
+	 * 检查点由其他身份创建，不能续传
+	 */
+	public static final GrpcError RESUME_TOKEN_FORBIDDEN =
+			GrpcError.of(Status.Code.PERMISSION_DENIED, "RESUME_TOKEN_FORBIDDEN", "Resume token belongs to another caller");
+
+	/**
+	 * 客户端跳过了未确认的位置，应重新查询已确认的位置后继续
+	 */
+	public static final GrpcError RESUME_OFFSET_GAP =
+			GrpcError.of(Status.Code.OUT_OF_RANGE, "RESUME_OFFSET_GAP", "Resumed stream skips unacknowledged messages");
+
+	public static final GrpcError RESUME_UNSUPPORTED =
+			GrpcError.of(Status.Code.UNIMPLEMENTED, "RESUME_UNSUPPORTED", "Resume is not enabled on this server");
+
+	private ResumeErrors() {
+	}
+}
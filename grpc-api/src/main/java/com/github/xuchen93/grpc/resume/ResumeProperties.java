@@ -0,0 +1,42 @@
+package com.github.xuchen93.grpc.resume;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.time.Duration;
+
+/**
+ * 服务端续传配置
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.server.resume")
+public class ResumeProperties {
+
+	/**
+	 * 检查点目录，每个续传令牌一个文件
+	 */
+	private String dir = "data/resume";
+
+	/**
+	 * 检查点的保留时间，超过后视为不存在，客户端只能从头开始
+	 */
+	private Duration ttl = Duration.ofHours(24);
+
+	/**
+	 * 消息流（如clientStreamHello）每收到多少条消息保存一次检查点
+	 * 调用断开时总会立即保存；该间隔只决定服务端进程崩溃时最多需要重发的消息数
+	 */
+	private int checkpointMessages = 64;
+
+	/**
+	 * 文件上传每写入多少字节落盘并保存一次检查点，含义同checkpointMessages
+	 */
+	private DataSize checkpointBytes = DataSize.ofMegabytes(8);
+
+	public ResumeCheckpointStore toStore() throws IOException {
+		return new ResumeCheckpointStore(Paths.get(dir), ttl);
+	}
+}
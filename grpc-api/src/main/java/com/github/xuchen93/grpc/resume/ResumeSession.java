@@ -0,0 +1,79 @@
+package com.github.xuchen93.grpc.resume;
+
+import com.github.xuchen93.grpc.api.resume.ResumeCheckpoint;
+import com.google.protobuf.ByteString;
+
+/**
+ * 一次调用对续传令牌的独占使用，由 {@link ResumeCheckpointStore#open} 获得
+ * 调用结束时必须complete（传输完成，删除检查点）或close（保留检查点供下次续传）之一
+ * 非线程安全，由同一调用的串行回调使用
+ */
+public final class ResumeSession implements AutoCloseable {
+
+	private final ResumeCheckpointStore store;
+	private final String token;
+	private final String method;
+	private final String subject;
+	private final ResumeCheckpoint checkpoint;
+	private boolean closed;
+
+	ResumeSession(ResumeCheckpointStore store, String token, String method, String subject, ResumeCheckpoint checkpoint) {
+		this.store = store;
+		this.token = token;
+		this.method = method;
+		this.subject = subject;
+		this.checkpoint = checkpoint;
+	}
+
+	public String token() {
+		return token;
+	}
+
+	/**
+	 * 打开时读到的检查点，令牌第一次使用时为null
+	 */
+	public ResumeCheckpoint checkpoint() {
+		return checkpoint;
+	}
+
+	/**
+	 * 打开时已确认的位置，没有检查点时为0
+	 */
+	public long offset() {
+		return checkpoint != null ? checkpoint.getOffset() : 0;
+	}
+
+	/**
+	 * 持久化检查点，调用方需保证offset之前的数据已经落盘
+	 */
+	public void save(long offset, ByteString state) {
+		store.save(token, ResumeCheckpoint.newBuilder()
+				.setMethod(method)
+				.setSubject(subject)
+				.setOffset(offset)
+				.setState(state)
+				.setUpdatedAtMillis(System.currentTimeMillis())
+				.build());
+	}
+
+	/**
+	 * 传输完成：删除检查点并释放令牌
+	 */
+	public void complete() {
+		if (!closed) {
+			store.delete(token);
+			close();
+		}
+	}
+
+	/**
+	 * 释放令牌，检查点保留
+	 */
+	@Override
+	public void close() {
+		if (!closed) {
+			closed = true;
+			store.release(token);
+		}
+	}
+}
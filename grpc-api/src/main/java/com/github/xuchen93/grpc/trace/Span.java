@@ -0,0 +1,18 @@
+package com.github.xuchen93.grpc.trace;
+
+/**
+ * 一个已结束的Span
+ *
+ * @param context          Span的追踪上下文（含父Span）
+ * @param name             方法全名
+ * @param kind             server 或 client
+ * @param startEpochMillis 开始时间
+ * @param durationNanos    耗时
+ * @param statusCode       io.grpc.Status.Code的数值
+ */
+public record Span(TraceContext context, String name, String kind, long startEpochMillis, long durationNanos,
+				   int statusCode) {
+
+	public static final String KIND_SERVER = "server";
+	public static final String KIND_CLIENT = "client";
+}
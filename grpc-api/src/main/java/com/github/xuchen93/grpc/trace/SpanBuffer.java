@@ -0,0 +1,53 @@
+package com.github.xuchen93.grpc.trace;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 内存中的有界Span缓冲区
+ * 请求线程只做一次offer，缓冲区满时丢弃并计数，由导出线程批量取走
+ */
+public class SpanBuffer {
+
+	/**
+	 * 不记录Span
+	 */
+	public static final SpanBuffer NOOP = new SpanBuffer(1) {
+		@Override
+		public void record(Span span) {
+		}
+	};
+
+	private final BlockingQueue<Span> queue;
+	private final LongAdder dropped = new LongAdder();
+
+	public SpanBuffer(int capacity) {
+		this.queue = new ArrayBlockingQueue<>(capacity);
+	}
+
+	public void record(Span span) {
+		if (!span.context().isSampled()) {
+			return;
+		}
+		if (!queue.offer(span)) {
+			dropped.increment();
+		}
+	}
+
+	/**
+	 * 取出缓冲区中的Span
+	 */
+	public int drainTo(Collection<? super Span> target, int maxElements) {
+		return queue.drainTo(target, maxElements);
+	}
+
+	public int size() {
+		return queue.size();
+	}
+
+	public long droppedCount() {
+		return dropped.sum();
+	}
+}
@@ -0,0 +1,104 @@
+package com.github.xuchen93.grpc.trace;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 定期将SpanBuffer中的Span以JSON Lines追加写入本地文件
+ * 每行一个Span，字段与W3C/OTLP的命名保持一致，便于导入其他工具
+ */
+@Slf4j
+public class SpanFileExporter implements AutoCloseable {
+
+	private static final int BATCH_SIZE = 1024;
+
+	private final SpanBuffer buffer;
+	private final Writer writer;
+	private final ScheduledExecutorService scheduler;
+	private final List<Span> batch = new ArrayList<>(BATCH_SIZE);
+
+	public SpanFileExporter(SpanBuffer buffer, Path file, Duration interval) throws IOException {
+		this.buffer = buffer;
+		Path parent = file.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		this.writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+				StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "grpc-span-exporter");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long millis = interval.toMillis();
+		scheduler.scheduleWithFixedDelay(this::exportSafely, millis, millis, TimeUnit.MILLISECONDS);
+	}
+
+	private void exportSafely() {
+		try {
+			export();
+		} catch (Exception e) {
+			log.error("[Trace] 导出Span失败: {}", e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * 写出缓冲区中的全部Span，只在导出线程或关闭时调用
+	 */
+	synchronized void export() throws IOException {
+		int count;
+		do {
+			batch.clear();
+			count = buffer.drainTo(batch, BATCH_SIZE);
+			for (Span span : batch) {
+				writer.write(toJson(span));
+				writer.write('\n');
+			}
+		} while (count == BATCH_SIZE);
+		writer.flush();
+	}
+
+	static String toJson(Span span) {
+		TraceContext context = span.context();
+		String parent = context.parentSpanId();
+		return "{\"traceId\":\"" + escape(context.traceId()) + "\""
+				+ ",\"spanId\":\"" + context.spanId() + "\""
+				+ (parent != null ? ",\"parentSpanId\":\"" + parent + "\"" : "")
+				+ ",\"name\":\"" + escape(span.name()) + "\""
+				+ ",\"kind\":\"" + span.kind() + "\""
+				+ ",\"startEpochMillis\":" + span.startEpochMillis()
+				+ ",\"durationNanos\":" + span.durationNanos()
+				+ ",\"status\":" + span.statusCode() + "}";
+	}
+
+	private static String escape(String value) {
+		return value.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	@Override
+	public void close() throws IOException {
+		scheduler.shutdown();
+		try {
+			scheduler.awaitTermination(5, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		export();
+		writer.close();
+		if (buffer.droppedCount() > 0) {
+			log.warn("[Trace] 缓冲区满丢弃的Span数: {}", buffer.droppedCount());
+		}
+	}
+}
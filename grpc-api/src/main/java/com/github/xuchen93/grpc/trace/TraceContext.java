@@ -0,0 +1,228 @@
+package com.github.xuchen93.grpc.trace;
+
+import com.github.xuchen93.grpc.context.RequestContext;
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import io.grpc.Metadata;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 不可变的追踪上下文，兼容W3C Trace Context（traceparent）
+ * <ul>
+ *     <li>trace id（128位）和span id（64位）以long保存，由ThreadLocalRandom生成，不产生中间对象</li>
+ *     <li>十六进制字符串只在第一次需要时（写日志、写请求头）渲染并缓存</li>
+ *     <li>兼容旧的x-trace-id：非32位十六进制的自定义TraceId原样保留，此时不生成traceparent</li>
+ * </ul>
+ * 服务端每个调用只解析一次，保存在 {@link InterceptorKeys#REQUEST_CONTEXT_KEY} 对应的RequestContext中
+ */
+public final class TraceContext {
+
+	private static final String VERSION = "00";
+	private static final int TRACEPARENT_LENGTH = 55;
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private final long traceIdHigh;
+	private final long traceIdLow;
+	private final long spanId;
+	private final long parentSpanId;
+	private final boolean sampled;
+	/**
+	 * 非W3C格式的自定义TraceId，W3C格式时为null
+	 */
+	private final String legacyTraceId;
+
+	// 延迟渲染的缓存，重复渲染结果相同，无需同步
+	private String traceIdString;
+	private String spanIdString;
+
+	private TraceContext(long traceIdHigh, long traceIdLow, long spanId, long parentSpanId, boolean sampled, String legacyTraceId) {
+		this.traceIdHigh = traceIdHigh;
+		this.traceIdLow = traceIdLow;
+		this.spanId = spanId;
+		this.parentSpanId = parentSpanId;
+		this.sampled = sampled;
+		this.legacyTraceId = legacyTraceId;
+	}
+
+	/**
+	 * 新的根Span
+	 */
+	public static TraceContext newRoot() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		long high = random.nextLong();
+		long low = nonZero(random);
+		return new TraceContext(high, low, nonZero(random), 0, true, null);
+	}
+
+	/**
+	 * 当前Span的子Span，trace id不变
+	 */
+	public TraceContext newChild() {
+		return new TraceContext(traceIdHigh, traceIdLow, nonZero(ThreadLocalRandom.current()), spanId, sampled, legacyTraceId);
+	}
+
+	/**
+	 * 以指定的TraceId开始一个根Span：32位十六进制按W3C解析，其他格式作为自定义TraceId保留
+	 */
+	public static TraceContext fromTraceId(String traceId) {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		if (traceId != null && traceId.length() == 32 && isHex(traceId, 0, 32)) {
+			long high = parseHex(traceId, 0, 16);
+			long low = parseHex(traceId, 16, 32);
+			if (high != 0 || low != 0) {
+				return new TraceContext(high, low, nonZero(random), 0, true, null);
+			}
+		}
+		if (traceId == null || traceId.isEmpty()) {
+			return newRoot();
+		}
+		return new TraceContext(0, 0, nonZero(random), 0, true, traceId);
+	}
+
+	/**
+	 * 解析traceparent，格式不合法时返回null
+	 * 返回的上下文表示远端的Span，服务端应在其上调用 {@link #newChild()}
+	 */
+	public static TraceContext parseTraceparent(String traceparent) {
+		if (traceparent == null || traceparent.length() < TRACEPARENT_LENGTH
+				|| traceparent.charAt(2) != '-' || traceparent.charAt(35) != '-' || traceparent.charAt(52) != '-'
+				|| !isHex(traceparent, 0, 2) || !isHex(traceparent, 3, 35)
+				|| !isHex(traceparent, 36, 52) || !isHex(traceparent, 53, 55)) {
+			return null;
+		}
+		// 版本ff非法；版本00的长度必须正好是55
+		long version = parseHex(traceparent, 0, 2);
+		if (version == 0xff || (version == 0 && traceparent.length() != TRACEPARENT_LENGTH)) {
+			return null;
+		}
+		long high = parseHex(traceparent, 3, 19);
+		long low = parseHex(traceparent, 19, 35);
+		long span = parseHex(traceparent, 36, 52);
+		if ((high == 0 && low == 0) || span == 0) {
+			return null;
+		}
+		boolean sampled = (parseHex(traceparent, 53, 55) & 0x01) != 0;
+		return new TraceContext(high, low, span, 0, sampled, null);
+	}
+
+	/**
+	 * 服务端从请求头获取追踪上下文：优先traceparent，其次x-trace-id，都没有时开始新的根Span
+	 * 返回的是本端的Span（远端Span的子Span）
+	 */
+	public static TraceContext fromHeaders(Metadata headers) {
+		TraceContext remote = parseTraceparent(headers.get(InterceptorKeys.TRACEPARENT_KEY));
+		if (remote != null) {
+			return remote.newChild();
+		}
+		return fromTraceId(headers.get(InterceptorKeys.TRACE_ID_KEY));
+	}
+
+	/**
+	 * 当前gRPC Context中的追踪上下文，没有时返回null
+	 */
+	public static TraceContext current() {
+		RequestContext requestContext = InterceptorKeys.REQUEST_CONTEXT_KEY.get();
+		return requestContext != null ? requestContext.trace() : null;
+	}
+
+	/**
+	 * 写入请求头：W3C格式写traceparent，同时写x-trace-id兼容旧服务
+	 */
+	public void inject(Metadata headers) {
+		if (isW3c()) {
+			headers.put(InterceptorKeys.TRACEPARENT_KEY, toTraceparent());
+		}
+		headers.put(InterceptorKeys.TRACE_ID_KEY, traceId());
+	}
+
+	public boolean isW3c() {
+		return legacyTraceId == null;
+	}
+
+	public boolean isSampled() {
+		return sampled;
+	}
+
+	public boolean hasParent() {
+		return parentSpanId != 0;
+	}
+
+	public String traceId() {
+		if (legacyTraceId != null) {
+			return legacyTraceId;
+		}
+		String value = traceIdString;
+		if (value == null) {
+			char[] chars = new char[32];
+			writeHex(chars, 0, traceIdHigh);
+			writeHex(chars, 16, traceIdLow);
+			value = new String(chars);
+			traceIdString = value;
+		}
+		return value;
+	}
+
+	public String spanId() {
+		String value = spanIdString;
+		if (value == null) {
+			value = toHex(spanId);
+			spanIdString = value;
+		}
+		return value;
+	}
+
+	/**
+	 * 父Span的id，根Span返回null
+	 */
+	public String parentSpanId() {
+		return parentSpanId == 0 ? null : toHex(parentSpanId);
+	}
+
+	public String toTraceparent() {
+		return VERSION + "-" + traceId() + "-" + spanId() + (sampled ? "-01" : "-00");
+	}
+
+	@Override
+	public String toString() {
+		return isW3c() ? toTraceparent() : traceId() + "/" + spanId();
+	}
+
+	private static long nonZero(ThreadLocalRandom random) {
+		long value;
+		do {
+			value = random.nextLong();
+		} while (value == 0);
+		return value;
+	}
+
+	private static String toHex(long value) {
+		char[] chars = new char[16];
+		writeHex(chars, 0, value);
+		return new String(chars);
+	}
+
+	private static void writeHex(char[] chars, int offset, long value) {
+		for (int i = 15; i >= 0; i--) {
+			chars[offset + i] = HEX[(int) (value & 0xF)];
+			value >>>= 4;
+		}
+	}
+
+	private static boolean isHex(String s, int from, int to) {
+		for (int i = from; i < to; i++) {
+			char c = s.charAt(i);
+			if (!((c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static long parseHex(String s, int from, int to) {
+		long value = 0;
+		for (int i = from; i < to; i++) {
+			value = (value << 4) | Character.digit(s.charAt(i), 16);
+		}
+		return value;
+	}
+}
@@ -0,0 +1,34 @@
+package com.github.xuchen93.grpc.trace;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 调用链追踪配置，服务端和客户端共用
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.tracing")
+public class TracingProperties {
+
+	/**
+	 * 是否记录Span并导出到文件；关闭时仍然传播traceparent
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * Span缓冲区容量，导出跟不上时超出部分丢弃
+	 */
+	private int bufferSize = 16384;
+
+	/**
+	 * 导出文件，JSON Lines格式
+	 */
+	private String exportFile = "logs/spans.jsonl";
+
+	/**
+	 * 导出间隔
+	 */
+	private Duration exportInterval = Duration.ofSeconds(1);
+}
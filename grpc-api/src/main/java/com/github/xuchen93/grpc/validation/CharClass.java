@@ -0,0 +1,81 @@
+package com.github.xuchen93.grpc.validation;
+
+/**
+ * 不可变的字符集合，以位图保存，判断一个字符只需一次数组访问和一次位运算
+ * 用于替代 String.matches(".*[...].*") 之类每次调用都要编译或执行正则的字符检查
+ */
+public final class CharClass {
+
+	private final long[] bits;
+
+	private CharClass(long[] bits) {
+		this.bits = bits;
+	}
+
+	/**
+	 * 由给定字符组成的集合
+	 */
+	public static CharClass of(String chars) {
+		char max = 0;
+		for (int i = 0; i < chars.length(); i++) {
+			max = (char) Math.max(max, chars.charAt(i));
+		}
+		long[] bits = new long[(max >>> 6) + 1];
+		for (int i = 0; i < chars.length(); i++) {
+			char c = chars.charAt(i);
+			bits[c >>> 6] |= 1L << c;
+		}
+		return new CharClass(bits);
+	}
+
+	/**
+	 * [from, to]范围内的字符
+	 */
+	public static CharClass range(char from, char to) {
+		if (from > to) {
+			throw new IllegalArgumentException("Invalid range: " + from + "-" + to);
+		}
+		long[] bits = new long[(to >>> 6) + 1];
+		for (int c = from; c <= to; c++) {
+			bits[c >>> 6] |= 1L << c;
+		}
+		return new CharClass(bits);
+	}
+
+	public CharClass union(CharClass other) {
+		long[] merged = new long[Math.max(bits.length, other.bits.length)];
+		for (int i = 0; i < merged.length; i++) {
+			merged[i] = (i < bits.length ? bits[i] : 0) | (i < other.bits.length ? other.bits[i] : 0);
+		}
+		return new CharClass(merged);
+	}
+
+	public boolean contains(char c) {
+		int index = c >>> 6;
+		return index < bits.length && (bits[index] & (1L << c)) != 0;
+	}
+
+	/**
+	 * 第一个属于本集合的字符的下标，没有时返回-1
+	 */
+	public int indexIn(CharSequence value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (contains(value.charAt(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * 第一个不属于本集合的字符的下标，全部属于时返回-1
+	 */
+	public int indexNotIn(CharSequence value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (!contains(value.charAt(i))) {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,16 @@
+package com.github.xuchen93.grpc.validation;
+
+import io.grpc.Status;
+
+/**
+ * 字符串字段的校验规则
+ * 失败时返回构造规则时预先创建的Status（Status不可变，可以共享），校验路径上不创建异常，也不分配对象
+ */
+@FunctionalInterface
+public interface FieldRule {
+
+	/**
+	 * @return 通过时返回null，否则返回失败状态
+	 */
+	Status check(String value);
+}
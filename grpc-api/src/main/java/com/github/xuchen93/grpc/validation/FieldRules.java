@@ -0,0 +1,76 @@
+package com.github.xuchen93.grpc.validation;
+
+import io.grpc.Status;
+
+/**
+ * 常用的字段规则：非空、长度上下限、字符集、前缀
+ * 失败状态在构造规则时给出，通常用 {@link #invalid(String)} 创建INVALID_ARGUMENT
+ */
+public final class FieldRules {
+
+	private FieldRules() {
+		// 工具类，禁止实例化
+	}
+
+	/**
+	 * INVALID_ARGUMENT + 描述
+	 */
+	public static Status invalid(String description) {
+		return Status.INVALID_ARGUMENT.withDescription(description);
+	}
+
+	/**
+	 * 不能为空，也不能只由空白字符（与String.trim相同，小于等于' '的字符）组成
+	 */
+	public static FieldRule notBlank(Status failure) {
+		return value -> firstNonBlank(value) < 0 ? failure : null;
+	}
+
+	public static FieldRule minLength(int min, Status failure) {
+		return value -> value.length() < min ? failure : null;
+	}
+
+	public static FieldRule maxLength(int max, Status failure) {
+		return value -> value.length() > max ? failure : null;
+	}
+
+	/**
+	 * 不能包含集合中的任何字符
+	 */
+	public static FieldRule forbiddenChars(CharClass chars, Status failure) {
+		return value -> chars.indexIn(value) >= 0 ? failure : null;
+	}
+
+	/**
+	 * 只能包含集合中的字符
+	 */
+	public static FieldRule allowedChars(CharClass chars, Status failure) {
+		return value -> chars.indexNotIn(value) >= 0 ? failure : null;
+	}
+
+	/**
+	 * 去掉开头的空白字符后，不能以prefix开头（忽略大小写）
+	 */
+	public static FieldRule noPrefixIgnoreCase(String prefix, Status failure) {
+		return value -> {
+			int start = firstNonBlank(value);
+			return start >= 0 && value.regionMatches(true, start, prefix, 0, prefix.length()) ? failure : null;
+		};
+	}
+
+	/**
+	 * 必须以prefix开头
+	 */
+	public static FieldRule requiredPrefix(String prefix, Status failure) {
+		return value -> value.startsWith(prefix) ? null : failure;
+	}
+
+	private static int firstNonBlank(String value) {
+		for (int i = 0; i < value.length(); i++) {
+			if (value.charAt(i) > ' ') {
+				return i;
+			}
+		}
+		return -1;
+	}
+}
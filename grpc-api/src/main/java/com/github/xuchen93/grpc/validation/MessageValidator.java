@@ -0,0 +1,109 @@
+package com.github.xuchen93.grpc.validation;
+
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Internal;
+import com.google.protobuf.Message;
+import io.grpc.Status;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 按消息类型编译的校验器：声明的字段规则在build时展开成数组，字段名按proto描述符检查一次
+ * 校验时按声明顺序执行，返回第一个失败状态，通过时返回null
+ * <pre>
+ * MessageValidator.builder(HelloSimpleRequest.class)
+ *         .field("name", HelloSimpleRequest::getName,
+ *                 FieldRules.notBlank(FieldRules.invalid("Name cannot be empty")),
+ *                 FieldRules.maxLength(100, FieldRules.invalid("Name is too long (max 100 characters)")))
+ *         .build();
+ * </pre>
+ */
+public final class MessageValidator<M extends Message> {
+
+	private final Class<M> type;
+	private final List<Field<M>> declared;
+	private final Function<M, String>[] getters;
+	private final FieldRule[][] rules;
+
+	@SuppressWarnings("unchecked")
+	private MessageValidator(Class<M> type, List<Field<M>> declared) {
+		this.type = type;
+		this.declared = List.copyOf(declared);
+		this.getters = new Function[declared.size()];
+		this.rules = new FieldRule[declared.size()][];
+		for (int i = 0; i < declared.size(); i++) {
+			getters[i] = declared.get(i).getter();
+			rules[i] = declared.get(i).rules();
+		}
+	}
+
+	public static <M extends Message> Builder<M> builder(Class<M> type) {
+		return new Builder<>(type);
+	}
+
+	/**
+	 * 在本校验器规则的基础上追加规则，用于某个方法额外的业务约束
+	 */
+	public Builder<M> toBuilder() {
+		Builder<M> builder = new Builder<>(type);
+		builder.fields.addAll(declared);
+		return builder;
+	}
+
+	public Class<M> type() {
+		return type;
+	}
+
+	/**
+	 * @return 通过时返回null，否则返回第一个失败规则的状态
+	 */
+	public Status validate(M message) {
+		for (int i = 0; i < getters.length; i++) {
+			String value = getters[i].apply(message);
+			for (FieldRule rule : rules[i]) {
+				Status failure = rule.check(value);
+				if (failure != null) {
+					return failure;
+				}
+			}
+		}
+		return null;
+	}
+
+	private record Field<M>(String name, Function<M, String> getter, FieldRule[] rules) {
+	}
+
+	public static final class Builder<M extends Message> {
+		private final Class<M> type;
+		private final Descriptors.Descriptor descriptor;
+		private final List<Field<M>> fields = new ArrayList<>();
+
+		private Builder(Class<M> type) {
+			this.type = type;
+			this.descriptor = Internal.getDefaultInstance(type).getDescriptorForType();
+		}
+
+		/**
+		 * 声明字符串字段的规则
+		 *
+		 * @param name   proto中的字段名，不存在或不是string类型时抛出IllegalArgumentException
+		 * @param getter 生成的访问方法，如 HelloSimpleRequest::getName
+		 */
+		public Builder<M> field(String name, Function<M, String> getter, FieldRule... rules) {
+			Descriptors.FieldDescriptor field = descriptor.findFieldByName(name);
+			if (field == null || field.isRepeated() || field.getJavaType() != Descriptors.FieldDescriptor.JavaType.STRING) {
+				throw new IllegalArgumentException("No singular string field '" + name + "' in " + descriptor.getFullName());
+			}
+			if (rules.length > 0) {
+				fields.add(new Field<>(name, getter, rules.clone()));
+			}
+			return this;
+		}
+
+		public MessageValidator<M> build() {
+			return new MessageValidator<>(type, fields);
+		}
+	}
+}
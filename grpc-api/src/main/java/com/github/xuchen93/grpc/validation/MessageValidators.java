@@ -0,0 +1,39 @@
+package com.github.xuchen93.grpc.validation;
+
+import com.google.protobuf.Message;
+import io.grpc.MethodDescriptor;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 校验器注册表：按请求消息类型注册，也可以为某个方法单独注册（优先于按类型）
+ * 只在编译方法流水线时查找，调用路径上不访问本注册表
+ */
+public class MessageValidators {
+
+	private final Map<Class<?>, MessageValidator<?>> byType = new ConcurrentHashMap<>();
+	private final Map<String, MessageValidator<?>> byMethod = new ConcurrentHashMap<>();
+
+	public MessageValidators register(MessageValidator<?> validator) {
+		byType.put(validator.type(), validator);
+		return this;
+	}
+
+	public <M extends Message> MessageValidators register(MethodDescriptor<M, ?> method, MessageValidator<M> validator) {
+		byMethod.put(method.getFullMethodName(), validator);
+		return this;
+	}
+
+	/**
+	 * 方法的请求校验器，没有时返回null
+	 */
+	public MessageValidator<?> find(MethodDescriptor<?, ?> method) {
+		MessageValidator<?> validator = byMethod.get(method.getFullMethodName());
+		if (validator == null && method.getRequestMarshaller() instanceof MethodDescriptor.PrototypeMarshaller<?> marshaller
+				&& marshaller.getMessagePrototype() != null) {
+			validator = byType.get(marshaller.getMessagePrototype().getClass());
+		}
+		return validator;
+	}
+}
@@ -0,0 +1,108 @@
+package com.github.xuchen93.grpc.accesslog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 访问日志写入后由读取工具读回：字段完整、段滚动、方法字典在重新打开后沿用
+ */
+class MappedAccessLogSinkTests {
+
+	// 每段只容纳4条记录，便于触发滚动
+	private static final long SEGMENT_SIZE = AccessLogFormat.HEADER_SIZE + AccessLogFormat.RECORD_SIZE * 4L;
+
+	@TempDir
+	Path directory;
+
+	@Test
+	void writesRecordsReadableByReader() throws Exception {
+		try (MappedAccessLogSink sink = new MappedAccessLogSink(directory, 64, SEGMENT_SIZE)) {
+			for (int i = 0; i < 10; i++) {
+				String method = i % 2 == 0 ? "simple.HelloSimpleService/SayHello" : "simple.HelloSimpleService/StreamHello";
+				byte side = i % 2 == 0 ? AccessLogSink.SIDE_SERVER : AccessLogSink.SIDE_CLIENT;
+				sink.append(side, i, "trace-" + i, method, i % 3, 1_700_000_000_000L + i, 1_000_000L * i,
+						100L + i, 200L + i, 1, i);
+			}
+			assertEquals(0, sink.droppedCount());
+		}
+
+		List<AccessLogReader.Entry> entries = read();
+		assertEquals(10, entries.size());
+		for (int i = 0; i < 10; i++) {
+			AccessLogReader.Entry e = entries.get(i);
+			assertEquals(1_700_000_000_000L + i, e.startEpochMillis());
+			assertEquals(i, e.requestId());
+			assertEquals("trace-" + i, e.traceId());
+			assertEquals(i % 2 == 0 ? "simple.HelloSimpleService/SayHello" : "simple.HelloSimpleService/StreamHello", e.methodName());
+			assertEquals(i % 2 == 0 ? AccessLogSink.SIDE_SERVER : AccessLogSink.SIDE_CLIENT, e.side());
+			assertEquals(i % 3, e.statusCode());
+			assertEquals(1_000_000L * i, e.durationNanos());
+			assertEquals(100L + i, e.requestBytes());
+			assertEquals(200L + i, e.responseBytes());
+			assertEquals(1, e.requestMessages());
+			assertEquals(i, e.responseMessages());
+		}
+		assertEquals(3, segmentCount());
+	}
+
+	@Test
+	void truncatesTraceIdAndReusesMethodDictionaryAfterReopen() throws Exception {
+		String longTraceId = "t".repeat(AccessLogFormat.TRACE_ID_MAX + 8);
+		try (MappedAccessLogSink sink = new MappedAccessLogSink(directory, 16, SEGMENT_SIZE)) {
+			sink.append(AccessLogSink.SIDE_SERVER, 1, longTraceId, "simple.HelloSimpleService/SayHello", 0, 1L, 1, 0, 0, 1, 1);
+			sink.append(AccessLogSink.SIDE_SERVER, 2, null, "simple.HelloSimpleService/SayHello", 0, 2L, 1, 0, 0, 1, 1);
+		}
+		// 重新打开时从新段开始写，已有方法沿用原来的id
+		try (MappedAccessLogSink sink = new MappedAccessLogSink(directory, 16, SEGMENT_SIZE)) {
+			sink.append(AccessLogSink.SIDE_SERVER, 3, "trace-3", "simple.HelloSimpleService/SayHello", 0, 3L, 1, 0, 0, 1, 1);
+			sink.append(AccessLogSink.SIDE_SERVER, 4, "trace-4", "simple.HelloSimpleService/SayHelloBatch", 0, 4L, 1, 0, 0, 1, 1);
+		}
+
+		List<AccessLogReader.Entry> entries = read();
+		assertEquals(4, entries.size());
+		assertEquals("t".repeat(AccessLogFormat.TRACE_ID_MAX), entries.get(0).traceId());
+		assertEquals("", entries.get(1).traceId());
+		assertEquals(List.of(1L, 2L, 3L, 4L), entries.stream().map(AccessLogReader.Entry::requestId).toList());
+		assertEquals("simple.HelloSimpleService/SayHello", entries.get(2).methodName());
+		assertEquals("simple.HelloSimpleService/SayHelloBatch", entries.get(3).methodName());
+		assertEquals(2, AccessLogReader.loadMethodIds(directory.resolve(AccessLogFormat.METHOD_DICT)).size());
+		assertEquals(2, segmentCount());
+	}
+
+	@Test
+	void dropsRecordsWhenBufferIsFullWithoutBlocking() throws Exception {
+		long appended = 0;
+		long dropped;
+		try (MappedAccessLogSink sink = new MappedAccessLogSink(directory, 2, AccessLogFormat.HEADER_SIZE + AccessLogFormat.RECORD_SIZE * 1024L)) {
+			for (int i = 0; i < 100_000; i++) {
+				sink.append(AccessLogSink.SIDE_SERVER, i, "trace", "simple.HelloSimpleService/SayHello", 0, 1L + i, 1, 0, 0, 1, 1);
+				appended++;
+			}
+			dropped = sink.droppedCount();
+		}
+		// 写入与丢弃的记录数之和等于追加次数
+		assertEquals(appended, read().size() + dropped);
+		assertFalse(read().isEmpty());
+	}
+
+	private List<AccessLogReader.Entry> read() throws Exception {
+		List<AccessLogReader.Entry> entries = new ArrayList<>();
+		AccessLogReader.read(directory, entries::add);
+		return entries;
+	}
+
+	private long segmentCount() throws Exception {
+		try (Stream<Path> files = Files.list(directory)) {
+			return files.filter(p -> p.getFileName().toString().endsWith(AccessLogFormat.SEGMENT_SUFFIX)).count();
+		}
+	}
+}
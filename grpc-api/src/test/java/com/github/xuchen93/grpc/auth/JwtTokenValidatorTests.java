@@ -0,0 +1,249 @@
+package com.github.xuchen93.grpc.auth;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * JWT验证：签名、算法混淆、kid查找、JWKS重新加载以及exp/nbf/iss/aud
+ */
+class JwtTokenValidatorTests {
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+	private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+	private static KeyPair rsa;
+	private static KeyPair ec;
+	private static JwkSet jwkSet;
+
+	@TempDir
+	Path dir;
+
+	@BeforeAll
+	static void generateKeys() throws Exception {
+		KeyPairGenerator rsaGenerator = KeyPairGenerator.getInstance("RSA");
+		rsaGenerator.initialize(2048);
+		rsa = rsaGenerator.generateKeyPair();
+		KeyPairGenerator ecGenerator = KeyPairGenerator.getInstance("EC");
+		ecGenerator.initialize(new ECGenParameterSpec("secp256r1"));
+		ec = ecGenerator.generateKeyPair();
+		jwkSet = JwkSet.parse(jwks(hmacJwk("hs", SECRET), rsaJwk("rs", rsa), ecJwk("es", ec)));
+	}
+
+	@Test
+	void acceptsValidSignatures() throws Exception {
+		JwtTokenValidator validator = validator(null, null, false);
+		String payload = claims("\"exp\":" + inSeconds(3600));
+		AuthPrincipal hs = validator.validate(hmacToken("HS256", "hs", payload, SECRET));
+		AuthPrincipal rs = validator.validate(signedToken(JwtAlgorithm.RS256, "rs", payload, rsa));
+		AuthPrincipal es = validator.validate(signedToken(JwtAlgorithm.ES256, "es", payload, ec));
+
+		assertNotNull(hs);
+		assertNotNull(rs);
+		assertNotNull(es);
+		assertEquals("user-1", hs.subject());
+		assertEquals("hello", rs.claim("scope"));
+		assertEquals((inSeconds(3600) + 30) * 1000, es.expiresAtMillis(), 2000);
+	}
+
+	@Test
+	void rejectsBadSignatures() throws Exception {
+		JwtTokenValidator validator = validator(null, null, false);
+		String token = signedToken(JwtAlgorithm.RS256, "rs", claims("\"exp\":" + inSeconds(3600)), rsa);
+		// 替换payload，签名不变
+		String[] parts = token.split("\\.");
+		String tampered = parts[0] + "." + encode(claims("\"sub\":\"admin\",\"exp\":" + inSeconds(3600))) + "." + parts[2];
+		assertNull(validator.validate(tampered));
+		assertNull(validator.validate(hmacToken("HS256", "hs", claims("\"exp\":" + inSeconds(3600)),
+				"another-secret-another-secret-00".getBytes(StandardCharsets.US_ASCII))));
+		assertNull(validator.validate(parts[0] + "." + parts[1] + "."));
+		assertNull(validator.validate("not-a-jwt"));
+	}
+
+	@Test
+	void rejectsAlgorithmConfusion() throws Exception {
+		JwtTokenValidator validator = validator(null, null, false);
+		String payload = claims("\"exp\":" + inSeconds(3600));
+		// alg=none，无签名
+		String none = encode("{\"alg\":\"none\",\"kid\":\"rs\"}") + "." + encode(payload) + ".";
+		assertNull(validator.validate(none));
+		// 用RSA公钥的编码作为HMAC密钥签名，kid指向RSA密钥
+		assertNull(validator.validate(hmacToken("HS256", "rs", payload, rsa.getPublic().getEncoded())));
+		// RSA密钥签名，但头部声明为ES256
+		assertNull(validator.validate(signedToken(JwtAlgorithm.RS256, "rs", "ES256", payload, rsa)));
+	}
+
+	@Test
+	void looksUpKeysByKid() throws Exception {
+		JwtTokenValidator validator = validator(null, null, false);
+		String payload = claims("\"exp\":" + inSeconds(3600));
+		assertNull(validator.validate(hmacToken("HS256", "unknown", payload, SECRET)));
+		// 多个密钥时必须携带kid
+		assertNull(validator.validate(hmacToken("HS256", null, payload, SECRET)));
+		// 只有一个密钥时可以省略kid
+		JwkSet single = JwkSet.parse(jwks(hmacJwk("hs", SECRET)));
+		JwtTokenValidator singleKey = new JwtTokenValidator(() -> single, null, null, Duration.ofSeconds(30));
+		assertNotNull(singleKey.validate(hmacToken("HS256", null, payload, SECRET)));
+	}
+
+	@Test
+	void reloadsJwksFile() throws Exception {
+		byte[] newSecret = "fedcba9876543210fedcba9876543210".getBytes(StandardCharsets.US_ASCII);
+		Path file = Files.writeString(dir.resolve("jwks.json"), jwks(hmacJwk("v1", SECRET)));
+		TokenCache cache = new TokenCache(100, Duration.ofMinutes(5), 4);
+		try (JwksFileWatcher watcher = new JwksFileWatcher(file, Duration.ofHours(1), cache::invalidateAll)) {
+			JwtTokenValidator validator = new JwtTokenValidator(watcher, null, null, Duration.ofSeconds(30));
+			String payload = claims("\"exp\":" + inSeconds(3600));
+			String oldToken = hmacToken("HS256", "v1", payload, SECRET);
+			String newToken = hmacToken("HS256", "v2", payload, newSecret);
+			AuthPrincipal oldPrincipal = validator.validate(oldToken);
+			assertNotNull(oldPrincipal);
+			assertNull(validator.validate(newToken));
+			cache.put(TokenCache.BEARER_PREFIX + oldToken, oldPrincipal);
+
+			Files.writeString(file, jwks(hmacJwk("v2", newSecret)));
+			watcher.reload();
+			assertNull(validator.validate(oldToken));
+			assertNotNull(validator.validate(newToken));
+			// 按旧密钥验证过的Token不再命中缓存
+			assertNull(cache.get(TokenCache.BEARER_PREFIX + oldToken));
+
+			// 无法解析的文件不替换当前密钥集
+			Files.writeString(file, "{broken");
+			try {
+				watcher.reload();
+			} catch (RuntimeException expected) {
+				// 解析失败
+			}
+			assertNotNull(validator.validate(newToken));
+		}
+	}
+
+	@Test
+	void requiresNumericExp() throws Exception {
+		JwtTokenValidator validator = validator(null, null, false);
+		assertNull(validator.validate(hmacToken("HS256", "hs", claims(null), SECRET)));
+		assertNull(validator.validate(hmacToken("HS256", "hs", claims("\"exp\":\"tomorrow\""), SECRET)));
+		assertNull(validator.validate(hmacToken("HS256", "hs", claims("\"exp\":\"" + inSeconds(3600) + "\""), SECRET)));
+
+		// 显式允许时，没有exp的令牌永不过期；非数值的exp仍然拒绝
+		JwtTokenValidator lenient = validator(null, null, true);
+		AuthPrincipal principal = lenient.validate(hmacToken("HS256", "hs", claims(null), SECRET));
+		assertNotNull(principal);
+		assertEquals(AuthPrincipal.NEVER_EXPIRES, principal.expiresAtMillis());
+		assertNull(lenient.validate(hmacToken("HS256", "hs", claims("\"exp\":\"tomorrow\""), SECRET)));
+	}
+
+	@Test
+	void checksExpAndNbfWithClockSkew() throws Exception {
+		JwtTokenValidator validator = validator(null, null, false);
+		assertNull(validator.validate(hmacToken("HS256", "hs", claims("\"exp\":" + inSeconds(-31)), SECRET)));
+		assertNotNull(validator.validate(hmacToken("HS256", "hs", claims("\"exp\":" + inSeconds(-10)), SECRET)));
+		assertNull(validator.validate(hmacToken("HS256", "hs",
+				claims("\"exp\":" + inSeconds(3600) + ",\"nbf\":" + inSeconds(60)), SECRET)));
+		assertNotNull(validator.validate(hmacToken("HS256", "hs",
+				claims("\"exp\":" + inSeconds(3600) + ",\"nbf\":" + inSeconds(10)), SECRET)));
+		assertNull(validator.validate(hmacToken("HS256", "hs",
+				claims("\"exp\":" + inSeconds(3600) + ",\"nbf\":\"now\""), SECRET)));
+	}
+
+	@Test
+	void checksIssuerAndAudience() throws Exception {
+		JwtTokenValidator validator = validator("grpc-demo", "grpc-server", false);
+		String exp = "\"exp\":" + inSeconds(3600);
+		assertNotNull(validator.validate(hmacToken("HS256", "hs",
+				claims(exp + ",\"iss\":\"grpc-demo\",\"aud\":\"grpc-server\""), SECRET)));
+		assertNotNull(validator.validate(hmacToken("HS256", "hs",
+				claims(exp + ",\"iss\":\"grpc-demo\",\"aud\":[\"other\",\"grpc-server\"]"), SECRET)));
+		assertNull(validator.validate(hmacToken("HS256", "hs",
+				claims(exp + ",\"iss\":\"evil\",\"aud\":\"grpc-server\""), SECRET)));
+		assertNull(validator.validate(hmacToken("HS256", "hs",
+				claims(exp + ",\"iss\":\"grpc-demo\",\"aud\":[\"other\"]"), SECRET)));
+		assertNull(validator.validate(hmacToken("HS256", "hs", claims(exp), SECRET)));
+	}
+
+	private static JwtTokenValidator validator(String issuer, String audience, boolean allowMissingExp) {
+		return new JwtTokenValidator(() -> jwkSet, issuer, audience, Duration.ofSeconds(30), allowMissingExp);
+	}
+
+	private static String claims(String extra) {
+		return "{\"sub\":\"user-1\",\"scope\":\"hello\"" + (extra == null ? "" : "," + extra) + "}";
+	}
+
+	private static long inSeconds(long seconds) {
+		return System.currentTimeMillis() / 1000 + seconds;
+	}
+
+	private static String header(String alg, String kid) {
+		return "{\"alg\":\"" + alg + "\",\"typ\":\"JWT\"" + (kid == null ? "" : ",\"kid\":\"" + kid + "\"") + "}";
+	}
+
+	private static String hmacToken(String alg, String kid, String payload, byte[] secret) throws Exception {
+		String signingInput = encode(header(alg, kid)) + "." + encode(payload);
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(secret, "HmacSHA256"));
+		return signingInput + "." + ENCODER.encodeToString(mac.doFinal(signingInput.getBytes(StandardCharsets.US_ASCII)));
+	}
+
+	private static String signedToken(JwtAlgorithm algorithm, String kid, String payload, KeyPair keyPair) throws Exception {
+		return signedToken(algorithm, kid, algorithm.name(), payload, keyPair);
+	}
+
+	private static String signedToken(JwtAlgorithm algorithm, String kid, String headerAlg, String payload, KeyPair keyPair)
+			throws Exception {
+		String signingInput = encode(header(headerAlg, kid)) + "." + encode(payload);
+		Signature signer = Signature.getInstance(algorithm.jcaName());
+		signer.initSign(keyPair.getPrivate());
+		signer.update(signingInput.getBytes(StandardCharsets.US_ASCII));
+		return signingInput + "." + ENCODER.encodeToString(signer.sign());
+	}
+
+	private static String jwks(String... keys) {
+		return "{\"keys\":[" + String.join(",", keys) + "]}";
+	}
+
+	private static String hmacJwk(String kid, byte[] secret) {
+		return "{\"kty\":\"oct\",\"kid\":\"" + kid + "\",\"alg\":\"HS256\",\"k\":\"" + ENCODER.encodeToString(secret) + "\"}";
+	}
+
+	private static String rsaJwk(String kid, KeyPair keyPair) {
+		RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+		return "{\"kty\":\"RSA\",\"kid\":\"" + kid + "\",\"alg\":\"RS256\",\"n\":\"" + unsigned(publicKey.getModulus())
+				+ "\",\"e\":\"" + unsigned(publicKey.getPublicExponent()) + "\"}";
+	}
+
+	private static String ecJwk(String kid, KeyPair keyPair) {
+		ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic();
+		return "{\"kty\":\"EC\",\"kid\":\"" + kid + "\",\"alg\":\"ES256\",\"crv\":\"P-256\",\"x\":\""
+				+ unsigned(publicKey.getW().getAffineX()) + "\",\"y\":\"" + unsigned(publicKey.getW().getAffineY()) + "\"}";
+	}
+
+	private static String unsigned(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		return ENCODER.encodeToString(bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes);
+	}
+
+	private static String encode(String json) {
+		return ENCODER.encodeToString(json.getBytes(StandardCharsets.UTF_8));
+	}
+}
@@ -0,0 +1,193 @@
+package com.github.xuchen93.grpc.auth;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 已验证Token缓存：命中、过期、吊销及吊销表上限、按写入顺序淘汰、整体清空
+ */
+class TokenCacheTests {
+
+	@Test
+	void returnsCachedPrincipal() {
+		TokenCache cache = new TokenCache(100, Duration.ofMinutes(5), 4);
+		AuthPrincipal principal = principal("alice", "token-a", AuthPrincipal.NEVER_EXPIRES);
+		cache.put(header("token-a"), principal);
+
+		assertSame(principal, cache.get(header("token-a")));
+		assertNull(cache.get(header("token-b")));
+		assertEquals(1, cache.size());
+
+		cache.invalidateSubject("alice");
+		assertNull(cache.get(header("token-a")));
+	}
+
+	@Test
+	void expiresAtEarlierOfTokenExpiryAndTtl() throws Exception {
+		TokenCache cache = new TokenCache(100, Duration.ofMillis(50), 4);
+		cache.put(header("short-ttl"), principal("alice", "short-ttl", AuthPrincipal.NEVER_EXPIRES));
+		TokenCache longTtl = new TokenCache(100, Duration.ofMinutes(5), 4);
+		longTtl.put(header("token-expiry"), principal("bob", "token-expiry", System.currentTimeMillis() + 50));
+		assertNotNull(cache.get(header("short-ttl")));
+		assertNotNull(longTtl.get(header("token-expiry")));
+
+		Thread.sleep(100);
+		assertNull(cache.get(header("short-ttl")));
+		assertNull(longTtl.get(header("token-expiry")));
+		assertEquals(0, cache.size());
+
+		// 已过期的身份不缓存
+		longTtl.put(header("expired"), principal("carol", "expired", System.currentTimeMillis() - 1));
+		assertNull(longTtl.get(header("expired")));
+	}
+
+	@Test
+	void revokedTokensAreRemovedAndNotCachedAgain() throws Exception {
+		TokenCache cache = new TokenCache(100, Duration.ofMinutes(5), 4);
+		AuthPrincipal principal = principal("alice", "token-a", AuthPrincipal.NEVER_EXPIRES);
+		cache.put(header("token-a"), principal);
+
+		cache.revoke("token-a", AuthPrincipal.NEVER_EXPIRES);
+		assertNull(cache.get(header("token-a")));
+		assertTrue(cache.isRevoked("token-a"));
+		cache.put(header("token-a"), principal);
+		assertNull(cache.get(header("token-a")));
+
+		// 吊销记录在Token过期后失效
+		cache.revoke("token-b", System.currentTimeMillis() + 50);
+		assertTrue(cache.isRevoked("token-b"));
+		Thread.sleep(100);
+		assertFalse(cache.isRevoked("token-b"));
+	}
+
+	@Test
+	void concurrentPutDoesNotResurrectRevokedToken() throws Exception {
+		int tokens = 20_000;
+		TokenCache cache = new TokenCache(tokens * 2, Duration.ofMinutes(5), 4, tokens * 2);
+		List<AuthPrincipal> principals = IntStream.range(0, tokens)
+				.mapToObj(i -> principal("user-" + i, "token-" + i, AuthPrincipal.NEVER_EXPIRES))
+				.toList();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			// 验证完成的线程写入缓存，同时另一个线程吊销同一批Token
+			Future<?> puts = executor.submit(() -> {
+				start.await();
+				principals.forEach(principal -> cache.put(header(principal.token()), principal));
+				return null;
+			});
+			Future<?> revokes = executor.submit(() -> {
+				start.await();
+				principals.forEach(principal -> cache.revoke(principal.token(), AuthPrincipal.NEVER_EXPIRES));
+				return null;
+			});
+			start.countDown();
+			puts.get(30, TimeUnit.SECONDS);
+			revokes.get(30, TimeUnit.SECONDS);
+		} finally {
+			executor.shutdownNow();
+		}
+
+		for (AuthPrincipal principal : principals) {
+			assertNull(cache.get(header(principal.token())), principal.token());
+		}
+		assertEquals(0, cache.size());
+	}
+
+	@Test
+	void invalidateAllDropsEntriesAndStalePuts() {
+		TokenCache cache = new TokenCache(100, Duration.ofMinutes(5), 4);
+		AuthPrincipal principal = principal("alice", "token-a", AuthPrincipal.NEVER_EXPIRES);
+		cache.put(header("token-a"), principal);
+		// 在清空之前开始的验证
+		long generation = cache.generation();
+
+		cache.invalidateAll();
+		assertNull(cache.get(header("token-a")));
+		assertEquals(0, cache.size());
+
+		cache.put(header("token-a"), principal, generation);
+		assertNull(cache.get(header("token-a")));
+		cache.put(header("token-a"), principal, cache.generation());
+		assertSame(principal, cache.get(header("token-a")));
+	}
+
+	@Test
+	void revokedTableIsBounded() {
+		TokenCache cache = new TokenCache(100, Duration.ofMinutes(5), 4, 3);
+		cache.revoke("expired", System.currentTimeMillis() - 1);
+		for (int i = 0; i < 3; i++) {
+			cache.revoke("token-" + i, AuthPrincipal.NEVER_EXPIRES);
+		}
+		// 超出上限时先清理已过期的记录
+		for (int i = 0; i < 3; i++) {
+			assertTrue(cache.isRevoked("token-" + i));
+		}
+
+		cache.revoke("token-3", AuthPrincipal.NEVER_EXPIRES);
+		assertFalse(cache.isRevoked("token-0"));
+		assertTrue(cache.isRevoked("token-1"));
+		assertTrue(cache.isRevoked("token-3"));
+
+		// 重新吊销的记录移到末尾，不会先被移除
+		cache.revoke("token-1", AuthPrincipal.NEVER_EXPIRES);
+		cache.revoke("token-4", AuthPrincipal.NEVER_EXPIRES);
+		assertFalse(cache.isRevoked("token-2"));
+		assertTrue(cache.isRevoked("token-1"));
+		assertTrue(cache.isRevoked("token-4"));
+	}
+
+	@Test
+	void evictsOldestEntries() {
+		// 分段数不影响结论：每个分段只保留自己最近写入的条目
+		TokenCache cache = new TokenCache(20, Duration.ofMinutes(5), 2);
+		for (int i = 0; i < 100; i++) {
+			cache.put(header("token-" + i), principal("user-" + i, "token-" + i, AuthPrincipal.NEVER_EXPIRES));
+		}
+		assertTrue(cache.size() <= 20);
+		for (int i = 0; i < 20; i++) {
+			assertNull(cache.get(header("token-" + i)));
+		}
+		for (int i = 95; i < 100; i++) {
+			assertNotNull(cache.get(header("token-" + i)));
+		}
+	}
+
+	@Test
+	void rewrittenEntryCountsAsNewest() {
+		TokenCache cache = new TokenCache(40, Duration.ofMinutes(5), 2);
+		String first = header("token-0");
+		cache.put(first, principal("user-0", "token-0", AuthPrincipal.NEVER_EXPIRES));
+		for (int i = 1; i < 200; i++) {
+			// 反复覆盖第一个条目，使其始终是最新写入的
+			cache.put(first, principal("user-0", "token-0", AuthPrincipal.NEVER_EXPIRES));
+			cache.put(header("token-" + i), principal("user-" + i, "token-" + i, AuthPrincipal.NEVER_EXPIRES));
+		}
+		assertNotNull(cache.get(first));
+		assertTrue(cache.size() <= 40);
+	}
+
+	private static AuthPrincipal principal(String subject, String token, long expiresAtMillis) {
+		return new AuthPrincipal(subject, token, expiresAtMillis, Map.of());
+	}
+
+	private static String header(String token) {
+		return TokenCache.BEARER_PREFIX + token;
+	}
+}
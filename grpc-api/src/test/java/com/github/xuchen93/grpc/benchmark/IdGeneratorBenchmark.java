@@ -0,0 +1,63 @@
+package com.github.xuchen93.grpc.benchmark;
+
+import com.github.xuchen93.grpc.interceptor.util.IdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 请求ID生成的多线程竞争基准测试
+ * <ul>
+ *     <li>atomicLong：改造前的全局AtomicLong自增，所有线程争用同一缓存行</li>
+ *     <li>idGenerator：线程本地号段 + 每64个ID一次CAS</li>
+ * </ul>
+ * main方法依次以1/2/4/8/16/32/64个线程运行，每个线程数的结果输出到 id-generator-benchmark-{threads}.csv
+ * 注意idGenerator单节点的上限是每毫秒4096个，线程数很多时会受该上限约束
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdGeneratorBenchmark {
+
+	private static final int[] THREAD_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+
+	private final AtomicLong sequence = new AtomicLong();
+	private final IdGenerator idGenerator = new IdGenerator(1);
+
+	@Benchmark
+	public long atomicLong() {
+		return sequence.incrementAndGet();
+	}
+
+	@Benchmark
+	public long idGenerator() {
+		return idGenerator.nextId();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		for (int threads : THREAD_COUNTS) {
+			new Runner(new OptionsBuilder()
+					.include(IdGeneratorBenchmark.class.getSimpleName())
+					.threads(threads)
+					.resultFormat(ResultFormatType.CSV)
+					.result("id-generator-benchmark-" + threads + ".csv")
+					.build()).run();
+		}
+	}
+}
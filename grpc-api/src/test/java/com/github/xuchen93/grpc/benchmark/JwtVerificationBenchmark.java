@@ -0,0 +1,137 @@
+package com.github.xuchen93.grpc.benchmark;
+
+import com.github.xuchen93.grpc.auth.AuthPrincipal;
+import com.github.xuchen93.grpc.auth.JwkSet;
+import com.github.xuchen93.grpc.auth.JwtAlgorithm;
+import com.github.xuchen93.grpc.auth.JwtTokenValidator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JWT验证吞吐基准测试（单线程，即每核每秒验证次数）
+ * 直接调用JwtTokenValidator，不经过TokenCache，衡量缓存未命中时的完整验证开销：
+ * 解析头部、按kid取出已初始化的验证器、校验签名、解析并校验claims
+ * main方法的结果输出到 jwt-verification-benchmark.csv
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+	private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+	@Param({"HS256", "RS256", "ES256"})
+	public String algorithm;
+
+	private JwtTokenValidator validator;
+	private String token;
+
+	@Setup
+	public void setup() throws Exception {
+		JwtAlgorithm alg = JwtAlgorithm.valueOf(algorithm);
+		String jwk;
+		String header = "{\"alg\":\"" + alg + "\",\"typ\":\"JWT\",\"kid\":\"bench\"}";
+		String payload = "{\"sub\":\"user-1\",\"iss\":\"grpc-demo\",\"aud\":\"grpc-server\",\"scope\":\"hello\",\"exp\":"
+				+ (System.currentTimeMillis() / 1000 + 3600) + "}";
+		byte[] signingInput = (encode(header.getBytes(StandardCharsets.UTF_8)) + "."
+				+ encode(payload.getBytes(StandardCharsets.UTF_8))).getBytes(StandardCharsets.US_ASCII);
+		byte[] signature;
+		switch (alg) {
+			case HS256 -> {
+				byte[] secret = new byte[32];
+				Arrays.fill(secret, (byte) 7);
+				Mac mac = Mac.getInstance(alg.jcaName());
+				mac.init(new SecretKeySpec(secret, alg.jcaName()));
+				signature = mac.doFinal(signingInput);
+				jwk = "{\"kty\":\"oct\",\"kid\":\"bench\",\"alg\":\"HS256\",\"k\":\"" + encode(secret) + "\"}";
+			}
+			case RS256 -> {
+				KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+				generator.initialize(2048);
+				KeyPair keyPair = generator.generateKeyPair();
+				signature = sign(alg, keyPair, signingInput);
+				RSAPublicKey publicKey = (RSAPublicKey) keyPair.getPublic();
+				jwk = "{\"kty\":\"RSA\",\"kid\":\"bench\",\"alg\":\"RS256\",\"n\":\"" + encode(unsigned(publicKey.getModulus()))
+						+ "\",\"e\":\"" + encode(unsigned(publicKey.getPublicExponent())) + "\"}";
+			}
+			case ES256 -> {
+				KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+				generator.initialize(new ECGenParameterSpec("secp256r1"));
+				KeyPair keyPair = generator.generateKeyPair();
+				signature = sign(alg, keyPair, signingInput);
+				ECPublicKey publicKey = (ECPublicKey) keyPair.getPublic();
+				jwk = "{\"kty\":\"EC\",\"kid\":\"bench\",\"alg\":\"ES256\",\"crv\":\"P-256\",\"x\":\""
+						+ encode(unsigned(publicKey.getW().getAffineX())) + "\",\"y\":\""
+						+ encode(unsigned(publicKey.getW().getAffineY())) + "\"}";
+			}
+			default -> throw new IllegalArgumentException(algorithm);
+		}
+		JwkSet jwkSet = JwkSet.parse("{\"keys\":[" + jwk + "]}");
+		validator = new JwtTokenValidator(() -> jwkSet, "grpc-demo", "grpc-server", Duration.ofSeconds(30));
+		token = new String(signingInput, StandardCharsets.US_ASCII) + "." + encode(signature);
+		if (validator.validate(token) == null) {
+			throw new IllegalStateException("benchmark token does not verify: " + algorithm);
+		}
+	}
+
+	@Benchmark
+	public AuthPrincipal verify() {
+		return validator.validate(token);
+	}
+
+	private static byte[] sign(JwtAlgorithm alg, KeyPair keyPair, byte[] signingInput) throws Exception {
+		Signature signer = Signature.getInstance(alg.jcaName());
+		signer.initSign(keyPair.getPrivate());
+		signer.update(signingInput);
+		return signer.sign();
+	}
+
+	private static byte[] unsigned(BigInteger value) {
+		byte[] bytes = value.toByteArray();
+		return bytes[0] == 0 ? Arrays.copyOfRange(bytes, 1, bytes.length) : bytes;
+	}
+
+	private static String encode(byte[] bytes) {
+		return ENCODER.encodeToString(bytes);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(JwtVerificationBenchmark.class.getSimpleName())
+				.threads(1)
+				.resultFormat(ResultFormatType.CSV)
+				.result("jwt-verification-benchmark.csv")
+				.build()).run();
+	}
+}
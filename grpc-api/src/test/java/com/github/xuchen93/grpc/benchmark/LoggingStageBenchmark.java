@@ -0,0 +1,117 @@
+package com.github.xuchen93.grpc.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.accesslog.AccessLogSink;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainRules;
+import com.github.xuchen93.grpc.interceptor.chain.NamedInterceptor;
+import com.github.xuchen93.grpc.interceptor.logging.LoggingPolicy;
+import com.github.xuchen93.grpc.interceptor.pipeline.FusedServerPipeline;
+import com.github.xuchen93.grpc.interceptor.pipeline.LoggingStage;
+import com.github.xuchen93.grpc.interceptor.pipeline.ServerStage;
+import com.github.xuchen93.grpc.interceptor.util.GrpcCommonUtil;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 日志阶段消息渲染开销基准测试
+ * <ul>
+ *     <li>legacyRender：改造前每条消息都会执行的toString + 截断</li>
+ *     <li>boundedRender：改造后日志开启时的有界渲染</li>
+ *     <li>interceptUnary：只包含LoggingStage的融合流水线完整走一次一元调用（日志级别为WARN，消息不渲染）</li>
+ * </ul>
+ * nameLength为4194304（4MB）时检查单个大字段不会被完整转义，boundedRender的耗时和分配应与65536时相同
+ * 运行方式：在IDE中执行main方法，或 mvn -pl grpc-api test-compile 后用exec插件运行
+ * main方法开启GC分析器，结果（含每次调用分配的字节数gc.alloc.rate.norm）输出到 logging-stage-benchmark.csv；
+ * legacyRender与boundedRender即改造前后的对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LoggingStageBenchmark {
+
+	@Param({"16", "65536", "4194304"})
+	private int nameLength;
+
+	private HelloSimpleRequest request;
+	private HelloSimpleResponse response;
+	private ServerCallHandler<HelloSimpleRequest, HelloSimpleResponse> handler;
+
+	@Setup
+	public void setUp() {
+		((Logger) LoggerFactory.getLogger(LoggingStage.class)).setLevel(Level.WARN);
+		String name = "a".repeat(nameLength);
+		request = HelloSimpleRequest.newBuilder().setName(name).build();
+		response = HelloSimpleResponse.newBuilder().setMessage("Hello, " + name).build();
+		List<NamedInterceptor<ServerStage>> stages = List.of(
+				new NamedInterceptor<>("loggingStage", new LoggingStage(LoggingPolicy.logAll(), AccessLogSink.NOOP)));
+		FusedServerPipeline pipeline = new FusedServerPipeline(() -> stages, MethodChainRules.NONE);
+		ServerCallHandler<HelloSimpleRequest, HelloSimpleResponse> service = (call, headers) -> new ServerCall.Listener<>() {
+			@Override
+			public void onHalfClose() {
+				call.sendMessage(response);
+				call.close(Status.OK, new Metadata());
+			}
+		};
+		handler = (call, headers) -> pipeline.interceptCall(call, headers, service);
+	}
+
+	@Benchmark
+	public String legacyRender() {
+		String body = GrpcCommonUtil.trimChangeLine(request);
+		return body.length() <= 500 ? body : body.substring(0, 500) + "... (truncated, total " + body.length() + " chars)";
+	}
+
+	@Benchmark
+	public String boundedRender() {
+		return GrpcCommonUtil.renderBounded(request, 500);
+	}
+
+	@Benchmark
+	public void interceptUnary(Blackhole blackhole) {
+		ServerCall.Listener<HelloSimpleRequest> listener = handler.startCall(
+				new NoopServerCall<>(HelloSimpleServiceGrpc.getSayHelloMethod()), new Metadata());
+		listener.onMessage(request);
+		listener.onHalfClose();
+		listener.onComplete();
+		blackhole.consume(listener);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(LoggingStageBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.resultFormat(ResultFormatType.CSV)
+				.result("logging-stage-benchmark.csv")
+				.build()).run();
+	}
+}
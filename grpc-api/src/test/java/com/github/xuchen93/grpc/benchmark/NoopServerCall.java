@@ -0,0 +1,44 @@
+package com.github.xuchen93.grpc.benchmark;
+
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.Status;
+
+/**
+ * 基准测试用的空ServerCall，不做任何IO，只用于测量拦截器本身的开销
+ */
+class NoopServerCall<ReqT, RespT> extends ServerCall<ReqT, RespT> {
+
+	private final MethodDescriptor<ReqT, RespT> method;
+
+	NoopServerCall(MethodDescriptor<ReqT, RespT> method) {
+		this.method = method;
+	}
+
+	@Override
+	public void request(int numMessages) {
+	}
+
+	@Override
+	public void sendHeaders(Metadata headers) {
+	}
+
+	@Override
+	public void sendMessage(RespT message) {
+	}
+
+	@Override
+	public void close(Status status, Metadata trailers) {
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return false;
+	}
+
+	@Override
+	public MethodDescriptor<ReqT, RespT> getMethodDescriptor() {
+		return method;
+	}
+}
@@ -0,0 +1,114 @@
+package com.github.xuchen93.grpc.benchmark;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainRules;
+import com.github.xuchen93.grpc.interceptor.chain.NamedInterceptor;
+import com.github.xuchen93.grpc.interceptor.pipeline.FusedServerPipeline;
+import com.github.xuchen93.grpc.interceptor.pipeline.MetricsStage;
+import com.github.xuchen93.grpc.interceptor.pipeline.ServerStage;
+import com.github.xuchen93.grpc.interceptor.server.MetricsServerInterceptor;
+import com.github.xuchen93.grpc.metrics.GrpcMetricsRegistry;
+import io.grpc.Metadata;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 融合流水线与逐个拦截器的对比基准测试：一次完整的一元调用（请求、半关闭、响应、关闭、完成）
+ * <ul>
+ *     <li>interceptors：stages个MetricsServerInterceptor串成链，每个拦截器各自包装ServerCall和监听器</li>
+ *     <li>pipeline：一个FusedServerPipeline，包含stages个MetricsStage，共用一个调用包装和一个监听器</li>
+ * </ul>
+ * 两种方式记录相同的指标，差别只在调度结构；main中启用GC profiler，gc.alloc.rate.norm即每次调用的分配字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ServerPipelineBenchmark {
+
+	@Param({"1", "4", "8"})
+	private int stages;
+
+	@Param({"interceptors", "pipeline"})
+	private String mode;
+
+	private HelloSimpleRequest request;
+	private HelloSimpleResponse response;
+	private ServerCallHandler<HelloSimpleRequest, HelloSimpleResponse> handler;
+
+	@Setup
+	public void setUp() {
+		request = HelloSimpleRequest.newBuilder().setName("benchmark").build();
+		response = HelloSimpleResponse.newBuilder().setMessage("Hello, benchmark").build();
+		ServerCallHandler<HelloSimpleRequest, HelloSimpleResponse> service = (call, headers) -> new ServerCall.Listener<>() {
+			@Override
+			public void onHalfClose() {
+				call.sendMessage(response);
+				call.close(Status.OK, new Metadata());
+			}
+		};
+
+		// 每个阶段使用独立的registry，避免多个阶段写同一组计数器
+		if ("pipeline".equals(mode)) {
+			List<NamedInterceptor<ServerStage>> list = new ArrayList<>();
+			for (int i = 0; i < stages; i++) {
+				list.add(new NamedInterceptor<>("metricsStage" + i, new MetricsStage(new GrpcMetricsRegistry())));
+			}
+			handler = bind(new FusedServerPipeline(() -> list, MethodChainRules.NONE), service);
+		} else {
+			ServerCallHandler<HelloSimpleRequest, HelloSimpleResponse> current = service;
+			for (int i = 0; i < stages; i++) {
+				current = bind(new MetricsServerInterceptor(new GrpcMetricsRegistry()), current);
+			}
+			handler = current;
+		}
+	}
+
+	@Benchmark
+	public void unaryCall(Blackhole blackhole) {
+		ServerCall.Listener<HelloSimpleRequest> listener = handler.startCall(
+				new NoopServerCall<>(HelloSimpleServiceGrpc.getSayHelloMethod()), new Metadata());
+		listener.onMessage(request);
+		listener.onHalfClose();
+		listener.onComplete();
+		blackhole.consume(listener);
+	}
+
+	private static ServerCallHandler<HelloSimpleRequest, HelloSimpleResponse> bind(
+			ServerInterceptor interceptor, ServerCallHandler<HelloSimpleRequest, HelloSimpleResponse> next) {
+		return (call, headers) -> interceptor.interceptCall(call, headers, next);
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ServerPipelineBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
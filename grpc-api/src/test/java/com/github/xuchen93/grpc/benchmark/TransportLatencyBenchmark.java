@@ -0,0 +1,115 @@
+package com.github.xuchen93.grpc.benchmark;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.interceptor.client.SerializingClientInterceptor;
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.InsecureServerCredentials;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 同一JVM中客户端调用服务端的传输方式对比：一次阻塞的sayHello一元调用的延迟分布
+ * <ul>
+ *     <li>tcp：Netty服务端监听本机随机端口，经过HTTP/2分帧、回环网络和protobuf序列化</li>
+ *     <li>in-process：进程内传输，消息仍完整序列化和解析（SerializingClientInterceptor）</li>
+ *     <li>in-process-reference：进程内传输，服务端直接拿到客户端构建的消息对象，不序列化</li>
+ * </ul>
+ * 三种方式都使用默认的调用线程池，差别只在传输层；payloadBytes为请求中name的长度，响应大小与之相当
+ * main中启用GC profiler，gc.alloc.rate.norm即每次调用的分配字节数
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransportLatencyBenchmark {
+
+	@Param({"tcp", "in-process", "in-process-reference"})
+	private String transport;
+
+	@Param({"16", "16384"})
+	private int payloadBytes;
+
+	private Server server;
+	private ManagedChannel channel;
+	private HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub;
+	private HelloSimpleRequest request;
+
+	@Setup
+	public void setUp() throws IOException {
+		HelloService service = new HelloService();
+		if ("tcp".equals(transport)) {
+			server = Grpc.newServerBuilderForPort(0, InsecureServerCredentials.create())
+					.addService(service)
+					.build()
+					.start();
+			channel = Grpc.newChannelBuilderForAddress("localhost", server.getPort(), InsecureChannelCredentials.create())
+					.build();
+		} else {
+			String name = InProcessServerBuilder.generateName();
+			server = InProcessServerBuilder.forName(name)
+					.addService(service)
+					.build()
+					.start();
+			InProcessChannelBuilder builder = InProcessChannelBuilder.forName(name);
+			if ("in-process".equals(transport)) {
+				builder.intercept(new SerializingClientInterceptor());
+			}
+			channel = builder.build();
+		}
+		stub = HelloSimpleServiceGrpc.newBlockingStub(channel);
+		request = HelloSimpleRequest.newBuilder().setName("x".repeat(payloadBytes)).build();
+	}
+
+	@TearDown
+	public void tearDown() throws InterruptedException {
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Benchmark
+	public HelloSimpleResponse sayHello() {
+		return stub.sayHello(request);
+	}
+
+	private static final class HelloService extends HelloSimpleServiceGrpc.HelloSimpleServiceImplBase {
+		@Override
+		public void sayHello(HelloSimpleRequest request, StreamObserver<HelloSimpleResponse> responseObserver) {
+			responseObserver.onNext(HelloSimpleResponse.newBuilder().setMessage("Hello, " + request.getName()).build());
+			responseObserver.onCompleted();
+		}
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(TransportLatencyBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
@@ -0,0 +1,226 @@
+package com.github.xuchen93.grpc.channel;
+
+import io.grpc.CallOptions;
+import io.grpc.ClientCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import io.grpc.stub.ClientCalls;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Channel池的扩容上限、start时才占用计数，以及并发选择与缩容时不会把调用分配到已关闭的连接
+ * Health/Watch在服务端保持打开，用来占住连接上的流
+ */
+class ChannelPoolTests {
+
+	private static final HealthCheckRequest REQUEST = HealthCheckRequest.getDefaultInstance();
+
+	private final List<ManagedChannel> created = new CopyOnWriteArrayList<>();
+	private Server server;
+	private String name;
+	private ChannelPool pool;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		name = InProcessServerBuilder.generateName();
+		server = InProcessServerBuilder.forName(name)
+				.addService(new HealthStatusManager().getHealthService())
+				.build()
+				.start();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		if (pool != null) {
+			pool.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		}
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void growsUpToMaxSizeUnderConcurrentLoad() throws Exception {
+		pool = newPool(1, 3, 2, Duration.ofMinutes(1));
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		List<ClientCall<HealthCheckRequest, HealthCheckResponse>> watches = new CopyOnWriteArrayList<>();
+		try {
+			CountDownLatch ready = new CountDownLatch(1);
+			List<Future<?>> futures = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				futures.add(executor.submit(() -> {
+					ready.await();
+					watches.add(watch());
+					return null;
+				}));
+			}
+			ready.countDown();
+			for (Future<?> future : futures) {
+				future.get(5, TimeUnit.SECONDS);
+			}
+			assertEquals(3, pool.size());
+			assertEquals(3, created.size());
+			assertEquals(10, pool.activeStreams());
+		} finally {
+			executor.shutdownNow();
+			watches.forEach(call -> call.cancel("done", null));
+		}
+		awaitTrue(() -> pool.activeStreams() == 0);
+	}
+
+	@Test
+	void startedCallHoldsStreamUntilClosedOrCancelled() throws Exception {
+		pool = newPool(1, 1, 10, Duration.ofMinutes(1));
+		// 创建后从未start的调用不占用计数
+		for (int i = 0; i < 20; i++) {
+			pool.newCall(HealthGrpc.getCheckMethod(), CallOptions.DEFAULT);
+		}
+		assertEquals(0, pool.activeStreams());
+
+		ClientCall<HealthCheckRequest, HealthCheckResponse> call = watch();
+		assertEquals(1, pool.activeStreams());
+		call.cancel("not needed", null);
+		awaitTrue(() -> pool.activeStreams() == 0);
+
+		call = pool.newCall(HealthGrpc.getCheckMethod(), CallOptions.DEFAULT);
+		assertEquals(HealthCheckResponse.ServingStatus.SERVING,
+				ClientCalls.futureUnaryCall(call, REQUEST).get(5, TimeUnit.SECONDS).getStatus());
+		awaitTrue(() -> pool.activeStreams() == 0);
+	}
+
+	@Test
+	void cancelledBeforeStartCannotStart() {
+		pool = newPool(1, 1, 10, Duration.ofMinutes(1));
+		ClientCall<HealthCheckRequest, HealthCheckResponse> call = pool.newCall(HealthGrpc.getCheckMethod(), CallOptions.DEFAULT);
+		call.cancel("not needed", null);
+
+		assertThrows(IllegalStateException.class, () -> ClientCalls.futureUnaryCall(call, REQUEST));
+		assertEquals(0, pool.activeStreams());
+		assertEquals(1, pool.size());
+	}
+
+	@Test
+	void growsOnlyWhenSaturatedCallStarts() throws Exception {
+		pool = newPool(1, 2, 4, Duration.ZERO);
+		List<ClientCall<HealthCheckRequest, HealthCheckResponse>> watches = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			watches.add(watch());
+		}
+		// 第一条连接已饱和，创建调用不扩容，start时才扩容出第二条连接
+		ClientCall<HealthCheckRequest, HealthCheckResponse> pending = pool.newCall(HealthGrpc.getCheckMethod(), CallOptions.DEFAULT);
+		assertEquals(1, pool.size());
+		assertEquals(4, pool.activeStreams());
+		watches.add(watch());
+		assertEquals(2, pool.size());
+		for (int i = 1; i < 4; i++) {
+			watches.get(i).cancel("done", null);
+		}
+		awaitTrue(() -> pool.activeStreams() == 2);
+
+		pool.shrink();
+		assertEquals(2, pool.size());
+		assertEquals(HealthCheckResponse.ServingStatus.SERVING,
+				ClientCalls.futureUnaryCall(pending, REQUEST).get(5, TimeUnit.SECONDS).getStatus());
+		watches.get(0).cancel("done", null);
+		watches.get(4).cancel("done", null);
+		awaitTrue(() -> pool.activeStreams() == 0);
+
+		// 空闲后回收到minSize
+		pool.shrink();
+		assertEquals(1, pool.size());
+	}
+
+	@Test
+	void concurrentSelectAndShrinkNeverUseClosedConnection() throws Exception {
+		pool = newPool(1, 4, 1, Duration.ZERO);
+		HealthGrpc.HealthBlockingStub stub = HealthGrpc.newBlockingStub(pool);
+		ExecutorService executor = Executors.newFixedThreadPool(9);
+		AtomicBoolean running = new AtomicBoolean(true);
+		try {
+			Future<?> shrinker = executor.submit(() -> {
+				while (running.get()) {
+					pool.shrink();
+				}
+			});
+			List<Future<?>> callers = new ArrayList<>();
+			for (int t = 0; t < 8; t++) {
+				callers.add(executor.submit(() -> {
+					for (int i = 0; i < 200; i++) {
+						// 连接被提前关闭时这里会抛出UNAVAILABLE
+						stub.withDeadlineAfter(5, TimeUnit.SECONDS).check(REQUEST);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> caller : callers) {
+				caller.get(30, TimeUnit.SECONDS);
+			}
+			running.set(false);
+			shrinker.get(5, TimeUnit.SECONDS);
+		} finally {
+			running.set(false);
+			executor.shutdownNow();
+		}
+		awaitTrue(() -> pool.activeStreams() == 0);
+		assertTrue(pool.size() >= 1 && pool.size() <= 4);
+		pool.shrink();
+		assertEquals(1, pool.size());
+	}
+
+	private ChannelPool newPool(int minSize, int maxSize, int maxStreamsPerConnection, Duration idleTimeout) {
+		return new ChannelPool(() -> {
+			ManagedChannel channel = InProcessChannelBuilder.forName(name).build();
+			created.add(channel);
+			return channel;
+		}, minSize, maxSize, maxStreamsPerConnection, idleTimeout);
+	}
+
+	private ClientCall<HealthCheckRequest, HealthCheckResponse> watch() {
+		ClientCall<HealthCheckRequest, HealthCheckResponse> call = pool.newCall(HealthGrpc.getWatchMethod(), CallOptions.DEFAULT);
+		ClientCalls.asyncServerStreamingCall(call, REQUEST, new StreamObserver<>() {
+			@Override
+			public void onNext(HealthCheckResponse value) {
+			}
+
+			@Override
+			public void onError(Throwable t) {
+			}
+
+			@Override
+			public void onCompleted() {
+			}
+		});
+		return call;
+	}
+
+	private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertTrue(condition.getAsBoolean());
+	}
+}
@@ -0,0 +1,88 @@
+package com.github.xuchen93.grpc.context;
+
+import com.github.xuchen93.grpc.auth.AuthPrincipal;
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.trace.TraceContext;
+import io.grpc.Context;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.MDC;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 请求上下文按任务跨线程传递：复用的线程池线程执行每个任务时看到的是提交该任务时的上下文，任务结束后不残留
+ */
+class RequestContextPropagationTests {
+
+	private final ExecutorService pool = RequestContextPropagation.wrap(Executors.newSingleThreadExecutor());
+
+	@AfterEach
+	void tearDown() throws Exception {
+		pool.shutdownNow();
+		pool.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void reusedThreadSeesContextOfEachSubmittedTask() throws Exception {
+		RequestContext alice = requestContext("alice");
+		RequestContext bob = requestContext("bob");
+
+		// 同一个线程依次执行两个不同请求提交的任务
+		assertEquals("alice/alice", submitIn(alice, () -> RequestContext.current().subject() + "/" + MDC.get(RequestContextPropagation.MDC_USER)));
+		assertEquals("bob/bob", submitIn(bob, () -> RequestContext.current().subject() + "/" + MDC.get(RequestContextPropagation.MDC_USER)));
+		assertEquals(bob.traceId(), submitIn(bob, () -> MDC.get(RequestContextPropagation.MDC_TRACE_ID)));
+
+		// 不在请求中提交的任务看不到之前请求的上下文
+		assertNull(pool.submit(RequestContext::current).get(5, TimeUnit.SECONDS));
+		assertNull(pool.submit(() -> MDC.get(RequestContextPropagation.MDC_USER)).get(5, TimeUnit.SECONDS));
+	}
+
+	@Test
+	void invokeAllWrapsEveryTask() throws Exception {
+		RequestContext carol = requestContext("carol");
+		Context context = Context.current().withValue(InterceptorKeys.REQUEST_CONTEXT_KEY, carol);
+		List<Callable<RequestContext>> tasks = List.of(RequestContext::current, RequestContext::current);
+		List<Future<RequestContext>> results = context.call(() -> pool.invokeAll(tasks));
+		for (Future<RequestContext> result : results) {
+			assertSame(carol, result.get(5, TimeUnit.SECONDS));
+		}
+		assertSame(pool, RequestContextPropagation.wrap(pool));
+	}
+
+	@Test
+	void restoresCallerMdcWhenRunningOnSameThread() throws Exception {
+		MDC.put(RequestContextPropagation.MDC_USER, "caller");
+		try {
+			Context context = Context.current().withValue(InterceptorKeys.REQUEST_CONTEXT_KEY, requestContext("dave"));
+			Runnable task = context.call(() -> RequestContextPropagation.wrap((Runnable) () ->
+					assertEquals("dave", MDC.get(RequestContextPropagation.MDC_USER))));
+			// 同线程执行（如directExecutor）结束后恢复调用方原有的MDC
+			task.run();
+			assertEquals("caller", MDC.get(RequestContextPropagation.MDC_USER));
+		} finally {
+			MDC.remove(RequestContextPropagation.MDC_USER);
+		}
+	}
+
+	private <T> T submitIn(RequestContext requestContext, Callable<T> task) throws Exception {
+		Context context = Context.current().withValue(InterceptorKeys.REQUEST_CONTEXT_KEY, requestContext);
+		return context.call(() -> pool.submit(task)).get(5, TimeUnit.SECONDS);
+	}
+
+	private static RequestContext requestContext(String subject) {
+		return new RequestContext(TraceContext.newRoot(),
+				new AuthPrincipal(subject, "token-" + subject, AuthPrincipal.NEVER_EXPIRES, Map.of()),
+				RequestContext.DEFAULT_PRIORITY, null);
+	}
+}
@@ -0,0 +1,115 @@
+package com.github.xuchen93.grpc.exception;
+
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import io.grpc.Metadata;
+import io.grpc.Status;
+import io.grpc.StatusException;
+import io.grpc.StatusRuntimeException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 异常到状态的映射：默认规则、按类型注册（子类匹配最近的父类）、@GrpcExceptionHandler方法
+ */
+class ExceptionStatusMapperTests {
+
+	private static final GrpcError NOT_FOUND = GrpcError.of(Status.Code.NOT_FOUND, "USER_NOT_FOUND", "User not found");
+	private static final String METHOD = "test.Service/Method";
+
+	@Test
+	void defaultRules() {
+		ExceptionStatusMapper mapper = new ExceptionStatusMapper();
+
+		GrpcError business = mapper.map(NOT_FOUND.exception(), METHOD);
+		assertSame(NOT_FOUND, business);
+		assertEquals("USER_NOT_FOUND", business.trailers().get(InterceptorKeys.ERROR_CODE_KEY));
+
+		Metadata trailers = new Metadata();
+		trailers.put(InterceptorKeys.ERROR_CODE_KEY, "QUOTA");
+		GrpcError status = mapper.map(Status.RESOURCE_EXHAUSTED.withDescription("quota").asRuntimeException(trailers), METHOD);
+		assertEquals(Status.Code.RESOURCE_EXHAUSTED, status.status().getCode());
+		assertEquals("quota", status.status().getDescription());
+		assertEquals("QUOTA", status.errorCode());
+
+		GrpcError checked = mapper.map(new StatusException(Status.PERMISSION_DENIED), METHOD);
+		assertEquals(Status.Code.PERMISSION_DENIED, checked.status().getCode());
+
+		// 未知异常不暴露内部信息
+		GrpcError internal = mapper.map(new IllegalStateException("secret detail"), METHOD);
+		assertSame(ExceptionStatusMapper.INTERNAL_ERROR, internal);
+	}
+
+	@Test
+	void registeredHandlersMatchNearestSuperclass() {
+		ExceptionStatusMapper mapper = new ExceptionStatusMapper()
+				.register(RuntimeException.class, GrpcError.of(Status.UNAVAILABLE))
+				.register(IllegalArgumentException.class, e -> Status.INVALID_ARGUMENT.withDescription(e.getMessage()));
+
+		GrpcError argument = mapper.map(new NumberFormatException("bad number"), METHOD);
+		assertEquals(Status.Code.INVALID_ARGUMENT, argument.status().getCode());
+		assertEquals("bad number", argument.status().getDescription());
+		assertEquals(Status.Code.UNAVAILABLE, mapper.map(new IllegalStateException(), METHOD).status().getCode());
+		// 注册的处理器覆盖默认规则
+		assertEquals(Status.Code.UNAVAILABLE, mapper.map(NOT_FOUND.exception(), METHOD).status().getCode());
+		// 没有匹配的处理器时仍走默认规则
+		assertSame(ExceptionStatusMapper.INTERNAL_ERROR, mapper.map(new IOException(), METHOD));
+	}
+
+	@Test
+	void handlerReturningNullFallsBackToDefault() {
+		ExceptionStatusMapper mapper = new ExceptionStatusMapper()
+				.register(BusinessException.class, e -> null);
+		assertSame(NOT_FOUND, mapper.map(NOT_FOUND.exception(), METHOD));
+	}
+
+	@Test
+	void registersAdviceMethods() {
+		ExceptionStatusMapper mapper = new ExceptionStatusMapper().registerAdvice(new Advice());
+
+		GrpcError argument = mapper.map(new IllegalArgumentException("name is empty"), METHOD);
+		assertEquals(Status.Code.INVALID_ARGUMENT, argument.status().getCode());
+		assertEquals("name is empty", argument.status().getDescription());
+		assertSame(NOT_FOUND, mapper.map(new UncheckedIOException(new IOException()), METHOD));
+		assertSame(NOT_FOUND, mapper.map(new UnsupportedOperationException(), METHOD));
+		// 处理方法自身抛出异常时为INTERNAL
+		assertSame(ExceptionStatusMapper.INTERNAL_ERROR, mapper.map(new ArithmeticException(), METHOD));
+
+		assertThrows(IllegalStateException.class, () -> mapper.registerAdvice(new Advice()));
+	}
+
+	@Test
+	void toStatusExceptionKeepsUnmappedStatusException() {
+		ExceptionStatusMapper mapper = new ExceptionStatusMapper();
+		StatusRuntimeException original = Status.ABORTED.asRuntimeException();
+		assertSame(original, mapper.toStatusException(original, METHOD));
+
+		StatusRuntimeException mapped = mapper.toStatusException(NOT_FOUND.exception(), METHOD);
+		assertEquals(Status.Code.NOT_FOUND, mapped.getStatus().getCode());
+		assertEquals("USER_NOT_FOUND", mapped.getTrailers().get(InterceptorKeys.ERROR_CODE_KEY));
+		assertEquals(0, mapped.getStackTrace().length);
+	}
+
+	static class Advice {
+
+		@GrpcExceptionHandler
+		public Status invalidArgument(IllegalArgumentException e) {
+			return Status.INVALID_ARGUMENT.withDescription(e.getMessage());
+		}
+
+		@GrpcExceptionHandler({UncheckedIOException.class, UnsupportedOperationException.class})
+		public GrpcError notFound(RuntimeException e) {
+			return NOT_FOUND;
+		}
+
+		@GrpcExceptionHandler
+		public GrpcError failing(ArithmeticException e) {
+			throw new IllegalStateException("handler failed");
+		}
+	}
+}
@@ -0,0 +1,311 @@
+package com.github.xuchen93.grpc.interceptor.client;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.auth.BearerTokenCredentials;
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptors;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 客户端响应缓存：命中、按认证信息区分、并发未命中合并、过期与后台刷新、按最近最少使用淘汰、监听器回调的串行，
+ * 以及deadline定时器的取消和没有请求消息的调用
+ * 服务端响应中带有调用序号，用于区分缓存结果和新结果
+ */
+class CachingClientInterceptorTests {
+
+	private static final String SAY_HELLO = HelloSimpleServiceGrpc.getSayHelloMethod().getFullMethodName();
+
+	private final AtomicInteger calls = new AtomicInteger();
+	private final List<String> authorizations = new CopyOnWriteArrayList<>();
+	private volatile CountDownLatch gate;
+	private Server server;
+	private ManagedChannel channel;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		AuthClientInterceptor.clearToken();
+		if (gate != null) {
+			gate.countDown();
+		}
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void servesRepeatedRequestsFromCache() throws Exception {
+		CachingClientInterceptor cache = new CachingClientInterceptor(Map.of(SAY_HELLO, Duration.ofMinutes(1)), Duration.ZERO, 100);
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(start(cache));
+
+		assertEquals("Hello, xu #1", stub.sayHello(request("xu")).getMessage());
+		assertEquals("Hello, xu #1", stub.sayHello(request("xu")).getMessage());
+		assertEquals("Hello, chen #2", stub.sayHello(request("chen")).getMessage());
+		assertEquals(2, calls.get());
+		assertEquals(2, cache.size());
+
+		cache.invalidateAll();
+		assertEquals("Hello, xu #3", stub.sayHello(request("xu")).getMessage());
+	}
+
+	@Test
+	void separatesCallersByAuthentication() throws Exception {
+		CachingClientInterceptor cache = new CachingClientInterceptor(Map.of(SAY_HELLO, Duration.ofMinutes(1)), Duration.ZERO, 100);
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(start(cache));
+
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub alice = stub.withCallCredentials(new BearerTokenCredentials("alice"));
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub bob = stub.withOption(InterceptorKeys.AUTH_TOKEN_CALL_OPTION, "bob");
+		assertEquals("Hello, xu #1", alice.sayHello(request("xu")).getMessage());
+		assertEquals("Hello, xu #2", bob.sayHello(request("xu")).getMessage());
+		assertEquals("Hello, xu #1", alice.sayHello(request("xu")).getMessage());
+		assertEquals("Hello, xu #2", bob.sayHello(request("xu")).getMessage());
+
+		AuthClientInterceptor.setToken("carol");
+		assertEquals("Hello, xu #3", stub.sayHello(request("xu")).getMessage());
+		assertEquals("Hello, xu #3", stub.sayHello(request("xu")).getMessage());
+		AuthClientInterceptor.clearToken();
+		assertEquals("Hello, xu #4", stub.sayHello(request("xu")).getMessage());
+
+		// 真实调用使用Key中的凭证
+		assertEquals(List.of("Bearer alice", "Bearer bob", "Bearer carol", ""), authorizations);
+	}
+
+	@Test
+	void coalescesConcurrentMissesIndependentlyOfCallers() throws Exception {
+		CachingClientInterceptor cache = new CachingClientInterceptor(Map.of(SAY_HELLO, Duration.ofMinutes(1)), Duration.ZERO, 100);
+		HelloSimpleServiceGrpc.HelloSimpleServiceFutureStub stub = HelloSimpleServiceGrpc.newFutureStub(start(cache));
+		gate = new CountDownLatch(1);
+
+		// 第一个调用方的deadline很短，发起真实调用后被取消，不影响其他等待方
+		ListenableFuture<HelloSimpleResponse> first = stub.withDeadlineAfter(100, TimeUnit.MILLISECONDS).sayHello(request("xu"));
+		List<ListenableFuture<HelloSimpleResponse>> waiters = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			waiters.add(stub.sayHello(request("xu")));
+		}
+		ListenableFuture<HelloSimpleResponse> cancelled = stub.sayHello(request("xu"));
+		cancelled.cancel(true);
+
+		ExecutionException e = assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+		assertEquals(Status.Code.DEADLINE_EXCEEDED, assertInstanceOf(StatusRuntimeException.class, e.getCause()).getStatus().getCode());
+		assertTrue(cancelled.isCancelled());
+
+		gate.countDown();
+		for (ListenableFuture<HelloSimpleResponse> waiter : waiters) {
+			assertEquals("Hello, xu #1", waiter.get(5, TimeUnit.SECONDS).getMessage());
+		}
+		assertEquals(1, calls.get());
+		assertEquals(1, cache.size());
+	}
+
+	@Test
+	void expiresEntriesAndRevalidatesInBackground() throws Exception {
+		CachingClientInterceptor expiring = new CachingClientInterceptor(Map.of(SAY_HELLO, Duration.ofMillis(50)), Duration.ZERO, 100);
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(start(expiring));
+		assertEquals("Hello, xu #1", stub.sayHello(request("xu")).getMessage());
+		Thread.sleep(100);
+		assertEquals("Hello, xu #2", stub.sayHello(request("xu")).getMessage());
+
+		CachingClientInterceptor stale = new CachingClientInterceptor(Map.of(SAY_HELLO, Duration.ofMillis(200)), Duration.ofMinutes(1), 100);
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub staleStub = HelloSimpleServiceGrpc.newBlockingStub(
+				ClientInterceptors.intercept(channel, stale));
+		assertEquals("Hello, chen #3", staleStub.sayHello(request("chen")).getMessage());
+		Thread.sleep(300);
+		// 过期但在staleWhileRevalidate窗口内：返回旧值，后台刷新；刷新完成前的调用方不会再发起真实调用
+		String message = staleStub.sayHello(request("chen")).getMessage();
+		assertEquals("Hello, chen #3", message);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (message.endsWith("#3") && System.nanoTime() < deadline) {
+			Thread.sleep(5);
+			message = staleStub.sayHello(request("chen")).getMessage();
+		}
+		assertEquals("Hello, chen #4", message);
+		assertEquals(4, calls.get());
+	}
+
+	@Test
+	void evictsLeastRecentlyUsedEntry() throws Exception {
+		CachingClientInterceptor cache = new CachingClientInterceptor(Map.of(SAY_HELLO, Duration.ofMinutes(1)), Duration.ZERO, 2);
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(start(cache));
+
+		assertEquals("Hello, a #1", stub.sayHello(request("a")).getMessage());
+		assertEquals("Hello, b #2", stub.sayHello(request("b")).getMessage());
+		// 访问a后，b成为最久未使用的条目
+		assertEquals("Hello, a #1", stub.sayHello(request("a")).getMessage());
+		assertEquals("Hello, c #3", stub.sayHello(request("c")).getMessage());
+		assertEquals(2, cache.size());
+
+		assertEquals("Hello, a #1", stub.sayHello(request("a")).getMessage());
+		assertEquals("Hello, c #3", stub.sayHello(request("c")).getMessage());
+		assertEquals("Hello, b #4", stub.sayHello(request("b")).getMessage());
+	}
+
+	@Test
+	void neverCallsListenerAfterClose() throws Exception {
+		CachingClientInterceptor cache = new CachingClientInterceptor(Map.of(SAY_HELLO, Duration.ofMinutes(1)), Duration.ZERO, 1000);
+		Channel cached = start(cache);
+		List<String> violations = new CopyOnWriteArrayList<>();
+		List<CountDownLatch> closes = new ArrayList<>();
+
+		// 没有Executor时结果在真实调用的线程上投递，deadline在定时器线程上到期，两者与结果几乎同时发生
+		for (int i = 0; i < 300; i++) {
+			CountDownLatch closed = new CountDownLatch(1);
+			closes.add(closed);
+			ClientCall<HelloSimpleRequest, HelloSimpleResponse> call = cached.newCall(HelloSimpleServiceGrpc.getSayHelloMethod(),
+					CallOptions.DEFAULT.withDeadlineAfter(i % 3, TimeUnit.MILLISECONDS));
+			call.start(new ClientCall.Listener<>() {
+				private final AtomicInteger active = new AtomicInteger();
+				private volatile boolean done;
+
+				@Override
+				public void onMessage(HelloSimpleResponse message) {
+					enter("onMessage");
+					try {
+						// 放大与onClose重叠的窗口
+						Thread.sleep(1);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+					}
+					active.decrementAndGet();
+				}
+
+				@Override
+				public void onClose(Status status, Metadata trailers) {
+					enter("onClose");
+					done = true;
+					active.decrementAndGet();
+					closed.countDown();
+				}
+
+				private void enter(String callback) {
+					if (done) {
+						violations.add(callback + " after onClose");
+					}
+					if (active.incrementAndGet() > 1) {
+						violations.add(callback + " concurrent with another callback");
+					}
+				}
+			}, new Metadata());
+			call.request(1);
+			call.sendMessage(request("race-" + i));
+			call.halfClose();
+		}
+
+		for (CountDownLatch closed : closes) {
+			assertTrue(closed.await(5, TimeUnit.SECONDS));
+		}
+		Thread.sleep(50);
+		assertEquals(List.of(), violations);
+	}
+
+	@Test
+	void cancelsDeadlineTimersWhenCallsComplete() throws Exception {
+		CachingClientInterceptor cache = new CachingClientInterceptor(Map.of(SAY_HELLO, Duration.ofMinutes(1)), Duration.ZERO, 1000);
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(start(cache));
+
+		// 每个未命中的调用方都等待共享结果，deadline远在调用结束之后
+		for (int i = 0; i < 100; i++) {
+			stub.withDeadlineAfter(1, TimeUnit.HOURS).sayHello(request("timer-" + i));
+		}
+
+		assertEquals(100, calls.get());
+		assertEquals(0, CachingClientInterceptor.pendingDeadlineTimers());
+	}
+
+	@Test
+	void passesHalfCloseWithoutMessageToRealCall() throws Exception {
+		CachingClientInterceptor cache = new CachingClientInterceptor(Map.of(SAY_HELLO, Duration.ofMinutes(1)), Duration.ZERO, 100);
+		Channel cached = start(cache);
+		CompletableFuture<Status> closed = new CompletableFuture<>();
+
+		ClientCall<HelloSimpleRequest, HelloSimpleResponse> call = cached.newCall(HelloSimpleServiceGrpc.getSayHelloMethod(),
+				CallOptions.DEFAULT.withDeadlineAfter(5, TimeUnit.SECONDS));
+		call.start(new ClientCall.Listener<>() {
+			@Override
+			public void onClose(Status status, Metadata trailers) {
+				closed.complete(status);
+			}
+		}, new Metadata());
+		call.request(1);
+		call.halfClose();
+
+		// 由服务端拒绝缺少请求的一元调用，服务方法不会执行，也不写入缓存
+		assertEquals(Status.Code.INTERNAL, closed.get(5, TimeUnit.SECONDS).getCode());
+		assertEquals(List.of(""), authorizations);
+		assertEquals(0, calls.get());
+		assertEquals(0, cache.size());
+	}
+
+	private Channel start(CachingClientInterceptor cache) throws Exception {
+		String name = InProcessServerBuilder.generateName();
+		ServerInterceptor recordAuthorization = new ServerInterceptor() {
+			@Override
+			public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+																		 ServerCallHandler<ReqT, RespT> next) {
+				String authorization = headers.get(InterceptorKeys.AUTHORIZATION_KEY);
+				authorizations.add(authorization != null ? authorization : "");
+				return next.startCall(call, headers);
+			}
+		};
+		server = InProcessServerBuilder.forName(name)
+				.addService(ServerInterceptors.intercept(new CountingHelloService(), recordAuthorization))
+				.build()
+				.start();
+		channel = InProcessChannelBuilder.forName(name).build();
+		// 与客户端配置相同的顺序：缓存在外层，认证在内层
+		return ClientInterceptors.intercept(channel, new AuthClientInterceptor(), cache);
+	}
+
+	private static HelloSimpleRequest request(String name) {
+		return HelloSimpleRequest.newBuilder().setName(name).build();
+	}
+
+	private final class CountingHelloService extends HelloSimpleServiceGrpc.HelloSimpleServiceImplBase {
+		@Override
+		public void sayHello(HelloSimpleRequest request, StreamObserver<HelloSimpleResponse> responseObserver) {
+			int call = calls.incrementAndGet();
+			CountDownLatch current = gate;
+			if (current != null) {
+				try {
+					current.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+			responseObserver.onNext(HelloSimpleResponse.newBuilder().setMessage("Hello, " + request.getName() + " #" + call).build());
+			responseObserver.onCompleted();
+		}
+	}
+}
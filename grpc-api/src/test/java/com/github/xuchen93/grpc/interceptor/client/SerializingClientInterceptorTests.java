@@ -0,0 +1,62 @@
+package com.github.xuchen93.grpc.interceptor.client;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+
+/**
+ * 强制序列化拦截器：进程内调用的两端拿到的都是解析出的新消息，内容与发送方一致
+ */
+class SerializingClientInterceptorTests {
+
+	private Server server;
+	private ManagedChannel channel;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void copiesMessagesInBothDirections() throws Exception {
+		AtomicReference<HelloSimpleRequest> received = new AtomicReference<>();
+		HelloSimpleResponse response = HelloSimpleResponse.newBuilder().setMessage("Hello, " + "x".repeat(16384)).build();
+		String name = InProcessServerBuilder.generateName();
+		server = InProcessServerBuilder.forName(name)
+				.addService(new HelloSimpleServiceGrpc.HelloSimpleServiceImplBase() {
+					@Override
+					public void sayHello(HelloSimpleRequest request, StreamObserver<HelloSimpleResponse> responseObserver) {
+						received.set(request);
+						responseObserver.onNext(response);
+						responseObserver.onCompleted();
+					}
+				})
+				.build()
+				.start();
+		channel = InProcessChannelBuilder.forName(name)
+				.intercept(new SerializingClientInterceptor())
+				.build();
+
+		HelloSimpleRequest request = HelloSimpleRequest.newBuilder().setName("x".repeat(16384)).build();
+		HelloSimpleResponse reply = HelloSimpleServiceGrpc.newBlockingStub(channel).sayHello(request);
+
+		assertEquals(request, received.get());
+		assertNotSame(request, received.get());
+		assertEquals(response, reply);
+		assertNotSame(response, reply);
+	}
+}
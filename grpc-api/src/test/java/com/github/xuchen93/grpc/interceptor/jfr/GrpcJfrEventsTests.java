@@ -0,0 +1,123 @@
+package com.github.xuchen93.grpc.interceptor.jfr;
+
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.interceptor.client.AuthClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.client.JfrClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.server.AuthServerInterceptor;
+import com.github.xuchen93.grpc.interceptor.server.JfrServerInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 使用内置的grpc.jfc录制一次被拒绝的调用和一次成功的调用，再读回录制文件检查事件
+ */
+@Slf4j
+class GrpcJfrEventsTests {
+
+	private Server server;
+	private ManagedChannel channel;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		String name = InProcessServerBuilder.generateName();
+		// 空白名单，Health/Check也需要认证；JfrServerInterceptor在最外层
+		server = InProcessServerBuilder.forName(name)
+				.addService(ServerInterceptors.intercept(new HealthStatusManager().getHealthService(),
+						new AuthServerInterceptor(Set.of()), new JfrServerInterceptor()))
+				.build()
+				.start();
+		channel = InProcessChannelBuilder.forName(name)
+				.intercept(new JfrClientInterceptor(), new AuthClientInterceptor())
+				.build();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void recordingContainsGrpcEvents() throws Exception {
+		Path file = Files.createTempFile("grpc-events", ".jfr");
+		Configuration configuration;
+		try (Reader reader = new InputStreamReader(GrpcJfr.class.getResourceAsStream(GrpcJfr.PROFILE_RESOURCE), StandardCharsets.UTF_8)) {
+			configuration = Configuration.create(reader);
+		}
+
+		try (Recording recording = new Recording(configuration)) {
+			// 配置中默认关闭的消息事件在测试中打开
+			recording.enable(GrpcStreamMessageEvent.class);
+			recording.start();
+
+			HealthGrpc.HealthBlockingStub stub = HealthGrpc.newBlockingStub(channel);
+			assertThrows(StatusRuntimeException.class, () -> stub.check(HealthCheckRequest.getDefaultInstance()));
+			stub.withOption(InterceptorKeys.AUTH_TOKEN_CALL_OPTION, "valid_token")
+					.check(HealthCheckRequest.getDefaultInstance());
+
+			recording.stop();
+			recording.dump(file);
+		}
+
+		List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+		Files.deleteIfExists(file);
+		Map<String, List<RecordedEvent>> byType = events.stream()
+				.filter(e -> e.getEventType().getName().startsWith("com.github.xuchen93.grpc."))
+				.collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+		log.info("录制到的gRPC事件: {}", byType.keySet());
+
+		List<RecordedEvent> calls = byType.getOrDefault("com.github.xuchen93.grpc.Call", List.of());
+		assertEquals(4, calls.size(), "服务端和客户端各两次调用");
+		for (RecordedEvent call : calls) {
+			assertEquals("grpc.health.v1.Health/Check", call.getString("method"));
+			assertFalse(call.getDuration().isNegative());
+		}
+		assertTrue(calls.stream().anyMatch(e -> "server".equals(e.getString("side"))
+				&& "UNAUTHENTICATED".equals(e.getString("status"))));
+		assertTrue(calls.stream().anyMatch(e -> "client".equals(e.getString("side"))
+				&& "OK".equals(e.getString("status"))
+				&& e.getInt("responseMessages") == 1));
+
+		List<RecordedEvent> rejected = byType.getOrDefault("com.github.xuchen93.grpc.AuthRejected", List.of());
+		assertEquals(1, rejected.size());
+		assertEquals("Missing Authorization header", rejected.get(0).getString("reason"));
+
+		List<RecordedEvent> checks = byType.getOrDefault("com.github.xuchen93.grpc.AuthCheck", List.of());
+		assertEquals(Set.of("rejected", "accepted"),
+				checks.stream().map(e -> e.getString("outcome")).collect(Collectors.toSet()));
+
+		// 成功的调用两端各收发一条消息
+		assertTrue(byType.getOrDefault("com.github.xuchen93.grpc.StreamMessage", List.of()).size() >= 4);
+	}
+}
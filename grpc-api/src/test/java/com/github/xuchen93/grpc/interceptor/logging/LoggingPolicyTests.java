@@ -0,0 +1,154 @@
+package com.github.xuchen93.grpc.interceptor.logging;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 调用日志策略：按方法采样、每个方法每个窗口的限流（含并发与窗口切换）、尾部采样的输出条件
+ */
+class LoggingPolicyTests {
+
+	private static final String SAY_HELLO = "simple.HelloSimpleService/SayHello";
+	private static final String STREAM_HELLO = "simple.HelloSimpleService/StreamHello";
+
+	@Test
+	void samplesByMethodRate() {
+		LoggingPolicy policy = new LoggingPolicy(0.0, Map.of(SAY_HELLO, 1.0, STREAM_HELLO, 0.5), 0, Duration.ofSeconds(1),
+				false, Duration.ZERO, 0);
+		assertEquals(LoggingPolicy.Mode.LOG, policy.decide(SAY_HELLO));
+		assertEquals(LoggingPolicy.Mode.OFF, policy.decide("simple.HelloSimpleService/SayHelloBatch"));
+
+		int logged = 0;
+		for (int i = 0; i < 10_000; i++) {
+			if (policy.decide(STREAM_HELLO) == LoggingPolicy.Mode.LOG) {
+				logged++;
+			}
+		}
+		assertTrue(logged > 4_500 && logged < 5_500, "采样数: " + logged);
+	}
+
+	@Test
+	void unsampledCallsAreBufferedWhenTailEnabled() {
+		LoggingPolicy policy = new LoggingPolicy(0.0, Map.of(), 0, Duration.ofSeconds(1), true, Duration.ofMillis(500), 16);
+		assertEquals(LoggingPolicy.Mode.TAIL, policy.decide(SAY_HELLO));
+		assertEquals(16, policy.tailMaxEvents());
+
+		assertTrue(policy.shouldFlushTail(true, 0));
+		assertTrue(policy.shouldFlushTail(false, TimeUnit.MILLISECONDS.toNanos(500)));
+		assertFalse(policy.shouldFlushTail(false, TimeUnit.MILLISECONDS.toNanos(499)));
+	}
+
+	@Test
+	void limitsCallsPerMethodAndWindow() {
+		LoggingPolicy policy = new LoggingPolicy(1.0, Map.of(), 3, Duration.ofHours(1), true, Duration.ZERO, 0);
+		for (int i = 0; i < 3; i++) {
+			assertEquals(LoggingPolicy.Mode.LOG, policy.decide(SAY_HELLO));
+		}
+		// 超出名额后按尾部采样处理，其他方法有独立的名额
+		assertEquals(LoggingPolicy.Mode.TAIL, policy.decide(SAY_HELLO));
+		assertFalse(policy.tryAcquire(SAY_HELLO));
+		assertTrue(policy.tryAcquire(STREAM_HELLO));
+
+		LoggingPolicy unlimited = LoggingPolicy.logAll();
+		for (int i = 0; i < 1_000; i++) {
+			assertTrue(unlimited.tryAcquire(SAY_HELLO));
+		}
+	}
+
+	@Test
+	void resetsCountWhenWindowElapses() throws Exception {
+		LoggingPolicy policy = new LoggingPolicy(1.0, Map.of(), 2, Duration.ofMillis(50), false, Duration.ZERO, 0);
+		assertTrue(policy.tryAcquire(SAY_HELLO));
+		assertTrue(policy.tryAcquire(SAY_HELLO));
+		assertFalse(policy.tryAcquire(SAY_HELLO));
+
+		Thread.sleep(100);
+		assertTrue(policy.tryAcquire(SAY_HELLO));
+		assertTrue(policy.tryAcquire(SAY_HELLO));
+		assertFalse(policy.tryAcquire(SAY_HELLO));
+	}
+
+	@Test
+	void concurrentCallersNeverExceedLimit() throws Exception {
+		int threads = 8;
+		LoggingPolicy policy = new LoggingPolicy(1.0, Map.of(), 100, Duration.ofHours(1), false, Duration.ZERO, 0);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					int acquired = 0;
+					for (int i = 0; i < 1_000; i++) {
+						if (policy.tryAcquire(SAY_HELLO)) {
+							acquired++;
+						}
+					}
+					return acquired;
+				}));
+			}
+			start.countDown();
+			int total = 0;
+			for (Future<Integer> result : results) {
+				total += result.get(5, TimeUnit.SECONDS);
+			}
+			assertEquals(100, total);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	void concurrentCallersAcrossWindowsStayWithinLimit() throws Exception {
+		// 窗口在并发调用过程中多次切换，每个窗口的名额不超过上限
+		int threads = 8;
+		int max = 20;
+		long windowMillis = 20;
+		LoggingPolicy policy = new LoggingPolicy(1.0, Map.of(), max, Duration.ofMillis(windowMillis), false, Duration.ZERO, 0);
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			CountDownLatch start = new CountDownLatch(1);
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int t = 0; t < threads; t++) {
+				results.add(executor.submit(() -> {
+					start.await();
+					int acquired = 0;
+					long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(200);
+					while (System.nanoTime() < end) {
+						if (policy.tryAcquire(SAY_HELLO)) {
+							acquired++;
+						}
+					}
+					return acquired;
+				}));
+			}
+			long begin = System.nanoTime();
+			start.countDown();
+			int total = 0;
+			for (Future<Integer> result : results) {
+				total += result.get(5, TimeUnit.SECONDS);
+			}
+			long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - begin);
+			// 经过的窗口数（含首尾不完整的窗口）乘以上限
+			long windows = elapsedMillis / windowMillis + 2;
+			assertTrue(total <= windows * max, "acquired=" + total + ", windows=" + windows);
+			assertTrue(total > max, "窗口切换后应重新放行: acquired=" + total);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
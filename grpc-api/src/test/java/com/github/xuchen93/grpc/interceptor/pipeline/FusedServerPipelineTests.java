@@ -0,0 +1,286 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.api.simple.BidirectionalChatMessage;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.compression.CompressionCodecs;
+import com.github.xuchen93.grpc.exception.ExceptionStatusMapper;
+import com.github.xuchen93.grpc.exception.GrpcError;
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainRules;
+import com.github.xuchen93.grpc.interceptor.chain.NamedInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 融合流水线对服务方法异常的映射：一元、流式（消息回调中和startCall中抛出）以及服务方法已自行关闭调用的情况
+ * 映射不依赖方法上是否有阶段；阶段的onStart抛出异常时已开始的阶段照常结束
+ * 另外检查压缩阶段在服务端注册表中找不到编码时退回不压缩
+ */
+class FusedServerPipelineTests {
+
+	private static final GrpcError NAME_REJECTED = GrpcError.of(Status.Code.FAILED_PRECONDITION, "NAME_REJECTED", "Name rejected");
+
+	private final List<String> ended = new ArrayList<>();
+	private Server server;
+	private ManagedChannel channel;
+
+	@AfterEach
+	void tearDown() throws Exception {
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void mapsUnaryExceptionsWithoutStages() throws Exception {
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(
+				start(List.of(), new ExceptionStatusMapper()));
+
+		assertEquals("Hello, xu", stub.sayHello(request("xu")).getMessage());
+		StatusRuntimeException business = assertThrows(StatusRuntimeException.class, () -> stub.sayHello(request("business")));
+		assertEquals(Status.Code.FAILED_PRECONDITION, business.getStatus().getCode());
+		assertEquals("NAME_REJECTED", business.getTrailers().get(InterceptorKeys.ERROR_CODE_KEY));
+
+		StatusRuntimeException internal = assertThrows(StatusRuntimeException.class, () -> stub.sayHello(request("boom")));
+		assertEquals(Status.Code.INTERNAL, internal.getStatus().getCode());
+		assertFalse(internal.getStatus().getDescription().contains("boom"));
+	}
+
+	@Test
+	void mapsUnaryExceptionsWithStages() throws Exception {
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(
+				start(List.of(new NamedInterceptor<>("recordingStage", new RecordingStage())), new ExceptionStatusMapper()));
+
+		StatusRuntimeException business = assertThrows(StatusRuntimeException.class, () -> stub.sayHello(request("business")));
+		assertEquals(Status.Code.FAILED_PRECONDITION, business.getStatus().getCode());
+		awaitEnded(1);
+		synchronized (ended) {
+			assertEquals(List.of("FAILED_PRECONDITION"), ended);
+		}
+	}
+
+	@Test
+	void mapsServerStreamingExceptionAfterMessages() throws Exception {
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(
+				start(List.of(), new ExceptionStatusMapper()));
+
+		Iterator<HelloSimpleResponse> responses = stub.streamHello(request("business"));
+		assertEquals("Hello, business #1", responses.next().getMessage());
+		StatusRuntimeException e = assertThrows(StatusRuntimeException.class, responses::next);
+		assertEquals(Status.Code.FAILED_PRECONDITION, e.getStatus().getCode());
+		assertEquals("NAME_REJECTED", e.getTrailers().get(InterceptorKeys.ERROR_CODE_KEY));
+	}
+
+	@Test
+	void mapsExceptionThrownWhenStreamingCallStarts() throws Exception {
+		HelloSimpleServiceGrpc.HelloSimpleServiceStub stub = HelloSimpleServiceGrpc.newStub(
+				start(List.of(), new ExceptionStatusMapper()));
+
+		CompletableFuture<Void> closed = new CompletableFuture<>();
+		stub.bidirectionalChat(new StreamObserver<>() {
+			@Override
+			public void onNext(BidirectionalChatMessage value) {
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				closed.completeExceptionally(t);
+			}
+
+			@Override
+			public void onCompleted() {
+				closed.complete(null);
+			}
+		});
+		ExecutionException e = assertThrows(ExecutionException.class, () -> closed.get(5, TimeUnit.SECONDS));
+		StatusRuntimeException status = assertInstanceOf(StatusRuntimeException.class, e.getCause());
+		assertEquals(Status.Code.FAILED_PRECONDITION, status.getStatus().getCode());
+	}
+
+	@Test
+	void keepsStatusWhenServiceAlreadyClosedCall() throws Exception {
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(
+				start(List.of(new NamedInterceptor<>("recordingStage", new RecordingStage())), new ExceptionStatusMapper()));
+
+		StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> stub.sayHello(request("closed")));
+		assertEquals(Status.Code.ABORTED, e.getStatus().getCode());
+		// 服务端只关闭一次，阶段只收到一次结束通知
+		assertEquals("Hello, xu", stub.sayHello(request("xu")).getMessage());
+		awaitEnded(2);
+		synchronized (ended) {
+			assertEquals(List.of("ABORTED", "OK"), ended);
+		}
+	}
+
+	@Test
+	void endsStartedStagesWhenStageThrowsOnStart() throws Exception {
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(
+				start(throwingPipeline(), new ExceptionStatusMapper()));
+
+		// 限流名额在每次失败后归还，否则第二次调用就会被以RESOURCE_EXHAUSTED拒绝
+		for (int i = 0; i < 3; i++) {
+			StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> stub.sayHello(request("xu")));
+			assertEquals(Status.Code.INTERNAL, e.getStatus().getCode());
+		}
+		awaitEnded(3);
+		synchronized (ended) {
+			assertEquals(List.of("INTERNAL", "INTERNAL", "INTERNAL"), ended);
+		}
+	}
+
+	@Test
+	void endsStartedStagesWhenStageThrowsOnStartWithoutMapper() throws Exception {
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(
+				start(throwingPipeline(), null));
+
+		for (int i = 0; i < 3; i++) {
+			StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> stub.sayHello(request("xu")));
+			assertEquals(Status.Code.UNKNOWN, e.getStatus().getCode());
+		}
+		awaitEnded(3);
+		synchronized (ended) {
+			assertEquals(List.of("UNKNOWN", "UNKNOWN", "UNKNOWN"), ended);
+		}
+	}
+
+	@Test
+	void compressionFallsBackWhenEncodingIsNotRegistered() throws Exception {
+		// 进程内服务端使用grpc默认的注册表，其中没有deflate
+		CompressionStage compression = new CompressionStage(new CompressionStage.Policy(CompressionCodecs.DEFLATE, 0), Map.of());
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(
+				start(List.of(new NamedInterceptor<>("compressionStage", compression),
+						new NamedInterceptor<>("recordingStage", new RecordingStage())), new ExceptionStatusMapper()));
+
+		assertEquals("Hello, xu", stub.sayHello(request("xu")).getMessage());
+		assertEquals("Hello, xu", stub.sayHello(request("xu")).getMessage());
+		awaitEnded(2);
+		synchronized (ended) {
+			assertEquals(List.of("OK", "OK"), ended);
+		}
+	}
+
+	@Test
+	void withoutMapperExceptionsAreUnknown() throws Exception {
+		FusedServerPipeline pipeline = new FusedServerPipeline(List::of, MethodChainRules.NONE);
+		assertFalse(pipeline.appliesTo(HelloSimpleServiceGrpc.getSayHelloMethod()));
+		assertTrue(new FusedServerPipeline(List::of, MethodChainRules.NONE, new ExceptionStatusMapper())
+				.appliesTo(HelloSimpleServiceGrpc.getSayHelloMethod()));
+
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(
+				start(List.of(), null));
+		StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> stub.sayHello(request("business")));
+		assertEquals(Status.Code.UNKNOWN, e.getStatus().getCode());
+	}
+
+	private ManagedChannel start(List<NamedInterceptor<ServerStage>> stages, ExceptionStatusMapper mapper) throws Exception {
+		String name = InProcessServerBuilder.generateName();
+		FusedServerPipeline pipeline = new FusedServerPipeline(() -> stages, MethodChainRules.NONE, mapper);
+		server = InProcessServerBuilder.forName(name)
+				.addService(ServerInterceptors.intercept(new ThrowingHelloService(), pipeline))
+				.build()
+				.start();
+		channel = InProcessChannelBuilder.forName(name).build();
+		return channel;
+	}
+
+	/**
+	 * 限流（上限1）-> 记录 -> onStart抛出异常的阶段
+	 */
+	private List<NamedInterceptor<ServerStage>> throwingPipeline() {
+		ServerStage throwing = (call, slot, headers) -> {
+			throw new IllegalStateException("stage failed");
+		};
+		return List.of(new NamedInterceptor<>("concurrencyLimitStage", new ConcurrencyLimitStage(1, Map.of())),
+				new NamedInterceptor<>("recordingStage", new RecordingStage()),
+				new NamedInterceptor<>("throwingStage", throwing));
+	}
+
+	private void awaitEnded(int count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (System.nanoTime() < deadline) {
+			synchronized (ended) {
+				if (ended.size() >= count) {
+					return;
+				}
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static HelloSimpleRequest request(String name) {
+		return HelloSimpleRequest.newBuilder().setName(name).build();
+	}
+
+	/**
+	 * 记录每个调用结束时的状态
+	 */
+	private final class RecordingStage implements ServerStage {
+		@Override
+		public boolean onStart(PipelineCall<?, ?> call, int slot, Metadata headers) {
+			return true;
+		}
+
+		@Override
+		public void onEnd(PipelineCall<?, ?> call, int slot, Status status) {
+			synchronized (ended) {
+				ended.add(status.getCode().name());
+			}
+		}
+	}
+
+	/**
+	 * 按name决定行为：business抛出业务异常，boom抛出未预期的异常，closed先以ABORTED关闭再抛出异常
+	 */
+	private static final class ThrowingHelloService extends HelloSimpleServiceGrpc.HelloSimpleServiceImplBase {
+		@Override
+		public void sayHello(HelloSimpleRequest request, StreamObserver<HelloSimpleResponse> responseObserver) {
+			switch (request.getName()) {
+				case "business" -> throw NAME_REJECTED.exception();
+				case "boom" -> throw new IllegalStateException("boom");
+				case "closed" -> {
+					responseObserver.onError(Status.ABORTED.withDescription("aborted by service").asRuntimeException());
+					throw new IllegalStateException("thrown after close");
+				}
+				default -> {
+					responseObserver.onNext(HelloSimpleResponse.newBuilder().setMessage("Hello, " + request.getName()).build());
+					responseObserver.onCompleted();
+				}
+			}
+		}
+
+		@Override
+		public void streamHello(HelloSimpleRequest request, StreamObserver<HelloSimpleResponse> responseObserver) {
+			responseObserver.onNext(HelloSimpleResponse.newBuilder().setMessage("Hello, " + request.getName() + " #1").build());
+			throw NAME_REJECTED.exception();
+		}
+
+		@Override
+		public StreamObserver<BidirectionalChatMessage> bidirectionalChat(StreamObserver<BidirectionalChatMessage> responseObserver) {
+			throw NAME_REJECTED.exception();
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package com.github.xuchen93.grpc.interceptor.pipeline;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainRules;
+import com.github.xuchen93.grpc.interceptor.chain.NamedInterceptor;
+import com.github.xuchen93.grpc.validation.CharClass;
+import com.github.xuchen93.grpc.validation.FieldRules;
+import com.github.xuchen93.grpc.validation.MessageValidator;
+import com.github.xuchen93.grpc.validation.MessageValidators;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.github.xuchen93.grpc.validation.FieldRules.invalid;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 流水线中的请求校验：失败时以校验器给出的状态关闭调用且不执行服务方法，通过的请求正常处理；
+ * 方法级校验器优先于按类型注册的校验器，没有校验器的方法不包含本阶段
+ */
+class ValidationStageTests {
+
+	private static final MessageValidator<HelloSimpleRequest> REQUEST = MessageValidator.builder(HelloSimpleRequest.class)
+			.field("name", HelloSimpleRequest::getName,
+					FieldRules.notBlank(invalid("Name cannot be empty")),
+					FieldRules.forbiddenChars(CharClass.of("!@#$%^&*()"), invalid("Name contains invalid characters")),
+					FieldRules.maxLength(100, invalid("Name is too long (max 100 characters)")))
+			.build();
+
+	private static final MessageValidator<HelloSimpleRequest> SAY_HELLO = REQUEST.toBuilder()
+			.field("name", HelloSimpleRequest::getName,
+					FieldRules.noPrefixIgnoreCase("b", Status.FAILED_PRECONDITION.withDescription("Name cannot start with 'b'")))
+			.build();
+
+	private static final MessageValidator<HelloSimpleRequest> STREAM_HELLO = MessageValidator.builder(HelloSimpleRequest.class)
+			.field("name", HelloSimpleRequest::getName, FieldRules.notBlank(invalid("Name cannot be empty")))
+			.build();
+
+	private final AtomicInteger invocations = new AtomicInteger();
+	private FusedServerPipeline pipeline;
+	private Server server;
+	private ManagedChannel channel;
+	private HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		MessageValidators validators = new MessageValidators()
+				.register(REQUEST)
+				.register(HelloSimpleServiceGrpc.getSayHelloMethod(), SAY_HELLO)
+				.register(HelloSimpleServiceGrpc.getStreamHelloMethod(), STREAM_HELLO);
+		pipeline = new FusedServerPipeline(
+				() -> List.of(new NamedInterceptor<>("validationStage", new ValidationStage(validators))), MethodChainRules.NONE);
+		String name = InProcessServerBuilder.generateName();
+		server = InProcessServerBuilder.forName(name)
+				.addService(ServerInterceptors.intercept(new CountingHelloService(), pipeline))
+				.build()
+				.start();
+		channel = InProcessChannelBuilder.forName(name).build();
+		stub = HelloSimpleServiceGrpc.newBlockingStub(channel);
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void rejectsInvalidRequestsBeforeService() {
+		assertRejected(Status.Code.INVALID_ARGUMENT, "Name cannot be empty", "");
+		assertRejected(Status.Code.INVALID_ARGUMENT, "Name cannot be empty", "   ");
+		assertRejected(Status.Code.INVALID_ARGUMENT, "Name contains invalid characters", "xu#chen");
+		assertRejected(Status.Code.INVALID_ARGUMENT, "Name is too long (max 100 characters)", "x".repeat(101));
+		assertRejected(Status.Code.FAILED_PRECONDITION, "Name cannot start with 'b'", " Bob");
+		assertEquals(0, invocations.get());
+	}
+
+	@Test
+	void passesValidRequests() {
+		assertEquals("Hello, xu", stub.sayHello(request("xu")).getMessage());
+		assertEquals("Hello, 中文", stub.sayHello(request("中文")).getMessage());
+		assertEquals("Hello, " + "x".repeat(100), stub.sayHello(request("x".repeat(100))).getMessage());
+		assertEquals("Hello, alice b", stub.sayHello(request("alice b")).getMessage());
+		assertEquals(4, invocations.get());
+	}
+
+	@Test
+	void methodValidatorOverridesTypeValidator() {
+		// streamHello只要求名称非空：允许以b开头、特殊字符和超长名称
+		assertEquals("Hello, bob", stub.streamHello(request("bob")).next().getMessage());
+		assertEquals("Hello, bob!", stub.streamHello(request("bob!")).next().getMessage());
+		assertEquals("Hello, " + "x".repeat(101), stub.streamHello(request("x".repeat(101))).next().getMessage());
+		Iterator<HelloSimpleResponse> rejected = stub.streamHello(request(" "));
+		StatusRuntimeException e = assertThrows(StatusRuntimeException.class, rejected::next);
+		assertEquals(Status.Code.INVALID_ARGUMENT, e.getStatus().getCode());
+		assertEquals("Name cannot be empty", e.getStatus().getDescription());
+
+		assertEquals(List.of("validationStage"), pipeline.stageNames(HelloSimpleServiceGrpc.getSayHelloMethod()));
+		assertEquals(List.of(), pipeline.stageNames(HelloSimpleServiceGrpc.getClientStreamHelloMethod()));
+	}
+
+	private void assertRejected(Status.Code code, String description, String name) {
+		StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> stub.sayHello(request(name)));
+		assertEquals(code, e.getStatus().getCode());
+		assertEquals(description, e.getStatus().getDescription());
+	}
+
+	private static HelloSimpleRequest request(String name) {
+		return HelloSimpleRequest.newBuilder().setName(name).build();
+	}
+
+	private final class CountingHelloService extends HelloSimpleServiceGrpc.HelloSimpleServiceImplBase {
+		@Override
+		public void sayHello(HelloSimpleRequest request, StreamObserver<HelloSimpleResponse> responseObserver) {
+			invocations.incrementAndGet();
+			responseObserver.onNext(HelloSimpleResponse.newBuilder().setMessage("Hello, " + request.getName()).build());
+			responseObserver.onCompleted();
+		}
+
+		@Override
+		public void streamHello(HelloSimpleRequest request, StreamObserver<HelloSimpleResponse> responseObserver) {
+			responseObserver.onNext(HelloSimpleResponse.newBuilder().setMessage("Hello, " + request.getName()).build());
+			responseObserver.onCompleted();
+		}
+	}
+}
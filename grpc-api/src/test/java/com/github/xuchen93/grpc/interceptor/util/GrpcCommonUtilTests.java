@@ -0,0 +1,73 @@
+package com.github.xuchen93.grpc.interceptor.util;
+
+import com.github.xuchen93.grpc.api.file.FileChunk;
+import com.github.xuchen93.grpc.api.file.UploadRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.MessageOrBuilder;
+import com.google.protobuf.TextFormat;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 日志消息的有界渲染：与单行TextFormat输出一致，超长时截断且大字段在转义前截短，null和非protobuf对象按toString处理
+ */
+class GrpcCommonUtilTests {
+
+	@Test
+	void rendersShortMessageAsSingleLineTextFormat() {
+		HelloSimpleRequest request = HelloSimpleRequest.newBuilder().setName("xu").setResumeFrom(3).build();
+		String expected = TextFormat.printer().emittingSingleLine(true).printToString(request);
+		assertEquals(expected, GrpcCommonUtil.renderBounded(request, 500));
+		assertEquals(expected, GrpcCommonUtil.lazyMessage(request, 500).toString());
+	}
+
+	@Test
+	void truncatesAtMaxLength() {
+		HelloSimpleRequest request = HelloSimpleRequest.newBuilder().setName("a".repeat(65_536)).build();
+		String rendered = GrpcCommonUtil.renderBounded(request, 500);
+		assertEquals(500 + "... (truncated)".length(), rendered.length());
+		assertTrue(rendered.startsWith("name: \"aaa"));
+		assertTrue(rendered.endsWith("a... (truncated)"));
+
+		// 恰好达到上限时不截断
+		String exact = TextFormat.printer().emittingSingleLine(true).printToString(HelloSimpleRequest.newBuilder().setName("xu").build());
+		assertEquals(exact, GrpcCommonUtil.renderBounded(HelloSimpleRequest.newBuilder().setName("xu").build(), exact.length()));
+	}
+
+	@Test
+	void truncatesLargeFieldsBeforeEscaping() {
+		// 嵌套的字节字段、超长的重复字段、截断处是代理对的字符串：输出与完整渲染的前缀一致
+		byte[] data = new byte[64 * 1024];
+		new Random(1).nextBytes(data);
+		UploadRequest upload = UploadRequest.newBuilder()
+				.setChunk(FileChunk.newBuilder().setOffset(7).setData(ByteString.copyFrom(data)))
+				.build();
+		HelloSimpleBatchRequest.Builder batch = HelloSimpleBatchRequest.newBuilder();
+		for (int i = 0; i < 1000; i++) {
+			batch.addRequests(HelloSimpleRequest.newBuilder().setName("n" + i));
+		}
+		HelloSimpleRequest emoji = HelloSimpleRequest.newBuilder().setName("😀".repeat(1000)).build();
+
+		for (MessageOrBuilder message : List.of(upload, batch.build(), batch, emoji)) {
+			String full = TextFormat.printer().emittingSingleLine(true).printToString(message);
+			for (int maxLength : new int[]{1, 10, 99, 500}) {
+				assertEquals(full.substring(0, maxLength) + "... (truncated)", GrpcCommonUtil.renderBounded(message, maxLength));
+			}
+		}
+	}
+
+	@Test
+	void rendersNullAndPlainObjects() {
+		assertEquals("null", GrpcCommonUtil.renderBounded(null, 500));
+		assertEquals("line", GrpcCommonUtil.renderBounded("line\n", 500));
+		assertEquals("abc... (truncated)", GrpcCommonUtil.renderBounded("abcdef", 3));
+		assertEquals("null", GrpcCommonUtil.trimChangeLine(null));
+	}
+}
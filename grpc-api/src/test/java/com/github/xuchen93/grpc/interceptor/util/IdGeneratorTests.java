@@ -0,0 +1,121 @@
+package com.github.xuchen93.grpc.interceptor.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 请求ID生成器：多线程下唯一、可解码出时间戳和节点号，一毫秒的号段用完时等待时钟而不是复用或超前
+ */
+class IdGeneratorTests {
+
+	private static final int SEQUENCES_PER_MILLI = 4096;
+
+	@Test
+	void idsAreUniqueAndDecodableAcrossThreads() throws Exception {
+		int threads = 8;
+		int perThread = 50_000;
+		IdGenerator generator = new IdGenerator(37);
+		long before = System.currentTimeMillis();
+
+		long[] ids = generateConcurrently(generator, threads, perThread);
+
+		long after = System.currentTimeMillis();
+		long[] sorted = ids.clone();
+		Arrays.sort(sorted);
+		for (int i = 1; i < sorted.length; i++) {
+			assertTrue(sorted[i] != sorted[i - 1], "duplicate id " + sorted[i]);
+		}
+		for (long id : ids) {
+			assertEquals(37, IdGenerator.nodeId(id));
+			long millis = IdGenerator.timestampMillis(id);
+			assertTrue(millis >= before && millis <= after, "timestamp " + millis + " outside [" + before + ", " + after + "]");
+		}
+	}
+
+	@Test
+	void exhaustedMillisecondWaitsForClock() {
+		IdGenerator generator = new IdGenerator(0);
+		Map<Long, Integer> perMilli = new HashMap<>();
+		long previous = -1;
+		int max = 0;
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+		// 单线程连续生成直到某一毫秒的4096个序号用完；机器较慢或JIT未预热时可能要多个毫秒才能用完一次
+		while (max < SEQUENCES_PER_MILLI && System.nanoTime() < deadline) {
+			long id = generator.nextId();
+			long millis = IdGenerator.timestampMillis(id);
+			// 不提前占用未来的时间戳
+			assertTrue(millis <= System.currentTimeMillis(), "id from the future: " + millis);
+			assertTrue(id > previous);
+			previous = id;
+			max = Math.max(max, perMilli.merge(millis, 1, Integer::sum));
+		}
+		assertEquals(SEQUENCES_PER_MILLI, max, "no millisecond was exhausted");
+
+		// 用完后的下一个ID落在之后的毫秒
+		long next = generator.nextId();
+		assertTrue(IdGenerator.timestampMillis(next) > IdGenerator.timestampMillis(previous));
+		assertTrue(IdGenerator.timestampMillis(next) <= System.currentTimeMillis());
+	}
+
+	@Test
+	void exhaustedMillisecondWaitsForClockAcrossThreads() throws Exception {
+		IdGenerator generator = new IdGenerator(1);
+
+		long[] ids = generateConcurrently(generator, 4, 100_000);
+
+		Map<Long, Integer> perMilli = new HashMap<>();
+		for (long id : ids) {
+			perMilli.merge(IdGenerator.timestampMillis(id), 1, Integer::sum);
+		}
+		assertTrue(perMilli.values().stream().allMatch(count -> count <= SEQUENCES_PER_MILLI));
+		assertEquals(ids.length, Arrays.stream(ids).distinct().count());
+	}
+
+	@Test
+	void rejectsNodeIdOutOfRange() {
+		assertThrows(IllegalArgumentException.class, () -> new IdGenerator(-1));
+		assertThrows(IllegalArgumentException.class, () -> new IdGenerator(IdGenerator.MAX_NODE_ID + 1));
+		assertEquals(IdGenerator.MAX_NODE_ID, IdGenerator.nodeId(new IdGenerator(IdGenerator.MAX_NODE_ID).nextId()));
+	}
+
+	private static long[] generateConcurrently(IdGenerator generator, int threads, int perThread) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		CountDownLatch start = new CountDownLatch(1);
+		try {
+			List<Future<long[]>> futures = IntStream.range(0, threads)
+					.mapToObj(i -> executor.submit((Callable<long[]>) () -> {
+						start.await();
+						long[] ids = new long[perThread];
+						for (int j = 0; j < perThread; j++) {
+							ids[j] = generator.nextId();
+						}
+						return ids;
+					}))
+					.toList();
+			start.countDown();
+			long[] all = new long[threads * perThread];
+			for (int i = 0; i < threads; i++) {
+				System.arraycopy(futures.get(i).get(30, TimeUnit.SECONDS), 0, all, i * perThread, perThread);
+			}
+			return all;
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,74 @@
+package com.github.xuchen93.grpc.metrics;
+
+import io.grpc.CallOptions;
+import io.grpc.ManagedChannel;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.health.v1.HealthCheckRequest;
+import io.grpc.health.v1.HealthCheckResponse;
+import io.grpc.health.v1.HealthGrpc;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.protobuf.services.HealthStatusManager;
+import io.grpc.stub.ClientCalls;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 传输层的阶段计时只为服务端注册的方法创建指标，客户端随意构造的方法名不会增加指标数量
+ */
+class CallPhaseTracerTests {
+
+	private final GrpcMetricsRegistry registry = new GrpcMetricsRegistry();
+	private Server server;
+	private ManagedChannel channel;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		String name = InProcessServerBuilder.generateName();
+		server = InProcessServerBuilder.forName(name)
+				.addService(new HealthStatusManager().getHealthService())
+				.addStreamTracerFactory(CallPhaseTracer.factory(registry))
+				.build()
+				.start();
+		channel = InProcessChannelBuilder.forName(name).build();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void unknownMethodsDoNotCreateMetrics() throws Exception {
+		for (int i = 0; i < 100; i++) {
+			MethodDescriptor<HealthCheckRequest, HealthCheckResponse> unknown = HealthGrpc.getCheckMethod().toBuilder()
+					.setFullMethodName("random.Service" + i + "/Method" + i)
+					.build();
+			StatusRuntimeException e = assertThrows(StatusRuntimeException.class, () -> ClientCalls.blockingUnaryCall(
+					channel, unknown, CallOptions.DEFAULT, HealthCheckRequest.getDefaultInstance()));
+			assertEquals(Status.Code.UNIMPLEMENTED, e.getStatus().getCode());
+		}
+		HealthGrpc.newBlockingStub(channel).check(HealthCheckRequest.getDefaultInstance());
+
+		// 流在服务端关闭后才上报，等待已注册方法的指标出现
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (registry.all().isEmpty() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		List<String> methods = registry.all().stream().map(MethodMetrics::getMethodName).toList();
+		assertEquals(List.of(HealthGrpc.getCheckMethod().getFullMethodName()), methods);
+		assertTrue(registry.all().iterator().next().hasPhases());
+	}
+}
@@ -0,0 +1,137 @@
+package com.github.xuchen93.grpc.validation;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import io.grpc.Status;
+import org.junit.jupiter.api.Test;
+
+import static com.github.xuchen93.grpc.validation.FieldRules.invalid;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 字符集合、各类字段规则、按消息类型编译的校验器及注册表
+ */
+class MessageValidatorTests {
+
+	private static final Status EMPTY = invalid("Name cannot be empty");
+	private static final Status SPECIAL = invalid("Name contains invalid characters");
+	private static final Status TOO_LONG = invalid("Name is too long (max 10 characters)");
+	private static final Status STARTS_WITH_B = Status.FAILED_PRECONDITION.withDescription("Name cannot start with 'b'");
+
+	private static final MessageValidator<HelloSimpleRequest> REQUEST = MessageValidator.builder(HelloSimpleRequest.class)
+			.field("name", HelloSimpleRequest::getName,
+					FieldRules.notBlank(EMPTY),
+					FieldRules.forbiddenChars(CharClass.of("!@#$%^&*()"), SPECIAL),
+					FieldRules.maxLength(10, TOO_LONG))
+			.build();
+
+	@Test
+	void charClassMembership() {
+		CharClass special = CharClass.of("!@#");
+		assertTrue(special.contains('@'));
+		assertFalse(special.contains('a'));
+		// 超出位图范围的字符
+		assertFalse(special.contains('中'));
+
+		CharClass alphanumeric = CharClass.range('a', 'z').union(CharClass.range('A', 'Z')).union(CharClass.range('0', '9'));
+		assertTrue(alphanumeric.contains('q'));
+		assertTrue(alphanumeric.contains('Q'));
+		assertTrue(alphanumeric.contains('7'));
+		assertFalse(alphanumeric.contains('_'));
+		assertTrue(CharClass.of("中文").contains('中'));
+
+		assertEquals(3, special.indexIn("abc#d!"));
+		assertEquals(-1, special.indexIn("abc"));
+		assertEquals(-1, special.indexIn(""));
+		assertEquals(3, alphanumeric.indexNotIn("abc-d"));
+		assertEquals(-1, alphanumeric.indexNotIn("abcD9"));
+		assertThrows(IllegalArgumentException.class, () -> CharClass.range('z', 'a'));
+	}
+
+	@Test
+	void fieldRules() {
+		FieldRule notBlank = FieldRules.notBlank(EMPTY);
+		assertSame(EMPTY, notBlank.check(""));
+		assertSame(EMPTY, notBlank.check(" \t\n"));
+		assertNull(notBlank.check(" x "));
+
+		assertSame(TOO_LONG, FieldRules.minLength(3, TOO_LONG).check("ab"));
+		assertNull(FieldRules.minLength(3, TOO_LONG).check("abc"));
+		assertSame(TOO_LONG, FieldRules.maxLength(3, TOO_LONG).check("abcd"));
+		assertNull(FieldRules.maxLength(3, TOO_LONG).check("abc"));
+
+		FieldRule forbidden = FieldRules.forbiddenChars(CharClass.of("<>"), SPECIAL);
+		assertSame(SPECIAL, forbidden.check("a<b"));
+		assertNull(forbidden.check("ab"));
+		FieldRule allowed = FieldRules.allowedChars(CharClass.range('a', 'z'), SPECIAL);
+		assertSame(SPECIAL, allowed.check("abC"));
+		assertNull(allowed.check("abc"));
+		assertNull(allowed.check(""));
+
+		FieldRule noB = FieldRules.noPrefixIgnoreCase("b", STARTS_WITH_B);
+		assertSame(STARTS_WITH_B, noB.check("bob"));
+		assertSame(STARTS_WITH_B, noB.check("  Bob"));
+		assertNull(noB.check("alice b"));
+		assertNull(noB.check("   "));
+
+		FieldRule prefix = FieldRules.requiredPrefix("user-", invalid("Missing prefix"));
+		assertNull(prefix.check("user-1"));
+		assertEquals(Status.Code.INVALID_ARGUMENT, prefix.check("admin").getCode());
+		assertEquals("Missing prefix", prefix.check("admin").getDescription());
+	}
+
+	@Test
+	void validatorReturnsFirstFailureInDeclarationOrder() {
+		assertNull(REQUEST.validate(request("xu")));
+		assertNull(REQUEST.validate(request("bob")));
+		assertSame(EMPTY, REQUEST.validate(request("")));
+		assertSame(SPECIAL, REQUEST.validate(request("x!")));
+		assertSame(TOO_LONG, REQUEST.validate(request("abcdefghijk")));
+		// 同时违反两条规则时返回先声明的规则
+		assertSame(SPECIAL, REQUEST.validate(request("abcdefghij!")));
+	}
+
+	@Test
+	void toBuilderAppendsRules() {
+		MessageValidator<HelloSimpleRequest> sayHello = REQUEST.toBuilder()
+				.field("name", HelloSimpleRequest::getName, FieldRules.noPrefixIgnoreCase("b", STARTS_WITH_B))
+				.build();
+		assertSame(STARTS_WITH_B, sayHello.validate(request("bob")));
+		assertSame(EMPTY, sayHello.validate(request("")));
+		assertNull(sayHello.validate(request("alice")));
+		// 原校验器不受影响
+		assertNull(REQUEST.validate(request("bob")));
+	}
+
+	@Test
+	void rejectsUnknownOrNonStringFields() {
+		MessageValidator.Builder<HelloSimpleRequest> builder = MessageValidator.builder(HelloSimpleRequest.class);
+		assertThrows(IllegalArgumentException.class, () -> builder.field("nickname", HelloSimpleRequest::getName));
+		assertThrows(IllegalArgumentException.class,
+				() -> builder.field("resume_from", r -> String.valueOf(r.getResumeFrom())));
+	}
+
+	@Test
+	void registryPrefersMethodValidator() {
+		MessageValidator<HelloSimpleRequest> sayHello = REQUEST.toBuilder()
+				.field("name", HelloSimpleRequest::getName, FieldRules.noPrefixIgnoreCase("b", STARTS_WITH_B))
+				.build();
+		MessageValidators validators = new MessageValidators()
+				.register(REQUEST)
+				.register(HelloSimpleServiceGrpc.getSayHelloMethod(), sayHello);
+
+		assertSame(sayHello, validators.find(HelloSimpleServiceGrpc.getSayHelloMethod()));
+		assertSame(REQUEST, validators.find(HelloSimpleServiceGrpc.getStreamHelloMethod()));
+		// StreamRequestChunk没有注册校验器
+		assertNull(validators.find(HelloSimpleServiceGrpc.getClientStreamHelloMethod()));
+	}
+
+	private static HelloSimpleRequest request(String name) {
+		return HelloSimpleRequest.newBuilder().setName(name).build();
+	}
+}
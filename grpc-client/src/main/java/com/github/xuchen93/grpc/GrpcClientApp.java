@@ -10,6 +10,7 @@ import org.springframework.grpc.client.SimpleStubFactory;
 //有注解为AnnotationGrpcClientRegistrar，否则为DefaultGrpcClientRegistrations
 @ImportGrpcClients(target = "localhost:19090", basePackages = "com.github.xuchen93.grpc.api", factory = BlockingStubFactory.class)
 @ImportGrpcClients(target = "localhost:19090", basePackages = "com.github.xuchen93.grpc.api", factory = SimpleStubFactory.class)
+@ImportGrpcClients(target = "localhost:19090", basePackages = "com.github.xuchen93.grpc.api", factory = ReactorStubFactory.class)
 @SpringBootApplication
 public class GrpcClientApp {
 
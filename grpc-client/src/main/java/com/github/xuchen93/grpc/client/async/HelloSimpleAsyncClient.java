@@ -0,0 +1,118 @@
+package com.github.xuchen93.grpc.client.async;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.interceptor.client.AuthClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.util.GrpcInterceptorUtil;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * 基于FutureStub的CompletableFuture异步客户端
+ * <ul>
+ *     <li>回调（以及依赖于返回future的非async阶段）在构造时传入的Executor上执行</li>
+ *     <li>deadline通过withDeadline传给gRPC，取消返回的future会取消底层RPC</li>
+ *     <li>TraceId与Token在发起调用的线程上确定并写入CallOptions，拦截器不再依赖执行线程的ThreadLocal</li>
+ * </ul>
+ * 实例不可变，withXxx方法返回新的客户端
+ */
+public class HelloSimpleAsyncClient {
+
+	private final HelloSimpleServiceGrpc.HelloSimpleServiceFutureStub stub;
+	private final Executor callbackExecutor;
+	private final String traceId;
+	private final String token;
+	private final Duration timeout;
+
+	public HelloSimpleAsyncClient(HelloSimpleServiceGrpc.HelloSimpleServiceFutureStub stub, Executor callbackExecutor) {
+		this(stub, callbackExecutor, null, null, null);
+	}
+
+	private HelloSimpleAsyncClient(HelloSimpleServiceGrpc.HelloSimpleServiceFutureStub stub, Executor callbackExecutor,
+								   String traceId, String token, Duration timeout) {
+		this.stub = stub;
+		this.callbackExecutor = callbackExecutor;
+		this.traceId = traceId;
+		this.token = token;
+		this.timeout = timeout;
+	}
+
+	/**
+	 * 指定后续调用使用的TraceId
+	 */
+	public HelloSimpleAsyncClient withTraceId(String traceId) {
+		return new HelloSimpleAsyncClient(stub, callbackExecutor, traceId, token, timeout);
+	}
+
+	/**
+	 * 指定后续调用使用的认证Token
+	 */
+	public HelloSimpleAsyncClient withToken(String token) {
+		return new HelloSimpleAsyncClient(stub, callbackExecutor, traceId, token, timeout);
+	}
+
+	/**
+	 * 指定后续每次调用的超时时间，从发起调用时开始计算
+	 */
+	public HelloSimpleAsyncClient withTimeout(Duration timeout) {
+		return new HelloSimpleAsyncClient(stub, callbackExecutor, traceId, token, timeout);
+	}
+
+	public CompletableFuture<HelloSimpleResponse> sayHello(HelloSimpleRequest request) {
+		return call(request, prepareStub()::sayHello);
+	}
+
+	public CompletableFuture<HelloSimpleBatchResponse> sayHelloBatch(HelloSimpleBatchRequest request) {
+		return call(request, prepareStub()::sayHelloBatch);
+	}
+
+	/**
+	 * 在调用线程上把TraceId、Token、deadline固定到本次调用的Stub上
+	 */
+	private HelloSimpleServiceGrpc.HelloSimpleServiceFutureStub prepareStub() {
+		String callTraceId = traceId != null ? traceId : GrpcInterceptorUtil.generateTraceId();
+		// 未显式指定Token时，捕获调用线程当前的Token，避免在其他线程上丢失
+		String callToken = token != null ? token : AuthClientInterceptor.getToken();
+
+		HelloSimpleServiceGrpc.HelloSimpleServiceFutureStub callStub = stub
+				.withOption(InterceptorKeys.TRACE_ID_CALL_OPTION, callTraceId);
+		if (callToken != null) {
+			callStub = callStub.withOption(InterceptorKeys.AUTH_TOKEN_CALL_OPTION, callToken);
+		}
+		if (timeout != null) {
+			callStub = callStub.withDeadlineAfter(timeout.toNanos(), TimeUnit.NANOSECONDS);
+		}
+		return callStub;
+	}
+
+	private <ReqT, RespT> CompletableFuture<RespT> call(ReqT request, Function<ReqT, ListenableFuture<RespT>> invoker) {
+		ListenableFuture<RespT> listenableFuture = invoker.apply(request);
+		CompletableFuture<RespT> future = new CompletableFuture<>();
+		listenableFuture.addListener(() -> {
+			try {
+				future.complete(listenableFuture.get());
+			} catch (ExecutionException e) {
+				future.completeExceptionally(e.getCause());
+			} catch (Throwable t) {
+				future.completeExceptionally(t);
+			}
+		}, callbackExecutor);
+		// 调用方取消future时同步取消RPC
+		future.whenComplete((result, error) -> {
+			if (future.isCancelled()) {
+				listenableFuture.cancel(true);
+			}
+		});
+		return future;
+	}
+}
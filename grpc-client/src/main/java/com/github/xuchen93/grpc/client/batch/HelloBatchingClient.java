@@ -0,0 +1,221 @@
+package com.github.xuchen93.grpc.client.batch;
+
+import com.github.xuchen93.grpc.api.simple.BatchItemError;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchResult;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.auth.BearerTokenCredentials;
+import com.github.xuchen93.grpc.interceptor.client.AuthClientInterceptor;
+import io.grpc.CallCredentials;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.Deadline;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * sayHello微批客户端
+ * 调用方仍然按单个请求调用，内部攒够maxBatchSize个请求或等待maxDelayMicros微秒后合并为一次sayHelloBatch，
+ * 再按下标把每个结果或错误分发回对应调用方的CompletableFuture
+ * <p>
+ * 批量请求可能由flush线程发出，调用方线程上的认证信息、截止时间和取消状态在入队时保存：
+ * <ul>
+ *     <li>按凭证分组（当前线程通过AuthClientInterceptor.setToken设置的Token，否则为Stub上的凭证），
+ *     同一批只包含同一凭证的请求，未指定凭证的请求由拦截器附加默认凭证</li>
+ *     <li>每批使用组内最早的截止时间（调用方gRPC Context或Stub上的截止时间）</li>
+ *     <li>发送前已取消或已超时的请求直接结束，不进入批量；批量调用本身不继承任何调用方的Context，
+ *     一个调用方取消不会影响同批的其他请求</li>
+ * </ul>
+ */
+@Slf4j
+public class HelloBatchingClient implements AutoCloseable {
+
+	private static final Object NO_CREDENTIALS = new Object();
+
+	private final HelloSimpleServiceGrpc.HelloSimpleServiceStub stub;
+	private final int maxBatchSize;
+	private final long maxDelayMicros;
+	private final ScheduledExecutorService scheduler;
+
+	// 凭证 -> 待发送的请求，按入队顺序
+	private final Map<Object, List<PendingCall>> buffers = new LinkedHashMap<>();
+	private ScheduledFuture<?> flushTask;
+
+	public HelloBatchingClient(HelloSimpleServiceGrpc.HelloSimpleServiceStub stub, int maxBatchSize, long maxDelayMicros) {
+		if (maxBatchSize < 1) {
+			throw new IllegalArgumentException("maxBatchSize must be positive");
+		}
+		this.stub = stub;
+		this.maxBatchSize = maxBatchSize;
+		this.maxDelayMicros = maxDelayMicros;
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread thread = new Thread(r, "grpc-hello-batch-flush");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * 提交单个sayHello请求，返回该请求自己的结果
+	 */
+	public CompletableFuture<HelloSimpleResponse> sayHello(HelloSimpleRequest request) {
+		CompletableFuture<HelloSimpleResponse> future = new CompletableFuture<>();
+		Context context = Context.current();
+		String token = AuthClientInterceptor.getToken();
+		CallCredentials credentials = token != null && !token.isEmpty()
+				? new BearerTokenCredentials(token) : stub.getCallOptions().getCredentials();
+		// Token按字符串分组，同一Token每次创建的凭证对象不同；其他凭证按对象分组
+		Object group = token != null && !token.isEmpty() ? token : credentials != null ? credentials : NO_CREDENTIALS;
+		PendingCall call = new PendingCall(request, future, context, earliest(context.getDeadline(), stub.getCallOptions().getDeadline()),
+				credentials);
+		List<PendingCall> ready = null;
+		synchronized (this) {
+			List<PendingCall> buffer = buffers.computeIfAbsent(group, key -> new ArrayList<>(maxBatchSize));
+			buffer.add(call);
+			if (buffer.size() >= maxBatchSize) {
+				buffers.remove(group);
+				ready = buffer;
+			} else if (flushTask == null) {
+				flushTask = scheduler.schedule(this::flushByTimer, maxDelayMicros, TimeUnit.MICROSECONDS);
+			}
+		}
+		if (ready != null) {
+			send(ready);
+		}
+		return future;
+	}
+
+	private void flushByTimer() {
+		List<List<PendingCall>> ready;
+		synchronized (this) {
+			flushTask = null;
+			ready = drainAll();
+		}
+		ready.forEach(this::send);
+	}
+
+	/**
+	 * 取走所有分组，调用方需持有锁
+	 */
+	private List<List<PendingCall>> drainAll() {
+		List<List<PendingCall>> ready = new ArrayList<>(buffers.values());
+		buffers.clear();
+		if (flushTask != null) {
+			flushTask.cancel(false);
+			flushTask = null;
+		}
+		return ready;
+	}
+
+	private void send(List<PendingCall> pending) {
+		List<PendingCall> calls = new ArrayList<>(pending.size());
+		Deadline deadline = null;
+		for (PendingCall call : pending) {
+			if (call.context.isCancelled()) {
+				call.future.completeExceptionally(Contexts.statusFromCancelled(call.context).asRuntimeException());
+			} else if (call.deadline != null && call.deadline.isExpired()) {
+				call.future.completeExceptionally(Status.DEADLINE_EXCEEDED
+						.withDescription("Deadline exceeded before batch was sent").asRuntimeException());
+			} else {
+				calls.add(call);
+				deadline = earliest(deadline, call.deadline);
+			}
+		}
+		if (calls.isEmpty()) {
+			return;
+		}
+		HelloSimpleBatchRequest.Builder builder = HelloSimpleBatchRequest.newBuilder();
+		for (PendingCall call : calls) {
+			builder.addRequests(call.request);
+		}
+		HelloSimpleServiceGrpc.HelloSimpleServiceStub batchStub = stub;
+		// 同一批的凭证相同
+		CallCredentials credentials = calls.get(0).credentials;
+		if (credentials != null) {
+			batchStub = batchStub.withCallCredentials(credentials);
+		}
+		if (deadline != null) {
+			batchStub = batchStub.withDeadline(deadline);
+		}
+		HelloSimpleServiceGrpc.HelloSimpleServiceStub target = batchStub;
+		// 在ROOT Context中发起：按大小触发时当前线程是某个调用方，不能让它的取消或截止时间作用于整批
+		Context.ROOT.run(() -> target.sayHelloBatch(builder.build(), new StreamObserver<>() {
+			@Override
+			public void onNext(HelloSimpleBatchResponse response) {
+				dispatch(calls, response);
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				log.error("[HelloBatchingClient] 批量请求失败: size={}, error={}", calls.size(), t.getMessage());
+				for (PendingCall call : calls) {
+					call.future.completeExceptionally(t);
+				}
+			}
+
+			@Override
+			public void onCompleted() {
+				// 服务端未返回结果的请求按INTERNAL处理，保证每个future都会结束
+				for (PendingCall call : calls) {
+					if (!call.future.isDone()) {
+						call.future.completeExceptionally(Status.INTERNAL
+								.withDescription("Missing batch result").asRuntimeException());
+					}
+				}
+			}
+		}));
+	}
+
+	private static Deadline earliest(Deadline a, Deadline b) {
+		if (a == null) {
+			return b;
+		}
+		return b == null ? a : a.minimum(b);
+	}
+
+	private void dispatch(List<PendingCall> calls, HelloSimpleBatchResponse response) {
+		int count = Math.min(calls.size(), response.getResultsCount());
+		for (int i = 0; i < count; i++) {
+			HelloSimpleBatchResult result = response.getResults(i);
+			CompletableFuture<HelloSimpleResponse> future = calls.get(i).future;
+			if (result.hasResponse()) {
+				future.complete(result.getResponse());
+			} else {
+				BatchItemError error = result.getError();
+				future.completeExceptionally(Status.fromCodeValue(error.getCode())
+						.withDescription(error.getDescription()).asRuntimeException());
+			}
+		}
+	}
+
+	/**
+	 * 立即发送缓冲区中剩余的请求并停止定时器
+	 */
+	@Override
+	public void close() {
+		List<List<PendingCall>> ready;
+		synchronized (this) {
+			ready = drainAll();
+		}
+		ready.forEach(this::send);
+		scheduler.shutdown();
+	}
+
+	private record PendingCall(HelloSimpleRequest request, CompletableFuture<HelloSimpleResponse> future,
+							   Context context, Deadline deadline, CallCredentials credentials) {
+	}
+}
@@ -0,0 +1,54 @@
+package com.github.xuchen93.grpc.client.config;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.channel.ChannelPool;
+import com.github.xuchen93.grpc.compression.CompressionCodecs;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainClientInterceptor;
+import io.grpc.ManagedChannelBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
+
+/**
+ * gRPC客户端连接池配置
+ * 开启grpc.client.pool.enabled后，HelloSimpleService的Stub改为基于ChannelPool创建，
+ * 覆盖@ImportGrpcClients注册的单连接Stub；开启进程内传输（GrpcInProcessConfig）时不生效
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "grpc.client.pool", name = "enabled", havingValue = "true")
+@ConditionalOnProperty(prefix = "grpc.client.in-process", name = "enabled", havingValue = "false", matchIfMissing = true)
+public class GrpcChannelPoolConfig {
+
+	@Bean(destroyMethod = "shutdown")
+	public ChannelPool helloChannelPool(MethodChainClientInterceptor methodChainClientInterceptor,
+										CompressionCodecs compressionCodecs,
+										@Value("${grpc.client.pool.target:localhost:19090}") String target,
+										@Value("${grpc.client.pool.min-size:1}") int minSize,
+										@Value("${grpc.client.pool.max-size:4}") int maxSize,
+										@Value("${grpc.client.pool.max-streams-per-connection:100}") int maxStreamsPerConnection,
+										@Value("${grpc.client.pool.idle-timeout:60s}") Duration idleTimeout) {
+		// 与全局拦截器保持一致，每条连接都带上按方法编译的认证、日志等拦截器链
+		return new ChannelPool(() -> ManagedChannelBuilder.forTarget(target)
+				.usePlaintext()
+				.intercept(methodChainClientInterceptor)
+				.compressorRegistry(compressionCodecs.compressorRegistry())
+				.decompressorRegistry(compressionCodecs.decompressorRegistry())
+				.build(), minSize, maxSize, maxStreamsPerConnection, idleTimeout);
+	}
+
+	@Bean
+	@Primary
+	public HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub pooledHelloSimpleServiceBlockingStub(ChannelPool helloChannelPool) {
+		return HelloSimpleServiceGrpc.newBlockingStub(helloChannelPool);
+	}
+
+	@Bean
+	@Primary
+	public HelloSimpleServiceGrpc.HelloSimpleServiceStub pooledHelloSimpleServiceStub(ChannelPool helloChannelPool) {
+		return HelloSimpleServiceGrpc.newStub(helloChannelPool);
+	}
+}
@@ -0,0 +1,45 @@
+package com.github.xuchen93.grpc.client.config;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.client.async.HelloSimpleAsyncClient;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * gRPC客户端CompletableFuture异步调用配置
+ * 回调线程池由本配置持有，不注册为Executor Bean，避免影响Spring默认的任务线程池
+ */
+@Configuration
+public class GrpcClientAsyncConfig implements DisposableBean {
+
+	private final ExecutorService callbackExecutor;
+
+	public GrpcClientAsyncConfig(@Value("${grpc.client.async.callback-threads:4}") int callbackThreads) {
+		AtomicInteger index = new AtomicInteger();
+		this.callbackExecutor = Executors.newFixedThreadPool(callbackThreads, r -> {
+			Thread thread = new Thread(r, "grpc-callback-" + index.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * FutureStub复用SimpleStubFactory创建的Stub所在的Channel，全局拦截器同样生效
+	 */
+	@Bean
+	public HelloSimpleAsyncClient helloSimpleAsyncClient(HelloSimpleServiceGrpc.HelloSimpleServiceStub helloSimpleServiceStub) {
+		return new HelloSimpleAsyncClient(HelloSimpleServiceGrpc.newFutureStub(helloSimpleServiceStub.getChannel()),
+				callbackExecutor);
+	}
+
+	@Override
+	public void destroy() {
+		callbackExecutor.shutdown();
+	}
+}
@@ -0,0 +1,60 @@
+package com.github.xuchen93.grpc.client.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * 客户端默认凭证配置
+ * 配置了token时使用固定Token，否则使用jwt-secret在本地签发HS256 JWT并在过期前后台刷新
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.client.auth")
+public class GrpcClientAuthProperties {
+
+	/**
+	 * 是否为未指定Token的调用附加默认凭证
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * 固定Token（不含"Bearer "前缀）
+	 */
+	private String token;
+
+	/**
+	 * 本地签发JWT的密钥ID，对应服务端JWKS中的kid
+	 */
+	private String jwtKid;
+
+	/**
+	 * 本地签发JWT的HMAC密钥，Base64URL编码
+	 */
+	private String jwtSecret;
+
+	/**
+	 * JWT的sub
+	 */
+	private String subject = "grpc-client";
+
+	/**
+	 * JWT的iss，为空时不写入
+	 */
+	private String issuer;
+
+	/**
+	 * JWT的aud，为空时不写入
+	 */
+	private String audience;
+
+	/**
+	 * 每个JWT的有效期
+	 */
+	private Duration ttl = Duration.ofMinutes(30);
+
+	/**
+	 * 在过期前多久后台刷新
+	 */
+	private Duration refreshAhead = Duration.ofMinutes(5);
+}
@@ -0,0 +1,21 @@
+package com.github.xuchen93.grpc.client.config;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.client.batch.HelloBatchingClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * gRPC客户端微批配置
+ */
+@Configuration
+public class GrpcClientBatchConfig {
+
+	@Bean(destroyMethod = "close")
+	public HelloBatchingClient helloBatchingClient(HelloSimpleServiceGrpc.HelloSimpleServiceStub helloSimpleServiceStub,
+												   @Value("${grpc.client.batch.max-size:64}") int maxBatchSize,
+												   @Value("${grpc.client.batch.max-delay-micros:500}") long maxDelayMicros) {
+		return new HelloBatchingClient(helloSimpleServiceStub, maxBatchSize, maxDelayMicros);
+	}
+}
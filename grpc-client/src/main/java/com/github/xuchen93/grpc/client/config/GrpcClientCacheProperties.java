@@ -0,0 +1,41 @@
+package com.github.xuchen93.grpc.client.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 客户端响应缓存配置
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.client.cache")
+public class GrpcClientCacheProperties {
+
+	/**
+	 * 是否开启响应缓存
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * 最大缓存条目数
+	 */
+	private int maxSize = 10000;
+
+	/**
+	 * 过期后仍直接返回旧值并后台刷新的时长，0表示关闭
+	 */
+	private Duration staleWhileRevalidate = Duration.ZERO;
+
+	/**
+	 * 合并调用和后台刷新的超时，与调用方的deadline无关
+	 */
+	private Duration fetchTimeout = Duration.ofSeconds(30);
+
+	/**
+	 * 方法全名 -> 缓存时长，未配置的方法不缓存
+	 */
+	private Map<String, Duration> methods = new LinkedHashMap<>();
+}
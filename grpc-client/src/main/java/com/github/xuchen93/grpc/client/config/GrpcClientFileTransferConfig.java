@@ -0,0 +1,26 @@
+package com.github.xuchen93.grpc.client.config;
+
+import com.github.xuchen93.grpc.api.file.FileTransferServiceGrpc;
+import com.github.xuchen93.grpc.api.resume.ResumeServiceGrpc;
+import com.github.xuchen93.grpc.file.FileTransferClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 文件传输客户端配置
+ */
+@Configuration
+public class GrpcClientFileTransferConfig {
+
+	/**
+	 * 使用SimpleStubFactory注册的异步Stub，全局拦截器同样生效
+	 */
+	@Bean
+	public FileTransferClient fileTransferClient(FileTransferServiceGrpc.FileTransferServiceStub fileTransferServiceStub,
+												 ResumeServiceGrpc.ResumeServiceStub resumeServiceStub,
+												 @Value("${grpc.client.file-transfer.chunk-size:256KB}") DataSize chunkSize) {
+		return new FileTransferClient(fileTransferServiceStub, resumeServiceStub, (int) chunkSize.toBytes());
+	}
+}
@@ -0,0 +1,28 @@
+package com.github.xuchen93.grpc.client.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 客户端进程内传输配置，客户端与服务端部署在同一JVM时使用
+ */
+@Data
+@ConfigurationProperties(prefix = "grpc.client.in-process")
+public class GrpcClientInProcessProperties {
+
+	/**
+	 * 是否改用进程内通道，开启后Stub不再经过Netty、HTTP/2和本机回环网络
+	 */
+	private boolean enabled = false;
+
+	/**
+	 * 进程内服务端的名称，与服务端的spring.grpc.server.inprocess.name一致
+	 */
+	private String name = "grpc-demo";
+
+	/**
+	 * 是否按引用传递消息：protobuf消息不可变，服务端直接拿到客户端构建的对象，不序列化
+	 * 关闭后每条消息仍完整序列化和解析，用于核对与网络传输相同的行为（序列化耗时、消息大小、未知字段等）
+	 */
+	private boolean passByReference = true;
+}
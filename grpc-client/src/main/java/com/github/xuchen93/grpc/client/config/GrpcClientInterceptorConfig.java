@@ -1,28 +1,175 @@
 package com.github.xuchen93.grpc.client.config;
 
+import com.github.xuchen93.grpc.accesslog.AccessLogProperties;
+import com.github.xuchen93.grpc.accesslog.AccessLogSink;
+import com.github.xuchen93.grpc.auth.HmacJwtTokenSource;
+import com.github.xuchen93.grpc.auth.RefreshingTokenCredentials;
+import com.github.xuchen93.grpc.auth.TokenSource;
+import com.github.xuchen93.grpc.api.admin.GrpcAdminServiceGrpc;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.compression.CompressionCodecs;
+import com.github.xuchen93.grpc.interceptor.InterceptorBeanListener;
+import com.github.xuchen93.grpc.interceptor.chain.InterceptorChainProperties;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainRules;
 import com.github.xuchen93.grpc.interceptor.client.AuthClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.client.CachingClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.client.JfrClientInterceptor;
 import com.github.xuchen93.grpc.interceptor.client.LoggingClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.client.MetricsClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.client.TraceClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.logging.LoggingPolicyProperties;
+import com.github.xuchen93.grpc.metrics.GrpcMetricsMeterBinder;
+import com.github.xuchen93.grpc.metrics.GrpcMetricsRegistry;
+import com.github.xuchen93.grpc.trace.SpanBuffer;
+import com.github.xuchen93.grpc.trace.SpanFileExporter;
+import com.github.xuchen93.grpc.trace.TracingProperties;
 import io.grpc.ClientInterceptor;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.grpc.client.GlobalClientInterceptor;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Base64;
+import java.util.List;
+
 /**
  * gRPC客户端拦截器配置
  * 引用grpc-api模块中的拦截器，使用@Bean + @Order控制执行顺序
+ * 各拦截器不直接注册为全局拦截器，而是由唯一的全局拦截器MethodChainClientInterceptor按方法编译成链
  */
 @Configuration
+@EnableConfigurationProperties({GrpcClientCacheProperties.class, LoggingPolicyProperties.class, AccessLogProperties.class, TracingProperties.class,
+		GrpcClientAuthProperties.class, InterceptorChainProperties.class})
 public class GrpcClientInterceptorConfig {
 
+	/**
+	 * 按方法的调用指标
+	 */
+	@Bean
+	public GrpcMetricsRegistry grpcMetricsRegistry() {
+		return new GrpcMetricsRegistry();
+	}
+
+	/**
+	 * 压缩编解码器（gzip、deflate）及其统计，与服务端注册相同的编码
+	 */
+	@Bean
+	public CompressionCodecs compressionCodecs() {
+		return new CompressionCodecs();
+	}
+
+	/**
+	 * 带统计的压缩注册表，替换spring-grpc默认的只含gzip的注册表，由其GrpcChannelBuilderCustomizer设置到所有通道
+	 */
+	@Bean
+	public CompressorRegistry compressorRegistry(CompressionCodecs compressionCodecs) {
+		return compressionCodecs.compressorRegistry();
+	}
+
+	/**
+	 * 带统计的解压注册表，所有通道通过grpc-accept-encoding通告gzip和deflate
+	 */
+	@Bean
+	public DecompressorRegistry decompressorRegistry(CompressionCodecs compressionCodecs) {
+		return compressionCodecs.decompressorRegistry();
+	}
+
+	/**
+	 * 绑定到Micrometer，由Spring Boot自动注册到MeterRegistry
+	 */
+	@Bean
+	public GrpcMetricsMeterBinder grpcMetricsMeterBinder(GrpcMetricsRegistry grpcMetricsRegistry) {
+		return new GrpcMetricsMeterBinder(grpcMetricsRegistry);
+	}
+
+	/**
+	 * Span缓冲区，未开启追踪记录时为NOOP（traceparent仍然传播）
+	 */
+	@Bean
+	public SpanBuffer spanBuffer(TracingProperties tracingProperties) {
+		return tracingProperties.isEnabled() ? new SpanBuffer(tracingProperties.getBufferSize()) : SpanBuffer.NOOP;
+	}
+
+	/**
+	 * 定期将Span导出到本地文件
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = "grpc.tracing", name = "enabled", havingValue = "true")
+	public SpanFileExporter spanFileExporter(SpanBuffer spanBuffer, TracingProperties tracingProperties) throws IOException {
+		return new SpanFileExporter(spanBuffer, Paths.get(tracingProperties.getExportFile()), tracingProperties.getExportInterval());
+	}
+
+	/**
+	 * 追踪拦截器，放在最外层，生成客户端Span并写入traceparent请求头
+	 */
+	@Bean
+	@Order(-300)
+	public ClientInterceptor traceClientInterceptor(SpanBuffer spanBuffer) {
+		return new TraceClientInterceptor(spanBuffer);
+	}
+
+	/**
+	 * 指标拦截器，放在缓存之外，统计业务代码看到的耗时
+	 */
+	@Bean
+	@Order(-200)
+	public ClientInterceptor metricsClientInterceptor(GrpcMetricsRegistry grpcMetricsRegistry) {
+		return new MetricsClientInterceptor(grpcMetricsRegistry);
+	}
+
+	/**
+	 * 响应缓存拦截器，放在最外层，命中时不再经过认证、日志等拦截器
+	 */
+	@Bean
+	@Order(-100)
+	@ConditionalOnProperty(prefix = "grpc.client.cache", name = "enabled", havingValue = "true")
+	public ClientInterceptor cachingClientInterceptor(GrpcClientCacheProperties properties) {
+		return new CachingClientInterceptor(properties.getMethods(), properties.getStaleWhileRevalidate(), properties.getMaxSize(),
+				properties.getFetchTimeout());
+	}
+
+	/**
+	 * 默认凭证：保存构建好的Authorization头，在过期前后台刷新；容器关闭时停止刷新线程
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = "grpc.client.auth", name = "enabled", havingValue = "true")
+	public RefreshingTokenCredentials refreshingTokenCredentials(GrpcClientAuthProperties properties) {
+		TokenSource tokenSource;
+		if (properties.getToken() != null && !properties.getToken().isEmpty()) {
+			tokenSource = TokenSource.of(properties.getToken());
+		} else if (properties.getJwtSecret() != null && !properties.getJwtSecret().isEmpty()) {
+			tokenSource = new HmacJwtTokenSource(properties.getJwtKid(), Base64.getUrlDecoder().decode(properties.getJwtSecret()),
+					properties.getSubject(), properties.getIssuer(), properties.getAudience(), properties.getTtl());
+		} else {
+			throw new IllegalStateException("grpc.client.auth.token or grpc.client.auth.jwt-secret is required");
+		}
+		return new RefreshingTokenCredentials(tokenSource, properties.getRefreshAhead());
+	}
+
 	/**
 	 * 认证拦截器（来自grpc-api模块）
 	 */
 	@Bean
 	@Order(0)
-	@GlobalClientInterceptor
-	public ClientInterceptor authClientInterceptor() {
-		return new AuthClientInterceptor();
+	public ClientInterceptor authClientInterceptor(ObjectProvider<RefreshingTokenCredentials> refreshingTokenCredentials) {
+		return new AuthClientInterceptor(refreshingTokenCredentials.getIfAvailable());
+	}
+
+	/**
+	 * 二进制访问日志，未开启时为NOOP；容器关闭时写完剩余记录
+	 */
+	@Bean
+	public AccessLogSink accessLogSink(AccessLogProperties accessLogProperties) throws IOException {
+		return accessLogProperties.toSink();
 	}
 
 	/**
@@ -30,8 +177,44 @@ public class GrpcClientInterceptorConfig {
 	 */
 	@Bean
 	@Order(1000)
+	public ClientInterceptor loggingClientInterceptor(LoggingPolicyProperties loggingPolicyProperties, AccessLogSink accessLogSink) {
+		return new LoggingClientInterceptor(loggingPolicyProperties.toPolicy(), accessLogSink);
+	}
+
+	/**
+	 * JFR事件拦截器，放在日志拦截器内层以便取到TraceId；未录制时直接透传
+	 */
+	@Bean
+	@Order(1100)
+	public ClientInterceptor jfrClientInterceptor() {
+		return new JfrClientInterceptor();
+	}
+
+	/**
+	 * 方法链规则：配置的跳过规则 + 拦截器自身的MethodScoped
+	 */
+	@Bean
+	public MethodChainRules methodChainRules(InterceptorChainProperties interceptorChainProperties) {
+		return new MethodChainRules(interceptorChainProperties.getSkip());
+	}
+
+	/**
+	 * 唯一的全局拦截器：按方法执行预编译的拦截器链，链中拦截器由InterceptorBeanListener按@Order收集
+	 */
+	@Bean
 	@GlobalClientInterceptor
-	public ClientInterceptor loggingClientInterceptor() {
-		return new LoggingClientInterceptor();
+	public MethodChainClientInterceptor methodChainClientInterceptor(InterceptorBeanListener interceptorBeanListener,
+																	 MethodChainRules methodChainRules) {
+		return new MethodChainClientInterceptor(interceptorBeanListener::orderedClientInterceptors, methodChainRules);
+	}
+
+	/**
+	 * 全部单例创建完成后为已知服务的每个方法编译拦截器链，其他方法在第一次调用时编译
+	 */
+	@Bean
+	public SmartInitializingSingleton methodChainPrecompiler(MethodChainClientInterceptor methodChainClientInterceptor) {
+		return () -> methodChainClientInterceptor.precompile(List.of(
+				HelloSimpleServiceGrpc.getServiceDescriptor(),
+				GrpcAdminServiceGrpc.getServiceDescriptor()));
 	}
 }
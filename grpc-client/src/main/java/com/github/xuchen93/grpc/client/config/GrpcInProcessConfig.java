@@ -0,0 +1,72 @@
+package com.github.xuchen93.grpc.client.config;
+
+import com.github.xuchen93.grpc.api.file.FileTransferServiceGrpc;
+import com.github.xuchen93.grpc.api.resume.ResumeServiceGrpc;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.api.simple.ReactorHelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainClientInterceptor;
+import com.github.xuchen93.grpc.interceptor.client.SerializingClientInterceptor;
+import io.grpc.ManagedChannel;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+/**
+ * gRPC客户端进程内传输配置，客户端与服务端部署在同一JVM时使用
+ * 开启grpc.client.in-process.enabled后，应用中使用的Stub改为基于进程内通道创建，
+ * 覆盖@ImportGrpcClients注册的TCP Stub；服务端需配置同名的spring.grpc.server.inprocess.name
+ * 调用不经过Netty、HTTP/2分帧和回环网络，按方法编译的拦截器链照常执行；
+ * 进程内传输不压缩消息，也不检查消息大小上限
+ */
+@Slf4j
+@Configuration
+@ConditionalOnProperty(prefix = "grpc.client.in-process", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(GrpcClientInProcessProperties.class)
+public class GrpcInProcessConfig {
+
+	@Bean(destroyMethod = "shutdownNow")
+	public ManagedChannel inProcessChannel(GrpcClientInProcessProperties properties,
+										   MethodChainClientInterceptor methodChainClientInterceptor) {
+		InProcessChannelBuilder builder = InProcessChannelBuilder.forName(properties.getName());
+		if (!properties.isPassByReference()) {
+			// 后添加的拦截器先执行：序列化拦截器在最内层，只替换交给传输层的marshaller
+			builder.intercept(new SerializingClientInterceptor());
+		}
+		log.info("[InProcess] Stub使用进程内通道: name={}, passByReference={}", properties.getName(), properties.isPassByReference());
+		return builder.intercept(methodChainClientInterceptor).build();
+	}
+
+	@Bean
+	@Primary
+	public HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub inProcessHelloSimpleServiceBlockingStub(ManagedChannel inProcessChannel) {
+		return HelloSimpleServiceGrpc.newBlockingStub(inProcessChannel);
+	}
+
+	@Bean
+	@Primary
+	public HelloSimpleServiceGrpc.HelloSimpleServiceStub inProcessHelloSimpleServiceStub(ManagedChannel inProcessChannel) {
+		return HelloSimpleServiceGrpc.newStub(inProcessChannel);
+	}
+
+	@Bean
+	@Primary
+	public ReactorHelloSimpleServiceGrpc.ReactorHelloSimpleServiceStub inProcessReactorHelloSimpleServiceStub(ManagedChannel inProcessChannel) {
+		return ReactorHelloSimpleServiceGrpc.newReactorStub(inProcessChannel);
+	}
+
+	@Bean
+	@Primary
+	public FileTransferServiceGrpc.FileTransferServiceStub inProcessFileTransferServiceStub(ManagedChannel inProcessChannel) {
+		return FileTransferServiceGrpc.newStub(inProcessChannel);
+	}
+
+	@Bean
+	@Primary
+	public ResumeServiceGrpc.ResumeServiceStub inProcessResumeServiceStub(ManagedChannel inProcessChannel) {
+		return ResumeServiceGrpc.newStub(inProcessChannel);
+	}
+}
@@ -5,8 +5,12 @@ import com.github.xuchen93.grpc.api.simple.BidirectionalChatMessage;
 import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
 import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
 import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.api.simple.ReactorHelloSimpleServiceGrpc;
 import com.github.xuchen93.grpc.api.simple.StreamRequestChunk;
 import com.github.xuchen93.grpc.api.simple.StreamResponseSummary;
+import com.github.xuchen93.grpc.client.batch.HelloBatchingClient;
+import com.github.xuchen93.grpc.interceptor.client.AuthClientInterceptor;
+import io.grpc.Status;
 import io.grpc.StatusRuntimeException;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
@@ -14,10 +18,20 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 @Slf4j
 @SpringBootTest
 public class HelloServiceTests {
@@ -28,6 +42,12 @@ public class HelloServiceTests {
 	@Autowired(required = false)
 	private HelloSimpleServiceGrpc.HelloSimpleServiceStub helloServiceAsyncStub; // 异步Stub（用于流式调用）
 
+	@Autowired
+	private HelloBatchingClient helloBatchingClient;
+
+	@Autowired
+	private ReactorHelloSimpleServiceGrpc.ReactorHelloSimpleServiceStub helloServiceReactorStub;
+
 	// ======================== 1. 测试简单RPC（Unary RPC） ========================
 	@Test
 	void sayHello() {
@@ -192,4 +212,51 @@ public class HelloServiceTests {
 			finishLatch.countDown();
 		}
 	}
+
+	// ======================== 5. 测试微批RPC（sayHelloBatch） ========================
+	@Test
+	void sayHelloBatching() throws Exception {
+		String[] names = {"alice", "bob", "carol", "dave"};
+		List<CompletableFuture<HelloSimpleResponse>> futures = new ArrayList<>();
+		// 批量请求由flush线程发出，Token在入队时随请求保存
+		AuthClientInterceptor.setToken("valid_token_123456789");
+		try {
+			for (String name : names) {
+				futures.add(helloBatchingClient.sayHello(HelloSimpleRequest.newBuilder().setName(name).build()));
+			}
+		} finally {
+			AuthClientInterceptor.clearToken();
+		}
+		for (int i = 0; i < names.length; i++) {
+			CompletableFuture<HelloSimpleResponse> future = futures.get(i);
+			if (names[i].startsWith("b")) {
+				// 以b开头的名称单独失败，不影响同批次的其他请求
+				ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+				StatusRuntimeException sre = assertInstanceOf(StatusRuntimeException.class, e.getCause());
+				log.info("【微批RPC】{} 异常：{}", names[i], sre.getStatus());
+				assertEquals(Status.Code.FAILED_PRECONDITION, sre.getStatus().getCode());
+			} else {
+				HelloSimpleResponse response = future.get(5, TimeUnit.SECONDS);
+				log.info("【微批RPC】{} 响应：{}", names[i], response.getMessage());
+				assertTrue(response.getMessage().contains(names[i]));
+			}
+		}
+	}
+
+	// ======================== 6. 测试响应式服务端流式RPC（按需拉取） ========================
+	@Test
+	void reactorStreamHello() {
+		try {
+			List<HelloSimpleResponse> responses = helloServiceReactorStub
+					.streamHello(HelloSimpleRequest.newBuilder().setName("grpc reactor stream").build())
+					// 每次只向服务端请求1条
+					.limitRate(1)
+					.doOnNext(response -> log.info("【响应式流式RPC】接收响应：{}", response.getMessage()))
+					.collectList()
+					.block(Duration.ofSeconds(10));
+			log.info("【响应式流式RPC】共接收{}条响应", responses == null ? 0 : responses.size());
+		} catch (StatusRuntimeException e) {
+			log.error("【响应式流式RPC】服务端返回异常：{}", e.getStatus().getDescription(), e);
+		}
+	}
 }
@@ -3,6 +3,7 @@ package com.github.xuchen93.grpc.client;
 import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
 import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
 import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.client.async.HelloSimpleAsyncClient;
 import com.github.xuchen93.grpc.interceptor.client.AuthClientInterceptor;
 import com.github.xuchen93.grpc.interceptor.client.LoggingClientInterceptor;
 import io.grpc.StatusRuntimeException;
@@ -13,6 +14,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -26,6 +31,9 @@ public class InterceptorTests {
     @Autowired
     private HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub helloServiceBlockingStub;
 
+    @Autowired
+    private HelloSimpleAsyncClient helloSimpleAsyncClient;
+
 
     @BeforeEach
     void setUp() {
@@ -172,4 +180,24 @@ public class InterceptorTests {
             LoggingClientInterceptor.clearTraceId();
         }
     }
+
+    // ======================== 测试6: 异步客户端随调用传递Token和TraceId ========================
+    @Test
+    void testAsyncClientCarriesContextAcrossThreads() throws Exception {
+        log.info("【测试6】异步客户端在其他线程发起调用，Token和TraceId随CallOptions传递");
+
+        HelloSimpleAsyncClient client = helloSimpleAsyncClient
+                .withToken("valid_async_token_12345")
+                .withTraceId("async-trace-12345")
+                .withTimeout(Duration.ofSeconds(5));
+
+        // 在没有设置ThreadLocal的线程上发起调用
+        CompletableFuture<HelloSimpleResponse> future = CompletableFuture
+                .supplyAsync(() -> client.sayHello(HelloSimpleRequest.newBuilder().setName("async-test").build()))
+                .thenCompose(f -> f);
+
+        HelloSimpleResponse response = future.get(10, TimeUnit.SECONDS);
+        log.info("【测试6】请求成功: {}", response.getMessage());
+        assertNotNull(response.getMessage());
+    }
 }
@@ -0,0 +1,25 @@
+package com.github.xuchen93.grpc.server.advice;
+
+import com.github.xuchen93.grpc.exception.GrpcAdvice;
+import com.github.xuchen93.grpc.exception.GrpcExceptionHandler;
+import io.grpc.Status;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 全部服务共用的异常映射，未列出的异常按ExceptionStatusMapper的默认规则处理
+ * 业务错误优先使用HelloSimpleErrors这类预先构造的GrpcError，这里只处理第三方代码抛出的通用异常
+ */
+@GrpcAdvice
+public class GlobalGrpcExceptionAdvice {
+
+	@GrpcExceptionHandler
+	public Status illegalArgument(IllegalArgumentException e) {
+		return Status.INVALID_ARGUMENT.withDescription(e.getMessage());
+	}
+
+	@GrpcExceptionHandler
+	public Status timeout(TimeoutException e) {
+		return Status.DEADLINE_EXCEEDED.withDescription(e.getMessage());
+	}
+}
@@ -0,0 +1,25 @@
+package com.github.xuchen93.grpc.server.config;
+
+import com.github.xuchen93.grpc.file.FileStore;
+import com.github.xuchen93.grpc.file.FileTransferProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * 文件传输服务配置
+ */
+@Configuration
+@EnableConfigurationProperties(FileTransferProperties.class)
+public class GrpcFileTransferConfig {
+
+	/**
+	 * 文件存储目录，不存在时创建
+	 */
+	@Bean
+	public FileStore fileStore(FileTransferProperties fileTransferProperties) throws IOException {
+		return fileTransferProperties.toStore();
+	}
+}
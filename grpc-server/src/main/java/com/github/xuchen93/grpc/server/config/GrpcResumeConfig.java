@@ -0,0 +1,25 @@
+package com.github.xuchen93.grpc.server.config;
+
+import com.github.xuchen93.grpc.resume.ResumeCheckpointStore;
+import com.github.xuchen93.grpc.resume.ResumeProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * 流式调用续传配置
+ */
+@Configuration
+@EnableConfigurationProperties(ResumeProperties.class)
+public class GrpcResumeConfig {
+
+	/**
+	 * 检查点目录，不存在时创建，启动时删除过期的检查点
+	 */
+	@Bean
+	public ResumeCheckpointStore resumeCheckpointStore(ResumeProperties resumeProperties) throws IOException {
+		return resumeProperties.toStore();
+	}
+}
@@ -1,37 +1,326 @@
 package com.github.xuchen93.grpc.server.config;
 
+import com.github.xuchen93.grpc.accesslog.AccessLogProperties;
+import com.github.xuchen93.grpc.accesslog.AccessLogSink;
+import com.github.xuchen93.grpc.auth.AuthCacheProperties;
+import com.github.xuchen93.grpc.auth.JwksFileWatcher;
+import com.github.xuchen93.grpc.auth.JwtProperties;
+import com.github.xuchen93.grpc.auth.JwtTokenValidator;
+import com.github.xuchen93.grpc.auth.SimpleTokenValidator;
+import com.github.xuchen93.grpc.auth.TokenCache;
+import com.github.xuchen93.grpc.auth.TokenValidator;
+import com.github.xuchen93.grpc.compression.CompressionCodecs;
+import com.github.xuchen93.grpc.exception.ExceptionMappingProperties;
+import com.github.xuchen93.grpc.exception.ExceptionStatusMapper;
+import com.github.xuchen93.grpc.exception.GrpcAdvice;
+import com.github.xuchen93.grpc.interceptor.InterceptorBeanListener;
+import com.github.xuchen93.grpc.interceptor.chain.InterceptorChainProperties;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainRules;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainServerInterceptor;
+import com.github.xuchen93.grpc.interceptor.logging.LoggingPolicyProperties;
+import com.github.xuchen93.grpc.interceptor.pipeline.AuthStage;
+import com.github.xuchen93.grpc.interceptor.pipeline.CompressionProperties;
+import com.github.xuchen93.grpc.interceptor.pipeline.ConcurrencyLimitProperties;
+import com.github.xuchen93.grpc.interceptor.pipeline.FusedServerPipeline;
+import com.github.xuchen93.grpc.interceptor.pipeline.LoggingStage;
+import com.github.xuchen93.grpc.interceptor.pipeline.MetricsStage;
+import com.github.xuchen93.grpc.interceptor.pipeline.ServerStage;
+import com.github.xuchen93.grpc.interceptor.pipeline.ValidationStage;
 import com.github.xuchen93.grpc.interceptor.server.AuthServerInterceptor;
-import com.github.xuchen93.grpc.interceptor.server.LoggingServerInterceptor;
+import com.github.xuchen93.grpc.interceptor.server.CallPhaseServerInterceptor;
+import com.github.xuchen93.grpc.interceptor.server.JfrServerInterceptor;
+import com.github.xuchen93.grpc.interceptor.server.TraceServerInterceptor;
+import com.github.xuchen93.grpc.metrics.CallPhaseTracer;
+import com.github.xuchen93.grpc.metrics.GrpcMetricsMeterBinder;
+import com.github.xuchen93.grpc.metrics.GrpcMetricsRegistry;
+import com.github.xuchen93.grpc.server.impl.HelloSimpleValidators;
+import com.github.xuchen93.grpc.trace.SpanBuffer;
+import com.github.xuchen93.grpc.trace.SpanFileExporter;
+import com.github.xuchen93.grpc.trace.TracingProperties;
+import com.github.xuchen93.grpc.validation.MessageValidators;
+import io.grpc.BindableService;
+import io.grpc.CompressorRegistry;
+import io.grpc.DecompressorRegistry;
+import io.grpc.ServerBuilder;
 import io.grpc.ServerInterceptor;
+import io.grpc.ServerServiceDefinition;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
 import org.springframework.grpc.server.GlobalServerInterceptor;
+import org.springframework.grpc.server.ServerBuilderCustomizer;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * gRPC服务端拦截器全局配置
  * 引用grpc-api模块中的拦截器，使用@Bean + @Order控制执行顺序
+ * 各拦截器不直接注册为全局拦截器，而是由唯一的全局拦截器MethodChainServerInterceptor按方法编译成链
+ * 指标、认证、校验、限流、压缩、日志作为ServerStage在融合流水线FusedServerPipeline中执行，共用一个调用包装和一个监听器
+ * 服务方法抛出的异常由融合流水线通过ExceptionStatusMapper统一映射为状态
  */
 @Configuration
+@EnableConfigurationProperties({LoggingPolicyProperties.class, AccessLogProperties.class, TracingProperties.class,
+		AuthCacheProperties.class, JwtProperties.class, InterceptorChainProperties.class, ConcurrencyLimitProperties.class,
+		ExceptionMappingProperties.class, CompressionProperties.class})
 public class GrpcServerInterceptorConfig {
 
 	/**
-	 * 认证拦截器（来自grpc-api模块）
+	 * 按方法的调用指标，供指标拦截器写入、Micrometer和管理服务读取
+	 */
+	@Bean
+	public GrpcMetricsRegistry grpcMetricsRegistry() {
+		return new GrpcMetricsRegistry();
+	}
+
+	/**
+	 * 绑定到Micrometer，由Spring Boot自动注册到MeterRegistry
+	 */
+	@Bean
+	public GrpcMetricsMeterBinder grpcMetricsMeterBinder(GrpcMetricsRegistry grpcMetricsRegistry) {
+		return new GrpcMetricsMeterBinder(grpcMetricsRegistry);
+	}
+
+	/**
+	 * 传输层阶段计时：请求头到达与trailers写出
+	 */
+	@Bean
+	public <T extends ServerBuilder<T>> ServerBuilderCustomizer<T> callPhaseTracerCustomizer(GrpcMetricsRegistry grpcMetricsRegistry) {
+		return builder -> builder.addStreamTracerFactory(CallPhaseTracer.factory(grpcMetricsRegistry));
+	}
+
+	/**
+	 * 压缩编解码器（gzip、deflate）及其统计，作为MeterBinder由Spring Boot绑定到MeterRegistry
+	 */
+	@Bean
+	public CompressionCodecs compressionCodecs() {
+		return new CompressionCodecs();
+	}
+
+	/**
+	 * 带统计的压缩注册表，替换spring-grpc默认的只含gzip的注册表，由其ServerBuilderCustomizer设置到所有服务端
+	 */
+	@Bean
+	public CompressorRegistry compressorRegistry(CompressionCodecs compressionCodecs) {
+		return compressionCodecs.compressorRegistry();
+	}
+
+	/**
+	 * 带统计的解压注册表，替换spring-grpc默认的只含gzip的注册表
+	 */
+	@Bean
+	public DecompressorRegistry decompressorRegistry(CompressionCodecs compressionCodecs) {
+		return compressionCodecs.decompressorRegistry();
+	}
+
+	/**
+	 * Span缓冲区，未开启追踪记录时为NOOP（traceparent仍然传播）
+	 */
+	@Bean
+	public SpanBuffer spanBuffer(TracingProperties tracingProperties) {
+		return tracingProperties.isEnabled() ? new SpanBuffer(tracingProperties.getBufferSize()) : SpanBuffer.NOOP;
+	}
+
+	/**
+	 * 定期将Span导出到本地文件
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = "grpc.tracing", name = "enabled", havingValue = "true")
+	public SpanFileExporter spanFileExporter(SpanBuffer spanBuffer, TracingProperties tracingProperties) throws IOException {
+		return new SpanFileExporter(spanBuffer, Paths.get(tracingProperties.getExportFile()), tracingProperties.getExportInterval());
+	}
+
+	/**
+	 * 追踪拦截器，放在最外层，每个调用只解析一次traceparent并存入Context
+	 */
+	@Bean
+	@Order(-200)
+	public ServerInterceptor traceServerInterceptor(SpanBuffer spanBuffer) {
+		return new TraceServerInterceptor(spanBuffer);
+	}
+
+	/**
+	 * JFR事件拦截器，放在融合流水线（其中的认证阶段）之前，被拒绝的调用也会产生调用事件；未录制时直接透传
+	 */
+	@Bean
+	@Order(-150)
+	public ServerInterceptor jfrServerInterceptor() {
+		return new JfrServerInterceptor();
+	}
+
+	/**
+	 * 已验证Token缓存，可注入后用于吊销Token
+	 */
+	@Bean
+	public TokenCache tokenCache(AuthCacheProperties authCacheProperties) {
+		return authCacheProperties.toCache();
+	}
+
+	/**
+	 * 监视本地JWKS文件，修改后自动重新加载并清空已验证Token缓存，已移除密钥签发的Token不再命中缓存；容器关闭时停止监视线程
+	 */
+	@Bean
+	@ConditionalOnProperty(prefix = "grpc.auth.jwt", name = "enabled", havingValue = "true")
+	public JwksFileWatcher jwksFileWatcher(JwtProperties jwtProperties, TokenCache tokenCache) throws IOException {
+		return new JwksFileWatcher(Paths.get(jwtProperties.getJwksFile()), jwtProperties.getReloadInterval(),
+				tokenCache::invalidateAll);
+	}
+
+	/**
+	 * Token验证器：开启JWT时校验签名和claims，否则使用演示用的简单规则
+	 */
+	@Bean
+	public TokenValidator tokenValidator(JwtProperties jwtProperties, ObjectProvider<JwksFileWatcher> jwksFileWatcher) {
+		if (!jwtProperties.isEnabled()) {
+			return new SimpleTokenValidator();
+		}
+		return new JwtTokenValidator(jwksFileWatcher.getObject(), jwtProperties.getIssuer(),
+				jwtProperties.getAudience(), jwtProperties.getClockSkew(), jwtProperties.isAllowMissingExp());
+	}
+
+	/**
+	 * 异常到状态的映射，注册容器中全部@GrpcAdvice上的@GrpcExceptionHandler方法
+	 */
+	@Bean
+	public ExceptionStatusMapper exceptionStatusMapper(ExceptionMappingProperties exceptionMappingProperties,
+													   ApplicationContext applicationContext) {
+		ExceptionStatusMapper mapper = exceptionMappingProperties.toMapper();
+		applicationContext.getBeansWithAnnotation(GrpcAdvice.class).values().forEach(mapper::registerAdvice);
+		return mapper;
+	}
+
+	/**
+	 * 融合流水线：阶段由InterceptorBeanListener按@Order收集，每个方法只包含适用的阶段；服务方法的异常在这里映射为状态
+	 */
+	@Bean
+	@Order(-100)
+	public ServerInterceptor fusedServerPipeline(InterceptorBeanListener interceptorBeanListener, MethodChainRules methodChainRules,
+												 ExceptionStatusMapper exceptionStatusMapper) {
+		return new FusedServerPipeline(interceptorBeanListener::orderedServerStages, methodChainRules, exceptionStatusMapper);
+	}
+
+	/**
+	 * 指标阶段，放在认证和限流之前，被拒绝的调用也会计入
+	 */
+	@Bean
+	@Order(-100)
+	public ServerStage metricsStage(GrpcMetricsRegistry grpcMetricsRegistry) {
+		return new MetricsStage(grpcMetricsRegistry);
+	}
+
+	/**
+	 * 认证阶段，白名单方法的流水线中不包含本阶段
 	 */
 	@Bean
 	@Order(0)
-	@GlobalServerInterceptor
-	public ServerInterceptor authServerInterceptor() {
-		return new AuthServerInterceptor();
+	public ServerStage authStage(TokenValidator tokenValidator, TokenCache tokenCache) {
+		return new AuthStage(new AuthServerInterceptor(AuthServerInterceptor.DEFAULT_WHITELIST, tokenValidator, tokenCache));
+	}
+
+	/**
+	 * 请求校验规则，按消息类型或方法注册，编译流水线时按方法取出
+	 */
+	@Bean
+	public MessageValidators messageValidators() {
+		return HelloSimpleValidators.register(new MessageValidators());
+	}
+
+	/**
+	 * 校验阶段，放在认证之后，未认证的请求不做校验；没有校验器的方法不包含本阶段
+	 */
+	@Bean
+	@Order(200)
+	public ServerStage validationStage(MessageValidators messageValidators) {
+		return new ValidationStage(messageValidators);
 	}
 
 	/**
-	 * 日志拦截器（来自grpc-api模块）
+	 * 并发限制阶段，放在认证之后，未认证的调用不占用名额；未配置上限的方法不包含本阶段
+	 */
+	@Bean
+	@Order(500)
+	public ServerStage concurrencyLimitStage(ConcurrencyLimitProperties concurrencyLimitProperties) {
+		return concurrencyLimitProperties.toStage();
+	}
+
+	/**
+	 * 响应压缩阶段，按方法选择编码、按响应大小决定是否压缩；不压缩的方法不包含本阶段
+	 * 配置的编码按服务端实际使用的注册表校验，不存在时启动失败
+	 */
+	@Bean
+	@Order(800)
+	public ServerStage compressionStage(CompressionProperties compressionProperties, CompressorRegistry compressorRegistry) {
+		return compressionProperties.toStage(compressorRegistry);
+	}
+
+	/**
+	 * 二进制访问日志，未开启时为NOOP；容器关闭时写完剩余记录
+	 */
+	@Bean
+	public AccessLogSink accessLogSink(AccessLogProperties accessLogProperties) throws IOException {
+		return accessLogProperties.toSink();
+	}
+
+	/**
+	 * 日志阶段，流水线中的最后一个阶段
 	 */
 	@Bean
 	@Order(1000)
+	public ServerStage loggingStage(LoggingPolicyProperties loggingPolicyProperties, AccessLogSink accessLogSink) {
+		return new LoggingStage(loggingPolicyProperties.toPolicy(), accessLogSink);
+	}
+
+	/**
+	 * 阶段计时拦截器，放在最内层，紧挨服务方法
+	 */
+	@Bean
+	@Order(2000)
+	public ServerInterceptor callPhaseServerInterceptor(GrpcMetricsRegistry grpcMetricsRegistry) {
+		return new CallPhaseServerInterceptor(grpcMetricsRegistry);
+	}
+
+	/**
+	 * 方法链规则：配置的跳过规则 + 服务实现类上的@SkipInterceptors + 拦截器自身的MethodScoped
+	 */
+	@Bean
+	public MethodChainRules methodChainRules(InterceptorChainProperties interceptorChainProperties) {
+		return new MethodChainRules(interceptorChainProperties.getSkip());
+	}
+
+	/**
+	 * 唯一的全局拦截器：按方法执行预编译的拦截器链，链中拦截器由InterceptorBeanListener按@Order收集
+	 */
+	@Bean
 	@GlobalServerInterceptor
-	public ServerInterceptor loggingServerInterceptor() {
-		return new LoggingServerInterceptor();
+	public MethodChainServerInterceptor methodChainServerInterceptor(InterceptorBeanListener interceptorBeanListener,
+																	 MethodChainRules methodChainRules) {
+		return new MethodChainServerInterceptor(interceptorBeanListener::orderedServerInterceptors, methodChainRules);
+	}
+
+	/**
+	 * 全部单例创建完成后（服务端启动前）为已注册服务的每个方法编译拦截器链
+	 */
+	@Bean
+	public SmartInitializingSingleton methodChainPrecompiler(MethodChainServerInterceptor methodChainServerInterceptor,
+															 MethodChainRules methodChainRules,
+															 ObjectProvider<BindableService> services) {
+		return () -> {
+			List<ServerServiceDefinition> definitions = new ArrayList<>();
+			services.forEach(service -> {
+				ServerServiceDefinition definition = service.bindService();
+				methodChainRules.registerService(definition.getServiceDescriptor().getName(), AopUtils.getTargetClass(service));
+				definitions.add(definition);
+			});
+			methodChainServerInterceptor.precompile(definitions);
+		};
 	}
 }
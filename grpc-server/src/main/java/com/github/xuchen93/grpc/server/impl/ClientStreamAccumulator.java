@@ -0,0 +1,142 @@
+package com.github.xuchen93.grpc.server.impl;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.api.simple.StreamRequestChunk;
+import com.github.xuchen93.grpc.api.simple.StreamResponseSummary;
+import com.github.xuchen93.grpc.interceptor.util.GrpcContextUtil;
+import com.github.xuchen93.grpc.resume.ResumeCheckpointStore;
+import com.github.xuchen93.grpc.resume.ResumeSession;
+import com.google.protobuf.InvalidProtocolBufferException;
+import lombok.extern.slf4j.Slf4j;
+
+import static com.github.xuchen93.grpc.resume.ResumeErrors.RESUME_OFFSET_GAP;
+import static com.github.xuchen93.grpc.resume.ResumeErrors.RESUME_TOKEN_MISMATCH;
+import static com.github.xuchen93.grpc.resume.ResumeErrors.RESUME_UNSUPPORTED;
+import static com.github.xuchen93.grpc.server.impl.HelloSimpleErrors.NUMBER_OVERFLOW;
+import static com.github.xuchen93.grpc.server.impl.HelloSimpleErrors.NUMBER_TOO_LARGE;
+
+/**
+ * clientStreamHello的汇总状态，两种实现共用
+ * <ul>
+ *     <li>第一条分片携带续传令牌时独占该令牌，并从检查点恢复分片数与总和</li>
+ *     <li>之后按序号去重：不大于已确认序号的分片是重连后重发的，直接跳过；跳过未确认的序号则拒绝</li>
+ *     <li>每checkpointMessages条分片保存一次检查点，调用中断（取消、出错）时立即保存，完成时删除</li>
+ * </ul>
+ * 方法都加锁：响应式实现中取消信号可能与数据信号来自不同线程
+ */
+@Slf4j
+final class ClientStreamAccumulator {
+
+	private final ResumeCheckpointStore checkpoints;
+	private final int checkpointMessages;
+	private ResumeSession session;
+	private boolean first = true;
+	// 已接受的分片数，续传时即已确认的序号
+	private long count;
+	private long total;
+	private long checkpointed;
+
+	/**
+	 * @param checkpoints 为null时不支持续传，携带令牌的请求被拒绝
+	 */
+	ClientStreamAccumulator(ResumeCheckpointStore checkpoints, int checkpointMessages) {
+		this.checkpoints = checkpoints;
+		this.checkpointMessages = checkpointMessages;
+	}
+
+	synchronized void accept(StreamRequestChunk chunk) {
+		if (first) {
+			first = false;
+			if (!chunk.getResumeToken().isEmpty()) {
+				resume(chunk.getResumeToken());
+			}
+		}
+		if (session != null) {
+			if (chunk.getSequence() <= count) {
+				return;
+			}
+			if (chunk.getSequence() != count + 1) {
+				throw RESUME_OFFSET_GAP.exception("Expected chunk " + (count + 1) + ", got " + chunk.getSequence());
+			}
+		}
+
+		long number = chunk.getNumber();
+		// 每个分片都会触发，只在debug级别输出
+		log.debug("Received chunk: {}", number);
+		// 检查数字是否过大（可能导致溢出）
+		if (number > 1000000) {
+			throw NUMBER_TOO_LARGE.exception("Number too large: " + number);
+		}
+		// 检查是否会导致溢出
+		if (number > Long.MAX_VALUE - total) {
+			throw NUMBER_OVERFLOW.exception("Number would cause overflow: " + number);
+		}
+		count++;
+		total += number;
+
+		if (session != null && count - checkpointed >= checkpointMessages) {
+			checkpoint();
+		}
+	}
+
+	/**
+	 * 流正常结束：删除检查点，返回包括之前各次调用在内的汇总
+	 */
+	synchronized StreamResponseSummary summary() {
+		if (session != null) {
+			session.complete();
+			session = null;
+		}
+		return StreamResponseSummary.newBuilder()
+				.setChunkCount(count)
+				.setTotalNumber(total)
+				.setAverageNumber(count > 0 ? (double) total / count : 0)
+				.setMessage("Client streaming finished.")
+				.build();
+	}
+
+	/**
+	 * 流未完成而结束：保存当前位置并释放令牌；可以重复调用
+	 */
+	synchronized void interrupted() {
+		if (session == null) {
+			return;
+		}
+		try {
+			if (count > checkpointed) {
+				checkpoint();
+			}
+		} finally {
+			session.close();
+			session = null;
+		}
+	}
+
+	private void resume(String token) {
+		if (checkpoints == null) {
+			throw RESUME_UNSUPPORTED.exception();
+		}
+		session = checkpoints.open(token, HelloSimpleServiceGrpc.getClientStreamHelloMethod(), GrpcContextUtil.getUserInfo());
+		if (session.checkpoint() != null) {
+			StreamResponseSummary state;
+			try {
+				state = StreamResponseSummary.parseFrom(session.checkpoint().getState());
+			} catch (InvalidProtocolBufferException e) {
+				throw RESUME_TOKEN_MISMATCH.exception("Unreadable resume checkpoint");
+			}
+			count = state.getChunkCount();
+			total = state.getTotalNumber();
+			checkpointed = count;
+			log.info("[Resume] clientStreamHello从第{}条分片之后继续: token={}", count, token);
+		}
+	}
+
+	private void checkpoint() {
+		session.save(count, StreamResponseSummary.newBuilder()
+				.setChunkCount(count)
+				.setTotalNumber(total)
+				.build()
+				.toByteString());
+		checkpointed = count;
+	}
+}
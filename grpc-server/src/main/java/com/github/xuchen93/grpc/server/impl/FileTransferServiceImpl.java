@@ -0,0 +1,273 @@
+package com.github.xuchen93.grpc.server.impl;
+
+import com.github.xuchen93.grpc.api.file.DownloadRequest;
+import com.github.xuchen93.grpc.api.file.DownloadResponse;
+import com.github.xuchen93.grpc.api.file.FileInfo;
+import com.github.xuchen93.grpc.api.file.FileTransferServiceGrpc;
+import com.github.xuchen93.grpc.api.file.UploadCheckpointState;
+import com.github.xuchen93.grpc.api.file.UploadRequest;
+import com.github.xuchen93.grpc.api.file.UploadResponse;
+import com.github.xuchen93.grpc.file.FileChunkReader;
+import com.github.xuchen93.grpc.file.FileChunkWriter;
+import com.github.xuchen93.grpc.file.FileReceiver;
+import com.github.xuchen93.grpc.file.FileSender;
+import com.github.xuchen93.grpc.file.FileStore;
+import com.github.xuchen93.grpc.file.FileTransferProperties;
+import com.github.xuchen93.grpc.file.TransferStats;
+import com.github.xuchen93.grpc.interceptor.chain.SkipInterceptors;
+import com.github.xuchen93.grpc.interceptor.util.GrpcContextUtil;
+import com.github.xuchen93.grpc.interceptor.pipeline.CompressionStage;
+import com.github.xuchen93.grpc.interceptor.pipeline.LoggingStage;
+import com.github.xuchen93.grpc.resume.ResumeCheckpointStore;
+import com.github.xuchen93.grpc.resume.ResumeProperties;
+import com.github.xuchen93.grpc.resume.ResumeSession;
+import com.google.protobuf.ByteString;
+import com.google.protobuf.InvalidProtocolBufferException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.grpc.server.service.GrpcService;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static com.github.xuchen93.grpc.file.FileTransferErrors.TRANSFER_INCOMPLETE;
+import static com.github.xuchen93.grpc.file.FileTransferErrors.UNEXPECTED_MESSAGE;
+import static com.github.xuchen93.grpc.resume.ResumeErrors.RESUME_TOKEN_MISMATCH;
+
+/**
+ * 文件传输服务，文件存放在grpc.server.file-transfer.dir下
+ * 两个方向都按流控传输：下载在onReady中发送，上传每写完一块才请求下一块；
+ * 异常由融合流水线通过ExceptionStatusMapper映射为状态
+ * 不经过日志阶段（逐块渲染消息内容）和压缩阶段（文件内容通常已压缩，且压缩会在映射内存之外再产生一份数据）
+ * <p>
+ * 续传：下载由客户端给出已保存的字节数，服务端从该位置继续发送；
+ * 上传携带续传令牌时，服务端保留该令牌独占的.part文件，并在检查点中记录其文件名和已落盘的位置，客户端通过ResumeService查询后继续发送
+ */
+@Slf4j
+@GrpcService
+@SkipInterceptors({LoggingStage.class, CompressionStage.class})
+public class FileTransferServiceImpl extends FileTransferServiceGrpc.FileTransferServiceImplBase {
+
+	private static final FileSender.Messages<DownloadResponse> DOWNLOAD_MESSAGES = new FileSender.Messages<>(
+			info -> DownloadResponse.newBuilder().setInfo(info).build(),
+			chunk -> DownloadResponse.newBuilder().setChunk(chunk).build(),
+			checksum -> DownloadResponse.newBuilder().setChecksum(checksum).build());
+
+	private final FileStore fileStore;
+	private final FileTransferProperties properties;
+	private final ResumeCheckpointStore checkpoints;
+	private final long checkpointBytes;
+
+	public FileTransferServiceImpl(FileStore fileStore, FileTransferProperties properties,
+								   ResumeCheckpointStore checkpoints, ResumeProperties resumeProperties) {
+		this.fileStore = fileStore;
+		this.properties = properties;
+		this.checkpoints = checkpoints;
+		this.checkpointBytes = resumeProperties.getCheckpointBytes().toBytes();
+	}
+
+	@Override
+	public void download(DownloadRequest request, StreamObserver<DownloadResponse> responseObserver) {
+		Path file = fileStore.resolveExisting(request.getFileName());
+		FileChunkReader reader;
+		try {
+			reader = FileChunkReader.open(file, properties.chunkSize(request.getChunkSize()), request.getOffset());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		if (request.getOffset() > 0) {
+			log.info("[FileTransfer] 从 {} 字节处续传下载 {}", request.getOffset(), request.getFileName());
+		}
+		ServerCallStreamObserver<DownloadResponse> observer = (ServerCallStreamObserver<DownloadResponse>) responseObserver;
+		FileInfo info = FileInfo.newBuilder()
+				.setFileName(request.getFileName())
+				.setSize(reader.size())
+				.build();
+		FileSender<DownloadResponse> sender = new FileSender<>(reader, observer, DOWNLOAD_MESSAGES, info,
+				new TransferStats("download " + request.getFileName()));
+		observer.setOnCancelHandler(sender::cancel);
+		// 方法返回后grpc会在流可写时回调；之后每次窗口打开再继续发送
+		observer.setOnReadyHandler(sender::onReady);
+	}
+
+	@Override
+	public StreamObserver<UploadRequest> upload(StreamObserver<UploadResponse> responseObserver) {
+		ServerCallStreamObserver<UploadResponse> observer = (ServerCallStreamObserver<UploadResponse>) responseObserver;
+		// 手动流控：写完一块再请求下一块，磁盘慢时由HTTP/2窗口让客户端停下
+		observer.disableAutoRequest();
+		UploadObserver upload = new UploadObserver(observer);
+		// 调用被流水线直接关闭（如某个阶段拒绝消息）或在半关闭后被取消时不会再回调onError，
+		// 在关闭和取消回调中都保存检查点并释放令牌
+		observer.setOnCloseHandler(upload::suspend);
+		observer.setOnCancelHandler(upload::suspend);
+		observer.request(1);
+		return upload;
+	}
+
+	/**
+	 * 一次上传的接收状态
+	 * 携带续传令牌时独占该令牌，每写入checkpointBytes落盘并保存检查点；
+	 * 流中断或某块校验失败时落盘并保存当前位置，整个文件完成后删除检查点
+	 */
+	private final class UploadObserver implements StreamObserver<UploadRequest> {
+		private final ServerCallStreamObserver<UploadResponse> responseObserver;
+		private FileReceiver receiver;
+		private ResumeSession session;
+		// 检查点中的状态：不含令牌的FileInfo和该令牌的.part文件
+		private ByteString state;
+		private long checkpointed;
+		private int crc32c;
+
+		UploadObserver(ServerCallStreamObserver<UploadResponse> responseObserver) {
+			this.responseObserver = responseObserver;
+		}
+
+		@Override
+		public void onNext(UploadRequest value) {
+			try {
+				switch (value.getPayloadCase()) {
+					case INFO -> start(value.getInfo());
+					case CHUNK -> {
+						receiver().onChunk(value.getChunk());
+						checkpointIfDue();
+					}
+					case CHECKSUM -> {
+						crc32c = receiver().onChecksum(value.getChecksum());
+						if (session != null) {
+							session.complete();
+							session = null;
+						}
+					}
+					default -> throw UNEXPECTED_MESSAGE.exception("Empty upload message");
+				}
+			} catch (RuntimeException e) {
+				suspend();
+				throw e;
+			}
+			responseObserver.request(1);
+		}
+
+		@Override
+		public void onError(Throwable t) {
+			suspend();
+		}
+
+		@Override
+		public void onCompleted() {
+			if (receiver == null || !receiver.isFinished()) {
+				suspend();
+				throw TRANSFER_INCOMPLETE.exception();
+			}
+			responseObserver.onNext(UploadResponse.newBuilder()
+					.setFileName(fileStore.root().relativize(receiver.target()).toString())
+					.setSize(receiver.size())
+					.setCrc32C(crc32c)
+					.build());
+			responseObserver.onCompleted();
+		}
+
+		private void start(FileInfo info) {
+			if (receiver != null) {
+				throw UNEXPECTED_MESSAGE.exception("File info must be the first message");
+			}
+			String token = info.getResumeToken();
+			receiver = new FileReceiver(i -> fileStore.resolve(i.getFileName()), "upload", !token.isEmpty());
+			if (token.isEmpty()) {
+				// 不续传的上传写入各自的.part文件，同名文件的并发上传互不影响
+				receiver.onInfo(info);
+				return;
+			}
+			session = checkpoints.open(token, FileTransferServiceGrpc.getUploadMethod(), GrpcContextUtil.getUserInfo());
+			UploadCheckpointState checkpointState = checkpointState(info, token);
+			state = checkpointState.toByteString();
+			Path part = fileStore.resolve(checkpointState.getPartFile());
+			long offset = resumeOffset(info, part);
+			checkpointed = offset;
+			receiver.onInfo(info, part, offset);
+		}
+
+		/**
+		 * 令牌第一次使用时按令牌命名.part文件，同名文件的其他上传不会写入该文件；之后沿用检查点中记录的.part文件
+		 */
+		private UploadCheckpointState checkpointState(FileInfo info, String token) {
+			FileInfo fileInfo = info.toBuilder().clearResumeToken().build();
+			if (session.checkpoint() == null) {
+				Path part = FileChunkWriter.partFile(fileStore.resolve(info.getFileName()), token);
+				return UploadCheckpointState.newBuilder()
+						.setInfo(fileInfo)
+						.setPartFile(fileStore.root().relativize(part).toString())
+						.build();
+			}
+			UploadCheckpointState saved;
+			try {
+				saved = UploadCheckpointState.parseFrom(session.checkpoint().getState());
+			} catch (InvalidProtocolBufferException e) {
+				throw RESUME_TOKEN_MISMATCH.exception("Unreadable resume checkpoint");
+			}
+			if (!saved.getInfo().equals(fileInfo) || saved.getPartFile().isEmpty()) {
+				throw RESUME_TOKEN_MISMATCH.exception("Resume token belongs to upload of " + saved.getInfo().getFileName());
+			}
+			return saved;
+		}
+
+		/**
+		 * 检查点记录的位置；.part文件已丢失或不足该长度时从头开始，客户端按错误的位置发送后会查询到新的检查点
+		 */
+		private long resumeOffset(FileInfo info, Path part) {
+			if (session.checkpoint() == null) {
+				return 0;
+			}
+			long offset = session.offset();
+			try {
+				if (Files.isRegularFile(part) && Files.size(part) >= offset) {
+					return offset;
+				}
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			log.warn("[FileTransfer] 续传的部分文件已丢失，从头开始: {}", info.getFileName());
+			return 0;
+		}
+
+		private FileReceiver receiver() {
+			if (receiver == null) {
+				throw UNEXPECTED_MESSAGE.exception("File info must be the first message");
+			}
+			return receiver;
+		}
+
+		private void checkpointIfDue() {
+			if (session != null && receiver.size() - checkpointed >= checkpointBytes) {
+				checkpointed = receiver.sync();
+				session.save(checkpointed, state);
+			}
+		}
+
+		/**
+		 * 上传未完成而结束：可续传时落盘并保存位置，否则删除部分文件；可以重复调用
+		 */
+		void suspend() {
+			if (session == null) {
+				if (receiver != null) {
+					receiver.abort();
+				}
+				return;
+			}
+			try {
+				long position = receiver.suspend();
+				if (position >= 0) {
+					session.save(position, state);
+				} else if (receiver.target() != null && !receiver.isFinished()) {
+					// 部分文件已被删除（整个文件校验失败或落盘失败），检查点随之作废
+					session.complete();
+				}
+			} finally {
+				session.close();
+				session = null;
+			}
+		}
+	}
+}
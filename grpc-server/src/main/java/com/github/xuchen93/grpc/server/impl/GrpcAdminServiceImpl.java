@@ -0,0 +1,104 @@
+package com.github.xuchen93.grpc.server.impl;
+
+import com.github.xuchen93.grpc.api.admin.GrpcAdminServiceGrpc;
+import com.github.xuchen93.grpc.api.admin.LatencySummary;
+import com.github.xuchen93.grpc.api.admin.MethodMetricsSnapshot;
+import com.github.xuchen93.grpc.api.admin.MetricsRequest;
+import com.github.xuchen93.grpc.api.admin.MetricsResponse;
+import com.github.xuchen93.grpc.api.admin.PhaseSummary;
+import com.github.xuchen93.grpc.api.admin.ScrapeRequest;
+import com.github.xuchen93.grpc.api.admin.ScrapeResponse;
+import com.github.xuchen93.grpc.interceptor.chain.SkipInterceptors;
+import com.github.xuchen93.grpc.interceptor.pipeline.LoggingStage;
+import com.github.xuchen93.grpc.metrics.CallPhases;
+import com.github.xuchen93.grpc.metrics.GrpcMetricsRegistry;
+import com.github.xuchen93.grpc.metrics.LatencyHistogram;
+import com.github.xuchen93.grpc.metrics.MethodMetrics;
+import io.grpc.Status;
+import io.grpc.stub.StreamObserver;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.grpc.server.service.GrpcService;
+
+import java.util.Comparator;
+
+/**
+ * 管理服务：通过gRPC查询调用指标
+ * 响应体较大（Prometheus文本、全部方法的指标），不经过日志阶段
+ */
+@GrpcService
+@SkipInterceptors(LoggingStage.class)
+public class GrpcAdminServiceImpl extends GrpcAdminServiceGrpc.GrpcAdminServiceImplBase {
+
+	private final GrpcMetricsRegistry metricsRegistry;
+	private final ObjectProvider<PrometheusMeterRegistry> prometheusRegistry;
+
+	public GrpcAdminServiceImpl(GrpcMetricsRegistry metricsRegistry, ObjectProvider<PrometheusMeterRegistry> prometheusRegistry) {
+		this.metricsRegistry = metricsRegistry;
+		this.prometheusRegistry = prometheusRegistry;
+	}
+
+	@Override
+	public void getMetrics(MetricsRequest request, StreamObserver<MetricsResponse> responseObserver) {
+		String filter = request.getMethodFilter();
+		MetricsResponse.Builder response = MetricsResponse.newBuilder();
+		metricsRegistry.all().stream()
+				.filter(m -> filter.isEmpty() || m.getMethodName().contains(filter))
+				.sorted(Comparator.comparing(MethodMetrics::getSide).thenComparing(MethodMetrics::getMethodName))
+				.map(GrpcAdminServiceImpl::toSnapshot)
+				.forEach(response::addMethods);
+		responseObserver.onNext(response.build());
+		responseObserver.onCompleted();
+	}
+
+	@Override
+	public void scrape(ScrapeRequest request, StreamObserver<ScrapeResponse> responseObserver) {
+		PrometheusMeterRegistry registry = prometheusRegistry.getIfAvailable();
+		if (registry == null) {
+			responseObserver.onError(Status.UNIMPLEMENTED.withDescription("Prometheus registry not available").asRuntimeException());
+			return;
+		}
+		responseObserver.onNext(ScrapeResponse.newBuilder().setText(registry.scrape()).build());
+		responseObserver.onCompleted();
+	}
+
+	private static MethodMetricsSnapshot toSnapshot(MethodMetrics metrics) {
+		MethodMetricsSnapshot.Builder builder = MethodMetricsSnapshot.newBuilder()
+				.setSide(metrics.getSide().tagValue())
+				.setMethod(metrics.getMethodName())
+				.setStarted(metrics.getStarted().sum())
+				.setInFlight(metrics.getInFlight().get())
+				.setMessagesSent(metrics.getMessagesSent().sum())
+				.setMessagesReceived(metrics.getMessagesReceived().sum())
+				.setBytesSent(metrics.getBytesSent().sum())
+				.setBytesReceived(metrics.getBytesReceived().sum());
+		for (Status.Code code : Status.Code.values()) {
+			long count = metrics.statusCount(code);
+			if (count > 0) {
+				builder.putStatusCounts(code.name(), count);
+			}
+		}
+		builder.setLatency(toSummary(metrics.getLatency()));
+		if (metrics.hasPhases()) {
+			for (CallPhases.Phase phase : CallPhases.Phase.values()) {
+				builder.addPhases(PhaseSummary.newBuilder()
+						.setPhase(phase.tagValue())
+						.setLatency(toSummary(metrics.phaseLatency(phase))));
+			}
+		}
+		return builder.build();
+	}
+
+	private static LatencySummary toSummary(LatencyHistogram histogram) {
+		LatencyHistogram.Snapshot latency = histogram.snapshot();
+		return LatencySummary.newBuilder()
+				.setCount(latency.count())
+				.setMeanNanos(latency.meanNanos())
+				.setP50Nanos(latency.valueAtQuantile(0.5))
+				.setP90Nanos(latency.valueAtQuantile(0.9))
+				.setP99Nanos(latency.valueAtQuantile(0.99))
+				.setP999Nanos(latency.valueAtQuantile(0.999))
+				.setMaxNanos(latency.maxNanos())
+				.build();
+	}
+}
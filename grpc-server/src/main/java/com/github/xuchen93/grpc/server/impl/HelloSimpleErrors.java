@@ -0,0 +1,34 @@
+package com.github.xuchen93.grpc.server.impl;
+
+import com.github.xuchen93.grpc.exception.GrpcError;
+import io.grpc.Status;
+
+/**
+ * HelloSimpleService的业务错误，Status与trailers只构造一次，抛出时不填充栈
+ */
+public final class HelloSimpleErrors {
+
+	public static final GrpcError NUMBER_TOO_LARGE =
+			GrpcError.of(Status.Code.INVALID_ARGUMENT, "NUMBER_TOO_LARGE", "Number too large");
+
+	public static final GrpcError NUMBER_OVERFLOW =
+			GrpcError.of(Status.Code.INVALID_ARGUMENT, "NUMBER_OVERFLOW", "Number would cause overflow");
+
+	public static final GrpcError USERNAME_EMPTY =
+			GrpcError.of(Status.Code.INVALID_ARGUMENT, "USERNAME_EMPTY", "Username cannot be empty");
+
+	public static final GrpcError MESSAGE_TOO_LONG =
+			GrpcError.of(Status.Code.INVALID_ARGUMENT, "MESSAGE_TOO_LONG", "Message is too long (max 1000 characters)");
+
+	public static final GrpcError CLIENT_REPORTED_ERROR =
+			GrpcError.of(Status.Code.INVALID_ARGUMENT, "CLIENT_REPORTED_ERROR", "Client reported error in message");
+
+	public static final GrpcError CANCELLED_BY_CLIENT =
+			GrpcError.of(Status.Code.CANCELLED, "CANCELLED_BY_CLIENT", "Request cancelled by client");
+
+	public static final GrpcError RESUME_FROM_OUT_OF_RANGE =
+			GrpcError.of(Status.Code.OUT_OF_RANGE, "RESUME_FROM_OUT_OF_RANGE", "resume_from is beyond the end of the stream");
+
+	private HelloSimpleErrors() {
+	}
+}
@@ -1,110 +1,121 @@
 package com.github.xuchen93.grpc.server.impl;
 
 import cn.hutool.core.thread.ThreadUtil;
+import com.github.xuchen93.grpc.api.simple.BatchItemError;
 import com.github.xuchen93.grpc.api.simple.BidirectionalChatMessage;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchResult;
 import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
 import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
 import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
 import com.github.xuchen93.grpc.api.simple.StreamRequestChunk;
 import com.github.xuchen93.grpc.api.simple.StreamResponseSummary;
+import com.github.xuchen93.grpc.exception.BusinessException;
+import com.github.xuchen93.grpc.resume.ResumeCheckpointStore;
+import com.github.xuchen93.grpc.resume.ResumeProperties;
 import io.grpc.Status;
-import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
 import io.grpc.stub.StreamObserver;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.grpc.server.service.GrpcService;
 
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import static com.github.xuchen93.grpc.server.impl.HelloSimpleErrors.CANCELLED_BY_CLIENT;
+import static com.github.xuchen93.grpc.server.impl.HelloSimpleErrors.CLIENT_REPORTED_ERROR;
+import static com.github.xuchen93.grpc.server.impl.HelloSimpleErrors.MESSAGE_TOO_LONG;
+import static com.github.xuchen93.grpc.server.impl.HelloSimpleErrors.RESUME_FROM_OUT_OF_RANGE;
+import static com.github.xuchen93.grpc.server.impl.HelloSimpleErrors.USERNAME_EMPTY;
+
+/**
+ * HelloSimpleService的默认实现
+ * 方法中抛出的异常由融合流水线通过ExceptionStatusMapper映射为状态并关闭调用，不需要各自捕获后调用onError；
+ * 预期内的错误使用HelloSimpleErrors中预先构造的无栈异常
+ * 两个单向流式方法支持断线续传：streamHello按resume_from跳过已收到的响应，clientStreamHello按续传令牌保存检查点
+ */
 @Slf4j
 @GrpcService
+@ConditionalOnProperty(prefix = "grpc.server.reactive", name = "enabled", havingValue = "false", matchIfMissing = true)
 public class HelloSimpleServiceImpl extends HelloSimpleServiceGrpc.HelloSimpleServiceImplBase {
 
-	// 1. 简单RPC：收到一个请求，返回一个响应
-	@Override
-	public void sayHello(HelloSimpleRequest request, StreamObserver<HelloSimpleResponse> responseObserver) {
-		try {
-			String name = request.getName();
+	/**
+	 * streamHello每次返回的响应条数
+	 */
+	static final int STREAM_RESPONSES = 5;
 
-			// 参数校验
-			if (name == null || name.trim().isEmpty()) {
-				throw Status.INVALID_ARGUMENT.withDescription("Name cannot be empty").asRuntimeException();
-			}
+	private final ResumeCheckpointStore checkpoints;
+	private final int checkpointMessages;
 
-			// 检查特殊字符
-			if (name.matches(".*[!@#$%^&*()].*")) {
-				throw Status.INVALID_ARGUMENT.withDescription("Name contains invalid characters").asRuntimeException();
-			}
-
-			// 检查超长参数
-			if (name.length() > 100) {
-				throw Status.INVALID_ARGUMENT.withDescription("Name is too long (max 100 characters)").asRuntimeException();
-			}
+	public HelloSimpleServiceImpl(ResumeCheckpointStore checkpoints, ResumeProperties resumeProperties) {
+		this.checkpoints = checkpoints;
+		this.checkpointMessages = resumeProperties.getCheckpointMessages();
+	}
 
-			// 检查以b开头的名称（模拟业务规则）
-			if (name.trim().toLowerCase().startsWith("b")) {
-				throw Status.FAILED_PRECONDITION.withDescription("Name cannot start with 'b'").asRuntimeException();
-			}
-			ThreadUtil.sleep(20);
-			HelloSimpleResponse response = createHelloResponse(name);
+	// 1. 简单RPC：收到一个请求，返回一个响应
+	// 参数校验（HelloSimpleValidators.SAY_HELLO）由ValidationStage在进入本方法之前完成
+	@Override
+	public void sayHello(HelloSimpleRequest request, StreamObserver<HelloSimpleResponse> responseObserver) {
+		String name = request.getName();
+		ThreadUtil.sleep(20);
+		HelloSimpleResponse response = createHelloResponse(name);
 
-			responseObserver.onNext(response);
-			responseObserver.onCompleted();
-		} catch (StatusRuntimeException e) {
-			log.error("Error handling sayHello request: {}", e.getMessage());
-			responseObserver.onError(e);
-		} catch (Exception e) {
-			log.error("Unexpected error handling sayHello request: {}", e.getMessage(), e);
-			responseObserver.onError(Status.INTERNAL.withDescription("Internal server error").asRuntimeException());
-		}
+		responseObserver.onNext(response);
+		responseObserver.onCompleted();
 	}
 
-	private HelloSimpleResponse createHelloResponse(String name) {
+	static HelloSimpleResponse createHelloResponse(String name) {
 		return HelloSimpleResponse.newBuilder()
 				.setMessage("Hello, " + name + "! This is a Unary RPC.")
 				.build();
 	}
 
 	// 2. 服务端流式RPC：收到一个请求，通过流返回多个响应
+	// 参数校验（HelloSimpleValidators.STREAM_HELLO）由ValidationStage在进入本方法之前完成
 	@Override
 	public void streamHello(HelloSimpleRequest request, StreamObserver<HelloSimpleResponse> responseObserver) {
-		try {
-			String name = request.getName();
+		String name = request.getName();
 
-			// 参数校验
-			if (name == null || name.trim().isEmpty()) {
-				throw Status.INVALID_ARGUMENT.withDescription("Name cannot be empty").asRuntimeException();
+		for (int i = firstStreamResponse(request); i <= STREAM_RESPONSES; i++) {
+			// 检查线程是否被中断（模拟客户端中断请求）
+			if (Thread.currentThread().isInterrupted()) {
+				log.info("StreamHello request interrupted by client");
+				throw CANCELLED_BY_CLIENT.exception();
 			}
 
-			for (int i = 1; i <= 5; i++) {
-				// 检查线程是否被中断（模拟客户端中断请求）
-				if (Thread.currentThread().isInterrupted()) {
-					log.info("StreamHello request interrupted by client");
-					throw Status.CANCELLED.withDescription("Request cancelled by client").asRuntimeException();
-				}
-
-				HelloSimpleResponse response = createStreamResponse(i, name);
-				responseObserver.onNext(response);
-
-				// 模拟耗时
-				sleep(500);
-			}
+			HelloSimpleResponse response = createStreamResponse(i, name);
+			responseObserver.onNext(response);
 
-			responseObserver.onCompleted();
-		} catch (StatusRuntimeException e) {
-			log.error("Error handling streamHello request: {}", e.getMessage());
-			responseObserver.onError(e);
-		} catch (Exception e) {
-			log.error("Unexpected error handling streamHello request: {}", e.getMessage(), e);
-			responseObserver.onError(Status.INTERNAL.withDescription("Internal server error").asRuntimeException());
+			// 模拟耗时
+			sleep(500);
 		}
+
+		responseObserver.onCompleted();
 	}
 
-	private HelloSimpleResponse createStreamResponse(int i, String name) {
+	static HelloSimpleResponse createStreamResponse(int i, String name) {
 		return HelloSimpleResponse.newBuilder()
 				.setMessage("Stream Response #" + i + " to " + name)
+				.setSequence(i)
 				.build();
 	}
 
+	/**
+	 * 续传时客户端已收到resume_from条响应，从下一条开始
+	 */
+	static int firstStreamResponse(HelloSimpleRequest request) {
+		return firstStreamResponse(request, STREAM_RESPONSES);
+	}
+
+	static int firstStreamResponse(HelloSimpleRequest request, int streamResponses) {
+		long resumeFrom = request.getResumeFrom();
+		if (resumeFrom < 0 || resumeFrom > streamResponses) {
+			throw RESUME_FROM_OUT_OF_RANGE.exception("resume_from must be between 0 and " + streamResponses + ": " + resumeFrom);
+		}
+		return (int) resumeFrom + 1;
+	}
+
 	private void sleep(long millis) {
 		try {
 			Thread.sleep(millis);
@@ -115,81 +126,45 @@ public class HelloSimpleServiceImpl extends HelloSimpleServiceGrpc.HelloSimpleSe
 	}
 
 	// 3. 客户端流式RPC：接收一系列请求，处理完成后返回一个汇总响应
+	// onNext抛出异常后调用即被关闭，之后的分片和onCompleted不会再回调；携带续传令牌时先保存检查点
 	@Override
 	public StreamObserver<StreamRequestChunk> clientStreamHello(StreamObserver<StreamResponseSummary> responseObserver) {
+		ClientStreamAccumulator accumulator = new ClientStreamAccumulator(checkpoints, checkpointMessages);
+		// 调用被流水线直接关闭（如某个阶段拒绝消息）或在半关闭后被取消时不会再回调onError，
+		// 在关闭和取消回调中都保存检查点并释放令牌，调用无论以哪种方式结束都不会一直占用令牌
+		ServerCallStreamObserver<StreamResponseSummary> observer = (ServerCallStreamObserver<StreamResponseSummary>) responseObserver;
+		observer.setOnCloseHandler(accumulator::interrupted);
+		observer.setOnCancelHandler(accumulator::interrupted);
 		return new StreamObserver<StreamRequestChunk>() {
-			private long count = 0;
-			private long total = 0;
-			private AtomicBoolean hasError = new AtomicBoolean(false);
 
 			@Override
 			public void onNext(StreamRequestChunk value) {
 				try {
-					// 检查是否已经出错
-					if (hasError.get()) {
-						return;
-					}
-
-					long number = value.getNumber();
-					log.info("Received chunk: {}", number);
-
-					// 检查数字是否过大（可能导致溢出）
-					if (number > 1000000) {
-						throw Status.INVALID_ARGUMENT.withDescription("Number too large: " + number).asRuntimeException();
-					}
-
-					// 检查是否会导致溢出
-					if (number > Long.MAX_VALUE - total) {
-						throw Status.INVALID_ARGUMENT.withDescription("Number would cause overflow: " + number).asRuntimeException();
-					}
-
-					count++;
-					total += number;
-
-				} catch (StatusRuntimeException e) {
-					log.error("Error handling client stream chunk: {}", e.getMessage());
-					hasError.set(true);
-					responseObserver.onError(e);
-				} catch (Exception e) {
-					log.error("Unexpected error handling client stream chunk: {}", e.getMessage(), e);
-					hasError.set(true);
-					responseObserver.onError(Status.INTERNAL.withDescription("Internal server error").asRuntimeException());
+					accumulator.accept(value);
+				} catch (RuntimeException e) {
+					accumulator.interrupted();
+					throw e;
 				}
 			}
 
 			@Override
 			public void onError(Throwable t) {
 				log.error("Client stream error: {}", t.getMessage(), t);
-				hasError.set(true);
+				accumulator.interrupted();
 				// 客户端取消请求时，服务端也应该取消
 				responseObserver.onError(Status.CANCELLED.withDescription("Client cancelled request").asRuntimeException());
 			}
 
 			@Override
 			public void onCompleted() {
-				if (hasError.get()) {
-					return;
-				}
-
-				try {
-					double avg = count > 0 ? (double) total / count : 0;
-					StreamResponseSummary summary = StreamResponseSummary.newBuilder()
-							.setChunkCount(count)
-							.setTotalNumber(total)
-							.setAverageNumber(avg)
-							.setMessage("Client streaming finished.")
-							.build();
-					responseObserver.onNext(summary);
-					responseObserver.onCompleted();
-				} catch (Exception e) {
-					log.error("Error creating client stream summary: {}", e.getMessage(), e);
-					responseObserver.onError(Status.INTERNAL.withDescription("Internal server error").asRuntimeException());
-				}
+				responseObserver.onNext(accumulator.summary());
+				responseObserver.onCompleted();
 			}
 		};
 	}
 
 	// 4. 双向流式RPC：客户端和服务端都可以随时发送消息
+	// 业务错误以错误消息回复而不关闭调用，未预期的异常交给流水线映射为INTERNAL
 	@Override
 	public StreamObserver<BidirectionalChatMessage> bidirectionalChat(StreamObserver<BidirectionalChatMessage> responseObserver) {
 		return new StreamObserver<BidirectionalChatMessage>() {
@@ -211,7 +186,7 @@ public class HelloSimpleServiceImpl extends HelloSimpleServiceGrpc.HelloSimpleSe
 
 					// 参数校验
 					if (username == null || username.trim().isEmpty()) {
-						throw Status.INVALID_ARGUMENT.withDescription("Username cannot be empty").asRuntimeException();
+						throw USERNAME_EMPTY.exception();
 					}
 
 					if (message == null || message.trim().isEmpty()) {
@@ -227,12 +202,12 @@ public class HelloSimpleServiceImpl extends HelloSimpleServiceGrpc.HelloSimpleSe
 
 					// 检查超长消息
 					if (message.length() > 1000) {
-						throw Status.INVALID_ARGUMENT.withDescription("Message is too long (max 1000 characters)").asRuntimeException();
+						throw MESSAGE_TOO_LONG.exception();
 					}
 
 					// 检查客户端标记的错误
 					if (isError) {
-						throw Status.INVALID_ARGUMENT.withDescription("Client reported error in message").asRuntimeException();
+						throw CLIENT_REPORTED_ERROR.exception();
 					}
 
 					// 特殊命令处理
@@ -254,33 +229,22 @@ public class HelloSimpleServiceImpl extends HelloSimpleServiceGrpc.HelloSimpleSe
 							.build();
 					responseObserver.onNext(echo);
 
-				} catch (StatusRuntimeException e) {
-					log.error("Error handling bidirectional chat message: {}", e.getMessage());
+				} catch (BusinessException e) {
+					log.info("Rejected bidirectional chat message: {}", e.getError());
 					hasError.set(true);
 
 					// 发送错误响应
 					BidirectionalChatMessage errorResponse = BidirectionalChatMessage.newBuilder()
 							.setUsername("Server")
-							.setMessage("Error: " + e.getStatus().getDescription())
+							.setMessage("Error: " + e.getMessage())
 							.setIsError(true)
 							.build();
 					responseObserver.onNext(errorResponse);
 
 					// 对于严重错误，关闭连接
-					if (e.getStatus().getCode() != Status.Code.INVALID_ARGUMENT) {
+					if (e.getError().status().getCode() != Status.Code.INVALID_ARGUMENT) {
 						responseObserver.onCompleted();
 					}
-				} catch (Exception e) {
-					log.error("Unexpected error handling bidirectional chat message: {}", e.getMessage(), e);
-					hasError.set(true);
-
-					BidirectionalChatMessage errorResponse = BidirectionalChatMessage.newBuilder()
-							.setUsername("Server")
-							.setMessage("Error: Internal server error")
-							.setIsError(true)
-							.build();
-					responseObserver.onNext(errorResponse);
-					responseObserver.onCompleted();
 				}
 			}
 
@@ -314,4 +278,41 @@ public class HelloSimpleServiceImpl extends HelloSimpleServiceGrpc.HelloSimpleSe
 			}
 		};
 	}
+
+	// 5. 批量RPC：逐个校验并处理，单个请求失败不影响同批次的其他请求
+	@Override
+	public void sayHelloBatch(HelloSimpleBatchRequest request, StreamObserver<HelloSimpleBatchResponse> responseObserver) {
+		HelloSimpleBatchResponse.Builder builder = HelloSimpleBatchResponse.newBuilder();
+		// 模拟耗时：整批只计一次，这正是批量调用摊薄单次RPC开销的地方
+		ThreadUtil.sleep(20);
+		for (HelloSimpleRequest item : request.getRequestsList()) {
+			builder.addResults(handleBatchItem(item));
+		}
+		responseObserver.onNext(builder.build());
+		responseObserver.onCompleted();
+	}
+
+	static HelloSimpleBatchResult handleBatchItem(HelloSimpleRequest item) {
+		try {
+			// 批量中的每一项不经过ValidationStage，直接使用预编译的校验器，失败时不创建异常
+			Status invalid = HelloSimpleValidators.SAY_HELLO.validate(item);
+			if (invalid != null) {
+				return batchError(invalid);
+			}
+			return HelloSimpleBatchResult.newBuilder()
+					.setResponse(createHelloResponse(item.getName()))
+					.build();
+		} catch (Exception e) {
+			log.error("Unexpected error handling sayHelloBatch item: {}", e.getMessage(), e);
+			return batchError(Status.INTERNAL.withDescription("Internal server error"));
+		}
+	}
+
+	private static HelloSimpleBatchResult batchError(Status status) {
+		BatchItemError.Builder error = BatchItemError.newBuilder().setCode(status.getCode().value());
+		if (status.getDescription() != null) {
+			error.setDescription(status.getDescription());
+		}
+		return HelloSimpleBatchResult.newBuilder().setError(error).build();
+	}
 }
@@ -0,0 +1,58 @@
+package com.github.xuchen93.grpc.server.impl;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.validation.CharClass;
+import com.github.xuchen93.grpc.validation.FieldRules;
+import com.github.xuchen93.grpc.validation.MessageValidator;
+import com.github.xuchen93.grpc.validation.MessageValidators;
+import io.grpc.Status;
+
+import static com.github.xuchen93.grpc.validation.FieldRules.invalid;
+
+/**
+ * HelloSimpleService的请求校验规则，类加载时编译一次
+ * 由ValidationStage在服务方法之前执行；批量接口逐项调用，失败项直接使用返回的Status
+ */
+public final class HelloSimpleValidators {
+
+	/**
+	 * 名称中不允许出现的特殊字符
+	 */
+	private static final CharClass SPECIAL_CHARS = CharClass.of("!@#$%^&*()");
+
+	/**
+	 * HelloSimpleRequest的字段约束，没有方法级规则时使用
+	 */
+	public static final MessageValidator<HelloSimpleRequest> REQUEST = MessageValidator.builder(HelloSimpleRequest.class)
+			.field("name", HelloSimpleRequest::getName,
+					FieldRules.notBlank(invalid("Name cannot be empty")),
+					FieldRules.forbiddenChars(SPECIAL_CHARS, invalid("Name contains invalid characters")),
+					FieldRules.maxLength(100, invalid("Name is too long (max 100 characters)")))
+			.build();
+
+	/**
+	 * sayHello及批量中的每一项：在字段约束之外，名称不能以b开头（模拟业务规则）
+	 */
+	public static final MessageValidator<HelloSimpleRequest> SAY_HELLO = REQUEST.toBuilder()
+			.field("name", HelloSimpleRequest::getName,
+					FieldRules.noPrefixIgnoreCase("b", Status.FAILED_PRECONDITION.withDescription("Name cannot start with 'b'")))
+			.build();
+
+	/**
+	 * streamHello只要求名称非空，不限制字符和长度
+	 */
+	public static final MessageValidator<HelloSimpleRequest> STREAM_HELLO = MessageValidator.builder(HelloSimpleRequest.class)
+			.field("name", HelloSimpleRequest::getName,
+					FieldRules.notBlank(invalid("Name cannot be empty")))
+			.build();
+
+	private HelloSimpleValidators() {
+	}
+
+	public static MessageValidators register(MessageValidators validators) {
+		return validators.register(REQUEST)
+				.register(HelloSimpleServiceGrpc.getSayHelloMethod(), SAY_HELLO)
+				.register(HelloSimpleServiceGrpc.getStreamHelloMethod(), STREAM_HELLO);
+	}
+}
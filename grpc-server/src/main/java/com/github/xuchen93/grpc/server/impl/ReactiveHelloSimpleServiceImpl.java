@@ -0,0 +1,192 @@
+package com.github.xuchen93.grpc.server.impl;
+
+import com.github.xuchen93.grpc.api.simple.BidirectionalChatMessage;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.api.simple.ReactorHelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.api.simple.StreamRequestChunk;
+import com.github.xuchen93.grpc.api.simple.StreamResponseSummary;
+import com.github.xuchen93.grpc.exception.BusinessException;
+import com.github.xuchen93.grpc.exception.ExceptionStatusMapper;
+import com.github.xuchen93.grpc.resume.ResumeCheckpointStore;
+import com.github.xuchen93.grpc.resume.ResumeProperties;
+import io.grpc.MethodDescriptor;
+import io.grpc.Status;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.grpc.server.service.GrpcService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+import static com.github.xuchen93.grpc.server.impl.HelloSimpleErrors.CLIENT_REPORTED_ERROR;
+import static com.github.xuchen93.grpc.server.impl.HelloSimpleErrors.MESSAGE_TOO_LONG;
+import static com.github.xuchen93.grpc.server.impl.HelloSimpleErrors.USERNAME_EMPTY;
+
+/**
+ * HelloSimpleService的响应式实现，开启grpc.server.reactive.enabled后替代HelloSimpleServiceImpl
+ * 所有流都按下游request(n)拉取数据，reactor-grpc将其映射为gRPC的手动流控：
+ * 客户端订阅者不消费时服务端不会继续生产，消息不会在内存中堆积
+ * 错误以onError信号传递而不经过监听器，因此在每个流的末尾用ExceptionStatusMapper映射为无栈的StatusRuntimeException
+ */
+@Slf4j
+@GrpcService
+@ConditionalOnProperty(prefix = "grpc.server.reactive", name = "enabled", havingValue = "true")
+public class ReactiveHelloSimpleServiceImpl extends ReactorHelloSimpleServiceGrpc.HelloSimpleServiceImplBase {
+
+	private final ExceptionStatusMapper exceptionMapper;
+	private final ResumeCheckpointStore checkpoints;
+	private final int checkpointMessages;
+	private final int streamResponses;
+	private final Duration streamInterval;
+
+	/**
+	 * 不支持clientStreamHello续传
+	 */
+	public ReactiveHelloSimpleServiceImpl() {
+		this(HelloSimpleServiceImpl.STREAM_RESPONSES, Duration.ofMillis(500));
+	}
+
+	/**
+	 * 不支持clientStreamHello续传；streamHello发送streamResponses条响应，每条间隔streamInterval（为0时不等待）
+	 * 用于以长流验证背压
+	 */
+	public ReactiveHelloSimpleServiceImpl(int streamResponses, Duration streamInterval) {
+		this(new ExceptionStatusMapper(), null, new ResumeProperties(), streamResponses, streamInterval);
+	}
+
+	@Autowired
+	public ReactiveHelloSimpleServiceImpl(ExceptionStatusMapper exceptionMapper, ResumeCheckpointStore checkpoints,
+										  ResumeProperties resumeProperties) {
+		this(exceptionMapper, checkpoints, resumeProperties, HelloSimpleServiceImpl.STREAM_RESPONSES, Duration.ofMillis(500));
+	}
+
+	private ReactiveHelloSimpleServiceImpl(ExceptionStatusMapper exceptionMapper, ResumeCheckpointStore checkpoints,
+										   ResumeProperties resumeProperties, int streamResponses, Duration streamInterval) {
+		this.exceptionMapper = exceptionMapper;
+		this.checkpoints = checkpoints;
+		this.checkpointMessages = resumeProperties.getCheckpointMessages();
+		this.streamResponses = streamResponses;
+		this.streamInterval = streamInterval;
+	}
+
+	// 1. 简单RPC，参数校验由ValidationStage在进入本方法之前完成
+	@Override
+	public Mono<HelloSimpleResponse> sayHello(Mono<HelloSimpleRequest> request) {
+		return request
+				.delayElement(Duration.ofMillis(20))
+				.map(r -> HelloSimpleServiceImpl.createHelloResponse(r.getName()))
+				.onErrorMap(toStatusException(HelloSimpleServiceGrpc.getSayHelloMethod()));
+	}
+
+	// 2. 服务端流式RPC：每条响应只在下游有需求时生成，续传时从resume_from的下一条开始
+	@Override
+	public Flux<HelloSimpleResponse> streamHello(Mono<HelloSimpleRequest> request) {
+		return request
+				.flatMapMany(r -> {
+					Flux<Integer> sequences = Flux.range(HelloSimpleServiceImpl.firstStreamResponse(r, streamResponses),
+							streamResponses - (int) r.getResumeFrom());
+					return (streamInterval.isZero() ? sequences : sequences.delayElements(streamInterval))
+							.map(i -> HelloSimpleServiceImpl.createStreamResponse(i, r.getName()));
+				})
+				.onErrorMap(toStatusException(HelloSimpleServiceGrpc.getStreamHelloMethod()));
+	}
+
+	// 3. 客户端流式RPC：按需拉取分片并汇总；出错或被取消时doFinally保存续传检查点
+	@Override
+	public Mono<StreamResponseSummary> clientStreamHello(Flux<StreamRequestChunk> request) {
+		return Mono.defer(() -> {
+					ClientStreamAccumulator accumulator = new ClientStreamAccumulator(checkpoints, checkpointMessages);
+					return request
+							.doOnNext(accumulator::accept)
+							.then(Mono.fromCallable(accumulator::summary))
+							.doFinally(signal -> accumulator.interrupted());
+				})
+				.onErrorMap(toStatusException(HelloSimpleServiceGrpc.getClientStreamHelloMethod()));
+	}
+
+	// 4. 双向流式RPC：与HelloSimpleServiceImpl相同，出错后回复错误消息并忽略之后的消息；
+	// INVALID_ARGUMENT不结束聊天，流在客户端结束发送时结束，其他错误立即结束聊天
+	@Override
+	public Flux<BidirectionalChatMessage> bidirectionalChat(Flux<BidirectionalChatMessage> request) {
+		AtomicBoolean hasError = new AtomicBoolean(false);
+		AtomicBoolean ended = new AtomicBoolean(false);
+		return request
+				.filter(value -> !hasError.get())
+				.map(value -> {
+					try {
+						return chatReply(value);
+					} catch (BusinessException e) {
+						log.info("Rejected bidirectional chat message: {}", e.getError());
+						hasError.set(true);
+						if (e.getError().status().getCode() != Status.Code.INVALID_ARGUMENT) {
+							ended.set(true);
+						}
+						return chatMessage("Error: " + e.getMessage(), true);
+					}
+				})
+				.takeUntil(reply -> ended.get())
+				.concatWith(Mono.defer(() -> hasError.get()
+						? Mono.empty()
+						: Mono.just(chatMessage("聊天结束，再见！", false))));
+	}
+
+	private BidirectionalChatMessage chatReply(BidirectionalChatMessage value) {
+		String username = value.getUsername();
+		String message = value.getMessage();
+		log.info("Chat from [{}]: {}", username, message);
+
+		if (username == null || username.trim().isEmpty()) {
+			throw USERNAME_EMPTY.exception();
+		}
+		if (message == null || message.trim().isEmpty()) {
+			// 错误响应但不中断连接
+			return chatMessage("Error: Message cannot be empty", true);
+		}
+		if (message.length() > 1000) {
+			throw MESSAGE_TOO_LONG.exception();
+		}
+		if (value.getIsError()) {
+			throw CLIENT_REPORTED_ERROR.exception();
+		}
+		if (message.equals("聊天即将结束")) {
+			return chatMessage("收到退出指令，聊天即将结束", false);
+		}
+		return chatMessage("Echo: " + message, false);
+	}
+
+	private BidirectionalChatMessage chatMessage(String message, boolean isError) {
+		return BidirectionalChatMessage.newBuilder()
+				.setUsername("Server")
+				.setMessage(message)
+				.setIsError(isError)
+				.build();
+	}
+
+	// 5. 批量RPC：单个请求失败不影响同批次的其他请求
+	@Override
+	public Mono<HelloSimpleBatchResponse> sayHelloBatch(Mono<HelloSimpleBatchRequest> request) {
+		return request
+				.delayElement(Duration.ofMillis(20))
+				.map(batch -> {
+					HelloSimpleBatchResponse.Builder builder = HelloSimpleBatchResponse.newBuilder();
+					for (HelloSimpleRequest item : batch.getRequestsList()) {
+						builder.addResults(HelloSimpleServiceImpl.handleBatchItem(item));
+					}
+					return builder.build();
+				})
+				.onErrorMap(toStatusException(HelloSimpleServiceGrpc.getSayHelloBatchMethod()));
+	}
+
+	private Function<Throwable, Throwable> toStatusException(MethodDescriptor<?, ?> method) {
+		String methodName = method.getFullMethodName();
+		return t -> exceptionMapper.toStatusException(t, methodName);
+	}
+}
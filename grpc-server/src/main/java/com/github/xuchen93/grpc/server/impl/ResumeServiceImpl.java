@@ -0,0 +1,40 @@
+package com.github.xuchen93.grpc.server.impl;
+
+import com.github.xuchen93.grpc.api.resume.ResumeCheckpoint;
+import com.github.xuchen93.grpc.api.resume.ResumeOffset;
+import com.github.xuchen93.grpc.api.resume.ResumeQuery;
+import com.github.xuchen93.grpc.api.resume.ResumeServiceGrpc;
+import com.github.xuchen93.grpc.interceptor.util.GrpcContextUtil;
+import com.github.xuchen93.grpc.resume.ResumeCheckpointStore;
+import io.grpc.stub.StreamObserver;
+import org.springframework.grpc.server.service.GrpcService;
+
+/**
+ * 续传位置查询，重连的客户端据此决定从哪里继续发送
+ */
+@GrpcService
+public class ResumeServiceImpl extends ResumeServiceGrpc.ResumeServiceImplBase {
+
+	private final ResumeCheckpointStore checkpoints;
+
+	public ResumeServiceImpl(ResumeCheckpointStore checkpoints) {
+		this.checkpoints = checkpoints;
+	}
+
+	@Override
+	public void queryOffset(ResumeQuery request, StreamObserver<ResumeOffset> responseObserver) {
+		String token = request.getResumeToken();
+		// 先判断占用再读取：调用在释放令牌之前保存检查点，未被占用时读到的就是最终位置
+		boolean inUse = checkpoints.isInUse(token);
+		// 只返回本身份的检查点，其他身份的令牌按不存在处理
+		ResumeCheckpoint checkpoint = checkpoints.find(token, GrpcContextUtil.getUserInfo());
+		ResumeOffset.Builder offset = ResumeOffset.newBuilder()
+				.setResumeToken(token)
+				.setInUse(inUse);
+		if (checkpoint != null) {
+			offset.setFound(true).setOffset(checkpoint.getOffset());
+		}
+		responseObserver.onNext(offset.build());
+		responseObserver.onCompleted();
+	}
+}
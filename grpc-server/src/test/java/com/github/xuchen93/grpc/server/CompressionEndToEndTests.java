@@ -0,0 +1,95 @@
+package com.github.xuchen93.grpc.server;
+
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleBatchResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.auth.BearerTokenCredentials;
+import com.github.xuchen93.grpc.compression.CodecMetrics;
+import com.github.xuchen93.grpc.compression.CompressionCodecs;
+import io.grpc.Grpc;
+import io.grpc.InsecureChannelCredentials;
+import io.grpc.ManagedChannel;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.grpc.server.lifecycle.GrpcServerLifecycle;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 按默认配置（grpc.server.compression.encoding=deflate）启动服务端，经Netty调用：
+ * 服务端实际使用带deflate的注册表，响应被deflate压缩，客户端能解压
+ */
+@SpringBootTest(properties = "spring.grpc.server.port=0")
+class CompressionEndToEndTests {
+
+	@Autowired
+	private List<GrpcServerLifecycle> servers;
+
+	@Autowired
+	private CompressionCodecs serverCodecs;
+
+	private final CompressionCodecs clientCodecs = new CompressionCodecs();
+	private ManagedChannel channel;
+	private HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub;
+
+	@BeforeEach
+	void setUp() {
+		int port = servers.stream().mapToInt(GrpcServerLifecycle::getPort).filter(p -> p > 0).findFirst().orElseThrow();
+		// 与客户端应用相同：通过grpc-accept-encoding通告gzip和deflate
+		channel = Grpc.newChannelBuilderForAddress("localhost", port, InsecureChannelCredentials.create())
+				.compressorRegistry(clientCodecs.compressorRegistry())
+				.decompressorRegistry(clientCodecs.decompressorRegistry())
+				.build();
+		stub = HelloSimpleServiceGrpc.newBlockingStub(channel).withCallCredentials(new BearerTokenCredentials("valid_compression"));
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void batchResponseIsDeflateCompressed() {
+		long compressed = deflate(serverCodecs).compress().messages();
+		HelloSimpleBatchRequest.Builder request = HelloSimpleBatchRequest.newBuilder();
+		for (int i = 0; i < 20; i++) {
+			request.addRequests(HelloSimpleRequest.newBuilder().setName("compression-" + i));
+		}
+
+		HelloSimpleBatchResponse response = stub.sayHelloBatch(request.build());
+
+		assertEquals(20, response.getResultsCount());
+		assertEquals(compressed + 1, deflate(serverCodecs).compress().messages());
+		assertEquals(1, deflate(clientCodecs).decompress().messages());
+		assertTrue(deflate(clientCodecs).decompress().compressedBytes() < deflate(clientCodecs).decompress().uncompressedBytes());
+	}
+
+	@Test
+	void streamWithSmallResponsesSucceeds() {
+		// 响应小于min-message-bytes，编码已协商为deflate但消息不压缩
+		Iterator<HelloSimpleResponse> responses = stub.streamHello(
+				HelloSimpleRequest.newBuilder().setName("compression").setResumeFrom(4).build());
+
+		assertTrue(responses.hasNext());
+		assertEquals(5, responses.next().getSequence());
+		assertTrue(!responses.hasNext());
+		assertEquals(0, deflate(clientCodecs).decompress().messages());
+	}
+
+	private static CodecMetrics deflate(CompressionCodecs codecs) {
+		return codecs.metrics().stream()
+				.filter(metrics -> CompressionCodecs.DEFLATE.equals(metrics.encoding()))
+				.findFirst()
+				.orElseThrow();
+	}
+}
@@ -0,0 +1,249 @@
+package com.github.xuchen93.grpc.server;
+
+import com.github.xuchen93.grpc.api.file.DownloadRequest;
+import com.github.xuchen93.grpc.api.file.DownloadResponse;
+import com.github.xuchen93.grpc.api.file.FileChecksum;
+import com.github.xuchen93.grpc.api.file.FileChunk;
+import com.github.xuchen93.grpc.api.file.FileInfo;
+import com.github.xuchen93.grpc.api.file.FileTransferServiceGrpc;
+import com.github.xuchen93.grpc.api.file.UploadRequest;
+import com.github.xuchen93.grpc.api.file.UploadResponse;
+import com.github.xuchen93.grpc.exception.ExceptionStatusMapper;
+import com.github.xuchen93.grpc.file.FileStore;
+import com.github.xuchen93.grpc.file.FileTransferProperties;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainRules;
+import com.github.xuchen93.grpc.interceptor.pipeline.FusedServerPipeline;
+import com.github.xuchen93.grpc.resume.ResumeCheckpointStore;
+import com.github.xuchen93.grpc.resume.ResumeProperties;
+import com.github.xuchen93.grpc.server.impl.FileTransferServiceImpl;
+import com.google.protobuf.ByteString;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.StreamObserver;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 文件传输往返测试：分块上传后再下载，内容、每块和整个文件的CRC32C都与本地计算的一致
+ */
+class FileTransferServiceTests {
+
+	private static final int CHUNK_SIZE = 64 * 1024;
+
+	@TempDir
+	Path dir;
+
+	private FileStore fileStore;
+	private Server server;
+	private ManagedChannel channel;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		fileStore = new FileStore(dir.resolve("files"));
+		FileTransferProperties properties = new FileTransferProperties();
+		properties.setChunkSize(DataSize.ofBytes(CHUNK_SIZE));
+		String name = InProcessServerBuilder.generateName();
+		FusedServerPipeline pipeline = new FusedServerPipeline(List::of, MethodChainRules.NONE, new ExceptionStatusMapper());
+		server = InProcessServerBuilder.forName(name)
+				.addService(ServerInterceptors.intercept(new FileTransferServiceImpl(fileStore, properties,
+						new ResumeCheckpointStore(dir.resolve("resume"), Duration.ofHours(1)), new ResumeProperties()), pipeline))
+				.build()
+				.start();
+		channel = InProcessChannelBuilder.forName(name).build();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void uploadThenDownloadPreservesContentAndChecksum() throws Exception {
+		byte[] content = new byte[5 * CHUNK_SIZE + 17];
+		new Random(48).nextBytes(content);
+		int crc32c = crc32c(content, 0, content.length);
+
+		UploadResponse uploaded = upload("round-trip.bin", content, crc32c).get(10, TimeUnit.SECONDS);
+
+		assertEquals("round-trip.bin", uploaded.getFileName());
+		assertEquals(content.length, uploaded.getSize());
+		assertEquals(crc32c, uploaded.getCrc32C());
+		assertArrayEquals(content, Files.readAllBytes(fileStore.resolve("round-trip.bin")));
+		assertEquals(List.of("round-trip.bin"), storedFiles());
+
+		Iterator<DownloadResponse> responses = FileTransferServiceGrpc.newBlockingStub(channel)
+				.download(DownloadRequest.newBuilder().setFileName("round-trip.bin").setChunkSize(4096).build());
+		DownloadResponse first = responses.next();
+		assertEquals(DownloadResponse.PayloadCase.INFO, first.getPayloadCase());
+		assertEquals(content.length, first.getInfo().getSize());
+		ByteArrayOutputStream received = new ByteArrayOutputStream();
+		DownloadResponse response = responses.next();
+		while (response.getPayloadCase() == DownloadResponse.PayloadCase.CHUNK) {
+			FileChunk chunk = response.getChunk();
+			byte[] data = chunk.getData().toByteArray();
+			assertEquals(received.size(), chunk.getOffset());
+			assertEquals(crc32c(data, 0, data.length), chunk.getCrc32C());
+			received.write(data);
+			response = responses.next();
+		}
+		assertEquals(DownloadResponse.PayloadCase.CHECKSUM, response.getPayloadCase());
+		assertEquals(crc32c, response.getChecksum().getCrc32C());
+		assertFalse(responses.hasNext());
+		assertArrayEquals(content, received.toByteArray());
+	}
+
+	@Test
+	void uploadWithWrongChecksumLeavesNoFile() throws Exception {
+		byte[] content = new byte[2 * CHUNK_SIZE];
+		new Random(49).nextBytes(content);
+
+		ExecutionException e = assertThrows(ExecutionException.class,
+				() -> upload("corrupt.bin", content, crc32c(content, 0, content.length) + 1).get(10, TimeUnit.SECONDS));
+
+		assertInstanceOf(StatusRuntimeException.class, e.getCause());
+		assertEquals(List.of(), storedFiles());
+	}
+
+	@Test
+	void concurrentUploadsOfSameNameUseSeparatePartFiles() throws Exception {
+		byte[] first = new byte[4 * CHUNK_SIZE];
+		byte[] second = new byte[3 * CHUNK_SIZE + 5];
+		new Random(50).nextBytes(first);
+		new Random(51).nextBytes(second);
+
+		// 两个上传交错写入，第二个开始时第一个已写入一部分
+		Upload firstUpload = new Upload("shared.bin", first);
+		firstUpload.send(2 * CHUNK_SIZE);
+		awaitPartFiles(1);
+		Upload secondUpload = new Upload("shared.bin", second);
+		secondUpload.send(CHUNK_SIZE);
+		awaitPartFiles(2);
+		firstUpload.send(first.length);
+		secondUpload.send(second.length);
+
+		UploadResponse firstResponse = firstUpload.finish(crc32c(first, 0, first.length)).get(10, TimeUnit.SECONDS);
+		assertEquals(first.length, firstResponse.getSize());
+		assertArrayEquals(first, Files.readAllBytes(fileStore.resolve("shared.bin")));
+		UploadResponse secondResponse = secondUpload.finish(crc32c(second, 0, second.length)).get(10, TimeUnit.SECONDS);
+		assertEquals(second.length, secondResponse.getSize());
+		assertArrayEquals(second, Files.readAllBytes(fileStore.resolve("shared.bin")));
+		assertEquals(List.of("shared.bin"), storedFiles());
+	}
+
+	private CompletableFuture<UploadResponse> upload(String fileName, byte[] content, int fileCrc32c) {
+		Upload upload = new Upload(fileName, content);
+		upload.send(content.length);
+		return upload.finish(fileCrc32c);
+	}
+
+	/**
+	 * 直到存储目录下有count个.part文件，即服务端已处理了count个上传的info
+	 */
+	private void awaitPartFiles(int count) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (storedFiles().stream().filter(name -> name.endsWith(".part")).count() < count) {
+			assertTrue(System.nanoTime() < deadline, "Expected " + count + " part files, found " + storedFiles());
+			Thread.sleep(10);
+		}
+	}
+
+	/**
+	 * 存储目录下的文件名，传输结束后不应留下.part文件
+	 */
+	private List<String> storedFiles() throws IOException {
+		try (Stream<Path> files = Files.list(fileStore.root())) {
+			return files.map(path -> path.getFileName().toString()).sorted().toList();
+		}
+	}
+
+	/**
+	 * 分几次发送的上传
+	 */
+	private final class Upload {
+		private final byte[] content;
+		private final CompletableFuture<UploadResponse> result = new CompletableFuture<>();
+		private final StreamObserver<UploadRequest> requests;
+		private int sent;
+
+		Upload(String fileName, byte[] content) {
+			this.content = content;
+			requests = FileTransferServiceGrpc.newStub(channel).upload(new StreamObserver<>() {
+				@Override
+				public void onNext(UploadResponse value) {
+					result.complete(value);
+				}
+
+				@Override
+				public void onError(Throwable t) {
+					result.completeExceptionally(t);
+				}
+
+				@Override
+				public void onCompleted() {
+					assertTrue(result.isDone());
+				}
+			});
+			requests.onNext(UploadRequest.newBuilder()
+					.setInfo(FileInfo.newBuilder().setFileName(fileName).setSize(content.length))
+					.build());
+		}
+
+		/**
+		 * 按块发送到end为止的内容
+		 */
+		void send(int end) {
+			for (; sent < end; sent += CHUNK_SIZE) {
+				int length = Math.min(CHUNK_SIZE, content.length - sent);
+				requests.onNext(UploadRequest.newBuilder()
+						.setChunk(FileChunk.newBuilder()
+								.setOffset(sent)
+								.setData(ByteString.copyFrom(content, sent, length))
+								.setCrc32C(crc32c(content, sent, length)))
+						.build());
+			}
+		}
+
+		CompletableFuture<UploadResponse> finish(int fileCrc32c) {
+			requests.onNext(UploadRequest.newBuilder()
+					.setChecksum(FileChecksum.newBuilder().setCrc32C(fileCrc32c))
+					.build());
+			requests.onCompleted();
+			return result;
+		}
+	}
+
+	private static int crc32c(byte[] bytes, int offset, int length) {
+		CRC32C crc = new CRC32C();
+		crc.update(bytes, offset, length);
+		return (int) crc.getValue();
+	}
+}
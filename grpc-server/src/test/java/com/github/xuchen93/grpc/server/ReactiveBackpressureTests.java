@@ -0,0 +1,199 @@
+package com.github.xuchen93.grpc.server;
+
+import com.github.xuchen93.grpc.api.simple.BidirectionalChatMessage;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.ReactorHelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.server.impl.ReactiveHelloSimpleServiceImpl;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 响应式实现（ReactiveHelloSimpleServiceImpl）的背压测试
+ * 慢订阅者消费bidirectionalChat的回复时，客户端按需生成的请求消息数与已消费回复数之差应始终有界：
+ * 服务端只在回复被拉取时才拉取下一条请求，消息不会在任一端的内存中随流长度堆积；
+ * 慢订阅者消费streamHello时，服务端已发送的响应数与已消费数之差同样有界
+ * 另外检查响应式实现与StreamObserver实现的错误语义一致
+ */
+@Slf4j
+class ReactiveBackpressureTests {
+
+	private static final int TOTAL = 10_000;
+
+	/**
+	 * 允许的最大在途消息数：reactor-grpc两端的预取窗口之和再留出余量，远小于TOTAL
+	 */
+	private static final long MAX_IN_FLIGHT = 2_000;
+
+	private Server server;
+	private ManagedChannel channel;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		String name = InProcessServerBuilder.generateName();
+		server = InProcessServerBuilder.forName(name)
+				.addService(new ReactiveHelloSimpleServiceImpl())
+				.build()
+				.start();
+		channel = InProcessChannelBuilder.forName(name).build();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void slowSubscriberKeepsInFlightBounded() {
+		AtomicLong produced = new AtomicLong();
+		AtomicLong consumed = new AtomicLong();
+		AtomicLong maxInFlight = new AtomicLong();
+
+		// Flux.range只在有需求时生成下一条，produced即服务端已经拉取的请求数
+		Flux<BidirectionalChatMessage> requests = Flux.range(1, TOTAL)
+				.map(i -> BidirectionalChatMessage.newBuilder().setUsername("slow-subscriber").setMessage("#" + i).build())
+				.doOnNext(message -> produced.incrementAndGet());
+
+		List<BidirectionalChatMessage> replies = ReactorHelloSimpleServiceGrpc.newReactorStub(channel)
+				.bidirectionalChat(requests)
+				.limitRate(16)
+				.doOnNext(reply -> {
+					// 慢订阅者：每条消息处理约0.1ms
+					LockSupport.parkNanos(100_000);
+					long inFlight = produced.get() - consumed.incrementAndGet();
+					maxInFlight.accumulateAndGet(inFlight, Math::max);
+				})
+				.collectList()
+				.block(Duration.ofSeconds(60));
+
+		log.info("produced={}, consumed={}, maxInFlight={}", produced.get(), consumed.get(), maxInFlight.get());
+		// 每条请求一条回复，最后是结束语
+		assertEquals(TOTAL + 1, replies.size());
+		assertEquals("Echo: #1", replies.get(0).getMessage());
+		assertEquals("Echo: #" + TOTAL, replies.get(TOTAL - 1).getMessage());
+		assertEquals("聊天结束，再见！", replies.get(TOTAL).getMessage());
+		assertTrue(maxInFlight.get() < MAX_IN_FLIGHT, "服务端未按订阅者需求拉取: maxInFlight=" + maxInFlight.get());
+	}
+
+	@Test
+	void slowSubscriberThrottlesStreamHello() throws Exception {
+		AtomicLong produced = new AtomicLong();
+		AtomicLong consumed = new AtomicLong();
+		AtomicLong maxInFlight = new AtomicLong();
+		// 统计服务端实际发出的响应数，即生产者已经生成的条数
+		ServerInterceptor countSent = new ServerInterceptor() {
+			@Override
+			public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+																		 ServerCallHandler<ReqT, RespT> next) {
+				return next.startCall(new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+					@Override
+					public void sendMessage(RespT message) {
+						produced.incrementAndGet();
+						super.sendMessage(message);
+					}
+				}, headers);
+			}
+		};
+		String name = InProcessServerBuilder.generateName();
+		Server streamServer = InProcessServerBuilder.forName(name)
+				.addService(ServerInterceptors.intercept(new ReactiveHelloSimpleServiceImpl(TOTAL, Duration.ZERO), countSent))
+				.build()
+				.start();
+		ManagedChannel streamChannel = InProcessChannelBuilder.forName(name).build();
+		try {
+			List<Long> sequences = ReactorHelloSimpleServiceGrpc.newReactorStub(streamChannel)
+					.streamHello(HelloSimpleRequest.newBuilder().setName("slow-subscriber").build())
+					.limitRate(16)
+					.doOnNext(response -> {
+						// 慢订阅者：每条消息处理约0.1ms
+						LockSupport.parkNanos(100_000);
+						long inFlight = produced.get() - consumed.incrementAndGet();
+						maxInFlight.accumulateAndGet(inFlight, Math::max);
+					})
+					.map(HelloSimpleResponse::getSequence)
+					.collectList()
+					.block(Duration.ofSeconds(60));
+
+			log.info("produced={}, consumed={}, maxInFlight={}", produced.get(), consumed.get(), maxInFlight.get());
+			assertEquals(TOTAL, sequences.size());
+			assertEquals(1L, sequences.get(0));
+			assertEquals(TOTAL, sequences.get(TOTAL - 1));
+			assertTrue(maxInFlight.get() < MAX_IN_FLIGHT, "服务端未按订阅者需求生产: maxInFlight=" + maxInFlight.get());
+		} finally {
+			streamChannel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+			streamServer.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		}
+	}
+
+	@Test
+	void invalidChatMessageDoesNotEndChat() throws Exception {
+		Sinks.Many<BidirectionalChatMessage> requests = Sinks.many().unicast().onBackpressureBuffer();
+		List<BidirectionalChatMessage> replies = new CopyOnWriteArrayList<>();
+		CompletableFuture<Void> finished = new CompletableFuture<>();
+		ReactorHelloSimpleServiceGrpc.newReactorStub(channel)
+				.bidirectionalChat(requests.asFlux())
+				.subscribe(replies::add, finished::completeExceptionally, () -> finished.complete(null));
+
+		requests.tryEmitNext(chatMessage("alice", "hello"));
+		// 用户名为空：INVALID_ARGUMENT，回复错误消息
+		requests.tryEmitNext(chatMessage("", "hello"));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (replies.size() < 2 && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		// 与StreamObserver实现一致：之后的消息被忽略，但聊天直到客户端结束发送才结束
+		requests.tryEmitNext(chatMessage("alice", "ignored"));
+		Thread.sleep(200);
+		assertFalse(finished.isDone(), "INVALID_ARGUMENT不应结束聊天");
+
+		requests.tryEmitComplete();
+		finished.get(5, TimeUnit.SECONDS);
+		assertEquals(2, replies.size());
+		assertEquals("Echo: hello", replies.get(0).getMessage());
+		assertTrue(replies.get(1).getIsError());
+	}
+
+	@Test
+	void streamHelloDeliversOnDemand() {
+		// 每次只请求一条，续传时从resume_from的下一条开始
+		List<Long> sequences = ReactorHelloSimpleServiceGrpc.newReactorStub(channel)
+				.streamHello(HelloSimpleRequest.newBuilder().setName("slow-subscriber").setResumeFrom(3).build())
+				.limitRate(1)
+				.map(HelloSimpleResponse::getSequence)
+				.collectList()
+				.block(Duration.ofSeconds(10));
+
+		assertEquals(List.of(4L, 5L), sequences);
+	}
+
+	private static BidirectionalChatMessage chatMessage(String username, String message) {
+		return BidirectionalChatMessage.newBuilder().setUsername(username).setMessage(message).build();
+	}
+}
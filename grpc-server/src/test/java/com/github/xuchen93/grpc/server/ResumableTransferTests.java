@@ -0,0 +1,588 @@
+package com.github.xuchen93.grpc.server;
+
+import com.github.xuchen93.grpc.api.file.DownloadResponse;
+import com.github.xuchen93.grpc.api.file.FileTransferServiceGrpc;
+import com.github.xuchen93.grpc.api.file.UploadRequest;
+import com.github.xuchen93.grpc.api.file.UploadResponse;
+import com.github.xuchen93.grpc.api.resume.ResumeOffset;
+import com.github.xuchen93.grpc.api.resume.ResumeQuery;
+import com.github.xuchen93.grpc.api.resume.ResumeServiceGrpc;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleRequest;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleResponse;
+import com.github.xuchen93.grpc.api.simple.HelloSimpleServiceGrpc;
+import com.github.xuchen93.grpc.api.simple.StreamRequestChunk;
+import com.github.xuchen93.grpc.api.simple.StreamResponseSummary;
+import com.github.xuchen93.grpc.auth.AuthPrincipal;
+import com.github.xuchen93.grpc.context.RequestContext;
+import com.github.xuchen93.grpc.exception.ExceptionStatusMapper;
+import com.github.xuchen93.grpc.file.FileChunkWriter;
+import com.github.xuchen93.grpc.file.FileStore;
+import com.github.xuchen93.grpc.file.FileTransferClient;
+import com.github.xuchen93.grpc.file.FileTransferProperties;
+import com.github.xuchen93.grpc.interceptor.InterceptorKeys;
+import com.github.xuchen93.grpc.interceptor.chain.MethodChainRules;
+import com.github.xuchen93.grpc.interceptor.pipeline.FusedServerPipeline;
+import com.github.xuchen93.grpc.resume.ResumeCheckpointStore;
+import com.github.xuchen93.grpc.resume.ResumeProperties;
+import com.github.xuchen93.grpc.server.impl.FileTransferServiceImpl;
+import com.github.xuchen93.grpc.server.impl.HelloSimpleServiceImpl;
+import com.github.xuchen93.grpc.server.impl.ResumeServiceImpl;
+import com.github.xuchen93.grpc.trace.TraceContext;
+import io.grpc.CallOptions;
+import io.grpc.Channel;
+import io.grpc.ClientCall;
+import io.grpc.ClientInterceptor;
+import io.grpc.Context;
+import io.grpc.Contexts;
+import io.grpc.ForwardingClientCall;
+import io.grpc.ForwardingClientCallListener;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.ManagedChannel;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.Server;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import io.grpc.stub.MetadataUtils;
+import io.grpc.stub.StreamObserver;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * 续传测试：在随机位置中断流式调用，重连后从已确认的位置继续，最终结果应与不中断时一致
+ * 中断由客户端拦截器完成：流式调用发送或收到随机条数的消息后取消，之后的发送被丢弃；
+ * 随机种子输出在日志中，失败时可复现
+ */
+@Slf4j
+class ResumableTransferTests {
+
+	private static final int MAX_ATTEMPTS = 200;
+	private static final int CHUNK_SIZE = 4 * 1024;
+	private static final DataSize CHECKPOINT_BYTES = DataSize.ofKilobytes(16);
+	private static final Metadata.Key<String> SUBJECT_KEY = Metadata.Key.of("x-test-subject", Metadata.ASCII_STRING_MARSHALLER);
+	private static final Metadata.Key<String> CALL_KEY = Metadata.Key.of("x-test-call", Metadata.ASCII_STRING_MARSHALLER);
+
+	@TempDir
+	Path dir;
+
+	private final long seed = System.nanoTime();
+	private final Random random = new Random(seed);
+	private final Acknowledgements acknowledgements = new Acknowledgements();
+	private final Interrupter interrupter = new Interrupter(acknowledgements);
+
+	private ResumeCheckpointStore checkpoints;
+	private FileStore fileStore;
+	private Server server;
+	private ManagedChannel channel;
+
+	@BeforeEach
+	void setUp() throws Exception {
+		log.info("seed={}", seed);
+		checkpoints = new ResumeCheckpointStore(dir.resolve("resume"), Duration.ofHours(1));
+		fileStore = new FileStore(dir.resolve("files"));
+		FileTransferProperties fileProperties = new FileTransferProperties();
+		fileProperties.setChunkSize(DataSize.ofBytes(CHUNK_SIZE));
+		ResumeProperties resumeProperties = new ResumeProperties();
+		resumeProperties.setCheckpointMessages(8);
+		resumeProperties.setCheckpointBytes(CHECKPOINT_BYTES);
+
+		String name = InProcessServerBuilder.generateName();
+		FusedServerPipeline pipeline = new FusedServerPipeline(List::of, MethodChainRules.NONE, new ExceptionStatusMapper());
+		server = InProcessServerBuilder.forName(name)
+				.addService(ServerInterceptors.intercept(new HelloSimpleServiceImpl(checkpoints, resumeProperties), pipeline))
+				.addService(ServerInterceptors.intercept(
+						new FileTransferServiceImpl(fileStore, fileProperties, checkpoints, resumeProperties), pipeline))
+				.addService(new ResumeServiceImpl(checkpoints))
+				.intercept(new TestAuthentication())
+				.intercept(acknowledgements)
+				.build()
+				.start();
+		channel = InProcessChannelBuilder.forName(name)
+				.intercept(interrupter)
+				.build();
+	}
+
+	@AfterEach
+	void tearDown() throws Exception {
+		channel.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+		server.shutdownNow().awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	@Test
+	void uploadResumesFromAcknowledgedOffset() throws Exception {
+		byte[] content = randomBytes(1024 * 1024 + 17);
+		Path source = Files.write(dir.resolve("source.bin"), content);
+		FileTransferClient client = fileTransferClient();
+		String token = UUID.randomUUID().toString();
+
+		UploadResponse response = withRetries(64,
+				() -> client.upload(source, "upload.bin", token).get(10, TimeUnit.SECONDS));
+
+		assertEquals(content.length, response.getSize());
+		assertArrayEquals(content, Files.readAllBytes(fileStore.resolve("upload.bin")));
+		assertFalse(Files.exists(FileChunkWriter.partFile(fileStore.resolve("upload.bin"), token)));
+		assertNull(checkpoints.find(token, null));
+		assertResumed(content.length);
+	}
+
+	@Test
+	void uploadsOfSameNameWithDifferentTokensKeepSeparateParts() throws Exception {
+		byte[] first = randomBytes(8 * CHUNK_SIZE);
+		byte[] second = randomBytes(6 * CHUNK_SIZE + 17);
+		Path firstSource = Files.write(dir.resolve("first.bin"), first);
+		Path secondSource = Files.write(dir.resolve("second.bin"), second);
+		FileTransferClient client = fileTransferClient();
+		String firstToken = UUID.randomUUID().toString();
+		String secondToken = UUID.randomUUID().toString();
+
+		// 两个令牌先后上传同名文件，都在写入3块后中断，各自的.part文件和检查点互不影响
+		interrupter.budget = 3;
+		assertThrows(ExecutionException.class, () -> client.upload(firstSource, "shared.bin", firstToken).get(10, TimeUnit.SECONDS));
+		awaitCheckpoint(firstToken);
+		assertThrows(ExecutionException.class, () -> client.upload(secondSource, "shared.bin", secondToken).get(10, TimeUnit.SECONDS));
+		awaitCheckpoint(secondToken);
+		assertEquals(3 * CHUNK_SIZE, checkpoints.find(firstToken, null).getOffset());
+		assertEquals(3 * CHUNK_SIZE, checkpoints.find(secondToken, null).getOffset());
+
+		interrupter.budget = Integer.MAX_VALUE;
+		UploadResponse firstResponse = client.upload(firstSource, "shared.bin", firstToken).get(10, TimeUnit.SECONDS);
+		assertEquals(first.length, firstResponse.getSize());
+		assertArrayEquals(first, Files.readAllBytes(fileStore.resolve("shared.bin")));
+		UploadResponse secondResponse = client.upload(secondSource, "shared.bin", secondToken).get(10, TimeUnit.SECONDS);
+		assertEquals(second.length, secondResponse.getSize());
+		assertArrayEquals(second, Files.readAllBytes(fileStore.resolve("shared.bin")));
+
+		// 每个令牌都从自己的检查点继续，没有重传
+		assertEquals(first.length + second.length, interrupter.chunkBytes.get());
+		assertFalse(Files.exists(FileChunkWriter.partFile(fileStore.resolve("shared.bin"), firstToken)));
+		assertFalse(Files.exists(FileChunkWriter.partFile(fileStore.resolve("shared.bin"), secondToken)));
+	}
+
+	@Test
+	void downloadResumesFromPartialFile() throws Exception {
+		byte[] content = randomBytes(1024 * 1024 + 17);
+		Files.write(fileStore.resolve("download.bin"), content);
+		Path target = dir.resolve("downloads").resolve("download.bin");
+		FileTransferClient client = fileTransferClient();
+
+		withRetries(64, () -> client.download("download.bin", target).get(10, TimeUnit.SECONDS));
+
+		assertArrayEquals(content, Files.readAllBytes(target));
+		assertFalse(Files.exists(FileChunkWriter.partFile(target)));
+		assertResumed(content.length);
+	}
+
+	@Test
+	void clientStreamHelloResumesFromCheckpoint() throws Exception {
+		int total = 500;
+		String token = UUID.randomUUID().toString();
+		HelloSimpleServiceGrpc.HelloSimpleServiceStub stub = HelloSimpleServiceGrpc.newStub(channel);
+		ResumeServiceGrpc.ResumeServiceBlockingStub resumeStub = ResumeServiceGrpc.newBlockingStub(channel);
+		AtomicInteger resumedAttempts = new AtomicInteger();
+
+		StreamResponseSummary summary = withRetries(128, () -> {
+			awaitReleased(token);
+			ResumeOffset offset = resumeStub.queryOffset(ResumeQuery.newBuilder().setResumeToken(token).build());
+			if (offset.getOffset() > 0) {
+				resumedAttempts.incrementAndGet();
+			}
+			CompletableFuture<StreamResponseSummary> result = new CompletableFuture<>();
+			StreamObserver<StreamRequestChunk> requests = stub.clientStreamHello(completeWith(result));
+			// 先单独发送令牌，所有分片都已确认时也能正常结束
+			requests.onNext(StreamRequestChunk.newBuilder().setResumeToken(token).build());
+			for (long i = offset.getOffset() + 1; i <= total; i++) {
+				requests.onNext(StreamRequestChunk.newBuilder()
+						.setSequence(i)
+						.setNumber(i)
+						.build());
+			}
+			requests.onCompleted();
+			return result.get(10, TimeUnit.SECONDS);
+		});
+
+		assertEquals(total, summary.getChunkCount());
+		assertEquals(LongStream.rangeClosed(1, total).sum(), summary.getTotalNumber());
+		assertNull(checkpoints.find(token, null));
+		assertTrue(interrupter.interruptions.get() > 0, "未发生中断");
+		assertTrue(resumedAttempts.get() > 0, "没有一次从检查点继续");
+	}
+
+	@Test
+	void streamHelloResumesFromLastReceived() throws Exception {
+		HelloSimpleServiceGrpc.HelloSimpleServiceBlockingStub stub = HelloSimpleServiceGrpc.newBlockingStub(channel);
+		List<HelloSimpleResponse> received = new ArrayList<>();
+
+		withRetries(3, () -> {
+			Iterator<HelloSimpleResponse> responses = stub.streamHello(HelloSimpleRequest.newBuilder()
+					.setName("resume")
+					.setResumeFrom(received.size())
+					.build());
+			while (responses.hasNext()) {
+				received.add(responses.next());
+			}
+			return received;
+		});
+
+		assertEquals(LongStream.rangeClosed(1, 5).boxed().toList(),
+				received.stream().map(HelloSimpleResponse::getSequence).toList());
+		assertEquals(LongStream.rangeClosed(1, 5).mapToObj(i -> "Stream Response #" + i + " to resume").toList(),
+				received.stream().map(HelloSimpleResponse::getMessage).toList());
+		assertTrue(interrupter.interruptions.get() > 0, "未发生中断");
+	}
+
+	@Test
+	void resumeTokenIsBoundToCaller() throws Exception {
+		String token = UUID.randomUUID().toString();
+		HelloSimpleServiceGrpc.HelloSimpleServiceStub alice = HelloSimpleServiceGrpc.newStub(channel).withInterceptors(as("alice"));
+		HelloSimpleServiceGrpc.HelloSimpleServiceStub bob = HelloSimpleServiceGrpc.newStub(channel).withInterceptors(as("bob"));
+		ResumeServiceGrpc.ResumeServiceBlockingStub resumeStub = ResumeServiceGrpc.newBlockingStub(channel);
+
+		// alice发送3个分片后跳号，服务端按序处理，拒绝时在第3条处保存检查点
+		CompletableFuture<StreamResponseSummary> interrupted = new CompletableFuture<>();
+		StreamObserver<StreamRequestChunk> requests = alice.clientStreamHello(completeWith(interrupted));
+		requests.onNext(StreamRequestChunk.newBuilder().setResumeToken(token).build());
+		for (long i = 1; i <= 3; i++) {
+			requests.onNext(StreamRequestChunk.newBuilder().setSequence(i).setNumber(i).build());
+		}
+		requests.onNext(StreamRequestChunk.newBuilder().setSequence(5).setNumber(5).build());
+		requests.onCompleted();
+		assertThrows(ExecutionException.class, () -> interrupted.get(5, TimeUnit.SECONDS));
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while ((checkpoints.isInUse(token) || checkpoints.find(token, "alice") == null) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		assertEquals(3, checkpoints.find(token, "alice").getOffset());
+
+		// 其他身份查询不到，也不能续传
+		ResumeOffset bobOffset = resumeStub.withInterceptors(as("bob"))
+				.queryOffset(ResumeQuery.newBuilder().setResumeToken(token).build());
+		assertFalse(bobOffset.getFound());
+		assertEquals(0, bobOffset.getOffset());
+		assertFalse(resumeStub.queryOffset(ResumeQuery.newBuilder().setResumeToken(token).build()).getFound());
+
+		CompletableFuture<StreamResponseSummary> rejected = new CompletableFuture<>();
+		StreamObserver<StreamRequestChunk> bobRequests = bob.clientStreamHello(completeWith(rejected));
+		bobRequests.onNext(StreamRequestChunk.newBuilder().setResumeToken(token).build());
+		bobRequests.onNext(StreamRequestChunk.newBuilder().setSequence(4).setNumber(4).build());
+		bobRequests.onCompleted();
+		ExecutionException e = assertThrows(ExecutionException.class, () -> rejected.get(5, TimeUnit.SECONDS));
+		assertEquals(Status.Code.PERMISSION_DENIED, assertInstanceOf(StatusRuntimeException.class, e.getCause()).getStatus().getCode());
+
+		// 被拒绝的调用不影响原身份的检查点，alice仍可继续
+		ResumeOffset aliceOffset = resumeStub.withInterceptors(as("alice"))
+				.queryOffset(ResumeQuery.newBuilder().setResumeToken(token).build());
+		assertTrue(aliceOffset.getFound());
+		assertEquals(3, aliceOffset.getOffset());
+		CompletableFuture<StreamResponseSummary> resumed = new CompletableFuture<>();
+		StreamObserver<StreamRequestChunk> aliceRequests = alice.clientStreamHello(completeWith(resumed));
+		aliceRequests.onNext(StreamRequestChunk.newBuilder().setResumeToken(token).build());
+		aliceRequests.onNext(StreamRequestChunk.newBuilder().setSequence(4).setNumber(4).build());
+		aliceRequests.onCompleted();
+		StreamResponseSummary summary = resumed.get(5, TimeUnit.SECONDS);
+		assertNotNull(summary);
+		assertEquals(4, summary.getChunkCount());
+		assertEquals(10, summary.getTotalNumber());
+		assertNull(checkpoints.find(token, "alice"));
+	}
+
+	/**
+	 * 等待服务端处理完上一次调用的取消、释放令牌
+	 */
+	private void awaitReleased(String token) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (checkpoints.isInUse(token) && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+	}
+
+	/**
+	 * 等待服务端处理完中断、保存检查点并释放令牌
+	 */
+	private void awaitCheckpoint(String token) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while ((checkpoints.isInUse(token) || checkpoints.find(token, null) == null) && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+	}
+
+	private static ClientInterceptor as(String subject) {
+		Metadata headers = new Metadata();
+		headers.put(SUBJECT_KEY, subject);
+		return MetadataUtils.newAttachHeadersInterceptor(headers);
+	}
+
+	private FileTransferClient fileTransferClient() {
+		return new FileTransferClient(FileTransferServiceGrpc.newStub(channel), ResumeServiceGrpc.newStub(channel), CHUNK_SIZE);
+	}
+
+	/**
+	 * 每次尝试前随机设置中断点（1到maxBudget条消息），失败后重试，直到某次尝试完整结束
+	 */
+	private <T> T withRetries(int maxBudget, Callable<T> attempt) throws Exception {
+		for (int i = 1; i <= MAX_ATTEMPTS; i++) {
+			interrupter.budget = 1 + random.nextInt(maxBudget);
+			try {
+				T result = attempt.call();
+				log.info("attempts={}, interruptions={}, chunkBytes={}", i, interrupter.interruptions.get(), interrupter.chunkBytes.get());
+				return result;
+			} catch (Exception e) {
+				log.debug("attempt {} interrupted: {}", i, e.toString());
+				// 给服务端处理上次断开（保存检查点、释放令牌）的时间
+				Thread.sleep(5);
+			}
+		}
+		return fail("Transfer did not finish in " + MAX_ATTEMPTS + " attempts, seed=" + seed);
+	}
+
+	/**
+	 * 续传而不是从头开始：每次中断最多重传一个检查点间隔加上在途的几个块
+	 */
+	private void assertResumed(long size) {
+		int interruptions = interrupter.interruptions.get();
+		assertTrue(interruptions > 0, "未发生中断");
+		long maxBytes = size + interruptions * (CHECKPOINT_BYTES.toBytes() + 8L * CHUNK_SIZE);
+		assertTrue(interrupter.chunkBytes.get() <= maxBytes,
+				"传输了 " + interrupter.chunkBytes.get() + " 字节，续传时应不超过 " + maxBytes + ", seed=" + seed);
+	}
+
+	private byte[] randomBytes(int size) {
+		byte[] bytes = new byte[size];
+		random.nextBytes(bytes);
+		return bytes;
+	}
+
+	private static <T> StreamObserver<T> completeWith(CompletableFuture<T> result) {
+		return new StreamObserver<>() {
+			@Override
+			public void onNext(T value) {
+				result.complete(value);
+			}
+
+			@Override
+			public void onError(Throwable t) {
+				result.completeExceptionally(t);
+			}
+
+			@Override
+			public void onCompleted() {
+			}
+		};
+	}
+
+	/**
+	 * 按x-test-subject请求头设置已认证的请求上下文，代替认证拦截器；没有该请求头时为匿名调用
+	 */
+	private static final class TestAuthentication implements ServerInterceptor {
+		@Override
+		public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+																	 ServerCallHandler<ReqT, RespT> next) {
+			String subject = headers.get(SUBJECT_KEY);
+			if (subject == null) {
+				return next.startCall(call, headers);
+			}
+			RequestContext requestContext = RequestContext.of(TraceContext.newRoot(), headers)
+					.withPrincipal(new AuthPrincipal(subject, "token-" + subject, AuthPrincipal.NEVER_EXPIRES, Map.of()));
+			Context context = Context.current().withValue(InterceptorKeys.REQUEST_CONTEXT_KEY, requestContext);
+			return Contexts.interceptCall(context, call, headers, next);
+		}
+	}
+
+	/**
+	 * 按x-test-call请求头统计每个调用中服务方法已处理完的请求消息数
+	 */
+	private static final class Acknowledgements implements ServerInterceptor {
+		private final Map<String, AtomicInteger> processed = new ConcurrentHashMap<>();
+
+		int processed(String call) {
+			AtomicInteger count = processed.get(call);
+			return count != null ? count.get() : 0;
+		}
+
+		@Override
+		public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+																	 ServerCallHandler<ReqT, RespT> next) {
+			String id = headers.get(CALL_KEY);
+			if (id == null) {
+				return next.startCall(call, headers);
+			}
+			AtomicInteger count = processed.computeIfAbsent(id, key -> new AtomicInteger());
+			return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(next.startCall(call, headers)) {
+				@Override
+				public void onMessage(ReqT message) {
+					super.onMessage(message);
+					count.incrementAndGet();
+				}
+			};
+		}
+	}
+
+	/**
+	 * 流式调用在发送和收到的数据消息（文件块、分片、响应）合计达到budget条时被取消，模拟连接在任意位置断开，
+	 * 之后的发送和收到的消息都被丢弃；一元调用不受影响
+	 * 因发送而取消时，先等服务端处理完已发送的消息：进程内传输取消时会丢弃服务端尚未请求的消息，
+	 * 不等待时中断位置取决于线程调度，可能每次都在服务端处理任何分片之前
+	 * 同时统计文件块的字节数，用于检查续传时没有重传整个文件
+	 */
+	private static final class Interrupter implements ClientInterceptor {
+		private final Acknowledgements acknowledgements;
+		private final AtomicInteger interruptions = new AtomicInteger();
+		private final AtomicLong chunkBytes = new AtomicLong();
+		private volatile int budget = Integer.MAX_VALUE;
+
+		Interrupter(Acknowledgements acknowledgements) {
+			this.acknowledgements = acknowledgements;
+		}
+
+		@Override
+		public <ReqT, RespT> ClientCall<ReqT, RespT> interceptCall(MethodDescriptor<ReqT, RespT> method,
+																   CallOptions callOptions, Channel next) {
+			ClientCall<ReqT, RespT> call = next.newCall(method, callOptions);
+			if (method.getType() == MethodDescriptor.MethodType.UNARY) {
+				return call;
+			}
+			return new InterruptingCall<>(call, budget);
+		}
+
+		private final class InterruptingCall<ReqT, RespT> extends ForwardingClientCall.SimpleForwardingClientCall<ReqT, RespT> {
+			private final String id = UUID.randomUUID().toString();
+			private final AtomicInteger remaining;
+			private final AtomicInteger sent = new AtomicInteger();
+			private volatile boolean interrupted;
+			private volatile boolean closed;
+
+			InterruptingCall(ClientCall<ReqT, RespT> delegate, int budget) {
+				super(delegate);
+				this.remaining = new AtomicInteger(budget);
+			}
+
+			@Override
+			public void start(Listener<RespT> responseListener, Metadata headers) {
+				headers.put(CALL_KEY, id);
+				super.start(new ForwardingClientCallListener.SimpleForwardingClientCallListener<>(responseListener) {
+					@Override
+					public void onMessage(RespT message) {
+						if (interrupted) {
+							return;
+						}
+						if (message instanceof DownloadResponse response && response.hasChunk()) {
+							chunkBytes.addAndGet(response.getChunk().getData().size());
+						}
+						super.onMessage(message);
+						countDown(message, false);
+					}
+
+					@Override
+					public void onClose(Status status, Metadata trailers) {
+						closed = true;
+						super.onClose(status, trailers);
+					}
+				}, headers);
+			}
+
+			@Override
+			public void sendMessage(ReqT message) {
+				if (interrupted) {
+					return;
+				}
+				if (message instanceof UploadRequest request && request.hasChunk()) {
+					chunkBytes.addAndGet(request.getChunk().getData().size());
+				}
+				super.sendMessage(message);
+				sent.incrementAndGet();
+				countDown(message, true);
+			}
+
+			@Override
+			public void halfClose() {
+				if (!interrupted) {
+					super.halfClose();
+				}
+			}
+
+			@Override
+			public boolean isReady() {
+				return !interrupted && super.isReady();
+			}
+
+			private void countDown(Object message, boolean sending) {
+				if (isData(message) && remaining.decrementAndGet() == 0) {
+					if (sending) {
+						awaitProcessed();
+					}
+					interrupted = true;
+					interruptions.incrementAndGet();
+					cancel("Interrupted by test", null);
+				}
+			}
+
+			/**
+			 * 服务端拒绝某条消息并关闭调用时，之后的消息不会再被处理，收到关闭即停止等待
+			 */
+			private void awaitProcessed() {
+				long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+				while (!closed && acknowledgements.processed(id) < sent.get() && System.nanoTime() < deadline) {
+					try {
+						Thread.sleep(1);
+					} catch (InterruptedException e) {
+						Thread.currentThread().interrupt();
+						return;
+					}
+				}
+			}
+		}
+
+		/**
+		 * 文件传输的info和checksum、只携带令牌的分片不计数：中断总发生在数据之后
+		 */
+		private static boolean isData(Object message) {
+			if (message instanceof UploadRequest request) {
+				return request.hasChunk();
+			}
+			if (message instanceof DownloadResponse response) {
+				return response.hasChunk();
+			}
+			if (message instanceof StreamRequestChunk chunk) {
+				return chunk.getSequence() > 0;
+			}
+			return true;
+		}
+	}
+}